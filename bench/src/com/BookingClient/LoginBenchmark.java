@@ -0,0 +1,46 @@
+package src.com.BookingClient;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for CLI.login against large user lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int numUsers;
+
+    private final ArrayList<User> users = new ArrayList<>();
+    private String lastUsername;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < numUsers; i++) {
+            users.add(new Customer("Bench User", "user" + i, "user" + i + "@bench.com", "07000000000", "BenchUser25%", "01/01/2000", "1 Bench Lane, Bench, BE1 1CH"));
+        }
+        lastUsername = "user" + (numUsers-1); // Worst case (last user in the list)
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // login() prints on success
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public User login() {
+        return CLI.login(lastUsername, "BenchUser25%", users);
+    }
+}
@@ -0,0 +1,51 @@
+package src.com.BookingClient;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for Promotion construction (range validation) and seat price recalculation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromotionBenchmark {
+    @Param({"1", "10", "100"})
+    public int numTiers;
+
+    @Param({"20", "1000"})
+    public int seatsPerTier;
+
+    private float[] priceModifiers;
+    private int[][] seatRanges;
+    private Show show;
+    private Promotion promotion;
+
+    @Setup
+    public void setUp() {
+        priceModifiers = new float[numTiers];
+        seatRanges = new int[numTiers][2];
+        for (int i = 0; i < numTiers; i++) {
+            priceModifiers[i] = 0.5f + (i % 10) / 10f;
+            seatRanges[i][0] = i*seatsPerTier;
+            seatRanges[i][1] = (i+1)*seatsPerTier - 1;
+        }
+        promotion = new Promotion("Benchmark Promotion", priceModifiers, seatRanges);
+        show = new Show("Benchmark Show", System.currentTimeMillis(), 100, 100);
+    }
+
+    @Benchmark
+    public Promotion construct() {
+        return new Promotion("Benchmark Promotion", priceModifiers, seatRanges);
+    }
+
+    @Benchmark
+    public Show calculateSeatPrices() {
+        show.setPromotion(promotion); // Recalculates every seat price
+        return show;
+    }
+}
@@ -0,0 +1,54 @@
+package src.com.BookingClient;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for automatic seat selection and seat diagram rendering on a partially booked show.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatSelectionBenchmark {
+    @Param({"20x27", "100x100"})
+    public String venueSize; // 'rows x columns'
+
+    @Param({"0.5", "0.95"})
+    public double occupancy; // Fraction of seats booked before selecting
+
+    @Param({"4"})
+    public int numTickets;
+
+    private Venue venue;
+    private Show show;
+    private final float[] priceRange = new float[]{0f, 100f};
+
+    @Setup
+    public void setUp() {
+        String[] size = venueSize.split("x");
+        venue = new Venue("Benchmark Venue", Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        show = new Show("Benchmark Show", System.currentTimeMillis(), venue.getNumRows(), venue.getNumCols());
+        venue.addShow(show);
+        // Book the front seats so automatic selection has to scan past them
+        Seat[] seats = show.getSeats();
+        int booked = (int) (seats.length * occupancy);
+        for (int i = 0; i < booked; i++) {
+            seats[i].setBooked();
+        }
+    }
+
+    @Benchmark
+    public List<Seat> autoPick() {
+        return CLI.autoPickSeats(show, numTickets, priceRange);
+    }
+
+    @Benchmark
+    public String renderSeats() {
+        return CLI.renderSeats(venue, show.getID());
+    }
+}
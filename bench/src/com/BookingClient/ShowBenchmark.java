@@ -0,0 +1,54 @@
+package src.com.BookingClient;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for Show construction and seat lookups across different venue sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShowBenchmark {
+    @Param({"20x27", "100x100", "300x300"})
+    public String venueSize; // 'rows x columns'
+
+    private int numRows;
+    private int numCols;
+    private long time;
+    private Show show;
+    private int lastSeatID;
+    private String lastSeatName;
+
+    @Setup
+    public void setUp() {
+        String[] size = venueSize.split("x");
+        numRows = Integer.parseInt(size[0]);
+        numCols = Integer.parseInt(size[1]);
+        time = System.currentTimeMillis();
+        show = new Show("Benchmark Show", time, numRows, numCols);
+        Seat[] seats = show.getSeats();
+        // Worst case lookups (last seat in the array)
+        lastSeatID = seats[seats.length-1].getID();
+        lastSeatName = seats[seats.length-1].getPos();
+    }
+
+    @Benchmark
+    public Show construct() {
+        return new Show("Benchmark Show", time, numRows, numCols);
+    }
+
+    @Benchmark
+    public Seat getSeatByID() {
+        return show.getSeat(lastSeatID);
+    }
+
+    @Benchmark
+    public Seat getSeatByName() {
+        return show.getSeat(lastSeatName);
+    }
+}
@@ -0,0 +1,218 @@
+package src.com.BookingClient;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for a show. Sessions take a ticket and wait in a FIFO virtual queue until there is room for another
+ * active shopper (at most maxActive at a time) and a token is available (tokens refill at ratePerSecond, up to burst).
+ * Only the session at the head of the queue is woken when it can be admitted, so a large queue does not stampede.
+ * By default the gate is unlimited and admits everyone immediately.
+ */
+public class AdmissionGate {
+    /**
+     * A session's place in the queue.
+     */
+    public class Ticket {
+        private final long number; // Order the ticket was taken in
+        private final Condition turn = lock.newCondition(); // Signalled when this ticket reaches the head of the queue
+        private boolean admitted;
+        private long admittedAt;
+
+        private Ticket(long number) { this.number = number; }
+
+        public boolean isAdmitted() { return admitted; }
+    }
+
+    /**
+     * Receives queue position updates while waiting.
+     */
+    public interface QueueListener {
+        /**
+         * Called when the position of a waiting ticket is refreshed.
+         * @param position Position in the queue (1 = next to be admitted).
+         * @param etaMillis Estimated wait in milliseconds.
+         */
+        void onPosition(int position, long etaMillis);
+    }
+
+    private static final long UPDATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1); // How often waiting tickets are told their position
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+    private long nextNumber;
+    private int maxActive = Integer.MAX_VALUE;
+    private double ratePerSecond = 0; // Token refill rate, 0 = unlimited
+    private double burst = 1;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private int active;
+    private double averageDwellNanos; // Moving average of how long admitted sessions stay
+
+    /**
+     * Limit admissions. Waiting tickets are re-evaluated immediately.
+     * @param maxActive Maximum number of admitted sessions at a time.
+     * @param ratePerSecond Admissions per second (0 for unlimited).
+     * @param burst Maximum admissions in a burst when tokens have built up.
+     */
+    public void configure(int maxActive, double ratePerSecond, int burst) {
+        lock.lock();
+        try {
+            this.maxActive = maxActive;
+            this.ratePerSecond = ratePerSecond;
+            this.burst = Math.max(burst, 1);
+            tokens = Math.min(tokens, this.burst);
+            signalHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActive() {
+        lock.lock();
+        try { return active; } finally { lock.unlock(); }
+    }
+
+    public int getQueueLength() {
+        lock.lock();
+        try { return queue.size(); } finally { lock.unlock(); }
+    }
+
+    /**
+     * Take a ticket. The ticket is admitted straight away if nobody is waiting and there is capacity.
+     * @return Ticket (check isAdmitted(), otherwise call await()).
+     */
+    public Ticket enter() {
+        lock.lock();
+        try {
+            Ticket ticket = new Ticket(nextNumber++);
+            if (queue.isEmpty() && tryAdmit(ticket)) {
+                return ticket;
+            }
+            queue.add(ticket);
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the ticket is admitted.
+     * @param ticket Ticket from enter().
+     * @param listener Told the ticket's position and estimated wait roughly every second while waiting (may be null).
+     * @throws InterruptedException If interrupted while waiting (the ticket leaves the queue).
+     */
+    public void await(Ticket ticket, QueueListener listener) throws InterruptedException {
+        lock.lock();
+        try {
+            int lastPosition = -1;
+            while (!ticket.admitted) {
+                if (queue.peek() == ticket && tryAdmit(ticket)) {
+                    queue.poll();
+                    signalHead(); // Let the next ticket try (there may be more capacity and tokens)
+                    return;
+                }
+                int position = position(ticket);
+                if (listener != null && position != lastPosition) {
+                    listener.onPosition(position, etaMillis(position));
+                    lastPosition = position;
+                }
+                long waitNanos = UPDATE_INTERVAL_NANOS;
+                if (queue.peek() == ticket && active < maxActive) {
+                    waitNanos = Math.min(waitNanos, nanosUntilToken()); // Only waiting for a token
+                }
+                try {
+                    ticket.turn.awaitNanos(waitNanos);
+                } catch (InterruptedException e) {
+                    queue.remove(ticket);
+                    signalHead();
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Leave the show, or leave the queue if not admitted yet.
+     * @param ticket Ticket from enter().
+     */
+    public void exit(Ticket ticket) {
+        lock.lock();
+        try {
+            if (ticket.admitted) {
+                ticket.admitted = false;
+                active -= 1;
+                long dwell = System.nanoTime() - ticket.admittedAt;
+                averageDwellNanos = averageDwellNanos == 0 ? dwell : 0.9*averageDwellNanos + 0.1*dwell;
+            } else {
+                queue.remove(ticket);
+            }
+            signalHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admit a ticket if there is room and a token. Caller must hold the lock.
+     * @param ticket Ticket to admit.
+     * @return True if admitted.
+     */
+    private boolean tryAdmit(Ticket ticket) {
+        if (active >= maxActive) { return false; }
+        if (ratePerSecond > 0) {
+            refill();
+            if (tokens < 1) { return false; }
+            tokens -= 1;
+        }
+        active += 1;
+        ticket.admitted = true;
+        ticket.admittedAt = System.nanoTime();
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1e9 * ratePerSecond);
+        lastRefill = now;
+    }
+
+    private long nanosUntilToken() {
+        if (ratePerSecond <= 0) { return 0; }
+        refill();
+        return Math.max(1, (long) ((1 - tokens) / ratePerSecond * 1e9));
+    }
+
+    private void signalHead() {
+        Ticket head = queue.peek();
+        if (head != null) { head.turn.signal(); }
+    }
+
+    /**
+     * Get a ticket's position. Tickets leave from the head, so this is exact unless tickets ahead abandoned the queue
+     * (in which case it over-estimates).
+     * @param ticket Waiting ticket.
+     * @return Position in the queue (1 = next).
+     */
+    private int position(Ticket ticket) {
+        Ticket head = queue.peek();
+        return head == null ? 1 : (int) (ticket.number - head.number + 1);
+    }
+
+    /**
+     * Estimate the wait for a position from the token rate and how quickly admitted sessions leave.
+     * @param position Position in the queue.
+     * @return Estimated wait in milliseconds.
+     */
+    private long etaMillis(int position) {
+        double rate = ratePerSecond > 0 ? ratePerSecond : Double.MAX_VALUE;
+        if (maxActive != Integer.MAX_VALUE && averageDwellNanos > 0) {
+            rate = Math.min(rate, maxActive / (averageDwellNanos / 1e9)); // Admissions per second allowed by departures
+        }
+        return rate == Double.MAX_VALUE ? 0 : (long) (position / rate * 1000);
+    }
+}
@@ -0,0 +1,135 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The test class AdmissionGateTest.
+ */
+public class AdmissionGateTest
+{
+    AdmissionGate gate;
+    List<String> admitted;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        gate = new AdmissionGate();
+        admitted = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * Start a thread waiting for a ticket to be admitted, recording its name once admitted.
+     * @param name Name to record.
+     * @param ticket Ticket to wait on.
+     * @param listener Listener for position updates (may be null).
+     * @return Started thread.
+     * @throws InterruptedException If interrupted while waiting for the thread to start waiting.
+     */
+    private Thread waitFor(String name, AdmissionGate.Ticket ticket, AdmissionGate.QueueListener listener) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                gate.await(ticket, listener);
+                admitted.add(name);
+            } catch (InterruptedException e) {
+                admitted.add(name + " left");
+            }
+        });
+        thread.start();
+        Thread.sleep(50); // Let it start waiting
+        return thread;
+    }
+
+    @Test
+    public void testUnlimitedGateAdmitsEveryone() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(gate.enter().isAdmitted());
+        }
+        assertEquals(100, gate.getActive());
+        assertEquals(0, gate.getQueueLength());
+    }
+
+    @Test
+    public void testAdmitsInOrderUpToMaxActive() throws InterruptedException {
+        gate.configure(1, 0, 1);
+        AdmissionGate.Ticket first = gate.enter();
+        assertTrue(first.isAdmitted());
+        AdmissionGate.Ticket second = gate.enter();
+        AdmissionGate.Ticket third = gate.enter();
+        assertFalse(second.isAdmitted());
+        assertEquals(2, gate.getQueueLength());
+        Thread thirdWaiting = waitFor("third", third, null); // Waits before 'second' does, but is still behind it
+        Thread secondWaiting = waitFor("second", second, null);
+        assertTrue(admitted.isEmpty());
+        gate.exit(first);
+        secondWaiting.join(5000);
+        assertEquals(Collections.singletonList("second"), admitted);
+        assertEquals(1, gate.getActive());
+        gate.exit(second);
+        thirdWaiting.join(5000);
+        assertEquals(Arrays.asList("second", "third"), admitted);
+        assertEquals(0, gate.getQueueLength());
+    }
+
+    @Test
+    public void testTokensLimitAdmissionRate() throws InterruptedException {
+        gate.configure(100, 20, 1); // One admission every 50 milliseconds
+        AdmissionGate.Ticket first = gate.enter();
+        gate.await(first, null);
+        long start = System.nanoTime();
+        AdmissionGate.Ticket second = gate.enter();
+        assertFalse(second.isAdmitted()); // Token used by the first
+        gate.await(second, null);
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(waitedMillis >= 30 && waitedMillis < 2000, "Waited " + waitedMillis + "ms");
+        assertEquals(2, gate.getActive());
+    }
+
+    @Test
+    public void testInterruptedOrExitedTicketsLeaveTheQueue() throws InterruptedException {
+        gate.configure(1, 0, 1);
+        AdmissionGate.Ticket first = gate.enter();
+        Thread waiting = waitFor("second", gate.enter(), null);
+        AdmissionGate.Ticket third = gate.enter();
+        assertEquals(2, gate.getQueueLength());
+        waiting.interrupt();
+        waiting.join(5000);
+        assertEquals(Collections.singletonList("second left"), admitted);
+        gate.exit(third); // Leaves without being admitted
+        assertEquals(0, gate.getQueueLength());
+        assertEquals(1, gate.getActive());
+        gate.exit(first);
+        assertEquals(0, gate.getActive());
+        assertTrue(gate.enter().isAdmitted());
+    }
+
+    @Test
+    public void testWaitingTicketIsToldItsPositionAndWait() throws InterruptedException {
+        gate.configure(1, 0, 1);
+        AdmissionGate.Ticket visit = gate.enter();
+        Thread.sleep(100);
+        gate.exit(visit); // Admitted sessions stay about 100 milliseconds
+        gate.enter();
+        gate.enter(); // Head of the queue, never waits
+        long[] update = new long[2];
+        Thread waiting = waitFor("third", gate.enter(), (position, etaMillis) -> {
+            update[0] = position;
+            update[1] = etaMillis;
+        });
+        waiting.interrupt();
+        waiting.join(5000);
+        assertEquals(2, update[0]);
+        assertTrue(update[1] >= 150 && update[1] < 1000, "ETA " + update[1] + "ms"); // Two departures of ~100 milliseconds
+    }
+}
@@ -1,10 +1,22 @@
 package src.com.BookingClient;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Booking {
+    public enum Status {
+        ACTIVE,
+        REFUNDING, // Show cancelled, refund queued
+        REFUNDED,
+        CANCELLED // Cancelled by the customer
+    }
+
     private final int bookingID;
-    private static int bookingCount; // Used to automatically increment booking IDs across all bookings
+    private static final AtomicInteger bookingCount = new AtomicInteger(); // Used to automatically increment booking IDs across all bookings (sessions may book concurrently)
     private final int showID; // Show which the booking pertains to
     private final String[] seats; // Seat names included in booking
+    private final String paymentReference; // Reference of the payment for the booking (null if not paid through a gateway)
+    private final long amountPence; // Amount paid
+    private volatile Status status = Status.ACTIVE;
 
     /**
      * Booking constructor
@@ -12,10 +24,35 @@ public class Booking {
      * @param seats Seats included in the booking (names i.e. 'A4', or 'B5' etc.)
      */
     public Booking(int showID, String[] seats) {
+        this(showID, seats, null, 0);
+    }
+
+    /**
+     * Booking constructor for a paid booking.
+     * @param showID Show ID which the booking pertains to.
+     * @param seats Seats included in the booking (names i.e. 'A4', or 'B5' etc.)
+     * @param paymentReference Reference of the payment (refunds are made against it), or null.
+     * @param amountPence Amount paid in pence.
+     */
+    public Booking(int showID, String[] seats, String paymentReference, long amountPence) {
+        this(bookingCount.getAndIncrement(), showID, seats, paymentReference, amountPence);
+    }
+
+    /**
+     * Booking constructor with a given ID (used when replaying a replication journal). Later bookings are numbered after it.
+     * @param bookingID ID of booking.
+     * @param showID Show ID which the booking pertains to.
+     * @param seats Seats included in the booking (names i.e. 'A4', or 'B5' etc.)
+     * @param paymentReference Reference of the payment, or null.
+     * @param amountPence Amount paid in pence.
+     */
+    Booking(int bookingID, int showID, String[] seats, String paymentReference, long amountPence) {
+        this.bookingID = bookingID;
         this.showID = showID;
         this.seats = seats;
-        bookingID = bookingCount;
-        bookingCount += 1;
+        this.paymentReference = paymentReference;
+        this.amountPence = amountPence;
+        bookingCount.accumulateAndGet(bookingID + 1, Math::max);
     }
 
     /**
@@ -35,4 +72,18 @@ public class Booking {
      * @return Seats of booking (names i.e. 'A4', or' B5' etc.).
      */
     public String[] getSeats() { return seats; }
+
+    public String getPaymentReference() { return paymentReference; }
+
+    public long getAmountPence() { return amountPence; }
+
+    public Status getStatus() { return status; }
+
+    public boolean isActive() { return status == Status.ACTIVE; }
+
+    /**
+     * Set the refund state of the booking (by the venue when its show is cancelled, and once the refund is made).
+     * @param status New status.
+     */
+    void setStatus(Status status) { this.status = status; }
 }
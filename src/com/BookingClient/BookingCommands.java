@@ -0,0 +1,151 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Hold, book, and cancel commands for a venue's shows, each taking an optional client-supplied idempotency key.
+ * A command sent again with the same key (i.e. retried after a timeout, or after a payment is answered twice) returns the
+ * outcome of its first execution instead of holding, booking, or cancelling again. Keys are scoped to the user sending them.
+ */
+public class BookingCommands {
+    public static final int DEFAULT_MAX_KEYS = 1 << 16;
+    public static final long DEFAULT_KEY_TTL_MILLIS = 15 * 60 * 1000; // Longer than any client retries for
+
+    private final Venue venue;
+    private final IdempotencyCache cache;
+
+    /**
+     * BookingCommands constructor.
+     * @param venue Venue the commands act on.
+     * @param cache Outcomes of recent commands by key.
+     */
+    public BookingCommands(Venue venue, IdempotencyCache cache) {
+        this.venue = venue;
+        this.cache = cache;
+    }
+
+    public IdempotencyCache getCache() { return cache; }
+
+    /**
+     * Hold seats of a show for a user, all or none.
+     * @param key Idempotency key, or null to always execute.
+     * @param holder ID of the user holding the seats.
+     * @param showID ID of show.
+     * @param seatNames Names of the seats (i.e. 'A4').
+     * @return True if every seat was held, false if any was taken (none are held then).
+     * @throws NoSuchElementException If the show or a seat does not exist.
+     */
+    public boolean hold(String key, int holder, int showID, String[] seatNames) throws NoSuchElementException {
+        return execute(key, holder, "hold", () -> {
+            Show show = venue.getShow(showID);
+            List<Seat> seats = new ArrayList<>(seatNames.length);
+            for (String seatName : seatNames) {
+                seats.add(show.getSeat(seatName)); // Resolve every seat before holding any
+            }
+            List<Seat> held = new ArrayList<>(seats.size());
+            for (Seat seat : seats) {
+                if (!seat.hold(holder)) {
+                    held.forEach(Seat::setEmpty); // Seat taken by another session, release the partial hold
+                    return false;
+                }
+                held.add(seat);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Book seats held by a customer, and wait for the standby (if replicated) to have the booking.
+     * @param key Idempotency key (i.e. the payment's reference), or null to always execute.
+     * @param customer Customer booking the seats.
+     * @param showID ID of show.
+     * @param seatNames Names of the seats (i.e. 'A4').
+     * @return New booking (the first booking made with this key on replay).
+     * @throws NoSuchElementException If the show or a seat does not exist.
+     * @throws IllegalStateException If a seat is not held by the customer.
+     */
+    public Booking book(String key, Customer customer, int showID, String[] seatNames) throws NoSuchElementException, IllegalStateException {
+        return book(key, customer, showID, seatNames, 0);
+    }
+
+    /**
+     * Book seats held by a customer and paid for, and wait for the standby (if replicated) to have the booking.
+     * @param key Idempotency key, which is also the payment's reference kept on the booking for refunds (or null if not paid through a gateway).
+     * @param customer Customer booking the seats.
+     * @param showID ID of show.
+     * @param seatNames Names of the seats (i.e. 'A4').
+     * @param amountPence Amount paid in pence (refunded if the show is cancelled).
+     * @return New booking (the first booking made with this key on replay).
+     * @throws NoSuchElementException If the show or a seat does not exist.
+     * @throws IllegalStateException If a seat is not held by the customer.
+     */
+    public Booking book(String key, Customer customer, int showID, String[] seatNames, long amountPence) throws NoSuchElementException, IllegalStateException {
+        return execute(key, customer.getID(), "book", () -> {
+            Show show = venue.getShow(showID);
+            List<Seat> seats = new ArrayList<>(seatNames.length);
+            for (String seatName : seatNames) {
+                seats.add(show.getSeat(seatName));
+            }
+            for (int i = 0; i < seats.size(); i++) {
+                if (!seats.get(i).book(customer.getID())) {
+                    for (Seat booked : seats.subList(0, i)) {
+                        booked.setHeld(); // All or nothing, still held by the customer
+                    }
+                    throw new IllegalStateException(String.format("Seat %s is not held by '%s'", seatNames[i], customer.getUsername()));
+                }
+            }
+            Booking booking = customer.addBooking(showID, seatNames.clone(), key, amountPence);
+            // Journal the confirmation with the booking, then wait for the standby to have both (one round trip) before confirming
+            List<Notification> confirmation = Collections.singletonList(Notification.bookingConfirmed(customer, show, booking));
+            Journal journal = venue.getJournal();
+            if (journal != null) {
+                journal.awaitAcknowledged(journal.append(JournalEntry.booking(customer, booking, confirmation)));
+            }
+            venue.getOutbox().record(confirmation);
+            venue.indexBooking(customer, booking); // Refunded straight away if the show was cancelled since it was checked
+            return booking;
+        });
+    }
+
+    /**
+     * Cancel a customer's booking and return its seats to the show (which may allocate them to the show's waitlist).
+     * @param key Idempotency key, or null to always execute.
+     * @param customer Customer cancelling.
+     * @param bookingID ID of booking.
+     * @return Booking cancelled.
+     * @throws NoSuchElementException If the customer has no active booking with this ID (bookings of cancelled shows are refunded instead).
+     */
+    public Booking cancel(String key, Customer customer, int bookingID) throws NoSuchElementException {
+        return execute(key, customer.getID(), "cancel", () -> {
+            Booking booking = customer.getBookings().stream().filter(b -> b.getID() == bookingID && b.isActive()).findFirst()
+                    .orElseThrow(() -> new NoSuchElementException("The 'bookingID' requested does not exist or was refunded"));
+            Show bookedShow = venue.getShow(booking.getShowID());
+            customer.cancelBooking(bookingID);
+            venue.unindexBooking(booking);
+            List<Notification> confirmation = Collections.singletonList(Notification.bookingCancelled(customer, bookedShow, booking));
+            venue.appendJournal(JournalEntry.bookingCancelled(customer, bookingID, confirmation));
+            venue.getOutbox().record(confirmation);
+            for (String seatName : booking.getSeats()) {
+                bookedShow.getSeat(seatName).setEmpty();
+            }
+            return booking;
+        });
+    }
+
+    /**
+     * Execute a command once per key and user.
+     * @param key Idempotency key, or null to always execute.
+     * @param userID ID of the user sending the command (keys of different users never clash).
+     * @param command Name of the command.
+     * @param action Executes the command.
+     * @param <T> Type of outcome.
+     * @return Outcome of the command's first execution.
+     */
+    private <T> T execute(String key, int userID, String command, Supplier<T> action) {
+        return key == null ? action.get() : cache.execute(userID + ":" + key, command, action);
+    }
+}
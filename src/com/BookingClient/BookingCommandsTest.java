@@ -0,0 +1,120 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The test class BookingCommandsTest.
+ */
+public class BookingCommandsTest
+{
+    Venue venue;
+    Show show;
+    Customer customer;
+    BookingCommands commands;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 5, 5);
+        venue.addShow("Test Show", System.currentTimeMillis());
+        show = venue.getShows().get(0);
+        customer = new Customer("wef","wef","wef@wef.com", "07259622506", "wefwef", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB");
+        commands = venue.getCommands();
+    }
+
+    @Test
+    public void testBookReplayReturnsFirstBooking() {
+        assertTrue(commands.hold("h1", customer.getID(), show.getID(), new String[] {"A1", "A2"}));
+        Booking booking = commands.book("pay-1", customer, show.getID(), new String[] {"A1", "A2"});
+        assertSame(booking, commands.book("pay-1", customer, show.getID(), new String[] {"A1", "A2"}));
+        assertEquals(1, customer.getBookings().size());
+        assertEquals(Seat.SeatStatus.BOOKED, show.getSeat("A2").getStatus());
+        // A new key books again, and fails as the seats are no longer held
+        assertThrows(IllegalStateException.class, () -> commands.book("pay-2", customer, show.getID(), new String[] {"A1"}));
+    }
+
+    @Test
+    public void testCustomersCannotBookOrReleaseEachOthersSeats() {
+        Customer other = new Customer("fed","fed","fed@fed.com", "07259622506", "fedfed", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB");
+        assertNotEquals(customer.getID(), other.getID());
+        assertTrue(commands.hold(null, customer.getID(), show.getID(), new String[] {"A1"}));
+        assertTrue(commands.hold(null, other.getID(), show.getID(), new String[] {"A2"}));
+        assertThrows(IllegalStateException.class, () -> commands.book(null, other, show.getID(), new String[] {"A2", "A1"}));
+        assertEquals(Seat.SeatStatus.HELD, show.getSeat("A2").getStatus()); // Not booked without 'A1'
+        assertEquals(other.getID(), show.getSeat("A2").getHolder());
+        assertFalse(show.getSeat("A1").release(other.getID()));
+        assertEquals(Seat.SeatStatus.HELD, show.getSeat("A1").getStatus());
+        assertTrue(show.getSeat("A1").release(customer.getID()));
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat("A1").getStatus());
+    }
+
+    @Test
+    public void testKeysAreScopedToTheCustomer() {
+        Customer other = new Customer("fed","fed","fed@fed.com", "07259622506", "fedfed", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB");
+        assertTrue(commands.hold("h1", customer.getID(), show.getID(), new String[] {"A1"}));
+        assertTrue(commands.hold("h1", other.getID(), show.getID(), new String[] {"A2"})); // Same key, different customer, so executed
+        assertEquals(other.getID(), show.getSeat("A2").getHolder());
+    }
+
+    @Test
+    public void testHoldIsAllOrNothing() {
+        assertTrue(show.getSeat("B1").hold(12345));
+        assertFalse(commands.hold("h1", customer.getID(), show.getID(), new String[] {"A1", "B1"}));
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat("A1").getStatus());
+        show.getSeat("B1").setEmpty();
+        assertFalse(commands.hold("h1", customer.getID(), show.getID(), new String[] {"A1", "B1"})); // Replayed, not executed
+        assertTrue(commands.hold("h2", customer.getID(), show.getID(), new String[] {"A1", "B1"}));
+    }
+
+    @Test
+    public void testCancelReplayDoesNotCancelTwice() {
+        commands.hold(null, customer.getID(), show.getID(), new String[] {"C3"});
+        Booking booking = commands.book(null, customer, show.getID(), new String[] {"C3"});
+        assertSame(booking, commands.cancel("c1", customer, booking.getID()));
+        assertSame(booking, commands.cancel("c1", customer, booking.getID()));
+        assertThrows(NoSuchElementException.class, () -> commands.cancel("c2", customer, booking.getID()));
+        assertThrows(NoSuchElementException.class, () -> commands.cancel("c2", customer, booking.getID())); // Executed again, and fails again
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat("C3").getStatus());
+        assertThrows(IllegalArgumentException.class, () -> commands.hold("c1", customer.getID(), show.getID(), new String[] {"C3"}));
+    }
+
+    @Test
+    public void testFailureIsNotReplayed() {
+        // Booking before the hold fails, but the failure may pass, so the same key books once the seat is held
+        assertThrows(IllegalStateException.class, () -> commands.book("pay-1", customer, show.getID(), new String[] {"D4"}));
+        assertTrue(commands.hold(null, customer.getID(), show.getID(), new String[] {"D4"}));
+        Booking booking = commands.book("pay-1", customer, show.getID(), new String[] {"D4"});
+        assertSame(booking, commands.book("pay-1", customer, show.getID(), new String[] {"D4"}));
+        assertEquals(1, customer.getBookings().size());
+    }
+
+    @Test
+    public void testCacheEvictsByTimeAndSize() {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger executions = new AtomicInteger();
+        IdempotencyCache cache = new IdempotencyCache(2, 1000, now::get);
+        cache.execute("a", "test", executions::incrementAndGet);
+        cache.execute("a", "test", executions::incrementAndGet);
+        assertEquals(1, executions.get());
+        cache.execute("b", "test", executions::incrementAndGet);
+        cache.execute("c", "test", executions::incrementAndGet); // Full, so 'a' is dropped
+        assertEquals(2, cache.size());
+        cache.execute("a", "test", executions::incrementAndGet);
+        assertEquals(4, executions.get());
+        now.addAndGet(2_000_000_000L); // Every key expires
+        cache.execute("c", "test", executions::incrementAndGet);
+        assertEquals(5, executions.get());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,80 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A booking node holding the shows assigned to it by a ShowPartitioner. Requests reach a node through a NodeTransport.
+ */
+public class BookingNode {
+    private final String nodeID;
+    private final ConcurrentHashMap<Integer, Show> shows = new ConcurrentHashMap<>(); // Shows owned by this node
+
+    /**
+     * Thrown when a node is asked about a show it does not own (i.e. the show moved while the request was in flight).
+     */
+    public static class NotOwnerException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public NotOwnerException(String nodeID, int showID) {
+            super(String.format("Node '%s' does not own show %d", nodeID, showID));
+        }
+    }
+
+    public BookingNode(String nodeID) {
+        this.nodeID = nodeID;
+    }
+
+    public String getID() { return nodeID; }
+
+    /**
+     * Take ownership of a show.
+     * @param show Show to own.
+     */
+    public void addShow(Show show) { shows.put(show.getID(), show); }
+
+    /**
+     * Give up ownership of a show.
+     * @param showID ID of show.
+     * @return Show given up.
+     * @throws NotOwnerException If the node does not own the show.
+     */
+    public Show removeShow(int showID) throws NotOwnerException {
+        Show show = shows.remove(showID);
+        if (show == null) {
+            throw new NotOwnerException(nodeID, showID);
+        }
+        return show;
+    }
+
+    /**
+     * Check if the node owns a show.
+     * @param showID ID of show.
+     * @return True if owned.
+     */
+    public boolean ownsShow(int showID) { return shows.containsKey(showID); }
+
+    /**
+     * Get the IDs of all shows owned by the node.
+     * @return Show IDs.
+     */
+    public List<Integer> getShowIDs() { return new ArrayList<>(shows.keySet()); }
+
+    /**
+     * Apply a request to one of the node's shows.
+     * @param showID ID of show.
+     * @param request Request to apply.
+     * @param <T> Result type of request.
+     * @return Result of request.
+     * @throws NotOwnerException If the node does not own the show.
+     */
+    public <T> T handle(int showID, Function<Show, T> request) throws NotOwnerException {
+        Show show = shows.get(showID);
+        if (show == null) {
+            throw new NotOwnerException(nodeID, showID);
+        }
+        return request.apply(show);
+    }
+}
@@ -2,11 +2,15 @@ package src.com.BookingClient;
 
 import java.sql.Array;
 import java.text.DateFormat;
-import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -14,12 +18,36 @@ import java.util.stream.Collectors;
  */
 public final class CLI {
 
-    private static final Scanner input = new Scanner(System.in); //For user input
+    // User input of the session running on the current thread (defaults to the console)
+    private static final ThreadLocal<InputSource> input = ThreadLocal.withInitial(() -> new ScannerInput(System.in));
+    // Format show times are displayed in (i.e. 'Wed Jul 17 16:40:00 BST 2024')
+    private static final DateTimeFormatter showTimeFormat = DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.UK);
 
     private CLI() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated.");
     }
 
+    /**
+     * Get the input source used by the CLI on the current thread.
+     * @return Input source of the current thread.
+     */
+    public static InputSource getInput() { return input.get(); }
+
+    /**
+     * Set the input source used by the CLI on the current thread, so that sessions on different threads read their own input.
+     * @param source Input source for the current thread.
+     */
+    public static void setInput(InputSource source) { input.set(source); }
+
+    /**
+     * Format a show time for display in the local time zone.
+     * @param time Show time (epoch milliseconds).
+     * @return Formatted time.
+     */
+    public static String formatTime(long time) {
+        return showTimeFormat.format(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()));
+    }
+
     /**
      * Prints any number of strings on a new line per string, with the optional starting string "Please select an option:"
      * @param showOptionString Adds "Please select an option:\n" at the beginning of the print statement if True, otherwise it leaves it blank.
@@ -51,6 +79,7 @@ public final class CLI {
                 return user; // Successful login
             }
         }
+        Metrics.increment(Metrics.Counter.FAILED_LOGINS);
         throw new IllegalArgumentException("Invalid username or password!");
     }
 
@@ -117,7 +146,7 @@ public final class CLI {
      */
     public static int start() {
         printChoices(true,"Login (l)", "Register New Account (r)", "Exit (e)");
-        String line = input.nextLine(); // Get user input
+        String line = input.get().nextLine(); // Get user input
         switch (line) {
             case "l":
                 return 0;
@@ -156,7 +185,7 @@ public final class CLI {
             validEntry = false;
             requirement = accountRequirements[stage]; // Current stage's requirement string
             printChoices(false, "Exit (e)", String.format("Enter your %s:",requirement));
-            String line = input.nextLine(); // Get user input
+            String line = input.get().nextLine(); // Get user input
             if (line.equals("e")) {
                 throw new CancellationException("Exit ('e') was inputted by the user."); // Return false if exit 'e' is inputted
             } else {
@@ -214,7 +243,7 @@ public final class CLI {
         String username = "", pass = "";
         while (stage < 2) {
             printChoices(true,"Exit (e)", String.format("Enter %s:", stage == 0 ? "username" : "password"));
-            String line = input.nextLine();
+            String line = input.get().nextLine();
             if (line.equals("e")) {
                 throw new CancellationException("Exit ('e') was inputted by the user."); // Throw  if exit 'e' is inputted
             } else {
@@ -253,7 +282,7 @@ public final class CLI {
                 break;
         }
         // Get input
-        String line = input.nextLine();
+        String line = input.get().nextLine();
         switch (line) {
             case "e":
                 return -1;
@@ -302,7 +331,7 @@ public final class CLI {
      */
     public static Calendar[] getFutureDateRange() throws ParseException, IllegalArgumentException {
         printChoices(false,"Exit (any character)", "Please enter a date range in the format dd/MM/yyyy-dd/MM/yyyy (If invalid or past dates are entered, all shows within the next year will be displayed):");
-        String line = input.nextLine(); // Get user input
+        String line = input.get().nextLine(); // Get user input
         String[] splitLine = line.split("-"); // Split user input into separate Strings using regex '-'
         /* Validate correct number of inputs */
         if (splitLine.length != 2) {
@@ -344,19 +373,31 @@ public final class CLI {
         if (acceptDateRange) {
             dateRange = getFutureDateRange(); // Get validated date range from user.
         }
+        long from = dateRange[0].getTimeInMillis();
+        long to = dateRange[1].getTimeInMillis();
+        String search = null; // Words the show names are narrowed to (null for all shows)
         boolean validOption = false;
         while (!validOption) {
-            printChoices(false, "exit (e)", "Please select a show: ");
-            /* Get ShowIDs of Shows within date range */
-            ArrayList<Show> allShows = venue.getShows(); // Get all shows in venue
-            ArrayList<Show> validShows = new ArrayList<>();
-            for (Show show : allShows) {
-                if ((show.getTime().after(dateRange[0]) && show.getTime().before(dateRange[1])) || !acceptDateRange) {
-                    validShows.add(show);
+            printChoices(false, "exit (e)", "search by name (s followed by part of the name, i.e. 's phantom', or 's' to list all shows)", "Please select a show: ");
+            /* Get ShowIDs of Shows within date range (and matching the search) */
+            List<Show> validShows;
+            if (search != null) {
+                validShows = new ArrayList<>();
+                for (Show show : venue.searchShows(search, Integer.MAX_VALUE)) {
+                    if ((show.getTime() > from && show.getTime() < to) || !acceptDateRange) {
+                        validShows.add(show);
+                    }
                 }
+            } else {
+                validShows = acceptDateRange ? venue.getShowsBetween(from, to) : venue.getShows();
             }
-            // If there are no shows matching the user's criteria, notify the user of this, and return -1.
+            // If there are no shows matching the user's criteria, notify the user of this, and return -1 (or list all shows again if searching).
             if (validShows.isEmpty()) {
+                if (search != null) {
+                    System.out.printf("No shows match '%s'.\n", search);
+                    search = null;
+                    continue;
+                }
                 System.out.println("No shows match the criteria entered.");
                 return -1;
             }
@@ -365,32 +406,53 @@ public final class CLI {
             // Display shows
             for (int i = 1; i <= validShows.size(); i++) {
                 Show show = validShows.get(i-1);
-                System.out.printf("(%d) Name: %s\n\tTime: %s \n", i, show.getName(), show.getTime().getTime());
+                System.out.printf("(%d) Name: %s\n\tTime: %s \n", i, show.getName(), formatTime(show.getTime()));
                 showIDs[i-1] = show.getID();
             }
             /* Getting and validating user input for show selection */
-            String line = input.nextLine();
+            String line = input.get().nextLine();
             try {
                 int choice = Integer.parseInt(line);
-                if (choice > 0 && choice <= venue.getShows().size()) {
+                if (choice > 0 && choice <= showIDs.length) {
                     return venue.getShow(showIDs[choice-1]).getID();
                 }
             } catch (NumberFormatException e) {
                 if (line.equals("e")) {
                     validOption = true; // Escape loop if 'e' is
+                } else if (line.equals("s")) {
+                    search = null;
+                } else if (line.startsWith("s ")) {
+                    search = line.substring(2).trim();
                 }
+            } catch (NoSuchElementException e) {
+                System.out.println("That show has been cancelled."); // Cancelled while the list was displayed
             }
         }
         return -1;
     }
 
+    /**
+     * Waits in a show's virtual queue until admitted, displaying the user's position and estimated wait.
+     * @param gate Admission gate of the show.
+     * @return Ticket admitted to the show (must be given back with AdmissionGate.exit()).
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static AdmissionGate.Ticket waitForAdmission(AdmissionGate gate) throws InterruptedException {
+        AdmissionGate.Ticket ticket = gate.enter();
+        if (!ticket.isAdmitted()) {
+            gate.await(ticket, (position, etaMillis) ->
+                    System.out.printf("This show is busy. You are number %d in the queue (estimated wait: %ds).%n", position, (etaMillis + 999) / 1000));
+        }
+        return ticket;
+    }
+
     /**
      * Retrieves and validates user input for which type of seat selection they would like to choose.
      * @return Choice made by user (Automatic Seat Selection 'a' = 0, Interactive Seat Selection 'i' = 1, exit 'e' = 2, invalid choice = -1).
      */
     public static int selectSeatingTypeChoice() {
         printChoices(true,"Automatic Seat Selection (a)", "Interactive Seat Selection (i)", "Exit (e)");
-        String line = input.nextLine();
+        String line = input.get().nextLine();
         switch (line) {
             case "a":
                 return 0;
@@ -408,39 +470,21 @@ public final class CLI {
      * @throws RuntimeException When there is an error retrieving the seating data.
      */
     public static void displaySeats(Venue venue, int showID) throws RuntimeException{
-        Show show = venue.getShow(showID);
-        int numRows = venue.getNumRows();
-        int numCols = venue.getNumCols();
-        StringBuilder output = new StringBuilder();
-        //Print column numbers
-        for (int i = 1; i <= numRows; i++) {
-            output.append(String.format("%d  ", i).substring(0,3));
-        }
-        output.append("\n");
-        for (int i = 0; i < numCols; i++) {
-            // Getting row letter
-            int input = i+1;
-            StringBuilder rowLetter = new StringBuilder();
-            while (input > 0) {
-                int num = (input - 1) % 26;
-                char letter = (char) (num + 65);
-                rowLetter.insert(0, letter);
-                input = (input - 1) / 26;
-            }
-            for (int j = 0; j < numRows; j++) {
-                Seat.SeatStatus status; // Getting seat status
-                try {
-                    Seat seat = show.getSeat(String.format("%s%d",rowLetter,j+1));
-                    status = seat.getStatus();
-                } catch (NoSuchElementException e) {
-                    throw new RuntimeException("Failed to retrieve seat data while displaying.");
-                }
-                output.append(String.format("%c  ", status.toString().charAt(0))); // Appending seat status to diagram
-            }
-            output.append(String.format("\t%s\n", rowLetter)); // Appending row letter to the string and starting new line
+        System.out.println(renderSeats(venue, showID)); // Display seats
+    }
+
+    /**
+     * Builds the seating diagram displayed by displaySeats(), indicating if the seats are empty, held, or booked.
+     * @param showID Show ID of the show to render seats for.
+     * @return Seating diagram with key.
+     * @throws RuntimeException When there is an error retrieving the seating data.
+     */
+    public static String renderSeats(Venue venue, int showID) throws RuntimeException{
+        try {
+            return venue.getShow(showID).getSeatMap().render(); // Shared snapshot, so browsing never reads the seats being booked
+        } catch (NoSuchElementException e) {
+            throw new RuntimeException("Failed to retrieve seat data while displaying.");
         }
-        output.append("\n Key:\nE = Empty\nH = Held\nB = Booked"); // Appending key to the string
-        System.out.println(output); // Display seats
     }
 
     /**
@@ -453,7 +497,7 @@ public final class CLI {
         boolean validNumTickets = false;
         while (!validNumTickets) {
             System.out.println("How many tickets would you like to purchase?");
-            String line = input.nextLine();
+            String line = input.get().nextLine();
             try {
                 numTickets = Integer.parseInt(line);
                 //TODO Implement users maximum seats per show properly (it currently only checks for the current purchase)
@@ -477,7 +521,7 @@ public final class CLI {
         boolean validChoice = false;
         while (!validChoice) {
             printChoices(true, "exit (e)", "Please state a preferred price range in the format '9.00-15.00'");
-            String line = input.nextLine();
+            String line = input.get().nextLine();
             if (line.equals("e")) {
                 validChoice = true;
             } else {
@@ -493,14 +537,74 @@ public final class CLI {
         return new float[]{0,0};
     }
 
+    /**
+     * Finds the best available seats in a price range (see Show.findBestSeats()). The seats returned are not held.
+     * @param show Show to pick seats from.
+     * @param numTickets Number of seats to pick.
+     * @param priceRange float[2] with the minimum and maximum price (inclusive).
+     * @return The best seats, or an empty list if not enough seats filled the criteria.
+     */
+    public static List<Seat> autoPickSeats(Show show, int numTickets, float[] priceRange) {
+        return show.findBestSeats(numTickets, priceRange[0], priceRange[1]);
+    }
+
+    /**
+     * Finds the best available seats in a price range, all within one of the chosen sections (see Show.findBestSeats()). The seats returned are not held.
+     * @param show Show to pick seats from.
+     * @param numTickets Number of seats to pick.
+     * @param priceRange float[2] with the minimum and maximum price (inclusive).
+     * @param sections Sections to pick from, or null for anywhere in the venue.
+     * @return The best seats, or an empty list if not enough seats filled the criteria.
+     */
+    public static List<Seat> autoPickSeats(Show show, int numTickets, float[] priceRange, Predicate<SeatingLayout.Section> sections) {
+        if (sections == null) {
+            return autoPickSeats(show, numTickets, priceRange);
+        }
+        return show.findBestSeats(numTickets, priceRange[0], priceRange[1], sections);
+    }
+
+    /**
+     * Retrieves the sections the user would like seats in, if the venue has more than one, showing the free seats of each in the price range.
+     * @param show Show to pick seats from.
+     * @param priceRange float[2] with the minimum and maximum price (inclusive).
+     * @return Sections chosen, or null for any section.
+     */
+    public static Predicate<SeatingLayout.Section> selectSections(Show show, float[] priceRange) {
+        List<SeatingLayout.Section> sections = show.getLayout().getSections();
+        if (sections.size() <= 1) {
+            return null;
+        }
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < sections.size(); i++) {
+            output.append(String.format("(%d) %s - %d seats available%n", i+1, sections.get(i).getName(), show.getFreeSeats(i, priceRange[0], priceRange[1])));
+        }
+        System.out.print(output);
+        printChoices(false, "Any section (any other character)", "Please select a section, or enter the start of a section name to choose all matching sections (i.e. 'Balcony'):");
+        String line = input.get().nextLine().trim();
+        try {
+            int choice = Integer.parseInt(line);
+            if (choice > 0 && choice <= sections.size()) {
+                SeatingLayout.Section chosen = sections.get(choice-1);
+                return section -> section == chosen;
+            }
+        } catch (NumberFormatException e) {
+            String prefix = line.toLowerCase();
+            if (!prefix.isEmpty() && sections.stream().anyMatch(section -> section.getName().toLowerCase().startsWith(prefix))) {
+                return section -> section.getName().toLowerCase().startsWith(prefix);
+            }
+        }
+        return null;
+    }
+
     /**
      * Retrieves and validates user input for seat selection.
+     * @param currentUser Currently logged-in user (customers may join the show's waitlist if automatic selection finds nothing).
      * @param showID Show ID for show that the user is selecting seats for.
      * @param seatSelection LinkedList to store the current seats selected.
      * @param autoPickSeats If True, automatic seat selection will take place before the user is taken to interactive seat selection.
      * @return True if valid seat selection.
      */
-    public static boolean seatSelection(Venue venue, int showID, LinkedList<Seat> seatSelection, boolean autoPickSeats) {
+    public static boolean seatSelection(User currentUser, Venue venue, int showID, LinkedList<Seat> seatSelection, boolean autoPickSeats) {
         // Ensuring showID exists
         try {
             venue.getShow(showID);
@@ -513,36 +617,30 @@ public final class CLI {
         // Ask for number of tickets
         int numTickets = chooseNumberOfSeats(venue, showID);
         /* Get and display price range of seats (min and max price) */
-        DecimalFormat df = new DecimalFormat("0.00"); // Decimal format used to truncate min and max prices
-        List<Seat> seats = Arrays.asList(venue.getShow(showID).getSeats()); // All seats in show
-        List<Float> seatPrices = seats.stream().map(Seat::getPrice).collect(Collectors.toList()); // Prices of all seats in show
-        Float maxPrice = Collections.max(seatPrices);
-        Float minPrice = Collections.min(seatPrices);
-        System.out.printf("%nMinimum Seat Price: £%s%nMaximum Seat Price: £%s%n%n", df.format(minPrice), df.format(maxPrice));
-
-        // Automatic Seat Selection (assuming front seats are best and back seats are the worst)
+        PriceColumn prices = venue.getShow(showID).getPriceColumn(); // Prices of all seats in show
+        System.out.printf("%nMinimum Seat Price: £%s%nMaximum Seat Price: £%s%n%n", PriceColumn.format(prices.min()), PriceColumn.format(prices.max()));
+
+        // Automatic Seat Selection (best seats first, as ranked by the venue's seat scorer)
         if (autoPickSeats) {
             //Get user price range
             float[] priceRange = selectPriceRange();
-            //Getting the best available seats in price range (lower ID is better and seat list is created from the lowest ID to highest)
-            ArrayList<Integer> seatIDs = new ArrayList<>();
-            for (Seat seat : venue.getShow(showID).getSeats()) {
-                if (seat.getStatus() == Seat.SeatStatus.EMPTY && seat.getPrice() <= priceRange[1] && seat.getPrice() >= priceRange[0]) {
-                    seatIDs.add(seat.getID());
+            Predicate<SeatingLayout.Section> sections = selectSections(venue.getShow(showID), priceRange);
+            boolean heldAll = false;
+            while (!heldAll) {
+                List<Seat> bestSeats = autoPickSeats(venue.getShow(showID), numTickets, priceRange, sections);
+                if (bestSeats.isEmpty()) {
+                    Metrics.increment(Metrics.Counter.AUTO_PICK_MISSES);
+                    System.out.println("No tickets filled your criteria.");
+                    if (currentUser.getAccountType() == User.AccountType.CUSTOMER) {
+                        joinWaitlistChoice((Customer) currentUser, venue.getShow(showID), numTickets, priceRange);
+                    }
+                    return false;
                 }
-            }
-            //Sorting available seatIDs in ascending order just in case
-            Collections.sort(seatIDs);
-            //Selecting best seats out of available seats (It is known );
-            if (seatIDs.size() > numTickets) {
-                for (int i = 0; i < numTickets; i++){
-                    Seat bestSeat = venue.getShow(showID).getSeat(seatIDs.get(i));
-                    seatSelection.add(bestSeat);
-                    bestSeat.setHeld();
+                // Hold all or none, picking again if a seat was taken by another session since it was picked
+                heldAll = venue.getCommands().hold(null, currentUser.getID(), showID, bestSeats.stream().map(Seat::getPos).toArray(String[]::new));
+                if (heldAll) {
+                    seatSelection.addAll(bestSeats);
                 }
-            } else {
-                System.out.println("No tickets filled your criteria.");
-                return false;
             }
         }
 
@@ -554,7 +652,7 @@ public final class CLI {
             printChoices(true,"exit (e)", "accept selection (a)",String.format("Please select a seat you would like to book (In the format 'B3', 'A4', etc.)\n You have picked %d out of %d seats", seatSelection.size(), numTickets));
             String delimitedSeatsList = seatSelection.stream().map(Seat::getPos).collect(Collectors.joining(",")); // Seats chosen
             System.out.printf("Seats Selected: %s%n", delimitedSeatsList);
-            line = input.nextLine();
+            line = input.get().nextLine();
             switch (line) {
                 case "e":
                     //Set all held seats to empty and clear the selection
@@ -571,13 +669,9 @@ public final class CLI {
                 default:
                     try {
                         Seat chosen = venue.getShow(showID).getSeat(line);
-                        // Check if taken
-                        String chosenStatus = chosen.getStatus().toString();
-                        boolean taken = chosenStatus.equals(Seat.SeatStatus.HELD.toString()) || chosenStatus.equals(Seat.SeatStatus.BOOKED.toString());
-                        if (!taken) {
+                        // Hold seat if not taken
+                        if (chosen.hold(currentUser.getID())) {
                             seatSelection.add(chosen);
-                            chosen.setHeld();
-                            venue.getShow(showID).getSeat(line);
                             if (seatSelection.size() > numTickets) {
                                 seatSelection.removeFirst().setEmpty();
                             }
@@ -593,34 +687,174 @@ public final class CLI {
     }
 
     /**
-     * Retrieves and validates user input for payment information.
-     * @param showID Show ID for the show that the user is buying tickets for.
-     * @param seatSelection Array List of seats that the user has currently selected.
+     * Offers to add a customer to a show's waitlist when no seats filled their criteria.
+     * @param customer Customer to add to the waitlist.
+     * @param show Show to wait for.
+     * @param numTickets Number of seats the customer wants.
+     * @param priceRange float[2] with the minimum and maximum price (inclusive).
+     */
+    public static void joinWaitlistChoice(Customer customer, Show show, int numTickets, float[] priceRange) {
+        printChoices(false, "Join the waitlist for this show? Seats will be held for you as soon as they become available. (y/n)");
+        String line = input.get().nextLine();
+        if (line.equals("y")) {
+            int position = show.getWaitlist().join(customer, numTickets, priceRange[0], priceRange[1]);
+            System.out.printf("Joined the waitlist at position %d.%n", position);
+        }
+    }
+
+    /**
+     * Displays a customer's next waitlist offer and retrieves whether they would like to pay for the held seats.
+     * A declined offer releases the seats. The offer's show is looked up in the offer's venue, which may not be the venue the customer chose.
+     * @param customer Customer with a waitlist offer.
+     * @return Offer if accepted, otherwise null.
+     */
+    public static WaitlistOffer waitlistOfferChoice(Customer customer) {
+        WaitlistOffer offer = customer.pollWaitlistOffer();
+        if (offer == null || !offer.isOpen()) { return null; } // Expired while queued
+        String seatNames = offer.getSeats().stream().map(Seat::getPos).collect(Collectors.joining(","));
+        Venue venue = offer.getVenue();
+        try {
+            System.out.printf("Seats have become available from the waitlist at %s for %s: %s (held until %s)%n", venue.getName(),
+                    venue.getShow(offer.getShowID()).getName(), seatNames, formatTime(offer.getExpiresAt()));
+        } catch (NoSuchElementException e) {
+            offer.release(); // Show no longer exists
+            return null;
+        }
+        printChoices(true, "Pay for these seats (a)", "Decline (any other character)");
+        String line = input.get().nextLine();
+        if (line.equals("a")) {
+            if (offer.accept()) {
+                return offer;
+            }
+            System.out.println("Sorry, this offer has expired and the seats were released.");
+            return null;
+        }
+        offer.release();
+        System.out.println("Declined waitlist seats.");
+        return null;
+    }
+
+    /**
+     * Retrieves and validates user input for choosing a venue. Returns the only venue without asking if there is just one.
+     * @param venues Venues to choose from.
+     * @return Chosen venue, or null if the user exits.
+     */
+    public static Venue selectVenue(VenueRegistry venues) {
+        List<Venue> allVenues = venues.getVenues();
+        if (allVenues.size() == 1) {
+            return allVenues.get(0);
+        }
+        while (true) {
+            printChoices(false, "Exit (e)", "Please select a venue:");
+            for (int i = 0; i < allVenues.size(); i++) {
+                System.out.printf("(%d) %s (%d show(s))%n", i+1, allVenues.get(i).getName(), allVenues.get(i).getShows().size());
+            }
+            String line = input.get().nextLine();
+            if (line.equals("e")) {
+                return null;
+            }
+            try {
+                int choice = Integer.parseInt(line);
+                if (choice > 0 && choice <= allVenues.size()) {
+                    return allVenues.get(choice-1);
+                }
+            } catch (NumberFormatException ignored) {} // Invalid choice, ask again
+            System.out.println("Invalid venue selection. Please try again.");
+        }
+    }
+
+    /**
+     * Price quoted to a customer, valid while the show's version is unchanged.
+     */
+    private static final class Quote {
+        final long version; // Show version the quote was made at
+        final long total; // Total in pence
+
+        Quote(long version, long total) {
+            this.version = version;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Price the selected seats and display the quote, along with the show's time. The quote is remade if the show changes while pricing.
      * @param currentUser Currently logged-in user.
-     * @return True if valid payment information.
+     * @param venue Venue of the show (provides the pricing rules).
+     * @param show Show the seats belong to.
+     * @param seatSelection Seats selected.
+     * @return Quote displayed.
      */
-    public static boolean paymentChoice(User currentUser, int showID, LinkedList<Seat> seatSelection) {
-        // Display costs (with volume discounts 6+ tickets = 5% off all tickets)
-        float discount = seatSelection.size() >= 6 ? 5.0f : 0.0f;
-        float totalCost = 0;
-        DecimalFormat df = new DecimalFormat("0.00");
+    private static Quote printQuote(User currentUser, Venue venue, Show show, List<Seat> seatSelection) {
+        StringBuilder output = new StringBuilder();
+        long version;
+        long totalCost;
+        do {
+            version = show.getStableVersion();
+            output.setLength(0);
+            output.append(String.format("Show: %s\tTime: %s\n", show.getName(), formatTime(show.getTime())));
+            DiscountTable discounts = venue.getDiscountTable(show.getID());
+            int discount = discounts.getDiscount(currentUser.getAccountType(), seatSelection.size()); // Basis points
+            int[] seatIDs = new int[seatSelection.size()];
+            int i = 0;
+            for (Seat seat : seatSelection) {
+                seatIDs[i++] = seat.getID();
+                output.append(String.format("Seat: %s\tPrice: £%s\n", seat.getPos(), PriceColumn.format(seat.getPricePence())));
+            }
+            // Totalled in one pass over the show's price column, and discounted once so the total is rounded once
+            long subtotal = show.getPriceColumn().total(seatIDs);
+            totalCost = DiscountTable.applyDiscount(subtotal, discount);
+            if (discount > 0) {
+                output.append(String.format("Subtotal: £%s\tDiscount: %d.%02d%%\n", PriceColumn.format(subtotal), discount / 100, discount % 100));
+                output.append(String.format("Discounts applied: %s\n", discounts.getLabel(currentUser.getAccountType(), seatSelection.size())));
+            }
+            output.append(String.format("Total cost: £%s\n", PriceColumn.format(totalCost)));
+        } while (show.getVersion() != version);
+        System.out.print(output);
+        return new Quote(version, totalCost);
+    }
+
+    /**
+     * Release selected seats back to their show.
+     * @param seatSelection Seats to release (cleared afterwards).
+     */
+    private static void releaseSeats(List<Seat> seatSelection) {
         for (Seat seat : seatSelection) {
-            float initialPrice = seat.getPrice();
-            float discountPrice = (1-(discount/100))*initialPrice;
-            System.out.printf("Seat: %s\tInitial Price: £%s\tDiscount: %s%%\tPrice: £%s\n", seat.getPos(), df.format(initialPrice), df.format(discount), df.format(discountPrice));
-            totalCost += discountPrice;
+            seat.setEmpty();
         }
-        System.out.printf("Total cost: £%s\n", df.format(totalCost));
+        seatSelection.clear();
+    }
+
+    /**
+     * Retrieves and validates user input for payment information, then submits the payment to the pipeline. The seats stay held
+     * until the gateway answers (see completePayment).
+     * @param currentUser Currently logged-in user.
+     * @param venue Venue of the show (provides the pricing rules).
+     * @param showID Show ID for the show that the user is buying tickets for.
+     * @param seatSelection Array List of seats that the user has currently selected.
+     * @param payments Pipeline to submit the payment to.
+     * @return Future of the payment's result, or null if the user exited or the show was cancelled (seats are released if cancelled).
+     */
+    public static CompletableFuture<PaymentResult> paymentChoice(User currentUser, Venue venue, int showID, LinkedList<Seat> seatSelection, PaymentPipeline payments) {
+        Show show;
+        try {
+            show = venue.getShow(showID);
+        } catch (NoSuchElementException e) {
+            System.out.println("This show has been cancelled. Your seats have been released.");
+            releaseSeats(seatSelection);
+            return null;
+        }
+        // Display costs (with the venue's pricing rules, i.e. volume discounts), totalled exactly in pence
+        Quote quote = printQuote(currentUser, venue, show, seatSelection);
 
         // Get card details
         int stage = 0;
-        String cardNumber = ""; // Stores card number (never used as all card numbers with valid format are accepted)
-        String securityNumber = ""; // Stores security number (never used as all security numbers with valid format are accepted)
+        String cardNumber = ""; // Stores card number (only its last four digits are sent on)
+        String securityNumber = ""; // Stores security number (never used as the gateway stub does not check it)
         while (stage < 2) {
             printChoices(true,"Exit (e)", String.format("Enter %s:", stage == 0 ? "Card Number (with format XXXX-XXXX-XXXX-XXXX)" : "Security Number"));
-            String line = input.nextLine();
+            String line = input.get().nextLine();
             if (line.equals("e")) {
-                return false;
+                return null;
             } else {
                 if (stage == 0) {
                     if (line.matches("^(\\d{4}[-\\s]){3}\\d{4}$")) {
@@ -635,15 +869,77 @@ public final class CLI {
                 }
             }
         }
+        // Check the quote still holds now the customer has paid, re-quoting if an admin changed the price or time meanwhile (nothing is locked while paying)
+        while (show.getVersion() != quote.version) {
+            if (show.isCancelled()) {
+                System.out.println("This show has been cancelled. Your seats have been released.");
+                releaseSeats(seatSelection);
+                return null;
+            }
+            Metrics.increment(Metrics.Counter.REQUOTES);
+            System.out.println("The price or time of this show changed while you were paying. Updated quote:");
+            quote = printQuote(currentUser, venue, show, seatSelection);
+            printChoices(true, "Confirm and pay (c)", "Exit (e)");
+            if (!input.get().nextLine().equals("c")) {
+                return null;
+            }
+        }
+        PaymentRequest request = new PaymentRequest(currentUser.getUsername(), quote.total, cardNumber, quote.version);
+        if (currentUser.getAccountType() != User.AccountType.CUSTOMER) {
+            return CompletableFuture.completedFuture(PaymentResult.approved(request)); // Nothing is booked or charged for staff
+        }
+        System.out.println("Processing payment...");
+        return payments.submit(request);
+    }
+
+    /**
+     * Book the selected seats once the gateway has approved their payment, or report why the payment failed (the seats stay held).
+     * If the show's price or time changed after the payment's quote, the payment is refunded instead and the seats stay held for a new quote.
+     * @param currentUser Currently logged-in user.
+     * @param venue Venue of the show.
+     * @param showID Show ID for the show that the user is buying tickets for.
+     * @param seatSelection Seats paid for (cleared once booked).
+     * @param result Answer to the payment.
+     * @return True if the payment was approved.
+     */
+    public static boolean completePayment(User currentUser, Venue venue, int showID, List<Seat> seatSelection, PaymentResult result) {
+        if (!result.isApproved()) {
+            System.out.printf("Payment failed: %s. Your seats are still held.%n", result.getMessage());
+            return false;
+        }
+        Show show;
+        try {
+            show = venue.getShow(showID);
+        } catch (NoSuchElementException e) {
+            if (currentUser.getAccountType() == User.AccountType.CUSTOMER) {
+                venue.getRefunds().refundPayment((Customer) currentUser, result.getReference(), result.getAmountPence());
+            }
+            System.out.println("This show was cancelled while you were paying. Your seats have been released and your payment will be refunded.");
+            releaseSeats(seatSelection);
+            return false;
+        }
         if (currentUser.getAccountType() == User.AccountType.CUSTOMER) {
-            String[] bookedSeats = new String[seatSelection.size()];
-            for (int i = 0; i < seatSelection.size(); i++) {
-                Seat seat = seatSelection.get(i);
-                seat.setBooked();
-                bookedSeats[i] = seat.getPos();
-            }
-            Customer customer = (Customer)currentUser;
-            customer.addBooking(showID, bookedSeats);
+            // The price or time may have changed while the gateway was answering, so the customer paid for a quote that no longer holds
+            if (result.getQuotedVersion() != PaymentRequest.NO_QUOTE && show.getVersion() != result.getQuotedVersion()) {
+                Metrics.increment(Metrics.Counter.REQUOTES);
+                venue.getRefunds().refundPayment((Customer) currentUser, result.getReference(), result.getAmountPence());
+                System.out.println("The price or time of this show changed while your payment was processed. Your payment will be refunded and your seats are still held.");
+                return false;
+            }
+            String[] seatNames = seatSelection.stream().map(Seat::getPos).toArray(String[]::new);
+            try {
+                // Keyed by the payment's reference, so a payment answered twice books once
+                venue.getCommands().book(result.getReference(), (Customer) currentUser, showID, seatNames, result.getAmountPence());
+            } catch (IllegalStateException e) {
+                venue.getRefunds().refundPayment((Customer) currentUser, result.getReference(), result.getAmountPence());
+                System.out.println("Your seats were released before the payment was answered. Your payment will be refunded.");
+                // Release what is still held (seats taken by other sessions since are theirs now)
+                for (Seat seat : seatSelection) {
+                    seat.release(currentUser.getID());
+                }
+                seatSelection.clear();
+                return false;
+            }
             seatSelection.clear();
             System.out.println("Booking successful!");
         }
@@ -662,25 +958,34 @@ public final class CLI {
         /* Display customer's bookings */
         printChoices(false, "Exit (any character)", "Please select a booking to cancel. Bookings: ");
         Customer customer = (Customer)user;
-        ArrayList<Booking> bookings = customer.getBookings();
+        // Active bookings for this venue's shows (bookings of cancelled shows are refunded automatically)
+        List<Booking> bookings = customer.getBookings().stream().filter(booking -> booking.isActive() && venue.hasShow(booking.getShowID())).collect(Collectors.toList());
         for (int i = 0; i < bookings.size(); i++) {
             Booking booking = bookings.get(i);
-            Show bookedShow = venue.getShow(booking.getShowID());
-            System.out.printf("(%d) %s%n", (i+1), bookedShow.getName());
-            System.out.printf("\tTime: %s%n", bookedShow.getTime().getTime());
+            try {
+                Show bookedShow = venue.getShow(booking.getShowID());
+                System.out.printf("(%d) %s%n", (i+1), bookedShow.getName());
+                System.out.printf("\tTime: %s%n", formatTime(bookedShow.getTime()));
+            } catch (NoSuchElementException e) {
+                System.out.printf("(%d) Cancelled show (refund on its way)%n", (i+1)); // Cancelled since the list was made
+            }
             System.out.printf("\tNo. of Seats: %d%n", booking.getSeats().length);
             System.out.printf("\tSeats: %s%n", String.join(",", booking.getSeats()));
         }
 
         /* Cancel booking if valid integer and then return */
-        if (input.hasNextInt()) {
-            int line = Integer.parseInt(input.nextLine());
+        if (input.get().hasNextInt()) {
+            int line = Integer.parseInt(input.get().nextLine());
             if (line <= bookings.size() && line > 0) {
-                customer.cancelBooking(bookings.get(line - 1).getID());
+                try {
+                    venue.getCommands().cancel(null, customer, bookings.get(line - 1).getID()); // Returns the seats to the show
+                } catch (NoSuchElementException e) {
+                    System.out.println("This booking's show has been cancelled, and the booking will be refunded.");
+                }
             }
             return;
         }
-        input.nextLine(); //If it is not an integer, the scanner will read and dispose of the next line
+        input.get().nextLine(); //If it is not an integer, the scanner will read and dispose of the next line
     }
 
     /**
@@ -689,7 +994,7 @@ public final class CLI {
      */
     public static int manageShows() {
         printChoices(true,"Delete Show(d)", "Add Show(a)", "Reschedule Show(r)", "Exit (e)");
-        String line = input.nextLine(); // Get user input
+        String line = input.get().nextLine(); // Get user input
         switch (line) {
             case "d":
                 return 0;
@@ -722,8 +1027,9 @@ public final class CLI {
         if (selectedShowID < 0) { return; } // Invalid/exit response from selectShow() so return
 
         /* Delete show */
-        venue.getShows().removeIf(i -> i.getID() == selectedShowID);
-        System.out.println("Show deleted successfully!");
+        int numBookings = venue.getBookings(selectedShowID).size();
+        venue.cancelShow(selectedShowID);
+        System.out.printf("Show deleted successfully! %d booking(s) will be refunded.%n", numBookings);
     }
 
     /**
@@ -749,7 +1055,7 @@ public final class CLI {
             validEntry = false;
             requirement = showRequirements[stage]; // Current stage's requirement string
             printChoices(false, "Exit (e)", String.format("Enter the %s:", requirement));
-            String line = input.nextLine(); // Get user input
+            String line = input.get().nextLine(); // Get user input
             if (line.equals("e")) {
                 throw new CancellationException("Exit ('e') was inputted by the user."); // Return false if exit 'e' is inputted
             } else {
@@ -775,7 +1081,7 @@ public final class CLI {
         }
         /* Create and return show */
         System.out.println("Added show successfully!");
-        return new Show(showName, showTime, venue.getNumRows(), venue.getNumCols());
+        return new Show(showName, showTime.getTimeInMillis(), venue.getNumRows(), venue.getNumCols());
     }
 
     /**
@@ -798,15 +1104,24 @@ public final class CLI {
 
         /* Reschedule show if valid Date and Time, and then return */
         printChoices(false, "Exit (any character)", "Please enter a new date and time for the selected show (in the format 'dd/MM/yyyy 00:00' where '00:00' is 24 hour time format):");
-        String line = input.nextLine(); // Get user input
+        String line = input.get().nextLine(); // Get user input
+        long time;
         try {
-            Calendar newDateTime = createDateTime(line);
-            venue.getShow(selectedShowID).setTime(newDateTime);
-            System.out.println("Rescheduled show successfully!");
+            time = createDateTime(line).getTimeInMillis();
         } catch (IllegalArgumentException e) {
             System.out.println("Invalid date.");
             throw new RuntimeException(e);
         }
+        // Customers with bookings for the show are told of the new time in the background
+        int numCustomers;
+        try {
+            numCustomers = venue.rescheduleShow(selectedShowID, time, false);
+        } catch (IllegalStateException e) {
+            printChoices(false, "Reschedule anyway (y)", "Exit (any other character)", e.getMessage() + ".");
+            if (!input.get().nextLine().equals("y")) { return; }
+            numCustomers = venue.rescheduleShow(selectedShowID, time, true);
+        }
+        System.out.printf("Rescheduled show successfully! %d customer(s) will be told of the new time.%n", numCustomers);
     }
 
     /**
@@ -815,7 +1130,7 @@ public final class CLI {
      */
     public static int managePromotions() {
         printChoices(true,"Apply Promotion to Show(a)", "Remove Promotion from Show(r)", "Create New Promotion(p)", "Exit (e)");
-        String line = input.nextLine(); // Get user input
+        String line = input.get().nextLine(); // Get user input
         switch (line) {
             case "a":
                 return 0;
@@ -855,21 +1170,21 @@ public final class CLI {
         /* Display Promotions and apply selection (if any) */
         printChoices(false, "Exit (any character)", "Please select a promotion to apply:");
         // Display Promotions
-        ArrayList<Promotion> promotions = venue.getPromotions();
+        List<Promotion> promotions = venue.getPromotions();
         for (int i = 0; i < promotions.size(); i++) {
             Promotion promotion = promotions.get(i);
             System.out.printf("(%d) Name: %s%n", i+1, promotion.getName());
         }
         /* Apply promotion if valid integer and then return */
-        if (input.hasNextInt()) {
-            int line = Integer.parseInt(input.nextLine());
+        if (input.get().hasNextInt()) {
+            int line = Integer.parseInt(input.get().nextLine());
             if (line <= promotions.size() && line > 0) {
-                venue.getShow(selectedShowID).setPromotion(venue.getPromotion(promotions.get(line-1).getID()));
+                venue.setShowPromotion(selectedShowID, venue.getPromotion(promotions.get(line-1).getID()));
             }
             System.out.println("Applied promotion successfully!");
             return;
         }
-        input.nextLine(); //If it is not an integer, the scanner will read and dispose of the next line
+        input.get().nextLine(); //If it is not an integer, the scanner will read and dispose of the next line
         System.out.println("Failed to apply promotion. Please try again.");
     }
 
@@ -880,7 +1195,7 @@ public final class CLI {
     public static void createPromotion(Venue venue) {
         /* Get Name of Promotion */
         printChoices(true, "Exit (e)", "Please enter a name for the promotion");
-        String line = input.nextLine();
+        String line = input.get().nextLine();
         if (line.equals("e")) { return; }
         String promotionName = line;
         /* Get price modifiers/tiers */
@@ -890,15 +1205,15 @@ public final class CLI {
             printChoices(false, "Exit (e)", "Accept Selection (a)", "Please enter a price tier for this promotion (in the format '0.75' where this is a positive none-zero multiplier. i.e. '0.75' = 75% of the default ticket price):");
             String currentTiers = tiers.stream().map(Object::toString).collect(Collectors.joining(","));
             System.out.printf("Current tiers: (%s)%n", currentTiers);
-            if (input.hasNextFloat()) {
-                float tier = input.nextFloat();
+            if (input.get().hasNextFloat()) {
+                float tier = input.get().nextFloat();
                 if (tier > 0 ) {
                     tiers.add(tier);
                 } else {
                     System.out.println("Please enter a valid tier value.");
                 }
             } else {
-                line = input.nextLine();
+                line = input.get().nextLine();
                 if (line.equals("e")) {
                     return;
                 } else if (line.equals("a")) {
@@ -920,7 +1235,7 @@ public final class CLI {
         for (int i = 0; i < tiers.size(); i++) {
             printChoices(false, "Exit (e)", "Please enter a valid seat range (inclusive) in the format '0-19'. There should be two numbers separated by a hyphen, where each number corresponds to a seat ID, with lower numbers being closer to the front. No repeats or crossovers are valid, however the seat IDs may span beyond the maximum capacity of the venue:");
             System.out.printf("Each seat range corresponds directly to a tier you have entered. Current tier (%d/%d). Modifier: %%%f%n", i+1, tiers.size(), 100*tiers.get(i));
-            line = input.nextLine(); // User input
+            line = input.get().nextLine(); // User input
             // Validation
             if (line.equals("e")) { return; }
             String[] splitLine = line.split("-");
@@ -962,7 +1277,7 @@ public final class CLI {
         }
         if (selectedShowID < 0) { return; } // Invalid/exit response from selectShow() so return
         /* Remove promotion from show (set back to default promotion) */
-        venue.getShow(selectedShowID).removePromotion();
+        venue.removeShowPromotion(selectedShowID);
         System.out.println("Removed promotion from selected show.");
     }
 }
@@ -5,12 +5,14 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class Customer extends User{
     private String mobileNo;
     private String dob;
     private String homeAddress;
     private ArrayList<Booking> bookings = new ArrayList<Booking>();
+    private final ConcurrentLinkedQueue<WaitlistOffer> waitlistOffers = new ConcurrentLinkedQueue<>(); // Seats held from waitlists (added by other sessions)
 
     public Customer(String name, String username, String emailAddress, String mobileNo, String password, String dob, String homeAddress) {
         super(name, username, emailAddress, password);
@@ -20,6 +22,12 @@ public class Customer extends User{
         this.setAccountType(AccountType.CUSTOMER);
     }
 
+    @Override
+    public String getMobile() { return mobileNo; }
+
+    @Override
+    public void setMobile(String mobileNo) { this.mobileNo = mobileNo; }
+
     public String getDOB() { return dob; }
 
     /**
@@ -61,10 +69,53 @@ public class Customer extends User{
         return homeAddress.matches("^\\d+[a-zA-Z\\s]+,[a-zA-Z\\s]+,\\s*[a-zA-Z]{1,2}\\d{1,2}\\s\\d[a-zA-Z]{1,2}$");
     }
 
-    public void addBooking(int showID, String[] seats) { bookings.add(new Booking(showID, seats)); }
+    /**
+     * Add a booking for seats of a show.
+     * @param showID Show which the booking pertains to.
+     * @param seats Seat names included in the booking.
+     * @return New booking.
+     */
+    public Booking addBooking(int showID, String[] seats) { return addBooking(showID, seats, null, 0); }
+
+    /**
+     * Add a paid booking for seats of a show.
+     * @param showID Show which the booking pertains to.
+     * @param seats Seat names included in the booking.
+     * @param paymentReference Reference of the payment (refunds are made against it), or null.
+     * @param amountPence Amount paid in pence.
+     * @return New booking.
+     */
+    public Booking addBooking(int showID, String[] seats, String paymentReference, long amountPence) {
+        Booking booking = new Booking(showID, seats, paymentReference, amountPence);
+        bookings.add(booking);
+        Metrics.increment(Metrics.Counter.BOOKINGS);
+        return booking;
+    }
+
+    /**
+     * Add an existing booking (used when replaying a replication journal).
+     * @param booking Booking to add.
+     */
+    void restoreBooking(Booking booking) { bookings.add(booking); }
 
     public ArrayList<Booking> getBookings() { return bookings; }
 
+    public void addWaitlistOffer(WaitlistOffer offer) { waitlistOffers.add(offer); }
+
+    public boolean hasWaitlistOffers() { return !waitlistOffers.isEmpty(); }
+
+    /**
+     * Retrieve and remove the oldest waitlist offer.
+     * @return Oldest offer, or null if there are none.
+     */
+    public WaitlistOffer pollWaitlistOffer() { return waitlistOffers.poll(); }
+
+    /**
+     * Remove a waitlist offer that was released before the customer saw it (i.e. it expired).
+     * @param offer Offer to remove.
+     */
+    void removeWaitlistOffer(WaitlistOffer offer) { waitlistOffers.remove(offer); }
+
     /**
      * Deletes booking using given booking ID.
      * @param bookingID ID of booking to delete.
@@ -74,5 +125,6 @@ public class Customer extends User{
         if (!bookings.removeIf(booking -> booking.getID() == bookingID)) {
             throw new NoSuchElementException("The 'bookingID' requested does not exist");
         }
+        Metrics.increment(Metrics.Counter.CANCELLATIONS);
     }
 }
@@ -0,0 +1,127 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+public class DiscountTable {
+    /* What the table was compiled from (used to tell when it is stale) */
+    private final List<PricingRule> rules;
+    private final Promotion promotion;
+    private final long showTime;
+    /* Decision table */
+    private final int[] countIndex; // Column of each basket size (sizes above the last volume break use the last column)
+    private final int[][] discounts; // Discount in basis points, indexed by [account type][column]
+    private final String[][] labels; // Names of the rules behind each discount, indexed by [account type][column]
+
+    private DiscountTable(List<PricingRule> rules, Promotion promotion, long showTime, int[] countIndex, int[][] discounts, String[][] labels) {
+        this.rules = rules;
+        this.promotion = promotion;
+        this.showTime = showTime;
+        this.countIndex = countIndex;
+        this.discounts = discounts;
+        this.labels = labels;
+    }
+
+    /**
+     * Compile pricing rules into a decision table for a show. Rules outside the show's date window or excluded by its promotion are dropped,
+     * then every account type and volume break is resolved up front (the best non-stackable discount competes with the sum of the stackable ones).
+     * @param rules Pricing rules (must not be modified afterwards).
+     * @param show Show to compile the rules for.
+     * @return Decision table.
+     */
+    public static DiscountTable compile(List<PricingRule> rules, Show show) {
+        Promotion promotion = show.getPromotion();
+        long showTime = show.getTime();
+        /* Keep the rules that apply to this show */
+        ArrayList<PricingRule> applicable = new ArrayList<>();
+        for (PricingRule rule : rules) {
+            if (rule.appliesTo(showTime, show.hasPromotion())) {
+                applicable.add(rule);
+            }
+        }
+        /* One column per distinct volume break */
+        TreeSet<Integer> breaks = new TreeSet<>();
+        breaks.add(1);
+        for (PricingRule rule : applicable) { breaks.add(rule.getMinTickets()); }
+        int[] countIndex = new int[breaks.last()+1];
+        int column = 0;
+        for (int count = 1; count < countIndex.length; count++) {
+            if (count > 1 && breaks.contains(count)) { column += 1; }
+            countIndex[count] = column;
+        }
+        /* Resolve each cell */
+        User.AccountType[] accountTypes = User.AccountType.values();
+        int[][] discounts = new int[accountTypes.length][breaks.size()];
+        String[][] labels = new String[accountTypes.length][breaks.size()];
+        for (User.AccountType accountType : accountTypes) {
+            column = 0;
+            for (int count : breaks) {
+                PricingRule best = null; // Best non-stackable rule
+                int stacked = 0;
+                StringBuilder stackedNames = new StringBuilder();
+                for (PricingRule rule : applicable) {
+                    if (!rule.appliesTo(accountType) || rule.getMinTickets() > count) { continue; }
+                    if (rule.isStackable()) {
+                        stacked += rule.getDiscount();
+                        stackedNames.append(stackedNames.length() == 0 ? "" : ", ").append(rule.getName());
+                    } else if (best == null || rule.getDiscount() > best.getDiscount()) {
+                        best = rule;
+                    }
+                }
+                stacked = Math.min(stacked, PricingRule.MAX_DISCOUNT);
+                if (best != null && best.getDiscount() > stacked) {
+                    discounts[accountType.ordinal()][column] = best.getDiscount();
+                    labels[accountType.ordinal()][column] = best.getName();
+                } else {
+                    discounts[accountType.ordinal()][column] = stacked;
+                    labels[accountType.ordinal()][column] = stackedNames.toString();
+                }
+                column += 1;
+            }
+        }
+        return new DiscountTable(rules, promotion, showTime, countIndex, discounts, labels);
+    }
+
+    /**
+     * Check if the table was compiled from the given rules and the show's current promotion and time.
+     * @param rules Current pricing rules.
+     * @param show Show the table was compiled for.
+     * @return True if the table is still valid.
+     */
+    public boolean isCurrent(List<PricingRule> rules, Show show) {
+        return this.rules == rules && promotion == show.getPromotion() && showTime == show.getTime();
+    }
+
+    private int column(int numTickets) { return countIndex[Math.max(0, Math.min(numTickets, countIndex.length-1))]; }
+
+    /**
+     * Get the discount applied to every ticket in a basket.
+     * @param accountType Account type of the user paying.
+     * @param numTickets Number of tickets in the basket.
+     * @return Discount in basis points.
+     */
+    public int getDiscount(User.AccountType accountType, int numTickets) {
+        return discounts[accountType.ordinal()][column(numTickets)];
+    }
+
+    /**
+     * Get the names of the rules behind a discount.
+     * @param accountType Account type of the user paying.
+     * @param numTickets Number of tickets in the basket.
+     * @return Comma separated rule names (empty if there is no discount).
+     */
+    public String getLabel(User.AccountType accountType, int numTickets) {
+        return labels[accountType.ordinal()][column(numTickets)];
+    }
+
+    /**
+     * Apply a discount to a price, rounding half pennies up.
+     * @param pence Price in pence.
+     * @param discount Discount in basis points.
+     * @return Discounted price in pence.
+     */
+    public static long applyDiscount(long pence, int discount) {
+        return (pence * (PricingRule.MAX_DISCOUNT - discount) + PricingRule.MAX_DISCOUNT/2) / PricingRule.MAX_DISCOUNT;
+    }
+}
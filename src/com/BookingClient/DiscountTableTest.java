@@ -0,0 +1,65 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Calendar;
+import java.util.EnumSet;
+
+/**
+ * The test class DiscountTableTest.
+ */
+public class DiscountTableTest
+{
+    Venue venue;
+    int showID;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 4, 4);
+        Calendar time = Calendar.getInstance();
+        time.add(Calendar.DATE, 7);
+        venue.addShow("Test Show", time.getTimeInMillis());
+        showID = venue.getShows().get(0).getID();
+    }
+
+    @Test
+    public void testDefaultVolumeDiscount() {
+        DiscountTable table = venue.getDiscountTable(showID);
+        assertEquals(0, table.getDiscount(User.AccountType.CUSTOMER, 5));
+        assertEquals(500, table.getDiscount(User.AccountType.CUSTOMER, 6));
+        assertEquals(500, table.getDiscount(User.AccountType.CUSTOMER, 100));
+        assertEquals(998, DiscountTable.applyDiscount(1050, 500)); // 997.5 rounds up
+    }
+
+    @Test
+    public void testStackingAndExclusiveRules() {
+        venue.addPricingRule(PricingRule.accountType("Agent rate", 1000, User.AccountType.AGENT));
+        venue.addPricingRule(new PricingRule("Flash sale", 2000, 2, EnumSet.of(User.AccountType.CUSTOMER), Long.MIN_VALUE, Long.MAX_VALUE, false, true));
+        DiscountTable table = venue.getDiscountTable(showID);
+        assertEquals(1500, table.getDiscount(User.AccountType.AGENT, 6)); // Stackable rules add up
+        assertEquals(2000, table.getDiscount(User.AccountType.CUSTOMER, 6)); // Exclusive rule beats the stack
+        assertEquals(0, table.getDiscount(User.AccountType.CUSTOMER, 1));
+    }
+
+    @Test
+    public void testRecompiledWhenShowChanges() {
+        venue.addPricingRule(new PricingRule("No promotions", 300, 1, EnumSet.of(User.AccountType.CUSTOMER), Long.MIN_VALUE, Long.MAX_VALUE, true, false));
+        assertEquals(300, venue.getDiscountTable(showID).getDiscount(User.AccountType.CUSTOMER, 1));
+        venue.getShow(showID).setPromotion(new Promotion("Half price", new float[]{0.5f}, new int[][]{{0, 3}}));
+        assertEquals(0, venue.getDiscountTable(showID).getDiscount(User.AccountType.CUSTOMER, 1));
+        Calendar later = Calendar.getInstance();
+        later.add(Calendar.YEAR, 1);
+        venue.addPricingRule(new PricingRule("Next year", 700, 1, EnumSet.of(User.AccountType.CUSTOMER), later.getTimeInMillis(), Long.MAX_VALUE, true, true));
+        assertEquals(0, venue.getDiscountTable(showID).getDiscount(User.AccountType.CUSTOMER, 1)); // Outside date window
+        venue.rescheduleShow(showID, later.getTimeInMillis());
+        assertEquals(700, venue.getDiscountTable(showID).getDiscount(User.AccountType.CUSTOMER, 1));
+    }
+}
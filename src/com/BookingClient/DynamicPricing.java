@@ -0,0 +1,88 @@
+package src.com.BookingClient;
+
+/**
+ * Demand based price multipliers for a show's price tiers. The multiplier of a tier is the product of an occupancy
+ * curve (fraction of the tier's seats held or booked) and a time curve (hours until the show), each interpolated
+ * linearly between points, and rounded to a price step so that prices only change when a threshold is crossed.
+ */
+public class DynamicPricing {
+    private final double[] occupancyPoints;
+    private final float[] occupancyMultipliers;
+    private final double[] hoursPoints;
+    private final float[] hoursMultipliers;
+    private final float step;
+
+    /**
+     * DynamicPricing constructor.
+     * @param occupancyPoints Occupancy fractions (0 to 1) in ascending order.
+     * @param occupancyMultipliers Multiplier at each occupancy point.
+     * @param hoursPoints Hours until the show in ascending order.
+     * @param hoursMultipliers Multiplier at each hours point.
+     * @param step Multipliers are rounded to a multiple of this (i.e. 0.05), 0 for no rounding.
+     * @throws IllegalArgumentException If a curve is empty, the points and multipliers do not match in length,
+     * or the points are not in ascending order.
+     */
+    public DynamicPricing(double[] occupancyPoints, float[] occupancyMultipliers, double[] hoursPoints, float[] hoursMultipliers, float step) throws IllegalArgumentException {
+        validateCurve(occupancyPoints, occupancyMultipliers);
+        validateCurve(hoursPoints, hoursMultipliers);
+        this.occupancyPoints = occupancyPoints;
+        this.occupancyMultipliers = occupancyMultipliers;
+        this.hoursPoints = hoursPoints;
+        this.hoursMultipliers = hoursMultipliers;
+        this.step = step;
+    }
+
+    /**
+     * Standard curve: up to 50% more as a tier sells out, 10% off more than a month ahead, and 10% more in the last day.
+     * @return DynamicPricing with the standard curves.
+     */
+    public static DynamicPricing standard() {
+        return new DynamicPricing(
+                new double[]{0, 0.5, 0.8, 1}, new float[]{1f, 1f, 1.2f, 1.5f},
+                new double[]{0, 24, 168, 720}, new float[]{1.1f, 1f, 1f, 0.9f},
+                0.05f);
+    }
+
+    private static void validateCurve(double[] points, float[] multipliers) throws IllegalArgumentException {
+        if (points.length == 0 || points.length != multipliers.length) {
+            throw new IllegalArgumentException("Curve points and multipliers must be non-empty and match in length");
+        }
+        for (int i = 1; i < points.length; i++) {
+            if (points[i] < points[i-1]) {
+                throw new IllegalArgumentException("Curve points must be in ascending order");
+            }
+        }
+    }
+
+    /**
+     * Interpolate a curve linearly, clamping to the first and last points.
+     * @param points Points in ascending order.
+     * @param multipliers Multiplier at each point.
+     * @param x Value to interpolate at.
+     * @return Interpolated multiplier.
+     */
+    private static double interpolate(double[] points, float[] multipliers, double x) {
+        if (x <= points[0]) { return multipliers[0]; }
+        for (int i = 1; i < points.length; i++) {
+            if (x <= points[i]) {
+                double fraction = (x - points[i-1]) / (points[i] - points[i-1]);
+                return multipliers[i-1] + fraction * (multipliers[i] - multipliers[i-1]);
+            }
+        }
+        return multipliers[multipliers.length-1];
+    }
+
+    /**
+     * Get the price multiplier for a tier.
+     * @param occupancy Fraction of the tier's seats that are held or booked.
+     * @param hoursToShow Hours until the show starts.
+     * @return Multiplier of the tier's base price.
+     */
+    public float multiplier(double occupancy, double hoursToShow) {
+        double multiplier = interpolate(occupancyPoints, occupancyMultipliers, occupancy) * interpolate(hoursPoints, hoursMultipliers, hoursToShow);
+        if (step > 0) {
+            multiplier = Math.round(multiplier / step) * step;
+        }
+        return (float) multiplier;
+    }
+}
@@ -0,0 +1,69 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class DynamicPricingTest.
+ */
+public class DynamicPricingTest
+{
+    Show show;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        show = new Show("Test Show", System.currentTimeMillis() + 100 * 3_600_000L, 5, 2); // 10 seats, 100 hours away
+        show.setPromotion(new Promotion("Half price", new float[]{0.5f}, new int[][]{{5, 9}})); // Tier 1 is seats 5 to 9
+    }
+
+    @Test
+    public void testInterpolatesCurves() {
+        DynamicPricing standard = DynamicPricing.standard();
+        assertEquals(1f, standard.multiplier(0.2, 100), 1e-6);
+        assertEquals(1.1f, standard.multiplier(0.65, 100), 1e-6); // Half way between 1 and 1.2
+        assertEquals(1.35f, standard.multiplier(0.9, 100), 1e-6);
+        assertEquals(1.65f, standard.multiplier(1, 0), 1e-6); // Sold out on the day
+        assertEquals(0.9f, standard.multiplier(0, 5000), 1e-6); // Beyond the last point
+        DynamicPricing stepped = new DynamicPricing(new double[]{0, 1}, new float[]{1f, 2f}, new double[]{0}, new float[]{1f}, 0.25f);
+        assertEquals(1.25f, stepped.multiplier(0.3, 10), 1e-6); // 1.3 rounded to the step
+        assertThrows(IllegalArgumentException.class, () -> new DynamicPricing(new double[]{1, 0}, new float[]{1f, 1f}, new double[]{0}, new float[]{1f}, 0));
+    }
+
+    @Test
+    public void testTierIsRepricedAsItFills() {
+        show.setDynamicPricing(new DynamicPricing(new double[]{0, 0.5, 1}, new float[]{1f, 1f, 2f}, new double[]{0}, new float[]{1f}, 0.5f));
+        for (int seatID = 5; seatID < 8; seatID++) {
+            assertTrue(show.getSeat(seatID).hold());
+        }
+        assertEquals(500, show.getPriceColumn().getTierPrice(1)); // 60% taken, still in the first step
+        long version = show.getVersion();
+        assertTrue(show.getSeat(8).hold());
+        assertEquals(750, show.getPriceColumn().getTierPrice(1)); // 80% taken, 1.6 rounded to 1.5
+        assertEquals(7.5f, show.getSeat(5).getPrice());
+        assertEquals(1000, show.getPriceColumn().getTierPrice(0)); // Other tier unchanged
+        assertNotEquals(version, show.getVersion()); // Quotes at the old price are stale
+        show.getSeat(8).setEmpty();
+        assertEquals(500, show.getPriceColumn().getTierPrice(1));
+        show.setDynamicPricing(null);
+        assertTrue(show.getSeat(9).hold());
+        assertEquals(500, show.getPriceColumn().getTierPrice(1));
+    }
+
+    @Test
+    public void testPromotionPricesSeatsByID() {
+        // Seats 5 to 9 are in the promotion, not the first five seats of the show
+        for (int seatID = 0; seatID < 5; seatID++) {
+            assertEquals(10f, show.getSeat(seatID).getPrice());
+        }
+        for (int seatID = 5; seatID < 10; seatID++) {
+            assertEquals(5f, show.getSeat(seatID).getPrice());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package src.com.BookingClient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * NotificationSink appending each notification to a local file as one tab separated line
+ * (ID, type, recipient, subject, body), forced to disk once per batch.
+ */
+public class FileNotificationSink implements NotificationSink {
+    private final Path path;
+
+    /**
+     * FileNotificationSink constructor. The file is created on the first batch if it does not exist.
+     * @param path File to append to.
+     */
+    public FileNotificationSink(Path path) { this.path = path; }
+
+    @Override
+    public void send(List<Notification> batch) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Notification notification : batch) {
+            lines.append(notification.getID()).append('\t').append(notification.getType()).append('\t').append(notification.getRecipient())
+                    .append('\t').append(notification.getSubject()).append('\t').append(notification.getBody().replace('\n', ' ')).append('\n');
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                file.write(bytes);
+            }
+            file.force(false);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning keys (i.e. show IDs) to nodes. Each node is placed at several points on the ring,
+ * so keys spread evenly and only the keys next to a joining or leaving node's points change owner.
+ */
+public class HashRing {
+    private final int pointsPerNode; // Virtual nodes per node
+    private final TreeMap<Long, String> ring = new TreeMap<>(); // Ring position to node ID
+    private final ArrayList<String> nodes = new ArrayList<>(); // Node IDs in the order they joined
+
+    /**
+     * HashRing constructor.
+     * @param pointsPerNode Number of points (virtual nodes) each node is placed at.
+     * @throws IllegalArgumentException If pointsPerNode is below 1.
+     */
+    public HashRing(int pointsPerNode) throws IllegalArgumentException {
+        if (pointsPerNode < 1) {
+            throw new IllegalArgumentException("Each node needs at least one point on the ring");
+        }
+        this.pointsPerNode = pointsPerNode;
+    }
+
+    /**
+     * Copy a ring (used to work out which keys move before changing the ring in use).
+     * @param other Ring to copy.
+     */
+    public HashRing(HashRing other) {
+        this.pointsPerNode = other.pointsPerNode;
+        this.ring.putAll(other.ring);
+        this.nodes.addAll(other.nodes);
+    }
+
+    /**
+     * Spread the bits of a value over a 64 bit hash (MurmurHash3 finaliser).
+     * @param value Value to hash.
+     * @return Hash of value.
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Add a node to the ring.
+     * @param nodeID ID of node.
+     * @throws IllegalArgumentException If the node is already on the ring.
+     */
+    public void addNode(String nodeID) throws IllegalArgumentException {
+        if (nodes.contains(nodeID)) {
+            throw new IllegalArgumentException("Node is already on the ring");
+        }
+        nodes.add(nodeID);
+        for (int i = 0; i < pointsPerNode; i++) {
+            ring.putIfAbsent(mix(((long) nodeID.hashCode() << 32) | i), nodeID); // First node keeps a (very unlikely) shared point
+        }
+    }
+
+    /**
+     * Remove a node from the ring.
+     * @param nodeID ID of node.
+     * @throws NoSuchElementException If the node is not on the ring.
+     */
+    public void removeNode(String nodeID) throws NoSuchElementException {
+        if (!nodes.remove(nodeID)) {
+            throw new NoSuchElementException("Node is not on the ring");
+        }
+        ring.values().removeIf(nodeID::equals);
+    }
+
+    /**
+     * Get the node owning a key (the first node point at or after the key's hash, wrapping around).
+     * @param key Key to look up (i.e. show ID).
+     * @return ID of owning node.
+     * @throws NoSuchElementException If the ring has no nodes.
+     */
+    public String getOwner(int key) throws NoSuchElementException {
+        if (ring.isEmpty()) {
+            throw new NoSuchElementException("The ring has no nodes");
+        }
+        Map.Entry<Long, String> point = ring.ceilingEntry(mix(key));
+        return point != null ? point.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Get the IDs of all nodes on the ring.
+     * @return Node IDs in the order they joined.
+     */
+    public List<String> getNodes() { return new ArrayList<>(nodes); }
+}
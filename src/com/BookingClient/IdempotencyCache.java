@@ -0,0 +1,137 @@
+package src.com.BookingClient;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Outcomes of recently executed commands by idempotency key, so a command sent again (i.e. a client retrying after a timeout)
+ * returns the outcome of its first execution rather than executing twice. A command sent again while the first is still
+ * executing waits for its outcome. Only outcomes are remembered, including rejections returned as outcomes (i.e. a hold
+ * returning false); a command that throws is forgotten, so a failure that may pass (i.e. a seat not held yet) can be retried
+ * with the same key. Commands sent while it was executing are given its exception.
+ * Keys are kept for a fixed time after they are first seen, and the oldest keys are dropped first once the cache is full.
+ */
+public class IdempotencyCache {
+    /**
+     * Outcome of one command.
+     */
+    private static final class Entry {
+        final String command; // Name of the command the key was used for
+        final long expiresAt; // Clock time (nanoseconds) the key is forgotten at
+        final CompletableFuture<Object> outcome; // Completed once the command has executed
+
+        Entry(String command, long expiresAt) {
+            this.command = command;
+            this.expiresAt = expiresAt;
+            this.outcome = new CompletableFuture<>();
+        }
+    }
+
+    private final int maxKeys;
+    private final long ttlNanos;
+    private final LongSupplier clock; // Nanosecond clock (i.e. System::nanoTime)
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(); // Oldest first, so also in order of expiry
+
+    /**
+     * IdempotencyCache constructor.
+     * @param maxKeys Maximum number of keys remembered.
+     * @param ttlMillis Time each key is remembered for in milliseconds.
+     * @throws IllegalArgumentException If the maximum number of keys or the time to live is not positive.
+     */
+    public IdempotencyCache(int maxKeys, long ttlMillis) throws IllegalArgumentException {
+        this(maxKeys, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * IdempotencyCache constructor with a given clock (i.e. for tests).
+     * @param maxKeys Maximum number of keys remembered.
+     * @param ttlMillis Time each key is remembered for in milliseconds.
+     * @param clock Nanosecond clock.
+     * @throws IllegalArgumentException If the maximum number of keys or the time to live is not positive.
+     */
+    IdempotencyCache(int maxKeys, long ttlMillis, LongSupplier clock) throws IllegalArgumentException {
+        if (maxKeys < 1 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("An idempotency cache needs a positive size and time to live");
+        }
+        this.maxKeys = maxKeys;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Execute a command once per key. The command runs on the calling thread, without the cache locked.
+     * @param key Idempotency key supplied by the client.
+     * @param command Name of the command (a key may only be used for one command).
+     * @param action Executes the command and returns its outcome.
+     * @param <T> Type of outcome.
+     * @return Outcome of the command's first successful execution with this key.
+     * @throws IllegalArgumentException If the key was used for a different command.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String command, Supplier<T> action) throws IllegalArgumentException {
+        Entry entry;
+        Entry existing;
+        synchronized (entries) {
+            long now = clock.getAsLong();
+            evict(now);
+            existing = entries.get(key);
+            entry = existing != null ? existing : new Entry(command, now + ttlNanos);
+            if (existing == null) {
+                entries.put(key, entry);
+            }
+        }
+        if (existing != null) {
+            if (!existing.command.equals(command)) {
+                throw new IllegalArgumentException(String.format("Idempotency key '%s' was already used for '%s'", key, existing.command));
+            }
+            Metrics.increment(Metrics.Counter.IDEMPOTENT_REPLAYS);
+            try {
+                return (T) existing.outcome.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            T outcome = action.get();
+            entry.outcome.complete(outcome);
+            return outcome;
+        } catch (RuntimeException | Error e) {
+            synchronized (entries) {
+                entries.remove(key, entry); // Not remembered, so the next attempt executes again
+            }
+            entry.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop expired keys, then the oldest keys until there is room for one more. Called with 'entries' locked.
+     * @param now Clock time (nanoseconds).
+     */
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next().getValue();
+            if (entries.size() < maxKeys && entry.expiresAt - now > 0) {
+                break;
+            }
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Get the number of keys remembered (including expired keys not yet dropped).
+     * @return Number of keys.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package src.com.BookingClient;
+
+/**
+ * Source of user input for a session. Mirrors the subset of Scanner used by the CLI so that
+ * each session can read from its own console, socket, or script instead of a shared static Scanner.
+ */
+public interface InputSource {
+    /**
+     * Get the next line of input.
+     * @return Next line of input (without the line separator).
+     * @throws java.util.NoSuchElementException If there is no more input.
+     */
+    String nextLine();
+
+    /**
+     * Check if the next token of input is an integer.
+     * @return True if the next token is an integer.
+     */
+    boolean hasNextInt();
+
+    /**
+     * Check if the next token of input is a float.
+     * @return True if the next token is a float.
+     */
+    boolean hasNextFloat();
+
+    /**
+     * Get the next token of input as a float.
+     * @return Next token as a float.
+     */
+    float nextFloat();
+}
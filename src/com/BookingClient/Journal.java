@@ -0,0 +1,20 @@
+package src.com.BookingClient;
+
+/**
+ * Ordered log of changes to venues, shows, seats, users, and bookings (i.e. replicated to a standby by ReplicationLeader).
+ */
+public interface Journal {
+    /**
+     * Append an entry to the journal without waiting for it to be replicated.
+     * @param entry Entry to append.
+     * @return Sequence number of the entry (entries are numbered from 1), or -1 if the journal has failed.
+     */
+    long append(JournalEntry entry);
+
+    /**
+     * Wait until every entry up to a sequence number has been acknowledged, or a timeout passes.
+     * @param sequence Sequence number returned by append().
+     * @return True if acknowledged, false on timeout or if the journal has failed.
+     */
+    boolean awaitAcknowledged(long sequence);
+}
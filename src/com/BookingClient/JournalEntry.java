@@ -0,0 +1,579 @@
+package src.com.BookingClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A single change in the replication journal. The change is encoded when the entry is created (on the thread making the change),
+ * so the leader only has to copy bytes to the follower.
+ * Wire format: sequence (long), type (byte), payload length (int), payload.
+ */
+public class JournalEntry {
+    public enum Type {
+        VENUE_ADDED,
+        SHOW_ADDED,
+        SHOW_CANCELLED,
+        SHOW_RESCHEDULED,
+        SEAT_STATUS,
+        PROMOTION_ADDED,
+        PROMOTION_REMOVED,
+        SHOW_PROMOTION,
+        USER_ADDED,
+        BOOKING,
+        BOOKING_CANCELLED,
+        VENUE_LAYOUT,
+        NOTIFICATION,
+        NOTIFICATIONS_SENT,
+        BOOKINGS_REFUNDED,
+        CUSTOMERS_NOTIFIED,
+        PAYMENT_REFUND,
+        PAYMENTS_REFUNDED
+    }
+
+    private long sequence; // Set when appended to a journal
+    private final Type type;
+    private final byte[] payload;
+
+    private JournalEntry(long sequence, Type type, byte[] payload) {
+        this.sequence = sequence;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * Writes the fields of one entry type into a payload.
+     */
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static JournalEntry encode(Type type, PayloadWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Never thrown when writing to memory
+        }
+        return new JournalEntry(0, type, bytes.toByteArray());
+    }
+
+    /* Entries */
+
+    public static JournalEntry venueAdded(Venue venue) {
+        return encode(Type.VENUE_ADDED, out -> {
+            out.writeUTF(venue.getName());
+            out.writeInt(venue.getNumRows());
+            out.writeInt(venue.getNumCols());
+        });
+    }
+
+    public static JournalEntry venueLayout(Venue venue) {
+        return encode(Type.VENUE_LAYOUT, out -> {
+            out.writeUTF(venue.getName());
+            List<SeatingLayout.Section> sections = venue.getLayout().getSections();
+            out.writeInt(sections.size());
+            for (SeatingLayout.Section section : sections) {
+                out.writeUTF(section.getName());
+                out.writeInt(section.getFirstRow());
+                out.writeInt(section.getLastRow());
+            }
+        });
+    }
+
+    public static JournalEntry showAdded(Venue venue, Show show) {
+        return encode(Type.SHOW_ADDED, out -> {
+            out.writeUTF(venue.getName());
+            out.writeInt(show.getID());
+            out.writeUTF(show.getName());
+            out.writeLong(show.getTime());
+            out.writeInt(show.getMinAge());
+            out.writeInt(show.getMaxSeatsPerUser());
+            out.writeFloat(show.getDefaultSeatPrice());
+        });
+    }
+
+    public static JournalEntry showCancelled(int showID) {
+        return encode(Type.SHOW_CANCELLED, out -> out.writeInt(showID));
+    }
+
+    public static JournalEntry showRescheduled(int showID, long time) { return showRescheduled(showID, time, Collections.emptyList()); }
+
+    /**
+     * Show rescheduled, with the notifications to its customers (recorded in the same entry, so they are replicated with the change).
+     * @param showID ID of show.
+     * @param time New time of show (epoch milliseconds).
+     * @param notifications Notifications recorded in the venue's outbox.
+     * @return Journal entry.
+     */
+    public static JournalEntry showRescheduled(int showID, long time, List<Notification> notifications) {
+        return encode(Type.SHOW_RESCHEDULED, out -> {
+            out.writeInt(showID);
+            out.writeLong(time);
+            writeNotifications(out, notifications);
+        });
+    }
+
+    public static JournalEntry seatStatus(int showID, int seatID, Seat.SeatStatus status) {
+        return encode(Type.SEAT_STATUS, out -> {
+            out.writeInt(showID);
+            out.writeInt(seatID);
+            out.writeByte(status.ordinal());
+        });
+    }
+
+    private static void writePromotion(DataOutputStream out, Promotion promotion) throws IOException {
+        out.writeInt(promotion.getID());
+        out.writeUTF(promotion.getName());
+        float[] modifiers = promotion.getPriceModifiers();
+        int[][] ranges = promotion.getSeatRanges();
+        out.writeInt(modifiers.length);
+        for (int i = 0; i < modifiers.length; i++) {
+            out.writeFloat(modifiers[i]);
+            out.writeInt(ranges[i][0]);
+            out.writeInt(ranges[i][1]);
+        }
+    }
+
+    public static JournalEntry promotionAdded(Venue venue, Promotion promotion) {
+        return encode(Type.PROMOTION_ADDED, out -> {
+            out.writeUTF(venue.getName());
+            writePromotion(out, promotion);
+        });
+    }
+
+    public static JournalEntry promotionRemoved(Venue venue, int promotionID) {
+        return encode(Type.PROMOTION_REMOVED, out -> {
+            out.writeUTF(venue.getName());
+            out.writeInt(promotionID);
+        });
+    }
+
+    /**
+     * Promotion applied to a show. The whole promotion is included, since it may have been removed from the venue since.
+     * @param showID ID of show.
+     * @param promotion Promotion applied, or null if the show's promotion was removed.
+     * @return Journal entry.
+     */
+    public static JournalEntry showPromotion(int showID, Promotion promotion) {
+        return encode(Type.SHOW_PROMOTION, out -> {
+            out.writeInt(showID);
+            out.writeBoolean(promotion != null);
+            if (promotion != null) {
+                writePromotion(out, promotion);
+            }
+        });
+    }
+
+    public static JournalEntry userAdded(User user) {
+        return encode(Type.USER_ADDED, out -> {
+            out.writeByte(user.getAccountType().ordinal());
+            out.writeInt(user.getID());
+            out.writeUTF(user.getName());
+            out.writeUTF(user.getUsername());
+            out.writeUTF(user.getEmail());
+            out.writeUTF(user.getPassword());
+            if (user instanceof Customer) {
+                Customer customer = (Customer) user;
+                out.writeUTF(customer.getMobile());
+                out.writeUTF(customer.getDOB());
+                out.writeUTF(customer.getHome());
+            }
+        });
+    }
+
+    public static JournalEntry booking(Customer customer, Booking booking) { return booking(customer, booking, Collections.emptyList()); }
+
+    /**
+     * Booking made, with its confirmation (recorded in the same entry, so it is replicated with the booking).
+     * @param customer Customer who booked.
+     * @param booking New booking.
+     * @param notifications Notifications recorded in the venue's outbox.
+     * @return Journal entry.
+     */
+    public static JournalEntry booking(Customer customer, Booking booking, List<Notification> notifications) {
+        return encode(Type.BOOKING, out -> {
+            out.writeUTF(customer.getUsername());
+            out.writeInt(booking.getID());
+            out.writeInt(booking.getShowID());
+            out.writeInt(booking.getSeats().length);
+            for (String seat : booking.getSeats()) {
+                out.writeUTF(seat);
+            }
+            out.writeBoolean(booking.getPaymentReference() != null);
+            if (booking.getPaymentReference() != null) {
+                out.writeUTF(booking.getPaymentReference());
+            }
+            out.writeLong(booking.getAmountPence());
+            out.writeByte(booking.getStatus().ordinal());
+            writeNotifications(out, notifications);
+        });
+    }
+
+    public static JournalEntry bookingCancelled(Customer customer, int bookingID) { return bookingCancelled(customer, bookingID, Collections.emptyList()); }
+
+    /**
+     * Booking cancelled, with its confirmation (recorded in the same entry, so it is replicated with the cancellation).
+     * @param customer Customer who cancelled.
+     * @param bookingID ID of booking.
+     * @param notifications Notifications recorded in the venue's outbox.
+     * @return Journal entry.
+     */
+    public static JournalEntry bookingCancelled(Customer customer, int bookingID, List<Notification> notifications) {
+        return encode(Type.BOOKING_CANCELLED, out -> {
+            out.writeUTF(customer.getUsername());
+            out.writeInt(bookingID);
+            writeNotifications(out, notifications);
+        });
+    }
+
+    private static void writeNotification(DataOutputStream out, Notification notification) throws IOException {
+        out.writeLong(notification.getID());
+        out.writeByte(notification.getType().ordinal());
+        out.writeInt(notification.getShowID());
+        out.writeUTF(notification.getRecipient());
+        out.writeUTF(notification.getSubject());
+        out.writeUTF(notification.getBody());
+    }
+
+    private static void writeNotifications(DataOutputStream out, List<Notification> notifications) throws IOException {
+        out.writeInt(notifications.size());
+        for (Notification notification : notifications) {
+            writeNotification(out, notification);
+        }
+    }
+
+    /**
+     * Notification pending in a venue's outbox (used when a journal is attached to a venue with notifications not yet delivered).
+     * @param notification Pending notification.
+     * @return Journal entry.
+     */
+    public static JournalEntry notification(Notification notification) {
+        return encode(Type.NOTIFICATION, out -> writeNotification(out, notification));
+    }
+
+    /**
+     * Bookings of cancelled shows refunded, with the notifications telling their customers (recorded in the same entry).
+     * @param venue Venue the bookings were refunded by.
+     * @param bookingIDs IDs of bookings refunded.
+     * @param notifications Notifications recorded in the venue's outbox.
+     * @return Journal entry.
+     */
+    public static JournalEntry bookingsRefunded(Venue venue, int[] bookingIDs, List<Notification> notifications) {
+        return encode(Type.BOOKINGS_REFUNDED, out -> {
+            out.writeUTF(venue.getName());
+            out.writeInt(bookingIDs.length);
+            for (int bookingID : bookingIDs) {
+                out.writeInt(bookingID);
+            }
+            writeNotifications(out, notifications);
+        });
+    }
+
+    public static JournalEntry customersNotified(Venue venue, String[] keys, long[] times, List<Notification> notifications) {
+        return encode(Type.CUSTOMERS_NOTIFIED, out -> {
+            out.writeUTF(venue.getName());
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                out.writeUTF(keys[i]);
+                out.writeLong(times[i]);
+            }
+            writeNotifications(out, notifications);
+        });
+    }
+
+    public static JournalEntry paymentRefund(Venue venue, Customer customer, String paymentReference, long amountPence) {
+        return encode(Type.PAYMENT_REFUND, out -> {
+            out.writeUTF(venue.getName());
+            out.writeUTF(customer.getUsername());
+            out.writeUTF(paymentReference);
+            out.writeLong(amountPence);
+        });
+    }
+
+    public static JournalEntry paymentsRefunded(Venue venue, String[] paymentReferences) {
+        return encode(Type.PAYMENTS_REFUNDED, out -> {
+            out.writeUTF(venue.getName());
+            out.writeInt(paymentReferences.length);
+            for (String paymentReference : paymentReferences) {
+                out.writeUTF(paymentReference);
+            }
+        });
+    }
+
+    public static JournalEntry notificationsSent(Venue venue, long[] notificationIDs) {
+        return encode(Type.NOTIFICATIONS_SENT, out -> {
+            out.writeUTF(venue.getName());
+            out.writeInt(notificationIDs.length);
+            for (long notificationID : notificationIDs) {
+                out.writeLong(notificationID);
+            }
+        });
+    }
+
+    /* Wire format */
+
+    public long getSequence() { return sequence; }
+
+    void setSequence(long sequence) { this.sequence = sequence; }
+
+    public Type getType() { return type; }
+
+    /**
+     * Write the entry to a stream.
+     * @param out Stream to write to.
+     * @throws IOException If the stream fails.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(type.ordinal());
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * Read an entry from a stream.
+     * @param in Stream to read from.
+     * @return Entry read.
+     * @throws IOException If the stream fails or ends part way through an entry (java.io.EOFException if it ends before one).
+     */
+    public static JournalEntry readFrom(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        Type type = Type.values()[in.readByte()];
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return new JournalEntry(sequence, type, payload);
+    }
+
+    /* Replay */
+
+    private static Promotion readPromotion(DataInputStream in) throws IOException {
+        int promotionID = in.readInt();
+        String name = in.readUTF();
+        float[] modifiers = new float[in.readInt()];
+        int[][] ranges = new int[modifiers.length][2];
+        for (int i = 0; i < modifiers.length; i++) {
+            modifiers[i] = in.readFloat();
+            ranges[i][0] = in.readInt();
+            ranges[i][1] = in.readInt();
+        }
+        return new Promotion(promotionID, name, modifiers, ranges);
+    }
+
+    private static Notification readNotification(DataInputStream in) throws IOException {
+        return new Notification(in.readLong(), Notification.Type.values()[in.readByte()], in.readInt(), in.readUTF(), in.readUTF(), in.readUTF());
+    }
+
+    private static List<Notification> readNotifications(DataInputStream in) throws IOException {
+        int numNotifications = in.readInt();
+        List<Notification> notifications = new ArrayList<>(numNotifications);
+        for (int i = 0; i < numNotifications; i++) {
+            notifications.add(readNotification(in));
+        }
+        return notifications;
+    }
+
+    /**
+     * Record notifications in the outbox of the venue of their show.
+     * @param follower Follower to record in.
+     * @param notifications Notifications to record.
+     */
+    private static void recordNotifications(ReplicationFollower follower, List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            follower.getShowVenue(notification.getShowID()).getOutbox().record(Collections.singletonList(notification));
+        }
+    }
+
+    /**
+     * Apply the change to a follower's copy of the venues and users.
+     * @param follower Follower to apply the change to.
+     * @throws IOException If the payload is malformed.
+     */
+    void apply(ReplicationFollower follower) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        switch (type) {
+            case VENUE_ADDED:
+                follower.addVenue(new Venue(in.readUTF(), in.readInt(), in.readInt()));
+                break;
+            case VENUE_LAYOUT: {
+                Venue venue = follower.getVenues().getVenue(in.readUTF());
+                ArrayList<SeatingLayout.Section> sections = new ArrayList<>();
+                int numSections = in.readInt();
+                for (int i = 0; i < numSections; i++) {
+                    sections.add(new SeatingLayout.Section(in.readUTF(), in.readInt(), in.readInt()));
+                }
+                venue.setLayout(new SeatingLayout(venue.getNumCols(), venue.getNumRows(), sections));
+                break;
+            }
+            case SHOW_ADDED: {
+                Venue venue = follower.getVenues().getVenue(in.readUTF());
+                Show show = new Show(in.readInt(), in.readUTF(), in.readLong(), venue.getNumRows(), venue.getNumCols());
+                show.setMinAge(in.readInt());
+                show.setMaxSeatsPerUser(in.readInt());
+                show.setDefaultSeatPrice(in.readFloat());
+                follower.addShow(venue, show);
+                break;
+            }
+            case SHOW_CANCELLED: {
+                int showID = in.readInt();
+                follower.getShowVenue(showID).cancelShow(showID);
+                break;
+            }
+            case SHOW_RESCHEDULED: {
+                int showID = in.readInt();
+                follower.getShowVenue(showID).rescheduleShow(showID, in.readLong(), readNotifications(in));
+                break;
+            }
+            case SEAT_STATUS: {
+                int showID = in.readInt();
+                Seat seat = follower.getShowVenue(showID).getShow(showID).getSeat(in.readInt());
+                switch (Seat.SeatStatus.values()[in.readByte()]) {
+                    case EMPTY:
+                        seat.setEmpty();
+                        break;
+                    case HELD:
+                        seat.setHeld();
+                        break;
+                    case BOOKED:
+                        seat.setBooked();
+                        break;
+                }
+                break;
+            }
+            case PROMOTION_ADDED:
+                follower.getVenues().getVenue(in.readUTF()).addPromotion(readPromotion(in));
+                break;
+            case PROMOTION_REMOVED:
+                follower.getVenues().getVenue(in.readUTF()).removePromotion(in.readInt());
+                break;
+            case SHOW_PROMOTION: {
+                int showID = in.readInt();
+                Venue venue = follower.getShowVenue(showID);
+                if (in.readBoolean()) {
+                    Promotion promotion = readPromotion(in);
+                    try {
+                        promotion = venue.getPromotion(promotion.getID()); // Share the venue's copy if it still has one
+                    } catch (NoSuchElementException ignored) {}
+                    venue.setShowPromotion(showID, promotion);
+                } else {
+                    venue.removeShowPromotion(showID);
+                }
+                break;
+            }
+            case USER_ADDED: {
+                User.AccountType accountType = User.AccountType.values()[in.readByte()];
+                int userID = in.readInt();
+                String name = in.readUTF();
+                String username = in.readUTF();
+                String email = in.readUTF();
+                String password = in.readUTF();
+                User user;
+                switch (accountType) {
+                    case CUSTOMER:
+                        user = new Customer(name, username, email, in.readUTF(), password, in.readUTF(), in.readUTF());
+                        break;
+                    case AGENT:
+                        user = new Agent(name, username, email, password);
+                        break;
+                    case ADMIN:
+                        user = new Admin(name, username, email, password);
+                        break;
+                    default:
+                        user = new VenueManager(name, username, email, password);
+                        break;
+                }
+                user.restoreID(userID); // Seat holders are user IDs
+                follower.addUser(user);
+                break;
+            }
+            case BOOKING: {
+                Customer customer = follower.getCustomer(in.readUTF());
+                int bookingID = in.readInt();
+                int showID = in.readInt();
+                String[] seats = new String[in.readInt()];
+                for (int i = 0; i < seats.length; i++) {
+                    seats[i] = in.readUTF();
+                }
+                String paymentReference = in.readBoolean() ? in.readUTF() : null;
+                Booking booking = new Booking(bookingID, showID, seats, paymentReference, in.readLong());
+                Booking.Status status = Booking.Status.values()[in.readByte()];
+                customer.restoreBooking(booking);
+                Venue venue = follower.getShowVenue(showID);
+                if (status == Booking.Status.REFUNDED) {
+                    booking.setStatus(status);
+                } else if (status == Booking.Status.REFUNDING) {
+                    venue.getRefunds().addAll(null, Collections.singletonMap(booking, customer)); // Show name no longer known
+                } else {
+                    venue.indexBooking(customer, booking);
+                }
+                recordNotifications(follower, readNotifications(in));
+                break;
+            }
+            case BOOKING_CANCELLED: {
+                Customer customer = follower.getCustomer(in.readUTF());
+                int bookingID = in.readInt();
+                customer.getBookings().stream().filter(booking -> booking.getID() == bookingID).findFirst()
+                        .ifPresent(booking -> follower.getShowVenue(booking.getShowID()).unindexBooking(booking));
+                customer.cancelBooking(bookingID);
+                recordNotifications(follower, readNotifications(in));
+                break;
+            }
+            case BOOKINGS_REFUNDED: {
+                Venue venue = follower.getVenues().getVenue(in.readUTF());
+                int[] bookingIDs = new int[in.readInt()];
+                for (int i = 0; i < bookingIDs.length; i++) {
+                    bookingIDs[i] = in.readInt();
+                }
+                venue.getRefunds().markRefunded(bookingIDs);
+                recordNotifications(follower, readNotifications(in));
+                break;
+            }
+            case PAYMENT_REFUND: {
+                Venue venue = follower.getVenues().getVenue(in.readUTF());
+                Customer customer = follower.getCustomer(in.readUTF());
+                venue.getRefunds().addPayment(customer, in.readUTF(), in.readLong());
+                break;
+            }
+            case PAYMENTS_REFUNDED: {
+                Venue venue = follower.getVenues().getVenue(in.readUTF());
+                String[] paymentReferences = new String[in.readInt()];
+                for (int i = 0; i < paymentReferences.length; i++) {
+                    paymentReferences[i] = in.readUTF();
+                }
+                venue.getRefunds().markPaymentsRefunded(paymentReferences);
+                break;
+            }
+            case CUSTOMERS_NOTIFIED: {
+                Venue venue = follower.getVenues().getVenue(in.readUTF());
+                String[] keys = new String[in.readInt()];
+                long[] times = new long[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = in.readUTF();
+                    times[i] = in.readLong();
+                }
+                venue.getReschedules().markNotified(keys, times);
+                recordNotifications(follower, readNotifications(in));
+                break;
+            }
+            case NOTIFICATION:
+                recordNotifications(follower, Collections.singletonList(readNotification(in)));
+                break;
+            case NOTIFICATIONS_SENT: {
+                Venue venue = follower.getVenues().getVenue(in.readUTF());
+                long[] notificationIDs = new long[in.readInt()];
+                for (int i = 0; i < notificationIDs.length; i++) {
+                    notificationIDs[i] = in.readLong();
+                }
+                venue.getOutbox().markSent(notificationIDs);
+                break;
+            }
+        }
+    }
+}
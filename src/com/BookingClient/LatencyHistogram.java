@@ -0,0 +1,179 @@
+package src.com.BookingClient;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR-style latency histogram with log-linear buckets (32 sub-buckets per power of two, so values are kept to within ~3%).
+ * Each recording thread gets its own bucket array the first time it records, after which recording allocates nothing
+ * and never contends with other threads. Readers merge the per thread arrays.
+ * The arrays of threads that have ended are folded into one shared array (when a thread registers or values are read),
+ * so a histogram recorded by short-lived threads (i.e. a growing and shrinking pool) keeps one array per live thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // Values are capped at 2^40 ns (~18 minutes)
+    static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + 1; // Last bucket counts values beyond the range
+    private static final int COUNT_SLOT = NUM_BUCKETS; // Total count, stored after the buckets
+    private static final int SUM_SLOT = NUM_BUCKETS + 1; // Total of all values
+    private static final int MAX_SLOT = NUM_BUCKETS + 2; // Maximum value
+
+    /**
+     * Bucket array of one recording thread.
+     */
+    private static final class Recorder {
+        final WeakReference<Thread> owner; // Cleared once the thread is collected
+        final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS + 3);
+
+        Recorder(Thread owner) { this.owner = new WeakReference<>(owner); }
+
+        boolean isDead() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive(); // A thread seen to have ended has finished writing its buckets
+        }
+    }
+
+    private final ThreadLocal<AtomicLongArray> recorder = ThreadLocal.withInitial(this::register);
+    private final CopyOnWriteArrayList<Recorder> recorders = new CopyOnWriteArrayList<>(); // Recorders of live threads (and threads ended since the last fold)
+    private final long[] retired = new long[NUM_BUCKETS + 3]; // Counts of ended threads (guarded by 'recorders')
+
+    /**
+     * Creates and registers the bucket array for the calling thread, folding in the arrays of ended threads.
+     * @return Bucket array for the calling thread.
+     */
+    private AtomicLongArray register() {
+        Recorder created = new Recorder(Thread.currentThread());
+        synchronized (recorders) {
+            foldDead();
+            recorders.add(created);
+        }
+        return created.buckets;
+    }
+
+    /**
+     * Add the counts of ended threads to the retired counts and drop their arrays. Caller must hold the lock on 'recorders'.
+     */
+    private void foldDead() {
+        for (Recorder dead : recorders) {
+            if (!dead.isDead()) {
+                continue;
+            }
+            AtomicLongArray buckets = dead.buckets;
+            for (int i = 0; i < NUM_BUCKETS + 2; i++) {
+                retired[i] += buckets.get(i);
+            }
+            retired[MAX_SLOT] = Math.max(retired[MAX_SLOT], buckets.get(MAX_SLOT));
+            recorders.remove(dead);
+        }
+    }
+
+    /**
+     * Get the number of bucket arrays kept (i.e. for tests).
+     * @return Number of thread recorders not yet folded.
+     */
+    int getNumRecorders() { return recorders.size(); }
+
+    /**
+     * Get the bucket index of a value.
+     * @param value Value to get the bucket of (negative values are counted as 0).
+     * @return Bucket index.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) { return (int) Math.max(value, 0); }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // Position of highest bit
+        if (exponent >= MAX_EXPONENT) { return NUM_BUCKETS - 1; }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Get the highest value that is counted in a bucket.
+     * @param index Bucket index.
+     * @return Highest value in the bucket.
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) { return index; }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+
+    /**
+     * Record a value. Only the calling thread writes to its bucket array, so no compare-and-set is needed.
+     * @param value Value to record (i.e. nanoseconds).
+     */
+    public void record(long value) {
+        AtomicLongArray buckets = recorder.get();
+        int index = bucketIndex(value);
+        buckets.lazySet(index, buckets.get(index) + 1);
+        buckets.lazySet(COUNT_SLOT, buckets.get(COUNT_SLOT) + 1);
+        buckets.lazySet(SUM_SLOT, buckets.get(SUM_SLOT) + value);
+        if (value > buckets.get(MAX_SLOT)) { buckets.lazySet(MAX_SLOT, value); }
+    }
+
+    /**
+     * Merge the bucket arrays of all threads.
+     * @return Merged counts (buckets followed by count, sum, and max).
+     */
+    private long[] merge() {
+        synchronized (recorders) { // So an array being folded is not counted twice
+            foldDead();
+            long[] merged = retired.clone();
+            for (Recorder recorder : recorders) {
+                AtomicLongArray buckets = recorder.buckets;
+                for (int i = 0; i < NUM_BUCKETS + 2; i++) {
+                    merged[i] += buckets.get(i);
+                }
+                merged[MAX_SLOT] = Math.max(merged[MAX_SLOT], buckets.get(MAX_SLOT));
+            }
+            return merged;
+        }
+    }
+
+    public long getCount() { return merge()[COUNT_SLOT]; }
+
+    public long getMax() { return merge()[MAX_SLOT]; }
+
+    public double getMean() {
+        long[] merged = merge();
+        return merged[COUNT_SLOT] == 0 ? 0 : (double) merged[SUM_SLOT] / merged[COUNT_SLOT];
+    }
+
+    /**
+     * Get the value at a percentile.
+     * @param percentile Percentile between 0 and 100.
+     * @return Highest value of the bucket the percentile falls in (capped at the maximum recorded), or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long[] merged = merge();
+        long count = merged[COUNT_SLOT];
+        if (count == 0) { return 0; }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += merged[i];
+            if (seen >= target) {
+                return Math.min(highestValue(i), merged[MAX_SLOT]);
+            }
+        }
+        return merged[MAX_SLOT];
+    }
+
+    /**
+     * Clear all recorded values. Values recorded concurrently with a reset may be partially kept.
+     */
+    public void reset() {
+        synchronized (recorders) {
+            Arrays.fill(retired, 0);
+            for (Recorder recorder : recorders) {
+                for (int i = 0; i < NUM_BUCKETS + 3; i++) {
+                    recorder.buckets.set(i, 0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class LatencyHistogramTest.
+ */
+public class LatencyHistogramTest
+{
+    LatencyHistogram histogram;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testBucketsCoverTheirValues() {
+        for (long value = 0; value < 1_000_000; value += 37) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.highestValue(index) >= value);
+            assertTrue(LatencyHistogram.highestValue(index) <= value * 1.04 + 1); // Within ~3% precision
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.getPercentile(50), 500_000 * 0.04);
+        assertEquals(990_000, histogram.getPercentile(99), 990_000 * 0.04);
+    }
+
+    @Test
+    public void testMergesThreads() throws InterruptedException {
+        Thread other = new Thread(() -> histogram.record(5));
+        other.start();
+        other.join();
+        histogram.record(5);
+        assertEquals(2, histogram.getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void testEndedThreadsAreFolded() throws InterruptedException {
+        for (int i = 1; i <= 100; i++) {
+            long value = i;
+            Thread other = new Thread(() -> histogram.record(value));
+            other.start();
+            other.join();
+        }
+        assertEquals(100, histogram.getCount()); // Still counted once their arrays are folded
+        assertEquals(100, histogram.getMax());
+        assertEquals(0, histogram.getNumRecorders());
+        histogram.record(1);
+        assertEquals(1, histogram.getNumRecorders());
+        assertEquals(101, histogram.getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,285 @@
+package src.com.BookingClient;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless load generator that runs many scripted users in parallel through the real ProgramState flows
+ * (login, select show, automatic/interactive selection, payment, and cancellation), then reports throughput
+ * and latency percentiles for each state.
+ * Usage: LoadGenerator [sessions] [threads] [shows] [rows] [cols] [maxActivePerShow] [admissionsPerSecond] [abandonRatio]
+ * Payments go through the default PaymentPipeline, so gateway latency and failures are set with -Dbooking.gateway.latency and -Dbooking.gateway.failures.
+ */
+public class LoadGenerator {
+    private static final String PASSWORD = "LoadUser25%";
+    private static final String CARD_NUMBER = "1234-5678-9012-3456";
+    private static final String SECURITY_NUMBER = "123";
+
+    private final int numSessions;
+    private final int numThreads;
+    private final int numShows;
+    private final Venue venue;
+    private final ArrayList<User> users = new ArrayList<>();
+    private final String dateRange; // Date range line covering every generated show
+    private double autoSelectionRatio = 0.5; // Fraction of sessions using automatic seat selection
+    private double cancelRatio = 0.2; // Fraction of sessions cancelling their booking after paying
+    private int concurrency; // Number of sessions in flight at a time (including those waiting for a payment)
+    private double abandonRatio = 0; // Fraction of sessions whose client disappears after selecting seats
+    private long idleTtlMillis = 10_000; // Time an abandoned session keeps its seats before the store evicts it
+    private SessionStore sessions; // Sessions of the current run by token
+
+    /**
+     * LoadGenerator constructor. Creates a venue with shows over the next month, and one customer per session.
+     * @param numSessions Number of scripted sessions to run.
+     * @param numThreads Number of sessions running in parallel.
+     * @param numShows Number of shows the sessions are spread over (1 simulates a single on-sale spike).
+     * @param numRows Number of rows of seats in the venue.
+     * @param numCols Number of columns of seats in the venue.
+     */
+    public LoadGenerator(int numSessions, int numThreads, int numShows, int numRows, int numCols) {
+        this.numSessions = numSessions;
+        this.numThreads = numThreads;
+        this.numShows = numShows;
+        this.concurrency = numThreads * 16;
+        venue = new Venue("Load Test Venue", numRows, numCols);
+        for (int i = 0; i < numShows; i++) {
+            Calendar time = Calendar.getInstance();
+            time.add(Calendar.DATE, 7 + i % 28);
+            venue.addShow(String.format("Load Test Show %d", i+1), time.getTimeInMillis());
+        }
+        for (int i = 0; i < numSessions; i++) {
+            users.add(new Customer("Load User", "load" + i, "load" + i + "@load.com", "07000000000", PASSWORD, "01/01/2000", "1 Load Lane, Load, LO1 1AD"));
+        }
+        /* Date range from tomorrow to 2 months ahead */
+        SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy");
+        Calendar from = Calendar.getInstance();
+        from.add(Calendar.DATE, 1);
+        Calendar to = Calendar.getInstance();
+        to.add(Calendar.MONTH, 2);
+        dateRange = String.format("%s-%s", df.format(from.getTime()), df.format(to.getTime()));
+    }
+
+    public void setAutoSelectionRatio(double ratio) { this.autoSelectionRatio = ratio; }
+
+    public void setCancelRatio(double ratio) { this.cancelRatio = ratio; }
+
+    /**
+     * Make some clients disappear after selecting seats, leaving their sessions for the SessionStore to evict.
+     * @param ratio Fraction of sessions abandoned.
+     * @param idleTtlMillis Time a session is kept without being used in milliseconds (longer than a payment may take).
+     */
+    public void setAbandonment(double ratio, long idleTtlMillis) {
+        this.abandonRatio = ratio;
+        this.idleTtlMillis = idleTtlMillis;
+    }
+
+    /**
+     * Set the number of sessions in flight at a time. Sessions waiting for a payment do not hold a thread, so this can exceed the number of threads.
+     * @param concurrency Number of sessions (at least 1).
+     */
+    public void setConcurrency(int concurrency) { this.concurrency = Math.max(1, concurrency); }
+
+    public Venue getVenue() { return venue; }
+
+    /**
+     * Limit the shoppers admitted to each show (see AdmissionGate).
+     * @param maxActive Maximum number of sessions selecting seats or paying for a show at a time.
+     * @param ratePerSecond Admissions per second for each show (0 for unlimited).
+     */
+    public void setAdmission(int maxActive, double ratePerSecond) {
+        // Sessions queued for admission block their thread, so only run as many sessions as threads (admitted sessions can always resume)
+        concurrency = Math.min(concurrency, numThreads);
+        for (Show show : venue.getShows()) {
+            show.getAdmissionGate().configure(maxActive, ratePerSecond, Math.max(1, maxActive));
+        }
+    }
+
+    /**
+     * Builds the input script for one session.
+     * @param username Username of the session's customer.
+     * @param random Random used to pick the flow, show and seats.
+     * @return Lines of input for the session.
+     */
+    private String script(String username, Random random) {
+        StringJoiner lines = new StringJoiner("\n");
+        lines.add("l").add(username).add(PASSWORD); // Login
+        lines.add("b").add(dateRange).add(Integer.toString(1 + random.nextInt(numShows))); // Select show
+        if (random.nextDouble() < autoSelectionRatio) {
+            lines.add("a").add(Integer.toString(1 + random.nextInt(4))).add("0-1000").add("a"); // Automatic selection then accept
+        } else {
+            // Interactive selection of one seat, trying a few seats in case some are taken (the last seat held is kept)
+            lines.add("i").add("1");
+            for (int i = 0; i < 3; i++) {
+                lines.add(randomSeatName(random));
+            }
+            lines.add("a");
+        }
+        lines.add(CARD_NUMBER).add(SECURITY_NUMBER); // Payment
+        if (random.nextDouble() < cancelRatio) {
+            lines.add("c").add("1"); // Cancel the booking just made
+        }
+        lines.add("e").add("e"); // Logout and exit
+        return lines.toString();
+    }
+
+    /**
+     * Get a random seat name in the venue (i.e. 'C7').
+     * @param random Random used to pick the seat.
+     * @return Seat name.
+     */
+    private String randomSeatName(Random random) {
+        Show show = venue.getShows().get(0);
+        return show.getSeatName(random.nextInt(show.getNumSeats()));
+    }
+
+    /**
+     * Run all sessions and return the results. Console output from the sessions is discarded while running.
+     * A session waiting for its payment gives up its thread to another session, and is resumed on the pool once the gateway answers,
+     * so gateway latency limits how many sessions are in flight rather than how many threads are busy.
+     * @return Results of the run.
+     * @throws InterruptedException If interrupted while waiting for the sessions.
+     */
+    public Result run() throws InterruptedException {
+        Result result = new Result();
+        AtomicInteger nextSession = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(numSessions);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Metrics.reset();
+        sessions = new SessionStore(SessionStore.DEFAULT_MAX_SESSIONS, idleTtlMillis);
+        sessions.start(Math.max(1, idleTtlMillis / 4));
+        venue.getOutbox().start(Outbox.sinkFromProperties());
+        venue.getRefunds().start(PaymentPipeline.getDefault());
+        venue.getReschedules().start();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < Math.min(concurrency, numSessions); i++) {
+                startSession(nextSession, executor, result, finished);
+            }
+            finished.await();
+            executor.shutdown();
+            sessions.stop();
+            venue.getRefunds().stop();
+            venue.getReschedules().stop();
+            venue.getOutbox().stop(); // Deliver the last confirmations
+        } finally {
+            System.setOut(stdout);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Start the next session on the pool, if any are left.
+     * @param nextSession Index of the next session to start.
+     * @param executor Pool the sessions run on.
+     * @param result Results of the run.
+     * @param finished Counted down as each session finishes.
+     */
+    private void startSession(AtomicInteger nextSession, ExecutorService executor, Result result, CountDownLatch finished) {
+        int i = nextSession.getAndIncrement();
+        if (i < numSessions) {
+            executor.execute(() -> {
+                Session session = new Session(venue, users, new ScannerInput(script(users.get(i).getUsername(), ThreadLocalRandom.current())));
+                boolean abandoned = ThreadLocalRandom.current().nextDouble() < abandonRatio;
+                drive(sessions.open(session), abandoned, nextSession, executor, result, finished);
+            });
+        }
+    }
+
+    /**
+     * Step a session until it finishes, or until it waits for a payment (it is then resumed on the pool once the payment is answered).
+     * An abandoned session stops once it reaches payment, still holding its seats, and is left in the store to be evicted.
+     * @param token Token of session in the store.
+     * @param abandoned Whether the session's client disappears before paying.
+     * @param nextSession Index of the next session to start once this one finishes.
+     * @param executor Pool the sessions run on.
+     * @param result Results of the run.
+     * @param finished Counted down as each session finishes.
+     */
+    private void drive(String token, boolean abandoned, AtomicInteger nextSession, ExecutorService executor, Result result, CountDownLatch finished) {
+        Session session = sessions.get(token);
+        try {
+            if (session == null) {
+                throw new IllegalStateException("Session evicted while waiting for its payment");
+            }
+            while (!session.isFinished()) {
+                if (session.isWaiting()) {
+                    session.whenReady().thenRunAsync(() -> drive(token, abandoned, nextSession, executor, result, finished), executor);
+                    return;
+                }
+                if (abandoned && session.getState() == Main.ProgramState.PAYMENT) {
+                    break; // Client gone, the store releases its seats once the session is idle
+                }
+                session.step(); // Each step is recorded in Metrics
+            }
+            if (abandoned && !session.isFinished()) {
+                result.abandoned.incrementAndGet();
+            } else {
+                sessions.close(token);
+                result.completed.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            sessions.close(token); // Script ran out (i.e. seats sold out) or the session failed, release anything held
+            result.aborted.incrementAndGet();
+        }
+        finished.countDown();
+        startSession(nextSession, executor, result, finished);
+    }
+
+    /**
+     * Results of a load generation run. Latencies are read from Metrics, which is reset at the start of each run.
+     */
+    public static class Result {
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger aborted = new AtomicInteger();
+        private final AtomicInteger abandoned = new AtomicInteger();
+        private long elapsedNanos;
+
+        public int getCompleted() { return completed.get(); }
+
+        public int getAborted() { return aborted.get(); }
+
+        public int getAbandoned() { return abandoned.get(); }
+
+        /**
+         * Formats the results as a report with throughput, counters, and per state latency percentiles.
+         * @return Report.
+         */
+        public String report() {
+            double seconds = elapsedNanos / 1e9;
+            long transitions = Arrays.stream(Main.ProgramState.values()).mapToLong(s -> Metrics.getStateLatency(s).getCount()).sum();
+            StringBuilder output = new StringBuilder();
+            output.append(String.format("Sessions: %d completed, %d aborted, %d abandoned in %.2fs%n", completed.get(), aborted.get(), abandoned.get(), seconds));
+            output.append(String.format("Throughput: %.1f sessions/s, %.1f transitions/s%n%n", (completed.get() + aborted.get() + abandoned.get()) / seconds, transitions / seconds));
+            output.append(Metrics.report());
+            return output.toString();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int numSessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int numThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int numShows = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int numRows = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int numCols = args.length > 4 ? Integer.parseInt(args[4]) : 27;
+        System.out.printf("Running %d sessions on %d threads over %d show(s) of %d seats...%n", numSessions, numThreads, numShows, numRows*numCols);
+        LoadGenerator generator = new LoadGenerator(numSessions, numThreads, numShows, numRows, numCols);
+        if (args.length > 5 && Integer.parseInt(args[5]) > 0) { // 0 for no admission limit
+            generator.setAdmission(Integer.parseInt(args[5]), args.length > 6 ? Double.parseDouble(args[6]) : 0);
+        }
+        if (args.length > 7) {
+            generator.setAbandonment(Double.parseDouble(args[7]), 1000);
+        }
+        Result result = generator.run();
+        System.out.print(result.report());
+    }
+}
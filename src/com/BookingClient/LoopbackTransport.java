@@ -0,0 +1,64 @@
+package src.com.BookingClient;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * In-process NodeTransport. Each node runs its requests on its own thread, as it would in its own process, so a whole cluster
+ * can run (and be tested) in one JVM.
+ */
+public class LoopbackTransport implements NodeTransport {
+    private final ConcurrentHashMap<String, BookingNode> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ExecutorService> workers = new ConcurrentHashMap<>(); // Request thread of each node
+
+    @Override
+    public void connect(BookingNode node) {
+        ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "booking-node-" + node.getID());
+            thread.setDaemon(true);
+            return thread;
+        });
+        nodes.put(node.getID(), node);
+        workers.put(node.getID(), worker);
+    }
+
+    @Override
+    public void disconnect(String nodeID) throws NoSuchElementException {
+        ExecutorService worker = workers.remove(nodeID);
+        if (worker == null) {
+            throw new NoSuchElementException("Node is not connected");
+        }
+        nodes.remove(nodeID);
+        worker.shutdown();
+    }
+
+    @Override
+    public <T> T send(String nodeID, Function<BookingNode, T> request) throws NoSuchElementException {
+        BookingNode node = nodes.get(nodeID);
+        ExecutorService worker = workers.get(nodeID);
+        if (node == null || worker == null) {
+            throw new NoSuchElementException("Node is not connected");
+        }
+        Future<T> result = worker.submit(() -> request.apply(node));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for node");
+        } catch (ExecutionException e) {
+            // Rethrow the node's own exception (i.e. NotOwnerException) to the caller
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
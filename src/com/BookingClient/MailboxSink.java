@@ -0,0 +1,71 @@
+package src.com.BookingClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory stand-in for a mail server: delivered notifications are kept in a mailbox per recipient.
+ * Each batch takes a configurable time (one round trip to the server), and a configurable fraction of batches fail.
+ * Notifications seen before (by ID) are dropped, as a real server would with a repeated message ID.
+ */
+public class MailboxSink implements NotificationSink {
+    private final ConcurrentHashMap<String, List<Notification>> mailboxes = new ConcurrentHashMap<>();
+    private final Set<Long> delivered = ConcurrentHashMap.newKeySet(); // IDs of notifications delivered
+    private volatile long latencyMillis;
+    private volatile double failureRate;
+
+    /**
+     * MailboxSink constructor.
+     * @param latencyMillis Time taken to send each batch in milliseconds.
+     * @param failureRate Fraction of batches that fail (0 to 1).
+     */
+    public MailboxSink(long latencyMillis, double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    public void setLatencyMillis(long latencyMillis) { this.latencyMillis = latencyMillis; }
+
+    public void setFailureRate(double failureRate) { this.failureRate = failureRate; }
+
+    @Override
+    public void send(List<Notification> batch) throws IOException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis); // On the dispatcher thread, never a session's
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending", e);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IOException("Mail server unavailable");
+        }
+        for (Notification notification : batch) {
+            if (delivered.add(notification.getID())) {
+                mailboxes.computeIfAbsent(notification.getRecipient(), r -> Collections.synchronizedList(new ArrayList<>())).add(notification);
+            }
+        }
+    }
+
+    /**
+     * Get the notifications delivered to a recipient.
+     * @param recipient Email address.
+     * @return Copy of the recipient's notifications, oldest first.
+     */
+    public List<Notification> getMailbox(String recipient) {
+        List<Notification> mailbox = mailboxes.get(recipient);
+        if (mailbox == null) {
+            return Collections.emptyList();
+        }
+        synchronized (mailbox) {
+            return new ArrayList<>(mailbox);
+        }
+    }
+
+    public int getNumDelivered() { return delivered.size(); }
+}
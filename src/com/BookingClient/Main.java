@@ -1,9 +1,8 @@
 package src.com.BookingClient;
 
-import java.text.ParseException;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.CancellationException;
-import java.util.stream.Collectors;
 
 public class Main {
     static int MIN_REGISTRATION_AGE = 12;
@@ -62,6 +61,8 @@ public class Main {
                         return MANAGE_SHOWS;
                     case 3:
                         return MANAGE_PROMOTIONS;
+                    case 4:
+                        return PAYMENT;
                 }
                 throw new IllegalArgumentException("choice out of bounds");
             }
@@ -111,6 +112,23 @@ public class Main {
             }
         },
         PAYMENT {
+            @Override
+            public ProgramState nextState(int choice) throws IllegalArgumentException {
+                switch (choice) {
+                    case 0:
+                        return LOGGED_IN;
+                    case 1:
+                        return PAYMENT_PENDING;
+                }
+                throw new IllegalArgumentException("choice out of bounds");
+            }
+
+            @Override
+            public ProgramState previousState() {
+                return INTERACTIVE_SELECTION;
+            }
+        },
+        PAYMENT_PENDING {
             @Override
             public ProgramState nextState(int choice) {
                 return LOGGED_IN;
@@ -118,7 +136,7 @@ public class Main {
 
             @Override
             public ProgramState previousState() {
-                return INTERACTIVE_SELECTION;
+                return PAYMENT;
             }
         },
         CANCEL_SHOW {
@@ -252,155 +270,69 @@ public class Main {
     }
 
     /* Important Variable Initialization */
-    static ProgramState state = ProgramState.START; // State machine instance initialised to 'START' state
-    static Venue bcpa = new Venue("Bucks Centre for the Performing Arts (BCPA)", 20, 27); // Single venue since it never changes
-    static User currentUser; //Current logged in user
+    static Venue bcpa = new Venue("Bucks Centre for the Performing Arts (BCPA)", 20, 27); // Main venue
+    static Venue studio = new Venue("BCPA Studio Theatre", 8, 12); // Smaller second venue
+    static VenueRegistry venues = new VenueRegistry(); // All venues served, each changed by its own writer thread
     static ArrayList<User> users = new ArrayList<>(); //Stores all the users, this would usually be in a database.
-    static int currentShowSelectedID = -1; // Current showID selected by user
-    static LinkedList<Seat> currentUserSeatsSelected = new LinkedList<>(); // Create LinkedList of current seats chosen (FIFO)
 
     public static void main(String[] args) {
+        venues.register(bcpa);
+        venues.register(studio);
         AddDefaults(bcpa, users); // Adds default users and shows.
+        // Periodically dump metrics if a report file is given (i.e. -Dbooking.metrics=metrics.txt)
+        String metricsFile = System.getProperty("booking.metrics");
+        if (metricsFile != null) {
+            Metrics.startReporter(Paths.get(metricsFile), Long.getLong("booking.metrics.period", 10));
+        }
 
+        // Replicate to a standby if one is given (i.e. -Dbooking.replicate=localhost:7070, see ReplicationFollower)
+        ReplicationLeader replication = null;
+        String follower = System.getProperty("booking.replicate");
+        if (follower != null) {
+            String[] address = follower.split(":");
+            try {
+                replication = new ReplicationLeader(address[0], Integer.parseInt(address[1]), Long.getLong("booking.replicate.timeout", 200));
+                for (Venue venue : venues.getVenues()) {
+                    replication.attach(venue);
+                }
+                replication.attachUsers(users);
+            } catch (IOException e) {
+                System.out.printf("Could not reach standby at %s, running without replication.%n", follower);
+            }
+        }
 
+        // Deliver booking notifications in the background (to a file if given, i.e. -Dbooking.notifications=mail.log)
+        NotificationSink notifications = Outbox.sinkFromProperties();
+        for (Venue venue : venues.getVenues()) {
+            venue.getOutbox().start(notifications);
+            venue.getRefunds().start(PaymentPipeline.getDefault()); // Refunds for cancelled shows
+            venue.getReschedules().start(); // Updates to customers of rescheduled shows
+        }
 
-        boolean exit = false; // Boolean for main loop control
-        int choice; // Holds choice for each state's function return
-        // Main Loop
-        while (!exit) {
-            // Checking state and acting accordingly
-            switch (state) {
-                case START:
-                    choice = CLI.start(); // Retrieve next state choice
-                    state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
-                    break;
-                case REQUEST_LOGIN:
-                    try {
-                        currentUser = CLI.loginChoice(users); // Attempt login and retrieve user on success
-                        state = state.nextState(0); // Next state
-                    } catch (CancellationException | IllegalArgumentException e) {
-                        System.out.println("Failed login. Exiting...");
-                        state = state.previousState(); // Failed login, return to previous state
-                    }
-                    break;
-                case REGISTRATION:
-                    try {
-                        User newUser = CLI.registration(MIN_REGISTRATION_AGE); // Attempt to create new user, retrieve new user on success
-                        /* Check for duplicate user */
-                        List<String> usernames = users.stream().map(User::getUsername).collect(Collectors.toList()); // Get usernames of all users
-                        List<String> emails = users.stream().map(User::getEmail).collect(Collectors.toList()); // Get email addresses of all users
-                        if (!(usernames.contains(newUser.getUsername()) || emails.contains(newUser.getEmail()))) {
-                            users.add(newUser); // Create new user
-                            currentUser = newUser; // Set current user to newly registered user
-                            state = state.nextState(0); // Next state
-                        } else {
-                            System.out.println("Account creation unsuccessful. You cannot create accounts with duplicate email addresses or usernames!");
-                            state = state.previousState(); // Duplicate account creation attempt, return to previous state
-                        }
-                    } catch (CancellationException | IllegalArgumentException e) {
-                        System.out.println("Account creation unsuccessful. Exiting...");
-                        state = state.previousState(); // Unsuccessful account creation, return to previous state
-                    }
-                    break;
-                case LOGGED_IN:
-                    try {
-                        choice = CLI.loggedInChoice(currentUser); // Retrieve next state choice
-                        state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
-                    } catch (IllegalArgumentException e) {
-                        System.out.println("Invalid input, please try again!");
-                    }
-                    break;
-                case SELECT_SHOW:
-                    try {
-                        currentShowSelectedID = CLI.selectShow(bcpa, true); // Retrieve show ID from user's selection
-                    } catch (ParseException | IllegalArgumentException e) {
-                        System.out.println("An error occurred when parsing user input, returning to previous state.");
-                        currentShowSelectedID = -1; // Setting selected Show ID to an invalid ID to force previous state.
-                    }
-                    // Verifying that a show ID was returned
-                    if (currentShowSelectedID >= 0) {
-                        choice = CLI.selectSeatingTypeChoice(); // Retrieve seating choice (Automatic or Interactive)
-                    } else {
-                        choice = currentShowSelectedID; // When choice<0, it will return to the previous state
-                    }
-                    state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
-                    break;
-                case AUTOMATIC_SELECTION:
-                    // Move states depending on if seat selection was successful
-                    state = CLI.seatSelection(bcpa, currentShowSelectedID, currentUserSeatsSelected, true) ? state.nextState(0) : state.previousState();
-                    break;
-                case INTERACTIVE_SELECTION:
-                    // Move states depending on if seat selection was successful
-                    state = CLI.seatSelection(bcpa, currentShowSelectedID, currentUserSeatsSelected, false) ? state.nextState(0) : state.previousState();
-                    break;
-                case PAYMENT:
-                    // Move state depending on if payment was successful
-                    state = CLI.paymentChoice(currentUser, currentShowSelectedID, currentUserSeatsSelected) ? state.nextState(0) : state.previousState();
-                    break;
-                case CANCEL_SHOW:
-                    CLI.cancelShowChoice(currentUser, bcpa); // Attempt to cancel a show
-                    state = state.nextState(0); // Move to next state
-                    break;
-                case MANAGE_SHOWS:
-                    try {
-                        choice = CLI.manageShows(); // Retrieve next state choice
-                        state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
-                    } catch (IllegalArgumentException e) {
-                        System.out.println("Invalid input, please try again!");
-                    }
-                    break;
-                case REMOVE_SHOW:
-                    try {
-                        CLI.removeShow(bcpa); // Attempt to remove show
-                    } catch (RuntimeException ignored) {} // Ignored because will always move to next state
-                    System.out.println("Exiting...");
-                    state = state.nextState(0); // Move to next state
-                    break;
-                case ADD_SHOW:
-                    try {
-                        bcpa.addShow(CLI.createShow(bcpa));
-                    } catch (CancellationException ignored) {} // Ignored because will always move to next state
-                    System.out.println("Exiting...");
-                    state = state.nextState(0); // Move to next state
-                    break;
-                case RESCHEDULE_SHOW:
-                    try {
-                        CLI.rescheduleShow(bcpa);
-                    } catch (RuntimeException ignored) {} // Ignored because will always move to next state
-                    System.out.println("Exiting...");
-                    state = state.nextState(0);// Move to next state
-                    break;
-                case MANAGE_PROMOTIONS:
-                    try {
-                        choice = CLI.managePromotions(); // Retrieve next state choice
-                        state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
-                    } catch (IllegalArgumentException e) {
-                        System.out.println("Invalid input, please try again!");
-                    }
-                    break;
-                case APPLY_PROMOTION:
-                    try {
-                        CLI.applyPromotion(bcpa); // Attempt to apply promotion
-                    } catch (RuntimeException ignored) {} // Ignored because will always move to next state
-                    System.out.println("Exiting...");
-                    state = state.nextState(0); // Move to next state
-                    break;
-                case CREATE_PROMOTION:
-                    CLI.createPromotion(bcpa); // Attempt to create promotion
-                    System.out.println("Exiting...");
-                    state = state.nextState(0); // Move to next state
-                    break;
-                case REMOVE_PROMOTION:
-                    try {
-                        CLI.removePromotion(bcpa); // Attempt to remove promotion
-                    } catch (RuntimeException ignored) {} // Ignored because will always move to next state
-                    System.out.println("Exiting...");
-                    state = state.nextState(0); // Move to next state
-                    break;
-                default:
-                    exit = true;
-            }
+        // Main Loop (a single console session, released if left idle, i.e. -Dbooking.session.ttl=60000 for a minute)
+        long idleTtlMillis = Long.getLong("booking.session.ttl", SessionStore.DEFAULT_IDLE_TTL_MILLIS);
+        SessionStore sessions = new SessionStore(1, idleTtlMillis);
+        sessions.start(Math.max(1, idleTtlMillis / 4));
+        Session session = new Session(venues, users, CLI.getInput());
+        session.setJournal(replication);
+        String token = sessions.open(session);
+        while (!session.isFinished()) {
+            session.whenReady().join(); // Nothing else to do on this thread while paying
+            sessions.get(token); // Mark used, the wait for the next input is what counts as idle
+            session.step();
+        }
+        sessions.close(token);
+        sessions.stop();
+        for (Venue venue : venues.getVenues()) {
+            try { venue.getRefunds().stop(); } catch (InterruptedException ignored) {} // Refunds still owed are resumed by the standby
+            try { venue.getReschedules().stop(); } catch (InterruptedException ignored) {} // As are updates not yet made
+            try { venue.getOutbox().stop(); } catch (InterruptedException ignored) {} // Last attempt at pending notifications
+        }
+        if (replication != null) {
+            replication.awaitAcknowledged(replication.getLastSequence()); // Let the standby catch up before it takes over
+            try { replication.close(); } catch (IOException ignored) {}
         }
+        venues.shutdown();
     }
 
     /**
@@ -422,11 +354,16 @@ public class Main {
         calTest1.set(Calendar.HOUR, 16);
         calTest1.set(Calendar.MINUTE, 40);
         calTest1.set(Calendar.SECOND, 0);
-        venue.addShow("Test Show", calTest1);
+        venue.addShow("Test Show", calTest1.getTimeInMillis());
         Calendar calTest2;
         calTest2 = (Calendar) calTest1.clone();
         calTest2.set(Calendar.HOUR, 19);
-        venue.addShow("Test Show 2", calTest2);
+        venue.addShow("Test Show 2", calTest2.getTimeInMillis());
+        studio.addShow("Studio Test Show", calTest1.getTimeInMillis());
+        // Default sections (rows are seat letters: A to S downstairs, T to AA upstairs)
+        bcpa.setLayout(new SeatingLayout(27, 20, Arrays.asList(
+                new SeatingLayout.Section("Stalls", 0, 18),
+                new SeatingLayout.Section("Balcony", 19, 26))));
         // Default promotions
         bcpa.addPromotion(new Promotion("Test Promotion (seats A1 to A10 half price)", new float[]{0.5f}, new int[][]{{0,9}}));
     }
@@ -0,0 +1,128 @@
+package src.com.BookingClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Utility class holding the latency histograms of each ProgramState and the counters of the booking operations.
+ * Recording allocates nothing and does not contend between threads, so it is safe to call on every step of every session.
+ */
+public final class Metrics {
+    public enum Counter {
+        HOLDS,
+        BOOKINGS,
+        CANCELLATIONS,
+        FAILED_LOGINS,
+        AUTO_PICK_MISSES,
+        WAITLIST_ALLOCATIONS,
+        REPLICATION_TIMEOUTS,
+        REQUOTES,
+        PAYMENT_RETRIES,
+        PAYMENT_TIMEOUTS,
+        PAYMENT_FAILURES,
+        PAYMENT_REJECTIONS,
+        IDEMPOTENT_REPLAYS,
+        NOTIFICATIONS_SENT,
+        NOTIFICATION_FAILURES,
+        REFUNDS,
+        RESCHEDULE_UPDATES,
+        SESSIONS_EVICTED
+    }
+
+    private static final LatencyHistogram[] stateLatencies = new LatencyHistogram[Main.ProgramState.values().length];
+    private static final LongAdder[] counters = new LongAdder[Counter.values().length]; // Striped counters
+    private static ScheduledExecutorService reporter;
+
+    static {
+        for (int i = 0; i < stateLatencies.length; i++) { stateLatencies[i] = new LatencyHistogram(); }
+        for (int i = 0; i < counters.length; i++) { counters[i] = new LongAdder(); }
+    }
+
+    private Metrics() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated.");
+    }
+
+    /**
+     * Record the time taken to act on a state and transition out of it.
+     * @param state State that was acted on.
+     * @param nanos Time taken in nanoseconds.
+     */
+    public static void recordState(Main.ProgramState state, long nanos) { stateLatencies[state.ordinal()].record(nanos); }
+
+    public static LatencyHistogram getStateLatency(Main.ProgramState state) { return stateLatencies[state.ordinal()]; }
+
+    public static void increment(Counter counter) { counters[counter.ordinal()].increment(); }
+
+    public static void add(Counter counter, long amount) { counters[counter.ordinal()].add(amount); }
+
+    public static long getCount(Counter counter) { return counters[counter.ordinal()].sum(); }
+
+    /**
+     * Clear all histograms and counters.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : stateLatencies) { histogram.reset(); }
+        for (LongAdder counter : counters) { counter.reset(); }
+    }
+
+    /**
+     * Formats the counters and state latencies as a text report.
+     * @return Report.
+     */
+    public static String report() {
+        StringBuilder output = new StringBuilder();
+        output.append("Counters:\n");
+        for (Counter counter : Counter.values()) {
+            output.append(String.format("%-22s %10d%n", counter, getCount(counter)));
+        }
+        output.append(String.format("%nState latencies:%n%-22s %10s %10s %10s %10s %10s %10s%n", "State", "Count", "Mean (us)", "p50 (us)", "p90 (us)", "p99 (us)", "Max (us)"));
+        for (Main.ProgramState state : Main.ProgramState.values()) {
+            LatencyHistogram histogram = getStateLatency(state);
+            long count = histogram.getCount();
+            if (count == 0) { continue; }
+            output.append(String.format("%-22s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", state, count, histogram.getMean() / 1e3,
+                    histogram.getPercentile(50) / 1e3, histogram.getPercentile(90) / 1e3, histogram.getPercentile(99) / 1e3, histogram.getMax() / 1e3));
+        }
+        return output.toString();
+    }
+
+    /**
+     * Periodically write the report to a file on a background thread (the file is replaced on every write).
+     * @param file File to write the report to.
+     * @param periodSeconds Seconds between writes.
+     */
+    public static synchronized void startReporter(Path file, long periodSeconds) {
+        if (reporter != null) { return; } // Already reporting
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            try {
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(temp, report().getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.printf("Failed to write metrics report: %s%n", e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop writing the report.
+     */
+    public static synchronized void stopReporter() {
+        if (reporter != null) {
+            reporter.shutdown();
+            reporter = null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package src.com.BookingClient;
+
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Carries requests between booking nodes.
+ */
+public interface NodeTransport {
+    /**
+     * Connect a node so it can receive requests.
+     * @param node Node to connect.
+     */
+    void connect(BookingNode node);
+
+    /**
+     * Disconnect a node. Later requests to it fail.
+     * @param nodeID ID of node.
+     * @throws NoSuchElementException If the node is not connected.
+     */
+    void disconnect(String nodeID) throws NoSuchElementException;
+
+    /**
+     * Send a request to a node and wait for its result.
+     * @param nodeID ID of node.
+     * @param request Request to run on the node.
+     * @param <T> Result type of request.
+     * @return Result of request.
+     * @throws NoSuchElementException If the node is not connected.
+     */
+    <T> T send(String nodeID, Function<BookingNode, T> request) throws NoSuchElementException;
+}
@@ -0,0 +1,120 @@
+package src.com.BookingClient;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A message to a customer about one of their bookings, recorded in a venue's Outbox with the change it is about.
+ * Notifications are delivered at least once, so sinks may see one again (i.e. after a failover) and can drop it by ID.
+ */
+public final class Notification {
+    public enum Type {
+        BOOKING_CONFIRMED,
+        BOOKING_CANCELLED,
+        SHOW_RESCHEDULED,
+        SHOW_CANCELLED
+    }
+
+    private static final AtomicLong notificationCount = new AtomicLong(); // Used to number notifications across all venues
+
+    private final long notificationID;
+    private final Type type;
+    private final int showID; // Show the notification is about
+    private final String recipient; // Email address
+    private final String subject;
+    private final String body;
+
+    /**
+     * Notification constructor.
+     * @param type Kind of notification.
+     * @param showID Show the notification is about.
+     * @param recipient Email address to send to.
+     * @param subject Subject line.
+     * @param body Message text.
+     */
+    public Notification(Type type, int showID, String recipient, String subject, String body) {
+        this(notificationCount.getAndIncrement(), type, showID, recipient, subject, body);
+    }
+
+    /**
+     * Notification constructor with a given ID (used when replaying a replication journal). Later notifications are numbered after it.
+     * @param notificationID ID of notification.
+     * @param type Kind of notification.
+     * @param showID Show the notification is about.
+     * @param recipient Email address to send to.
+     * @param subject Subject line.
+     * @param body Message text.
+     */
+    Notification(long notificationID, Type type, int showID, String recipient, String subject, String body) {
+        this.notificationID = notificationID;
+        this.type = type;
+        this.showID = showID;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        notificationCount.accumulateAndGet(notificationID + 1, Math::max);
+    }
+
+    /**
+     * Confirmation of a new booking.
+     * @param customer Customer who booked.
+     * @param show Show booked.
+     * @param booking New booking.
+     * @return Notification.
+     */
+    public static Notification bookingConfirmed(Customer customer, Show show, Booking booking) {
+        return new Notification(Type.BOOKING_CONFIRMED, show.getID(), customer.getEmail(), String.format("Booking confirmed: %s", show.getName()),
+                String.format("Dear %s, your booking %d for %s on %s is confirmed. Seats: %s", customer.getName(), booking.getID(), show.getName(),
+                        CLI.formatTime(show.getTime()), String.join(",", booking.getSeats())));
+    }
+
+    /**
+     * Confirmation of a cancelled booking.
+     * @param customer Customer who cancelled.
+     * @param show Show the booking was for.
+     * @param booking Booking cancelled.
+     * @return Notification.
+     */
+    public static Notification bookingCancelled(Customer customer, Show show, Booking booking) {
+        return new Notification(Type.BOOKING_CANCELLED, show.getID(), customer.getEmail(), String.format("Booking cancelled: %s", show.getName()),
+                String.format("Dear %s, your booking %d for %s (seats: %s) has been cancelled.", customer.getName(), booking.getID(), show.getName(),
+                        String.join(",", booking.getSeats())));
+    }
+
+    /**
+     * Notice that a booked show has moved.
+     * @param customer Customer with a booking for the show.
+     * @param show Show rescheduled.
+     * @param time New time of the show (epoch milliseconds).
+     * @return Notification.
+     */
+    public static Notification showRescheduled(Customer customer, Show show, long time) {
+        return new Notification(Type.SHOW_RESCHEDULED, show.getID(), customer.getEmail(), String.format("Show rescheduled: %s", show.getName()),
+                String.format("Dear %s, %s has been rescheduled to %s. Your booking still stands.", customer.getName(), show.getName(), CLI.formatTime(time)));
+    }
+
+    /**
+     * Notice that a booked show was cancelled and the booking refunded.
+     * @param customer Customer with the booking.
+     * @param showName Name of the show cancelled, or null if not known.
+     * @param booking Booking refunded.
+     * @return Notification.
+     */
+    public static Notification showCancelled(Customer customer, String showName, Booking booking) {
+        String show = showName != null ? showName : "Your show";
+        return new Notification(Type.SHOW_CANCELLED, booking.getShowID(), customer.getEmail(), String.format("Show cancelled: %s", show),
+                String.format("Dear %s, %s has been cancelled. Your booking %d (seats: %s) has been refunded £%s.", customer.getName(), show,
+                        booking.getID(), String.join(",", booking.getSeats()), PriceColumn.format(booking.getAmountPence())));
+    }
+
+    public long getID() { return notificationID; }
+
+    public Type getType() { return type; }
+
+    public int getShowID() { return showID; }
+
+    public String getRecipient() { return recipient; }
+
+    public String getSubject() { return subject; }
+
+    public String getBody() { return body; }
+}
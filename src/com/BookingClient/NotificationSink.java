@@ -0,0 +1,17 @@
+package src.com.BookingClient;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers batches of notifications for an Outbox's dispatcher (i.e. to a mail server). Called on the dispatcher's thread only.
+ */
+@FunctionalInterface
+public interface NotificationSink {
+    /**
+     * Deliver a batch of notifications. The whole batch is sent again if any of it fails, so delivery must tolerate repeats.
+     * @param batch Notifications in the order they were recorded.
+     * @throws IOException If the batch could not be delivered (it is retried later).
+     */
+    void send(List<Notification> batch) throws IOException;
+}
@@ -0,0 +1,171 @@
+package src.com.BookingClient;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Notifications a venue has recorded but not yet delivered. Notifications are recorded with the booking, cancellation, or reschedule
+ * they are about, in the same journal entry, so a standby that has the change also has its notifications; delivered notifications
+ * are journaled as sent. A background dispatcher delivers them to a NotificationSink in batches, so sending never adds latency
+ * to the sessions recording them. Delivery is at least once: a batch that fails is sent again, as is a batch that was delivered
+ * but not yet journaled as sent when the leader failed.
+ */
+public class Outbox {
+    public static final int DEFAULT_MAX_BATCH = 100;
+    public static final long DEFAULT_LINGER_MILLIS = 20; // Time to wait for a batch to fill
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final Venue venue;
+    private final ConcurrentSkipListMap<Long, Notification> pending = new ConcurrentSkipListMap<>(); // By ID, so in order recorded
+    private volatile Thread dispatcher; // Null while not dispatching (i.e. on a standby)
+    private volatile boolean running;
+    private volatile boolean idle; // Dispatcher is parked waiting for notifications
+
+    /**
+     * Outbox constructor.
+     * @param venue Venue whose journal delivered notifications are marked sent in.
+     */
+    Outbox(Venue venue) { this.venue = venue; }
+
+    /**
+     * Get the sink named by the 'booking.notifications' system property: a file to append to, or an in-memory mail server if not set.
+     * @return Notification sink.
+     */
+    public static NotificationSink sinkFromProperties() {
+        String file = System.getProperty("booking.notifications");
+        return file != null ? new FileNotificationSink(Paths.get(file)) : new MailboxSink(0, 0);
+    }
+
+    /**
+     * Record notifications for delivery. Called with the change they are about, after journaling it.
+     * @param notifications Notifications to deliver.
+     */
+    void record(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            pending.put(notification.getID(), notification);
+        }
+        Thread thread = dispatcher;
+        if (idle && thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Forget notifications delivered by another node (i.e. by the leader, when replaying its journal).
+     * @param notificationIDs IDs of notifications delivered.
+     */
+    void markSent(long[] notificationIDs) {
+        for (long notificationID : notificationIDs) {
+            pending.remove(notificationID);
+        }
+    }
+
+    /**
+     * Get the notifications not yet delivered.
+     * @return Copy of the pending notifications, oldest first.
+     */
+    public List<Notification> getPending() { return new ArrayList<>(pending.values()); }
+
+    public int getNumPending() { return pending.size(); }
+
+    /**
+     * Get whether notifications are being delivered (false on a standby, or once stopped).
+     * @return Whether delivering.
+     */
+    public boolean isRunning() { return running; }
+
+    /**
+     * Start delivering notifications on a background thread (i.e. once a standby is promoted). Does nothing if already started.
+     * @param sink Sink to deliver to.
+     * @param maxBatch Maximum number of notifications per batch.
+     * @param lingerMillis Time to wait for a batch to fill before sending it in milliseconds.
+     */
+    public synchronized void start(NotificationSink sink, int maxBatch, long lingerMillis) {
+        if (dispatcher != null) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(() -> dispatch(sink, Math.max(1, maxBatch), TimeUnit.MILLISECONDS.toNanos(lingerMillis)), String.format("outbox-%s", venue.getName()));
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+    }
+
+    /**
+     * Start delivering notifications with the default batch size and linger.
+     * @param sink Sink to deliver to.
+     */
+    public void start(NotificationSink sink) { start(sink, DEFAULT_MAX_BATCH, DEFAULT_LINGER_MILLIS); }
+
+    /**
+     * Stop delivering, after one last attempt at the pending notifications (any left stay pending).
+     * @throws InterruptedException If interrupted while waiting for the dispatcher.
+     */
+    public synchronized void stop() throws InterruptedException {
+        Thread thread = dispatcher;
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+        dispatcher = null;
+    }
+
+    /**
+     * Deliver pending notifications in batches until stopped, backing off while the sink fails.
+     * @param sink Sink to deliver to.
+     * @param maxBatch Maximum number of notifications per batch.
+     * @param lingerNanos Time to wait for a batch to fill in nanoseconds.
+     */
+    private void dispatch(NotificationSink sink, int maxBatch, long lingerNanos) {
+        long backoffMillis = 1;
+        while (true) {
+            boolean stopping = !running;
+            if (pending.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                idle = true;
+                if (pending.isEmpty() && running) {
+                    LockSupport.park(this); // Woken by record() or stop()
+                }
+                idle = false;
+                if (!stopping && running && pending.size() < maxBatch) {
+                    LockSupport.parkNanos(this, lingerNanos); // Let the batch fill
+                }
+                continue;
+            }
+            List<Notification> batch = new ArrayList<>(Math.min(maxBatch, pending.size()));
+            Iterator<Notification> oldest = pending.values().iterator();
+            while (batch.size() < maxBatch && oldest.hasNext()) {
+                batch.add(oldest.next());
+            }
+            try {
+                sink.send(batch);
+            } catch (IOException | RuntimeException e) {
+                Metrics.increment(Metrics.Counter.NOTIFICATION_FAILURES);
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+                continue;
+            }
+            backoffMillis = 1;
+            long[] sent = new long[batch.size()];
+            for (int i = 0; i < sent.length; i++) {
+                sent[i] = batch.get(i).getID();
+            }
+            markSent(sent);
+            venue.appendJournal(JournalEntry.notificationsSent(venue, sent));
+            Metrics.add(Metrics.Counter.NOTIFICATIONS_SENT, sent.length);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The test class OutboxTest.
+ */
+public class OutboxTest
+{
+    Venue venue;
+    Show show;
+    Customer customer;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 5, 5);
+        venue.addShow("Test Show", System.currentTimeMillis());
+        show = venue.getShows().get(0);
+        customer = new Customer("wef","wef","wef@wef.com", "07259622506", "wefwef", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB");
+    }
+
+    @Test
+    public void testBookingAndCancellationAreRecorded() {
+        venue.getCommands().hold(null, customer.getID(), show.getID(), new String[]{"A1"});
+        Booking booking = venue.getCommands().book(null, customer, show.getID(), new String[]{"A1"});
+        venue.getCommands().cancel(null, customer, booking.getID());
+        List<Notification> pending = venue.getOutbox().getPending();
+        assertEquals(2, pending.size());
+        assertEquals(Notification.Type.BOOKING_CONFIRMED, pending.get(0).getType());
+        assertEquals(Notification.Type.BOOKING_CANCELLED, pending.get(1).getType());
+        assertEquals("wef@wef.com", pending.get(1).getRecipient());
+    }
+
+    @Test
+    public void testDispatcherBatchesAndRetries() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger(2);
+        List<List<Notification>> batches = Collections.synchronizedList(new ArrayList<>());
+        venue.getOutbox().start(batch -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IOException("Mail server unavailable");
+            }
+            batches.add(batch);
+        }, 3, 0);
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            notifications.add(Notification.showRescheduled(customer, show, show.getTime()));
+        }
+        venue.rescheduleShow(show.getID(), show.getTime(), notifications);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (venue.getOutbox().getNumPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        venue.getOutbox().stop();
+        assertEquals(0, venue.getOutbox().getNumPending());
+        assertEquals(7, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 3));
+        assertEquals(notifications.get(0).getID(), batches.get(0).get(0).getID()); // Delivered in the order recorded
+    }
+}
@@ -0,0 +1,26 @@
+package src.com.BookingClient;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Charges customers' cards. Gateways answer asynchronously, so a slow gateway holds no thread while a payment is in flight
+ * (see PaymentPipeline, which adds the timeouts and retries).
+ */
+@FunctionalInterface
+public interface PaymentGateway {
+    /**
+     * Send a payment to the gateway.
+     * @param request Payment to make. Retries reuse the request, so a gateway may answer a repeated reference with its first answer.
+     * @return Future completed with the gateway's answer, or completed exceptionally if the gateway could not be reached.
+     */
+    CompletableFuture<PaymentResult> charge(PaymentRequest request);
+
+    /**
+     * Send a refund of an earlier payment to the gateway. Gateways that cannot refund answer every refund with an error.
+     * @param request Refund to make (see PaymentRequest.refundOf). Retries reuse the request, as for charges.
+     * @return Future completed with the gateway's answer, or completed exceptionally if the gateway could not be reached.
+     */
+    default CompletableFuture<PaymentResult> refund(PaymentRequest request) {
+        return CompletableFuture.completedFuture(PaymentResult.error(request, "Refunds are not supported by this gateway"));
+    }
+}
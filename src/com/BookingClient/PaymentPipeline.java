@@ -0,0 +1,147 @@
+package src.com.BookingClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded stage between checkout and a PaymentGateway. Submitting a payment returns at once with a future of its result,
+ * and timeouts and retries (with exponential backoff) are scheduled rather than waited for, so no session thread is held
+ * while the gateway answers. At most 'capacity' payments are in flight or waiting to retry; further payments are rejected
+ * straight away rather than queued behind a slow gateway.
+ * Every attempt reuses the payment's reference, so a gateway can tell a retry after a timeout from a second charge.
+ */
+public class PaymentPipeline {
+    private static volatile PaymentPipeline defaultPipeline;
+
+    private final PaymentGateway gateway;
+    private final Semaphore slots; // Payments in flight or waiting to retry
+    private final int capacity;
+    private final long timeoutMillis;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+
+    /**
+     * PaymentPipeline constructor.
+     * @param gateway Gateway to send payments to.
+     * @param capacity Maximum number of payments in flight or waiting to retry.
+     * @param timeoutMillis Time to wait for the gateway to answer each attempt in milliseconds.
+     * @param maxAttempts Maximum number of attempts at each payment (1 for no retries).
+     * @param retryDelayMillis Delay before the first retry in milliseconds (doubled for each retry after).
+     * @throws IllegalArgumentException If the capacity or number of attempts is below 1, or the timeout is not positive.
+     */
+    public PaymentPipeline(PaymentGateway gateway, int capacity, long timeoutMillis, int maxAttempts, long retryDelayMillis) throws IllegalArgumentException {
+        if (capacity < 1 || maxAttempts < 1 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("A payment pipeline needs a capacity and attempts of at least 1, and a positive timeout");
+        }
+        this.gateway = gateway;
+        this.capacity = capacity;
+        this.slots = new Semaphore(capacity);
+        this.timeoutMillis = timeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = Math.max(0, retryDelayMillis);
+    }
+
+    /**
+     * Get the pipeline sessions pay through unless given another, created on first use from system properties:
+     * booking.gateway.latency (stub gateway latency in ms, default 0), booking.gateway.failures (stub failure rate, default 0),
+     * booking.payments.capacity (default 1024), booking.payments.timeout (ms, default 2000), booking.payments.attempts (default 3),
+     * and booking.payments.retryDelay (ms, default 50).
+     * @return Default pipeline.
+     */
+    public static PaymentPipeline getDefault() {
+        PaymentPipeline pipeline = defaultPipeline;
+        if (pipeline == null) {
+            synchronized (PaymentPipeline.class) {
+                pipeline = defaultPipeline;
+                if (pipeline == null) {
+                    double failureRate = Double.parseDouble(System.getProperty("booking.gateway.failures", "0"));
+                    StubPaymentGateway gateway = new StubPaymentGateway(Long.getLong("booking.gateway.latency", 0), failureRate);
+                    pipeline = new PaymentPipeline(gateway, Integer.getInteger("booking.payments.capacity", 1024), Long.getLong("booking.payments.timeout", 2000),
+                            Integer.getInteger("booking.payments.attempts", 3), Long.getLong("booking.payments.retryDelay", 50));
+                    defaultPipeline = pipeline;
+                }
+            }
+        }
+        return pipeline;
+    }
+
+    public PaymentGateway getGateway() { return gateway; }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * Get the number of payments in flight or waiting to retry.
+     * @return Number of payments.
+     */
+    public int getInFlight() { return capacity - slots.availablePermits(); }
+
+    /**
+     * Send a payment to the gateway, retrying errors and timeouts up to the maximum number of attempts.
+     * @param request Payment to make.
+     * @return Future completed with the final result (never completed exceptionally). The result is 'REJECTED' at once if the pipeline is full.
+     */
+    public CompletableFuture<PaymentResult> submit(PaymentRequest request) { return send(request, gateway::charge); }
+
+    /**
+     * Send a refund to the gateway, with the same capacity, timeouts, and retries as payments.
+     * @param request Refund to make (see PaymentRequest.refundOf).
+     * @return Future completed with the final result (never completed exceptionally). The result is 'REJECTED' at once if the pipeline is full.
+     */
+    public CompletableFuture<PaymentResult> refund(PaymentRequest request) { return send(request, gateway::refund); }
+
+    /**
+     * Send a request to the gateway if there is capacity.
+     * @param request Payment or refund to make.
+     * @param call Gateway call making one attempt.
+     * @return Future completed with the final result.
+     */
+    private CompletableFuture<PaymentResult> send(PaymentRequest request, Function<PaymentRequest, CompletableFuture<PaymentResult>> call) {
+        CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+        if (!slots.tryAcquire()) {
+            Metrics.increment(Metrics.Counter.PAYMENT_REJECTIONS);
+            result.complete(new PaymentResult(request, PaymentResult.Status.REJECTED, "Payments are busy, please try again"));
+            return result;
+        }
+        CompletableFuture<PaymentResult> released = result.whenComplete((answer, e) -> slots.release()); // Completed once the slot is free
+        attempt(request, call, 1, result);
+        return released;
+    }
+
+    /**
+     * Make one attempt at a payment, scheduling the next attempt if it fails and attempts remain.
+     * @param request Payment to make.
+     * @param call Gateway call making one attempt.
+     * @param attempt Number of this attempt (from 1).
+     * @param result Future to complete with the final result.
+     */
+    private void attempt(PaymentRequest request, Function<PaymentRequest, CompletableFuture<PaymentResult>> call, int attempt, CompletableFuture<PaymentResult> result) {
+        CompletableFuture<PaymentResult> answer;
+        try {
+            // Copied so the timeout completes this attempt without completing the gateway's own future
+            answer = call.apply(request).copy();
+        } catch (RuntimeException e) {
+            answer = new CompletableFuture<>();
+            answer.completeExceptionally(e);
+        }
+        answer.completeOnTimeout(new PaymentResult(request, PaymentResult.Status.TIMED_OUT, "The payment gateway did not answer in time"), timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((answered, e) -> {
+                    PaymentResult outcome = e == null ? answered : PaymentResult.error(request, "The payment gateway could not be reached");
+                    if (outcome.getStatus() == PaymentResult.Status.TIMED_OUT) {
+                        Metrics.increment(Metrics.Counter.PAYMENT_TIMEOUTS);
+                    }
+                    if (outcome.isRetryable() && attempt < maxAttempts) {
+                        Metrics.increment(Metrics.Counter.PAYMENT_RETRIES);
+                        Executor backoff = CompletableFuture.delayedExecutor(retryDelayMillis << Math.min(attempt - 1, 20), TimeUnit.MILLISECONDS);
+                        backoff.execute(() -> attempt(request, call, attempt + 1, result));
+                    } else {
+                        if (!outcome.isApproved()) {
+                            Metrics.increment(Metrics.Counter.PAYMENT_FAILURES);
+                        }
+                        result.complete(outcome);
+                    }
+                });
+    }
+}
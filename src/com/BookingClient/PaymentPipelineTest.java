@@ -0,0 +1,68 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The test class PaymentPipelineTest.
+ */
+public class PaymentPipelineTest
+{
+    AtomicInteger attempts;
+    PaymentRequest request;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        attempts = new AtomicInteger();
+        request = new PaymentRequest("wef", 2500, "1234-5678-9012-3456");
+    }
+
+    @Test
+    public void testRetriesErrorsUntilApproved() {
+        PaymentPipeline pipeline = new PaymentPipeline(r -> CompletableFuture.completedFuture(attempts.incrementAndGet() < 3
+                ? PaymentResult.error(r, "Gateway unavailable") : PaymentResult.approved(r)), 4, 1000, 3, 1);
+        PaymentResult result = pipeline.submit(request).join();
+        assertTrue(result.isApproved());
+        assertEquals(3, attempts.get());
+        assertEquals(request.getReference(), result.getReference());
+        assertEquals(0, pipeline.getInFlight());
+    }
+
+    @Test
+    public void testDeclineIsNotRetried() {
+        PaymentPipeline pipeline = new PaymentPipeline(new StubPaymentGateway(0, 0), 4, 1000, 3, 1);
+        PaymentResult result = pipeline.submit(new PaymentRequest("wef", 2500, "1234-5678-9012-0000")).join();
+        assertEquals(PaymentResult.Status.DECLINED, result.getStatus());
+        assertEquals("3456", request.getCardSuffix());
+    }
+
+    @Test
+    public void testTimesOutWithoutAnswer() {
+        PaymentPipeline pipeline = new PaymentPipeline(r -> { attempts.incrementAndGet(); return new CompletableFuture<>(); }, 4, 20, 2, 1);
+        PaymentResult result = pipeline.submit(request).join();
+        assertEquals(PaymentResult.Status.TIMED_OUT, result.getStatus());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testRejectsWhenFull() {
+        CompletableFuture<PaymentResult> answer = new CompletableFuture<>();
+        PaymentPipeline pipeline = new PaymentPipeline(r -> answer, 1, 10000, 1, 1);
+        CompletableFuture<PaymentResult> first = pipeline.submit(request);
+        assertFalse(first.isDone()); // Submitting does not wait for the gateway
+        assertEquals(PaymentResult.Status.REJECTED, pipeline.submit(request).join().getStatus());
+        answer.complete(PaymentResult.approved(request));
+        assertTrue(first.join().isApproved());
+        assertEquals(0, pipeline.getInFlight());
+    }
+}
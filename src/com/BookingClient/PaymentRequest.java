@@ -0,0 +1,115 @@
+package src.com.BookingClient;
+
+import java.util.UUID;
+
+/**
+ * A charge for one checkout, sent to a PaymentGateway. Only the last four digits of the card are kept once the request is made.
+ * Every attempt at a payment (i.e. retries after a timeout) reuses its reference, so a gateway can tell a retry from a second charge.
+ */
+public final class PaymentRequest {
+    public static final long NO_QUOTE = -1; // Version of a request not made from a quote (i.e. a refund)
+
+    private final String reference;
+    private final String username;
+    private final long amountPence;
+    private final String cardSuffix; // Last four digits of the card
+    private final boolean refund; // Money back to the customer rather than a charge
+    private final long quotedVersion; // Show version the amount was quoted at, or NO_QUOTE
+
+    /**
+     * PaymentRequest constructor with a new random reference.
+     * @param username Username of the customer paying.
+     * @param amountPence Amount to charge in pence.
+     * @param cardNumber Card number (only the last four digits are kept).
+     * @throws IllegalArgumentException If the amount is negative or the card number has fewer than four digits.
+     */
+    public PaymentRequest(String username, long amountPence, String cardNumber) throws IllegalArgumentException {
+        this(UUID.randomUUID().toString(), username, amountPence, cardNumber);
+    }
+
+    /**
+     * PaymentRequest constructor for a quote, with a new random reference. The quoted version is checked again before booking.
+     * @param username Username of the customer paying.
+     * @param amountPence Amount to charge in pence.
+     * @param cardNumber Card number (only the last four digits are kept).
+     * @param quotedVersion Show version the amount was quoted at.
+     * @throws IllegalArgumentException If the amount is negative or the card number has fewer than four digits.
+     */
+    public PaymentRequest(String username, long amountPence, String cardNumber, long quotedVersion) throws IllegalArgumentException {
+        this(UUID.randomUUID().toString(), username, amountPence, cardSuffix(cardNumber), false, quotedVersion);
+    }
+
+    /**
+     * PaymentRequest constructor.
+     * @param reference Reference of the payment, unique to each checkout.
+     * @param username Username of the customer paying.
+     * @param amountPence Amount to charge in pence.
+     * @param cardNumber Card number (only the last four digits are kept).
+     * @throws IllegalArgumentException If the amount is negative or the card number has fewer than four digits.
+     */
+    public PaymentRequest(String reference, String username, long amountPence, String cardNumber) throws IllegalArgumentException {
+        this(reference, username, amountPence, cardSuffix(cardNumber), false, NO_QUOTE);
+    }
+
+    private PaymentRequest(String reference, String username, long amountPence, String cardSuffix, boolean refund, long quotedVersion) throws IllegalArgumentException {
+        if (amountPence < 0) {
+            throw new IllegalArgumentException("A payment needs a non-negative amount and a card number");
+        }
+        this.reference = reference;
+        this.username = username;
+        this.amountPence = amountPence;
+        this.cardSuffix = cardSuffix;
+        this.refund = refund;
+        this.quotedVersion = quotedVersion;
+    }
+
+    private static String cardSuffix(String cardNumber) throws IllegalArgumentException {
+        String digits = cardNumber.replaceAll("\\D", "");
+        if (digits.length() < 4) {
+            throw new IllegalArgumentException("A payment needs a non-negative amount and a card number");
+        }
+        return digits.substring(digits.length() - 4);
+    }
+
+    /**
+     * Refund of a booking's payment, back to the card it was paid with. The reference is derived from the payment's,
+     * so a refund sent again (i.e. by a standby that took over part way through) is the same refund.
+     * @param customer Customer who paid.
+     * @param booking Booking to refund (with the payment's reference and amount).
+     * @return Refund request.
+     */
+    public static PaymentRequest refundOf(Customer customer, Booking booking) {
+        return refundOf(customer.getUsername(), booking.getPaymentReference(), booking.getAmountPence());
+    }
+
+    /**
+     * Refund of a payment, back to the card it was paid with (i.e. a payment approved after its seats could no longer be booked).
+     * @param username Username of the customer who paid.
+     * @param paymentReference Reference of the payment.
+     * @param amountPence Amount paid in pence.
+     * @return Refund request.
+     */
+    public static PaymentRequest refundOf(String username, String paymentReference, long amountPence) {
+        return new PaymentRequest("refund-" + paymentReference, username, amountPence, "", true, NO_QUOTE);
+    }
+
+    public String getReference() { return reference; }
+
+    public String getUsername() { return username; }
+
+    public long getAmountPence() { return amountPence; }
+
+    /**
+     * Get the last four digits of the card.
+     * @return Last four digits, or an empty string for a refund (which goes back to the original payment's card).
+     */
+    public String getCardSuffix() { return cardSuffix; }
+
+    public boolean isRefund() { return refund; }
+
+    /**
+     * Get the show version the amount was quoted at.
+     * @return Quoted version, or NO_QUOTE if the request was not made from a quote.
+     */
+    public long getQuotedVersion() { return quotedVersion; }
+}
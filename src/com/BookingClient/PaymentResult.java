@@ -0,0 +1,66 @@
+package src.com.BookingClient;
+
+/**
+ * Answer to a PaymentRequest, from the gateway or from the PaymentPipeline when the gateway gave no usable answer.
+ */
+public final class PaymentResult {
+    public enum Status {
+        APPROVED, // Card charged
+        DECLINED, // Card refused (retrying will not help)
+        ERROR, // Gateway failed to process the payment (may be retried)
+        TIMED_OUT, // No answer in time (may be retried, the card may have been charged)
+        REJECTED // Pipeline full, the payment was never sent
+    }
+
+    private final String reference;
+    private final long amountPence;
+    private final long quotedVersion; // Show version the amount was quoted at, or PaymentRequest.NO_QUOTE
+    private final Status status;
+    private final String message;
+
+    /**
+     * PaymentResult constructor.
+     * @param request Payment answered.
+     * @param status Outcome of the payment.
+     * @param message Reason shown to the customer (i.e. 'Insufficient funds').
+     */
+    public PaymentResult(PaymentRequest request, Status status, String message) {
+        this.reference = request.getReference();
+        this.amountPence = request.getAmountPence();
+        this.quotedVersion = request.getQuotedVersion();
+        this.status = status;
+        this.message = message;
+    }
+
+    public static PaymentResult approved(PaymentRequest request) { return new PaymentResult(request, Status.APPROVED, "Approved"); }
+
+    public static PaymentResult declined(PaymentRequest request, String message) { return new PaymentResult(request, Status.DECLINED, message); }
+
+    public static PaymentResult error(PaymentRequest request, String message) { return new PaymentResult(request, Status.ERROR, message); }
+
+    public String getReference() { return reference; }
+
+    /**
+     * Get the amount charged (or refunded) if approved.
+     * @return Amount in pence.
+     */
+    public long getAmountPence() { return amountPence; }
+
+    /**
+     * Get the show version the payment's amount was quoted at.
+     * @return Quoted version, or PaymentRequest.NO_QUOTE.
+     */
+    public long getQuotedVersion() { return quotedVersion; }
+
+    public Status getStatus() { return status; }
+
+    public String getMessage() { return message; }
+
+    public boolean isApproved() { return status == Status.APPROVED; }
+
+    /**
+     * Check if sending the payment again may succeed.
+     * @return True if the gateway failed or did not answer.
+     */
+    public boolean isRetryable() { return status == Status.ERROR || status == Status.TIMED_OUT; }
+}
@@ -0,0 +1,173 @@
+package src.com.BookingClient;
+
+/**
+ * Seat prices of a show stored as a column of fixed-point pence (one int per seat ID), so that totals are exact and
+ * range filtering, totals, min/max, and repricing run as bulk primitive loops. The loops are kept simple (no calls or
+ * branches on the price path) so the JIT can auto-vectorise them.
+ * Each seat belongs to a price tier, and repricing a tier only rewrites that tier's seats.
+ */
+public class PriceColumn {
+    public static final int MAX_PENCE = Integer.MAX_VALUE / 2; // Prices are clamped to this so range checks cannot overflow
+
+    private final int[] pence; // Price of each seat, indexed by seat ID
+    private volatile int[][] tierSeats = new int[0][]; // Seat IDs in each tier (replaced, never modified, when tiers are assigned)
+    private volatile int[] tierPence = new int[0]; // Price of each tier (replaced, never modified, when a price changes)
+
+    /**
+     * PriceColumn constructor. All seats start at a price of 0 in no tier until assign() is called.
+     * @param numSeats Number of seats in the show.
+     */
+    public PriceColumn(int numSeats) {
+        pence = new int[numSeats];
+    }
+
+    /**
+     * Convert a price in pounds to pence, rounding to the nearest penny.
+     * @param pounds Price in pounds.
+     * @return Price in pence (clamped to +/- MAX_PENCE).
+     */
+    public static int toPence(double pounds) {
+        return (int) Math.max(Math.min(Math.round(pounds * 100), MAX_PENCE), -MAX_PENCE);
+    }
+
+    /**
+     * Format a price in pence as pounds (i.e. 1250 as '12.50').
+     * @param pence Price in pence.
+     * @return Formatted price.
+     */
+    public static String format(long pence) {
+        return String.format("%s%d.%02d", pence < 0 ? "-" : "", Math.abs(pence) / 100, Math.abs(pence) % 100);
+    }
+
+    public int size() { return pence.length; }
+
+    /**
+     * Assign every seat to a tier and price the whole column.
+     * @param seatTiers Tier of each seat, indexed by seat ID.
+     * @param prices Price of each tier in pence.
+     */
+    public synchronized void assign(int[] seatTiers, int[] prices) {
+        int[] counts = new int[prices.length];
+        for (int tier : seatTiers) { counts[tier] += 1; }
+        int[][] seatsOfTiers = new int[prices.length][];
+        for (int tier = 0; tier < prices.length; tier++) { seatsOfTiers[tier] = new int[counts[tier]]; }
+        int[] filled = new int[prices.length];
+        for (int seatID = 0; seatID < seatTiers.length; seatID++) {
+            int tier = seatTiers[seatID];
+            seatsOfTiers[tier][filled[tier]++] = seatID;
+            pence[seatID] = prices[tier];
+        }
+        tierSeats = seatsOfTiers;
+        tierPence = prices.clone();
+    }
+
+    /**
+     * Reprice one tier, rewriting only the seats in that tier.
+     * @param tier Tier index.
+     * @param price New price in pence.
+     * @return True if the price changed.
+     */
+    public synchronized boolean setTierPrice(int tier, int price) {
+        if (tierPence[tier] == price) { return false; }
+        for (int seatID : tierSeats[tier]) {
+            pence[seatID] = price;
+        }
+        int[] prices = tierPence.clone();
+        prices[tier] = price;
+        tierPence = prices;
+        return true;
+    }
+
+    public int getNumTiers() { return tierPence.length; }
+
+    public int getTierPrice(int tier) { return tierPence[tier]; }
+
+    public int getTierSize(int tier) { return tierSeats[tier].length; }
+
+    public int get(int seatID) { return pence[seatID]; }
+
+    /**
+     * Find which of up to 64 consecutive seats are priced within a range, without branching on each price.
+     * @param from First seat ID.
+     * @param minPrice Minimum price in pence (inclusive).
+     * @param maxPrice Maximum price in pence (inclusive).
+     * @return Bit i set if seat 'from + i' is in the range (bits past the last seat are clear).
+     */
+    public long rangeMask(int from, int minPrice, int maxPrice) {
+        int to = Math.min(from + 64, pence.length);
+        long mask = 0;
+        for (int i = from; i < to; i++) {
+            int price = pence[i];
+            long inRange = ((price - minPrice) | (maxPrice - price)) >>> 31 ^ 1; // 1 if both differences are non-negative
+            mask |= inRange << (i - from);
+        }
+        return mask;
+    }
+
+    /**
+     * Find which of up to 64 seats of a list are priced within a range (i.e. seats in ranked order), without branching on each price.
+     * @param seatIDs Seat IDs to check.
+     * @param from Index in 'seatIDs' of the first seat.
+     * @param minPrice Minimum price in pence (inclusive).
+     * @param maxPrice Maximum price in pence (inclusive).
+     * @return Bit i set if seat 'seatIDs[from + i]' is in the range (bits past the end of the list are clear).
+     */
+    public long rangeMask(int[] seatIDs, int from, int minPrice, int maxPrice) {
+        int to = Math.min(from + 64, seatIDs.length);
+        long mask = 0;
+        for (int i = from; i < to; i++) {
+            int price = pence[seatIDs[i]];
+            long inRange = ((price - minPrice) | (maxPrice - price)) >>> 31 ^ 1;
+            mask |= inRange << (i - from);
+        }
+        return mask;
+    }
+
+    /**
+     * Count the seats priced within a range.
+     * @param minPrice Minimum price in pence (inclusive).
+     * @param maxPrice Maximum price in pence (inclusive).
+     * @return Number of seats in the range.
+     */
+    public int countInRange(int minPrice, int maxPrice) {
+        int count = 0;
+        for (int price : pence) {
+            count += ((price - minPrice) | (maxPrice - price)) >>> 31 ^ 1;
+        }
+        return count;
+    }
+
+    /**
+     * Total the prices of some seats exactly.
+     * @param seatIDs Seat IDs to total.
+     * @return Total in pence.
+     */
+    public long total(int[] seatIDs) {
+        long total = 0;
+        for (int seatID : seatIDs) {
+            total += pence[seatID];
+        }
+        return total;
+    }
+
+    /**
+     * Get the lowest seat price.
+     * @return Lowest price in pence (0 if there are no seats).
+     */
+    public int min() {
+        if (pence.length == 0) { return 0; }
+        int min = Integer.MAX_VALUE;
+        for (int price : pence) { min = Math.min(min, price); }
+        return min;
+    }
+
+    /**
+     * Get the highest seat price.
+     * @return Highest price in pence (0 if there are no seats).
+     */
+    public int max() {
+        int max = pence.length == 0 ? 0 : Integer.MIN_VALUE;
+        for (int price : pence) { max = Math.max(max, price); }
+        return max;
+    }
+}
@@ -0,0 +1,89 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * The test class PriceColumnTest.
+ */
+public class PriceColumnTest
+{
+    PriceColumn prices;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        // 100 seats in three tiers: 1050p for even seats below 50, 2099p for odd seats below 50, and 333p from seat 50 on
+        int[] seatTiers = new int[100];
+        for (int seatID = 0; seatID < seatTiers.length; seatID++) {
+            seatTiers[seatID] = seatID >= 50 ? 2 : seatID % 2;
+        }
+        prices = new PriceColumn(seatTiers.length);
+        prices.assign(seatTiers, new int[] {1050, 2099, 333});
+    }
+
+    @Test
+    public void testTotalIsExactInPence() {
+        assertEquals(1050 + 2099 + 333, prices.total(new int[] {0, 1, 50}));
+        int[] all = new int[100];
+        for (int seatID = 0; seatID < all.length; seatID++) {
+            all[seatID] = seatID;
+        }
+        assertEquals(25 * 1050 + 25 * 2099 + 50 * 333, prices.total(all));
+        assertEquals(0, prices.total(new int[0]));
+        // Prices a float sum would round wrongly (0.1 + 0.2 != 0.3)
+        PriceColumn pennies = new PriceColumn(3);
+        pennies.assign(new int[] {0, 1, 2}, new int[] {PriceColumn.toPence(0.1), PriceColumn.toPence(0.2), PriceColumn.toPence(0.3)});
+        assertEquals(60, pennies.total(new int[] {0, 1, 2}));
+        assertEquals("0.60", PriceColumn.format(pennies.total(new int[] {0, 1, 2})));
+    }
+
+    @Test
+    public void testCountInRange() {
+        assertEquals(100, prices.countInRange(0, PriceColumn.MAX_PENCE));
+        assertEquals(50, prices.countInRange(333, 333));
+        assertEquals(75, prices.countInRange(0, 1050)); // Bounds are inclusive
+        assertEquals(25, prices.countInRange(1051, 2099));
+        assertEquals(0, prices.countInRange(2100, PriceColumn.MAX_PENCE));
+        assertEquals(0, prices.countInRange(1051, 1050));
+        prices.setTierPrice(2, 1500);
+        assertEquals(75, prices.countInRange(1050, 1500));
+    }
+
+    @Test
+    public void testRangeMask() {
+        assertEquals(0x5555555555555555L & ((1L << 50) - 1), prices.rangeMask(0, 1050, 1050)); // Even seats below 50
+        assertEquals(~((1L << 50) - 1), prices.rangeMask(0, 0, 333)); // Seats 50 to 63
+        assertEquals((1L << 36) - 1, prices.rangeMask(64, 0, 333)); // Bits past the last seat are clear
+        int[] order = {99, 1, 0, 3};
+        assertEquals(0b1010L, prices.rangeMask(order, 0, 2099, 2099));
+        assertEquals(0b10L, prices.rangeMask(order, 2, 2099, 2099));
+    }
+
+    @Test
+    public void testFindBestSeatsFiltersByPrice() {
+        Venue venue = new Venue("Test Venue", 10, 10);
+        venue.addShow("Test Show", System.currentTimeMillis());
+        Show show = venue.getShows().get(0);
+        PriceColumn column = show.getPriceColumn();
+        float price = column.get(0) / 100f;
+        int inRange = column.countInRange(column.get(0), column.get(0));
+        List<Seat> seats = show.findBestSeats(inRange, price, price);
+        assertEquals(inRange, seats.size());
+        for (Seat seat : seats) {
+            assertEquals(column.get(0), seat.getPricePence());
+        }
+        assertTrue(show.findBestSeats(inRange + 1, price, price).isEmpty());
+        List<Seat> sectionSeats = show.findBestSeats(1, price, price, section -> true);
+        assertEquals(1, sectionSeats.size());
+        assertEquals(column.get(0), sectionSeats.get(0).getPricePence());
+    }
+}
@@ -0,0 +1,101 @@
+package src.com.BookingClient;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+public class PricingRule {
+    public static final int MAX_DISCOUNT = 10000; // 100% in basis points
+    private final String name;
+    private final int discount; // Discount in basis points (1/100ths of a percent)
+    private final int minTickets; // Tickets needed in the basket for the rule to apply
+    private final EnumSet<User.AccountType> accountTypes; // Account types the rule applies to
+    private final long validFrom; // Earliest show time the rule applies to (epoch millis, inclusive)
+    private final long validTo; // Latest show time the rule applies to (epoch millis, exclusive)
+    private final boolean stackable; // Whether the discount adds to other stackable discounts
+    private final boolean withPromotions; // Whether the rule applies to shows that have a promotion
+
+    /**
+     * Instantiate an immutable pricing rule. Rules are compiled into a DiscountTable per show before they are used.
+     * @param name Name of rule (shown at checkout).
+     * @param discount Discount in basis points (i.e. 500 = 5%).
+     * @param minTickets Minimum number of tickets in the basket.
+     * @param accountTypes Account types the rule applies to.
+     * @param validFrom Earliest show time the rule applies to (epoch millis, inclusive).
+     * @param validTo Latest show time the rule applies to (epoch millis, exclusive).
+     * @param stackable True if the discount is added to other stackable discounts, false if it only competes with them.
+     * @param withPromotions True if the rule also applies to shows with a promotion.
+     * @throws IllegalArgumentException If the discount is not between 0 and 100%, minTickets is below 1,
+     * no account types are given, or the date window is empty.
+     */
+    public PricingRule(String name, int discount, int minTickets, Set<User.AccountType> accountTypes,
+                       long validFrom, long validTo, boolean stackable, boolean withPromotions) throws IllegalArgumentException {
+        if (discount < 0 || discount > MAX_DISCOUNT) {
+            throw new IllegalArgumentException("Discount must be between 0 and 10000 basis points");
+        }
+        if (minTickets < 1) {
+            throw new IllegalArgumentException("Minimum tickets must be at least 1");
+        }
+        if (accountTypes.isEmpty()) {
+            throw new IllegalArgumentException("Rule must apply to at least one account type");
+        }
+        if (validFrom >= validTo) {
+            throw new IllegalArgumentException("Date window is empty (validFrom must be before validTo)");
+        }
+        this.name = name;
+        this.discount = discount;
+        this.minTickets = minTickets;
+        this.accountTypes = EnumSet.copyOf(accountTypes);
+        this.validFrom = validFrom;
+        this.validTo = validTo;
+        this.stackable = stackable;
+        this.withPromotions = withPromotions;
+    }
+
+    /**
+     * Create a volume discount for all account types and show dates, which stacks with other rules and promotions.
+     * @param name Name of rule.
+     * @param minTickets Minimum number of tickets in the basket.
+     * @param discount Discount in basis points.
+     * @return Volume discount rule.
+     */
+    public static PricingRule volume(String name, int minTickets, int discount) {
+        return new PricingRule(name, discount, minTickets, EnumSet.allOf(User.AccountType.class), Long.MIN_VALUE, Long.MAX_VALUE, true, true);
+    }
+
+    /**
+     * Create a discount for some account types on every basket, which stacks with other rules and promotions.
+     * @param name Name of rule.
+     * @param discount Discount in basis points.
+     * @param accountTypes Account types the rule applies to.
+     * @return Account type discount rule.
+     */
+    public static PricingRule accountType(String name, int discount, User.AccountType... accountTypes) {
+        return new PricingRule(name, discount, 1, EnumSet.copyOf(Arrays.asList(accountTypes)), Long.MIN_VALUE, Long.MAX_VALUE, true, true);
+    }
+
+    public String getName() { return name; }
+
+    public int getDiscount() { return discount; }
+
+    public int getMinTickets() { return minTickets; }
+
+    public boolean isStackable() { return stackable; }
+
+    /**
+     * Check if the rule applies to an account type.
+     * @param accountType Account type of the user paying.
+     * @return True if the rule applies.
+     */
+    public boolean appliesTo(User.AccountType accountType) { return accountTypes.contains(accountType); }
+
+    /**
+     * Check if the rule applies to a show, given its time and whether it has a promotion.
+     * @param showTime Time of show (epoch millis).
+     * @param hasPromotion True if the show has a promotion applied.
+     * @return True if the rule applies.
+     */
+    public boolean appliesTo(long showTime, boolean hasPromotion) {
+        return showTime >= validFrom && showTime < validTo && (withPromotions || !hasPromotion);
+    }
+}
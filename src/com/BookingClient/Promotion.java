@@ -2,13 +2,14 @@ package src.com.BookingClient;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class Promotion {
     private String name;
     private final int promotionID;
-    private static int promotionCount;
+    private static final AtomicInteger promotionCount = new AtomicInteger(); // Next promotion ID
     private final float[] priceModifiers;
     private final int[][] seatRanges;
     private final List<int[]> seatRangesFull;
@@ -24,6 +25,18 @@ public class Promotion {
      * or seatRanges contains duplicates/crossover seat IDs.
      */
     public Promotion(String name, float[] priceModifiers, int[][] seatRanges) throws IllegalArgumentException {
+        this(-1, name, priceModifiers, seatRanges);
+    }
+
+    /**
+     * Instantiate Promotion class with a given ID (used when replaying a replication journal). Later promotions are numbered after it.
+     * @param promotionID ID of promotion, or -1 to number it automatically.
+     * @param name Name of promotion.
+     * @param priceModifiers float array of percentage modifiers of the original seat price.
+     * @param seatRanges 2D int array with ranges of seat IDs to apply the price modifiers to.
+     * @throws IllegalArgumentException If the price modifiers or seat ranges are invalid (see above).
+     */
+    Promotion(int promotionID, String name, float[] priceModifiers, int[][] seatRanges) throws IllegalArgumentException {
         /* Validate that the number of price modifiers (tiers) is the same as the number of seat ranges provided */
         if (priceModifiers.length != seatRanges.length) {
             throw new IllegalArgumentException("PriceModifiers array length does not match seatRanges array length");
@@ -51,8 +64,8 @@ public class Promotion {
         this.priceModifiers = priceModifiers;
         this.seatRanges = seatRanges;
         this.seatRangesFull = validRangesJoined;
-        this.promotionID = promotionCount;
-        promotionCount += 1;
+        this.promotionID = promotionID >= 0 ? promotionID : promotionCount.getAndIncrement();
+        promotionCount.accumulateAndGet(this.promotionID + 1, Math::max);
     }
 
     public String getName() { return name; }
@@ -63,5 +76,11 @@ public class Promotion {
 
     public float[] getPriceModifiers() { return priceModifiers; }
 
+    /**
+     * Get the seat ranges as given (low and high seat IDs, inclusive).
+     * @return Seat ranges, one per price modifier.
+     */
+    public int[][] getSeatRanges() { return seatRanges; }
+
     public List<int[]> getFullSeatRanges() { return seatRangesFull; }
 }
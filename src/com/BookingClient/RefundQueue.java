@@ -0,0 +1,249 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Refunds owed by a venue for bookings of cancelled shows, and for payments approved after their seats could no longer be booked
+ * (see refundPayment). Cancelling a show only queues its bookings here (see Venue.cancelShow),
+ * so it takes time proportional to the number of bookings, not to the gateway's latency. Once started, the queue refunds bookings
+ * through a PaymentPipeline in batches processed in parallel; each batch's refunds are journaled together with the customers'
+ * notifications, and bookings whose refund failed are tried again later.
+ * Refund references are derived from the payment's, so a standby that takes over repeats any refund in flight as the same refund.
+ */
+public class RefundQueue {
+    public static final int DEFAULT_THREADS = 4;
+    public static final int DEFAULT_BATCH_SIZE = 128;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    /**
+     * A booking or payment owed a refund.
+     */
+    private static final class Refund {
+        final Customer customer;
+        final Booking booking; // Null for a payment that was never booked
+        final String paymentReference; // Null if nothing was paid through a gateway
+        final long amountPence;
+        final String showName; // Name of the cancelled show (null if not known)
+        final AtomicBoolean claimed = new AtomicBoolean(); // In a batch being refunded
+
+        Refund(Customer customer, Booking booking, String showName) {
+            this(customer, booking, booking.getPaymentReference(), booking.getAmountPence(), showName);
+        }
+
+        Refund(Customer customer, Booking booking, String paymentReference, long amountPence, String showName) {
+            this.customer = customer;
+            this.booking = booking;
+            this.paymentReference = paymentReference;
+            this.amountPence = amountPence;
+            this.showName = showName;
+        }
+    }
+
+    private final Venue venue;
+    private final ConcurrentHashMap<Integer, Refund> pending = new ConcurrentHashMap<>(); // By booking ID
+    private final ConcurrentHashMap<String, Refund> unbooked = new ConcurrentHashMap<>(); // Payments never booked, by payment reference
+    private volatile ExecutorService workers; // Null until started (i.e. on a standby)
+    private volatile PaymentPipeline payments;
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * RefundQueue constructor.
+     * @param venue Venue whose journal and outbox refunds are recorded in.
+     */
+    RefundQueue(Venue venue) { this.venue = venue; }
+
+    /**
+     * Queue the bookings of a cancelled show for refunds, marking each as refunding. Called on the venue's writer.
+     * @param showName Name of the cancelled show.
+     * @param bookings Bookings of the show, with the customer of each.
+     */
+    void addAll(String showName, Map<Booking, Customer> bookings) {
+        bookings.forEach((booking, customer) -> {
+            booking.setStatus(Booking.Status.REFUNDING);
+            pending.putIfAbsent(booking.getID(), new Refund(customer, booking, showName));
+        });
+        drain();
+    }
+
+    /**
+     * Mark bookings refunded (by this queue, or by the leader when replaying its journal).
+     * @param bookingIDs IDs of bookings refunded.
+     */
+    void markRefunded(int[] bookingIDs) {
+        for (int bookingID : bookingIDs) {
+            Refund refund = pending.remove(bookingID);
+            if (refund != null) {
+                refund.booking.setStatus(Booking.Status.REFUNDED);
+            }
+        }
+    }
+
+    /**
+     * Refund a payment approved after its seats could no longer be booked (i.e. the show was cancelled or the seats released
+     * while the gateway answered). The refund is journaled, so a standby that takes over makes it if this server does not.
+     * @param customer Customer who paid.
+     * @param paymentReference Reference of the payment.
+     * @param amountPence Amount paid in pence (nothing is refunded if 0).
+     */
+    public void refundPayment(Customer customer, String paymentReference, long amountPence) {
+        if (amountPence == 0) {
+            return;
+        }
+        venue.appendJournal(JournalEntry.paymentRefund(venue, customer, paymentReference, amountPence));
+        addPayment(customer, paymentReference, amountPence);
+    }
+
+    /**
+     * Queue a payment never booked for a refund (by refundPayment, or by the leader when replaying its journal).
+     * @param customer Customer who paid.
+     * @param paymentReference Reference of the payment.
+     * @param amountPence Amount paid in pence.
+     */
+    void addPayment(Customer customer, String paymentReference, long amountPence) {
+        unbooked.putIfAbsent(paymentReference, new Refund(customer, null, paymentReference, amountPence, null));
+        drain();
+    }
+
+    /**
+     * Mark payments never booked refunded (by this queue, or by the leader when replaying its journal).
+     * @param paymentReferences References of payments refunded.
+     */
+    void markPaymentsRefunded(String[] paymentReferences) {
+        for (String paymentReference : paymentReferences) {
+            unbooked.remove(paymentReference);
+        }
+    }
+
+    public int getNumPending() { return pending.size() + unbooked.size(); }
+
+    /**
+     * Start refunding queued bookings (i.e. once a standby is promoted). Does nothing if already started.
+     * @param payments Pipeline to send refunds through.
+     * @param threads Number of batches refunded in parallel (threads times batch size should be within the pipeline's capacity).
+     * @param batchSize Number of bookings per batch.
+     */
+    public synchronized void start(PaymentPipeline payments, int threads, int batchSize) {
+        if (workers != null) {
+            return;
+        }
+        this.payments = payments;
+        this.batchSize = Math.max(1, batchSize);
+        workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, String.format("refunds-%s", venue.getName()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        drain();
+    }
+
+    /**
+     * Start refunding queued bookings with the default number of threads and batch size.
+     * @param payments Pipeline to send refunds through.
+     */
+    public void start(PaymentPipeline payments) { start(payments, DEFAULT_THREADS, DEFAULT_BATCH_SIZE); }
+
+    /**
+     * Stop refunding, waiting for batches in flight (bookings not yet refunded stay queued).
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public synchronized void stop() throws InterruptedException {
+        ExecutorService current = workers;
+        if (current != null) {
+            workers = null;
+            current.shutdown();
+            current.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Split the unclaimed refunds into batches for the workers.
+     */
+    private void drain() {
+        ExecutorService current = workers;
+        if (current == null) {
+            return;
+        }
+        List<Refund> batch = new ArrayList<>(batchSize);
+        for (Map<?, Refund> refunds : Arrays.asList(pending, unbooked)) {
+            for (Refund refund : refunds.values()) {
+                if (refund.claimed.compareAndSet(false, true)) {
+                    batch.add(refund);
+                    if (batch.size() == batchSize) {
+                        submit(current, batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(current, batch);
+        }
+    }
+
+    private void submit(ExecutorService current, List<Refund> batch) {
+        try {
+            current.execute(() -> refund(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(refund -> refund.claimed.set(false)); // Stopped, leave queued
+        }
+    }
+
+    /**
+     * Refund a batch of bookings and payments in parallel, then journal the bookings refunded with their notifications in one entry
+     * (and the payments never booked in another).
+     * @param batch Refunds claimed for this batch.
+     */
+    private void refund(List<Refund> batch) {
+        List<CompletableFuture<PaymentResult>> answers = new ArrayList<>(batch.size());
+        for (Refund refund : batch) {
+            if (refund.paymentReference == null || refund.amountPence == 0) {
+                answers.add(CompletableFuture.completedFuture(null)); // Nothing was paid through a gateway
+            } else {
+                answers.add(payments.refund(PaymentRequest.refundOf(refund.customer.getUsername(), refund.paymentReference, refund.amountPence)));
+            }
+        }
+        List<Notification> notifications = new ArrayList<>(batch.size());
+        int[] refunded = new int[batch.size()];
+        int numRefunded = 0;
+        List<String> paymentsRefunded = new ArrayList<>();
+        boolean failed = false;
+        for (int i = 0; i < batch.size(); i++) {
+            Refund refund = batch.get(i);
+            PaymentResult result = answers.get(i).join();
+            if (result != null && !result.isApproved()) {
+                refund.claimed.set(false);
+                failed = true;
+            } else if (refund.booking == null) {
+                paymentsRefunded.add(refund.paymentReference);
+            } else {
+                refunded[numRefunded++] = refund.booking.getID();
+                notifications.add(Notification.showCancelled(refund.customer, refund.showName, refund.booking));
+            }
+        }
+        if (numRefunded > 0) {
+            int[] bookingIDs = Arrays.copyOf(refunded, numRefunded);
+            venue.appendJournal(JournalEntry.bookingsRefunded(venue, bookingIDs, notifications));
+            markRefunded(bookingIDs);
+            venue.getOutbox().record(notifications);
+        }
+        if (!paymentsRefunded.isEmpty()) {
+            String[] references = paymentsRefunded.toArray(new String[0]);
+            venue.appendJournal(JournalEntry.paymentsRefunded(venue, references));
+            markPaymentsRefunded(references);
+        }
+        Metrics.add(Metrics.Counter.REFUNDS, numRefunded + paymentsRefunded.size());
+        if (failed) {
+            CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS).execute(this::drain);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The test class RefundQueueTest.
+ */
+public class RefundQueueTest
+{
+    Venue venue;
+    Show show;
+    List<Customer> customers;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 5, 5);
+        venue.addShow("Test Show", System.currentTimeMillis());
+        show = venue.getShows().get(0);
+        customers = new ArrayList<>();
+        // Sell out the show, one seat per customer
+        for (int i = 0; i < 25; i++) {
+            Customer customer = new Customer("wef" + i,"wef","wef" + i + "@wef.com", "07259622506", "wefwef", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB");
+            String seat = Character.toString((char) ('A' + i / 5)) + (i % 5 + 1);
+            venue.getCommands().hold(null, customer.getID(), show.getID(), new String[]{seat});
+            venue.getCommands().book("pay-" + i, customer, show.getID(), new String[]{seat}, 1000);
+            customers.add(customer);
+        }
+    }
+
+    /**
+     * Wait up to 5 seconds for the venue's refunds to finish.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void awaitRefunds() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (venue.getRefunds().getNumPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testCancelShowRefundsEveryBooking() throws InterruptedException {
+        assertEquals(25, venue.getBookings(show.getID()).size());
+        venue.cancelShow(show.getID());
+        assertFalse(venue.hasShow(show.getID()));
+        assertEquals(0, venue.getBookings(show.getID()).size()); // No references left to the cancelled show
+        assertEquals(25, venue.getRefunds().getNumPending());
+        assertEquals(Booking.Status.REFUNDING, customers.get(0).getBookings().get(0).getStatus());
+        Booking booking = customers.get(0).getBookings().get(0);
+        assertThrows(NoSuchElementException.class, () -> venue.getCommands().cancel(null, customers.get(0), booking.getID()));
+
+        venue.getRefunds().start(new PaymentPipeline(new StubPaymentGateway(0, 0), 64, 1000, 1, 0), 4, 4);
+        awaitRefunds();
+        venue.getRefunds().stop();
+        assertEquals(0, venue.getRefunds().getNumPending());
+        for (Customer customer : customers) {
+            assertEquals(Booking.Status.REFUNDED, customer.getBookings().get(0).getStatus());
+        }
+        List<Notification> pending = venue.getOutbox().getPending();
+        assertEquals(25, pending.stream().filter(n -> n.getType() == Notification.Type.SHOW_CANCELLED).count());
+    }
+
+    /**
+     * Gateway approving every charge and refund, recording the refunds made.
+     * @param refunds List to add refunds to.
+     * @return Gateway.
+     */
+    private PaymentGateway recordingGateway(List<PaymentRequest> refunds) {
+        return new PaymentGateway() {
+            @Override
+            public CompletableFuture<PaymentResult> charge(PaymentRequest request) {
+                return CompletableFuture.completedFuture(PaymentResult.approved(request));
+            }
+
+            @Override
+            public CompletableFuture<PaymentResult> refund(PaymentRequest request) {
+                refunds.add(request);
+                return CompletableFuture.completedFuture(PaymentResult.approved(request));
+            }
+        };
+    }
+
+    @Test
+    public void testPaymentForCancelledShowIsRefunded() throws InterruptedException {
+        venue.addShow("Second Show", System.currentTimeMillis());
+        Show second = venue.getShows().get(1);
+        Customer customer = customers.get(0);
+        assertTrue(second.getSeat("A1").hold(customer.getID()));
+        List<Seat> seats = new ArrayList<>(Collections.singletonList(second.getSeat("A1")));
+        PaymentRequest payment = new PaymentRequest(customer.getUsername(), 1500, "1234-5678-9012-3456");
+        venue.cancelShow(second.getID()); // While the gateway answers
+        assertFalse(CLI.completePayment(customer, venue, second.getID(), seats, PaymentResult.approved(payment)));
+        assertEquals(1, venue.getRefunds().getNumPending());
+
+        List<PaymentRequest> refunds = Collections.synchronizedList(new ArrayList<>());
+        venue.getRefunds().start(new PaymentPipeline(recordingGateway(refunds), 64, 1000, 1, 0), 2, 8);
+        awaitRefunds();
+        venue.getRefunds().stop();
+        assertEquals(1, refunds.size());
+        assertEquals("refund-" + payment.getReference(), refunds.get(0).getReference());
+        assertEquals(1500, refunds.get(0).getAmountPence());
+    }
+
+    @Test
+    public void testPaymentForReleasedSeatsIsRefunded() throws InterruptedException {
+        venue.addShow("Second Show", System.currentTimeMillis());
+        Show second = venue.getShows().get(1);
+        Customer customer = customers.get(0);
+        assertTrue(second.getSeat("A1").hold(customer.getID()));
+        assertTrue(second.getSeat("A2").hold(customer.getID()));
+        List<Seat> seats = new ArrayList<>(Arrays.asList(second.getSeat("A1"), second.getSeat("A2")));
+        second.getSeat("A2").setEmpty(); // Released while the gateway answers, then held by another customer
+        assertTrue(second.getSeat("A2").hold(customers.get(1).getID()));
+        PaymentRequest payment = new PaymentRequest(customer.getUsername(), 3000, "1234-5678-9012-3456");
+        assertFalse(CLI.completePayment(customer, venue, second.getID(), seats, PaymentResult.approved(payment)));
+        assertEquals(Seat.SeatStatus.EMPTY, second.getSeat("A1").getStatus());
+        assertEquals(customers.get(1).getID(), second.getSeat("A2").getHolder()); // Not released
+        assertEquals(1, venue.getRefunds().getNumPending());
+
+        List<PaymentRequest> refunds = Collections.synchronizedList(new ArrayList<>());
+        venue.getRefunds().start(new PaymentPipeline(recordingGateway(refunds), 64, 1000, 1, 0), 2, 8);
+        awaitRefunds();
+        venue.getRefunds().stop();
+        assertEquals(1, refunds.size());
+        assertEquals("refund-" + payment.getReference(), refunds.get(0).getReference());
+    }
+
+    @Test
+    public void testFailedRefundsAreRetried() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger(10);
+        PaymentGateway gateway = new PaymentGateway() {
+            @Override
+            public CompletableFuture<PaymentResult> charge(PaymentRequest request) {
+                return CompletableFuture.completedFuture(PaymentResult.approved(request));
+            }
+
+            @Override
+            public CompletableFuture<PaymentResult> refund(PaymentRequest request) {
+                if (failures.getAndDecrement() > 0) {
+                    return CompletableFuture.completedFuture(PaymentResult.declined(request, "Refund declined"));
+                }
+                assertTrue(request.getReference().startsWith("refund-pay-")); // Derived from the payment's reference
+                assertEquals(1000, request.getAmountPence());
+                return CompletableFuture.completedFuture(PaymentResult.approved(request));
+            }
+        };
+        venue.getRefunds().start(new PaymentPipeline(gateway, 64, 1000, 1, 0), 2, 8);
+        venue.cancelShow(show.getID());
+        awaitRefunds();
+        venue.getRefunds().stop();
+        assertEquals(0, venue.getRefunds().getNumPending());
+        assertTrue(failures.get() < 0);
+    }
+}
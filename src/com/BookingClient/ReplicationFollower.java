@@ -0,0 +1,144 @@
+package src.com.BookingClient;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * Hot standby applying a ReplicationLeader's journal to its own venues and users, so it can take over with its state already in memory.
+ * Run as a second process with 'java src.com.BookingClient.ReplicationFollower [port]', then start the leader with
+ * '-Dbooking.replicate=localhost:port'. When the leader goes away the follower takes over the console.
+ */
+public class ReplicationFollower {
+    private final VenueRegistry venues = new VenueRegistry();
+    private final ArrayList<User> users = new ArrayList<>();
+    private final HashMap<Integer, Venue> showVenues = new HashMap<>(); // Venue of each show
+    private final HashMap<String, User> usersByName = new HashMap<>();
+    private volatile long lastApplied; // Sequence of the last entry applied
+
+    public VenueRegistry getVenues() { return venues; }
+
+    public ArrayList<User> getUsers() { return users; }
+
+    public long getLastApplied() { return lastApplied; }
+
+    /* Used by JournalEntry.apply() */
+
+    void addVenue(Venue venue) {
+        try {
+            venues.getVenue(venue.getName()); // Already known (i.e. the leader reattached it)
+        } catch (NoSuchElementException e) {
+            venues.register(venue);
+        }
+    }
+
+    void addShow(Venue venue, Show show) {
+        venue.addShow(show);
+        showVenues.put(show.getID(), venue);
+    }
+
+    Venue getShowVenue(int showID) throws NoSuchElementException {
+        Venue venue = showVenues.get(showID);
+        if (venue == null) {
+            throw new NoSuchElementException("The 'showID' requested does not exist");
+        }
+        return venue;
+    }
+
+    void addUser(User user) {
+        synchronized (users) {
+            if (usersByName.putIfAbsent(user.getUsername(), user) == null) {
+                users.add(user);
+            }
+        }
+    }
+
+    Customer getCustomer(String username) throws NoSuchElementException {
+        User user = usersByName.get(username);
+        if (!(user instanceof Customer)) {
+            throw new NoSuchElementException("The customer requested does not exist");
+        }
+        return (Customer) user;
+    }
+
+    /**
+     * Apply entries from a leader until it disconnects, acknowledging the last applied sequence after each batch.
+     * @param leader Connection from leader.
+     * @return Sequence of the last entry applied.
+     * @throws IOException If the connection fails part way through an entry.
+     */
+    public long follow(Socket leader) throws IOException {
+        leader.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(leader.getInputStream(), 64 * 1024));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(leader.getOutputStream()));
+        while (true) {
+            JournalEntry entry;
+            try {
+                entry = JournalEntry.readFrom(in);
+            } catch (EOFException e) {
+                return lastApplied; // Leader closed the connection
+            }
+            try {
+                entry.apply(this);
+            } catch (RuntimeException e) {
+                // Keep following; one bad entry should not lose the rest of the state
+                System.err.printf("Failed to apply journal entry %d (%s): %s%n", entry.getSequence(), entry.getType(), e);
+            }
+            lastApplied = entry.getSequence();
+            // Acknowledge once the batch sent by the leader has been applied
+            if (in.available() == 0) {
+                out.writeLong(lastApplied);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Prepare to take over from the leader: seats held by the leader's sessions are released, since those sessions are gone.
+     */
+    public void promote() {
+        for (Venue venue : venues.getVenues()) {
+            for (Show show : venue.getShows()) {
+                for (int seatID = 0; seatID < show.getNumSeats(); seatID++) {
+                    if (show.getSeatStatus(seatID) == Seat.SeatStatus.HELD) {
+                        show.getSeat(seatID).setEmpty();
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        ReplicationFollower follower = new ReplicationFollower();
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.printf("Waiting for leader on port %d...%n", port);
+            try (Socket leader = server.accept()) {
+                System.out.printf("Following leader at %s%n", leader.getRemoteSocketAddress());
+                follower.follow(leader);
+            } catch (IOException e) {
+                System.out.printf("Connection to leader lost: %s%n", e.getMessage());
+            }
+        }
+        System.out.printf("Leader gone after %d journal entries. Taking over...%n", follower.getLastApplied());
+        follower.promote();
+        // Deliver notifications, make refunds, and tell customers of reschedules the leader had not finished (some may be repeated)
+        NotificationSink notifications = Outbox.sinkFromProperties();
+        for (Venue venue : follower.getVenues().getVenues()) {
+            venue.getOutbox().start(notifications);
+            venue.getRefunds().start(PaymentPipeline.getDefault());
+            venue.getReschedules().start();
+        }
+        Session session = new Session(follower.getVenues(), follower.getUsers(), CLI.getInput());
+        session.run();
+        follower.getVenues().shutdown();
+    }
+}
@@ -0,0 +1,179 @@
+package src.com.BookingClient;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Journal replicating every change to a follower (see ReplicationFollower) over TCP.
+ * Entries are streamed in batches without waiting for each acknowledgement (pipelined); the follower acknowledges the highest
+ * sequence it has applied after each batch, so a caller that needs its change on the standby (i.e. a booking) waits for one round trip at most.
+ */
+public class ReplicationLeader implements Journal, Closeable {
+    private static final int MAX_BATCH = 1024; // Entries written per flush
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final long ackTimeoutMillis; // Longest time awaitAcknowledged() waits
+    private final LinkedBlockingQueue<JournalEntry> pending = new LinkedBlockingQueue<>(); // Appended but not yet sent
+    private long lastSequence; // Sequence of the last appended entry (guarded by this)
+    private final Object ackMonitor = new Object(); // Notified when an acknowledgement arrives or replication fails
+    private volatile long acknowledged; // Highest sequence applied by the follower
+    private volatile boolean failed; // Set once the connection to the follower is lost
+    private final Thread sender;
+    private final Thread ackReader;
+
+    /**
+     * Connect to a follower and start replicating.
+     * @param host Host of follower.
+     * @param port Port of follower.
+     * @param ackTimeoutMillis Longest time to wait for an acknowledgement before carrying on without it.
+     * @throws IOException If the follower cannot be reached.
+     */
+    public ReplicationLeader(String host, int port, long ackTimeoutMillis) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true); // Batches are flushed explicitly
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        sender = new Thread(this::send, "replication-sender");
+        ackReader = new Thread(this::readAcknowledgements, "replication-acks");
+        sender.setDaemon(true);
+        ackReader.setDaemon(true);
+        sender.start();
+        ackReader.start();
+    }
+
+    @Override
+    public synchronized long append(JournalEntry entry) {
+        if (failed) {
+            return -1;
+        }
+        lastSequence += 1;
+        entry.setSequence(lastSequence);
+        pending.add(entry); // Queued in sequence order while holding the lock
+        return lastSequence;
+    }
+
+    @Override
+    public boolean awaitAcknowledged(long sequence) {
+        if (sequence < 0) {
+            return false;
+        }
+        long deadline = System.nanoTime() + ackTimeoutMillis * 1_000_000;
+        synchronized (ackMonitor) {
+            while (acknowledged < sequence && !failed) {
+                long remaining = (deadline - System.nanoTime()) / 1_000_000;
+                if (remaining <= 0) {
+                    Metrics.increment(Metrics.Counter.REPLICATION_TIMEOUTS);
+                    return false;
+                }
+                try {
+                    ackMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return acknowledged >= sequence;
+        }
+    }
+
+    /**
+     * Replicate a venue's current state, then every later change to it.
+     * Runs on the venue's writer so no show or promotion change is missed or sent twice.
+     * @param venue Venue to replicate.
+     */
+    public void attach(Venue venue) { venue.setJournal(this); }
+
+    /**
+     * Replicate all users and their bookings. Later registrations and bookings are appended by the sessions.
+     * Attach venues first, since bookings refer to their shows.
+     * @param users All registered users.
+     */
+    public void attachUsers(List<User> users) {
+        synchronized (users) {
+            for (User user : users) {
+                append(JournalEntry.userAdded(user));
+                if (user instanceof Customer) {
+                    for (Booking booking : ((Customer) user).getBookings()) {
+                        append(JournalEntry.booking((Customer) user, booking));
+                    }
+                }
+            }
+        }
+    }
+
+    public long getLastSequence() { synchronized (this) { return lastSequence; } }
+
+    public long getAcknowledged() { return acknowledged; }
+
+    public boolean isFailed() { return failed; }
+
+    /**
+     * Send queued entries to the follower in batches, flushing once per batch.
+     */
+    private void send() {
+        ArrayList<JournalEntry> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(pending.take());
+                pending.drainTo(batch, MAX_BATCH - 1);
+                for (JournalEntry entry : batch) {
+                    entry.writeTo(out);
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException ignored) {
+            // Closed
+        }
+    }
+
+    /**
+     * Read the follower's acknowledgements (highest applied sequence) and wake waiting callers.
+     */
+    private void readAcknowledgements() {
+        try {
+            while (true) {
+                long sequence = in.readLong();
+                synchronized (ackMonitor) {
+                    acknowledged = sequence;
+                    ackMonitor.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        synchronized (ackMonitor) {
+            if (!failed) {
+                failed = true;
+                System.err.printf("Replication to follower stopped: %s%n", e.getMessage());
+            }
+            ackMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Stop replicating. Entries not yet sent are dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        failed = true;
+        sender.interrupt();
+        socket.close();
+    }
+}
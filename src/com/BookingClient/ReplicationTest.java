@@ -0,0 +1,113 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The test class ReplicationTest.
+ */
+public class ReplicationTest
+{
+    Venue venue;
+    ReplicationFollower follower;
+    ReplicationLeader leader;
+    CompletableFuture<Long> following;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        venue = new Venue("Replicated Venue", 4, 4);
+        venue.addShow("Before Attach", System.currentTimeMillis());
+        venue.getShows().get(0).getSeat("A1").setBooked();
+        follower = new ReplicationFollower();
+        ServerSocket server = new ServerSocket(0);
+        following = CompletableFuture.supplyAsync(() -> {
+            try (ServerSocket listener = server; Socket socket = listener.accept()) {
+                return follower.follow(socket);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        leader = new ReplicationLeader("localhost", server.getLocalPort(), 5000);
+        leader.attach(venue);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        leader.close();
+    }
+
+    @Test
+    public void testFollowerMirrorsLeader() throws Exception {
+        ArrayList<User> users = new ArrayList<>();
+        Customer customer = new Customer("Rep User", "repuser", "rep@rep.com", "07000000000", "RepUser25%", "01/01/2000", "1 Rep Road, Rep, RE1 1PL");
+        users.add(customer);
+        leader.attachUsers(users);
+        /* Changes after attaching */
+        venue.addShow("After Attach", System.currentTimeMillis());
+        Show show = venue.getShows().get(1);
+        Promotion promotion = new Promotion("Half", new float[]{0.5f}, new int[][]{{0, 3}});
+        venue.addPromotion(promotion);
+        venue.setShowPromotion(show.getID(), promotion);
+        assertTrue(show.getSeat("A2").hold());
+        show.getSeat("A3").setBooked();
+        Booking booking = customer.addBooking(show.getID(), new String[]{"A3"});
+        assertTrue(leader.awaitAcknowledged(leader.append(JournalEntry.booking(customer, booking))));
+
+        Venue replica = follower.getVenues().getVenue("Replicated Venue");
+        assertEquals(Seat.SeatStatus.BOOKED, replica.getShow(venue.getShows().get(0).getID()).getSeat("A1").getStatus());
+        Show replicaShow = replica.getShow(show.getID());
+        assertEquals("After Attach", replicaShow.getName());
+        assertEquals(Seat.SeatStatus.HELD, replicaShow.getSeat("A2").getStatus());
+        assertEquals(Seat.SeatStatus.BOOKED, replicaShow.getSeat("A3").getStatus());
+        assertEquals(show.getSeat("A1").getPricePence(), replicaShow.getSeat("A1").getPricePence());
+        Customer replicaCustomer = (Customer) follower.getUsers().get(0);
+        assertTrue(replicaCustomer.checkPW("RepUser25%"));
+        assertEquals(customer.getID(), replicaCustomer.getID()); // Seat holders are user IDs
+        assertEquals(booking.getID(), replicaCustomer.getBookings().get(0).getID());
+
+        /* Take over */
+        leader.close();
+        assertEquals(leader.getLastSequence(), (long) following.get(5, TimeUnit.SECONDS));
+        follower.promote();
+        assertEquals(Seat.SeatStatus.EMPTY, replicaShow.getSeat("A2").getStatus()); // Held by a session that is gone
+        assertEquals(Seat.SeatStatus.BOOKED, replicaShow.getSeat("A3").getStatus());
+    }
+
+    @Test
+    public void testFollowerKeepsUndeliveredNotifications() throws Exception {
+        ArrayList<User> users = new ArrayList<>();
+        Customer customer = new Customer("Rep User", "repuser", "rep@rep.com", "07000000000", "RepUser25%", "01/01/2000", "1 Rep Road, Rep, RE1 1PL");
+        users.add(customer);
+        leader.attachUsers(users);
+        Show show = venue.getShows().get(0);
+        assertTrue(venue.getCommands().hold(null, customer.getID(), show.getID(), new String[]{"B1"}));
+        venue.getCommands().book(null, customer, show.getID(), new String[]{"B1"}); // Waits for the standby
+        Outbox replicaOutbox = follower.getVenues().getVenue("Replicated Venue").getOutbox();
+        assertEquals(1, replicaOutbox.getNumPending());
+        assertEquals("rep@rep.com", replicaOutbox.getPending().get(0).getRecipient());
+
+        /* Delivered by the leader, so the standby forgets it */
+        MailboxSink sink = new MailboxSink(0, 0);
+        venue.getOutbox().start(sink);
+        venue.getOutbox().stop();
+        assertEquals(1, sink.getMailbox("rep@rep.com").size());
+        assertTrue(leader.awaitAcknowledged(leader.getLastSequence()));
+        assertEquals(0, replicaOutbox.getNumPending());
+    }
+}
@@ -0,0 +1,213 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Customers of a venue still to be told that a show they booked was rescheduled. Rescheduling a show only queues one update per
+ * customer of the show (see Venue.rescheduleShow), so the venue's writer is not held while thousands of notifications are made.
+ * Once started, the notifier turns updates into notifications in batches, journaling each batch and recording it in the outbox.
+ * It waits while the outbox has more undelivered notifications than it allows, so a slow mail server holds back the fan-out
+ * rather than filling memory. A customer rescheduled twice before being told is told only of the latest time.
+ */
+public class RescheduleNotifier {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_MAX_OUTSTANDING = 4096; // Undelivered notifications in the outbox before the fan-out waits
+    private static final long BACKPRESSURE_WAIT_MILLIS = 10;
+
+    /**
+     * A customer to tell of a show's new time.
+     */
+    private static final class Update {
+        final Customer customer;
+        final Show show;
+        final long time; // New time of show (epoch milliseconds)
+        final List<Booking> bookings = new ArrayList<>(); // Customer's bookings of the show
+
+        Update(Customer customer, Show show, long time) {
+            this.customer = customer;
+            this.show = show;
+            this.time = time;
+        }
+    }
+
+    private final Venue venue;
+    private final ConcurrentHashMap<String, Update> pending = new ConcurrentHashMap<>(); // By show and customer (see key)
+    private final AtomicBoolean scheduled = new AtomicBoolean(); // Fan-out task queued or running
+    private volatile ExecutorService worker; // Null until started (i.e. on a standby)
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+    private volatile int maxOutstanding = DEFAULT_MAX_OUTSTANDING;
+
+    /**
+     * RescheduleNotifier constructor.
+     * @param venue Venue whose journal and outbox updates are recorded in.
+     */
+    RescheduleNotifier(Venue venue) { this.venue = venue; }
+
+    /**
+     * Get the key of a customer's update for a show.
+     * @param showID Given show ID.
+     * @param username Given customer's username.
+     * @return Key of update.
+     */
+    static String key(int showID, String username) { return showID + ":" + username; }
+
+    /**
+     * Queue an update for each customer with a booking of a rescheduled show, replacing any update not yet made. Called on the venue's writer.
+     * @param show Rescheduled show.
+     * @param time New time of show (epoch milliseconds).
+     * @param bookings Active bookings of the show, with the customer of each.
+     * @return Number of customers queued.
+     */
+    int addAll(Show show, long time, Map<Booking, Customer> bookings) {
+        HashMap<String, Update> updates = new HashMap<>();
+        bookings.forEach((booking, customer) ->
+                updates.computeIfAbsent(key(show.getID(), customer.getUsername()), key -> new Update(customer, show, time)).bookings.add(booking));
+        pending.putAll(updates);
+        drain();
+        return updates.size();
+    }
+
+    /**
+     * Mark updates made (by this notifier, or by the leader when replaying its journal). Updates replaced since are kept.
+     * @param keys Keys of updates made.
+     * @param times New show time each update was made for.
+     */
+    void markNotified(String[] keys, long[] times) {
+        for (int i = 0; i < keys.length; i++) {
+            long time = times[i];
+            pending.computeIfPresent(keys[i], (key, update) -> update.time == time ? null : update);
+        }
+    }
+
+    public int getNumPending() { return pending.size(); }
+
+    /**
+     * Start telling customers of reschedules (i.e. once a standby is promoted). Does nothing if already started.
+     * @param batchSize Number of customers per batch.
+     * @param maxOutstanding Undelivered notifications the outbox may hold before the fan-out waits (only while the outbox is delivering).
+     */
+    public synchronized void start(int batchSize, int maxOutstanding) {
+        if (worker != null) {
+            return;
+        }
+        this.batchSize = Math.max(1, batchSize);
+        this.maxOutstanding = Math.max(1, maxOutstanding);
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, String.format("reschedules-%s", venue.getName()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        drain();
+    }
+
+    /**
+     * Start telling customers of reschedules with the default batch size and limit.
+     */
+    public void start() { start(DEFAULT_BATCH_SIZE, DEFAULT_MAX_OUTSTANDING); }
+
+    /**
+     * Stop telling customers, waiting for the batch in progress (customers not yet told stay queued).
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public synchronized void stop() throws InterruptedException {
+        ExecutorService current = worker;
+        if (current != null) {
+            worker = null;
+            current.shutdown();
+            current.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Queue the fan-out task unless it is already queued or running.
+     */
+    private void drain() {
+        ExecutorService current = worker;
+        if (current == null || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            current.execute(this::fanOut);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false); // Stopped, leave queued
+        }
+    }
+
+    /**
+     * Make updates in batches until none are left or the notifier is stopped.
+     */
+    private void fanOut() {
+        try {
+            while (worker != null && awaitCapacity()) {
+                List<String> keys = new ArrayList<>(batchSize);
+                List<Update> batch = new ArrayList<>(batchSize);
+                Iterator<Map.Entry<String, Update>> entries = pending.entrySet().iterator();
+                while (entries.hasNext() && batch.size() < batchSize) {
+                    Map.Entry<String, Update> entry = entries.next();
+                    keys.add(entry.getKey());
+                    batch.add(entry.getValue());
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                tell(keys, batch);
+            }
+        } finally {
+            scheduled.set(false);
+            if (!pending.isEmpty() && worker != null) {
+                drain(); // Queued after the last batch was taken
+            }
+        }
+    }
+
+    /**
+     * Wait while the outbox is delivering and holds too many undelivered notifications.
+     * @return Whether to carry on (false if interrupted or stopped while waiting).
+     */
+    private boolean awaitCapacity() {
+        Outbox outbox = venue.getOutbox();
+        while (worker != null && outbox.isRunning() && outbox.getNumPending() >= maxOutstanding) {
+            try {
+                Thread.sleep(BACKPRESSURE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return worker != null;
+    }
+
+    /**
+     * Tell a batch of customers, journaling the updates made with their notifications in one entry.
+     * Customers who have since cancelled every booking of the show are skipped, but still marked as told.
+     * @param keys Keys of updates.
+     * @param batch Updates to make.
+     */
+    private void tell(List<String> keys, List<Update> batch) {
+        List<Notification> notifications = new ArrayList<>(batch.size());
+        String[] notifiedKeys = new String[batch.size()];
+        long[] times = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Update update = batch.get(i);
+            notifiedKeys[i] = keys.get(i);
+            times[i] = update.time;
+            if (update.bookings.stream().anyMatch(Booking::isActive)) {
+                notifications.add(Notification.showRescheduled(update.customer, update.show, update.time));
+            }
+        }
+        venue.appendJournal(JournalEntry.customersNotified(venue, notifiedKeys, times, notifications));
+        markNotified(notifiedKeys, times);
+        venue.getOutbox().record(notifications);
+        Metrics.add(Metrics.Counter.RESCHEDULE_UPDATES, notifications.size());
+    }
+}
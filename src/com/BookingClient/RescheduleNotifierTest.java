@@ -0,0 +1,116 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The test class RescheduleNotifierTest.
+ */
+public class RescheduleNotifierTest
+{
+    Venue venue;
+    Show show;
+    long time;
+    List<Customer> customers;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 20, 10);
+        time = System.currentTimeMillis();
+        venue.addShow("Test Show", time);
+        show = venue.getShows().get(0);
+        customers = new ArrayList<>();
+    }
+
+    /**
+     * Book one seat of the show for each of a number of new customers.
+     * @param numCustomers Number of customers.
+     */
+    private void bookSeats(int numCustomers) {
+        for (int i = 0; i < numCustomers; i++) {
+            Customer customer = new Customer("wef","wef" + i,"wef" + i + "@wef.com", "07259622506", "wefwef", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB");
+            String seat = Character.toString((char) ('A' + i % 10)) + (i / 10 + 1);
+            venue.getCommands().hold(null, customer.getID(), show.getID(), new String[]{seat});
+            venue.getCommands().book(null, customer, show.getID(), new String[]{seat});
+            customers.add(customer);
+        }
+    }
+
+    /**
+     * Wait up to 5 seconds for every customer to be told.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void awaitUpdates() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (venue.getReschedules().getNumPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private List<Notification> getRescheduleNotifications() {
+        return venue.getOutbox().getPending().stream()
+                .filter(n -> n.getType() == Notification.Type.SHOW_RESCHEDULED).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testClashingRescheduleIsRefused() {
+        venue.addShow("Other Show", time + 4 * 60 * 60 * 1000L);
+        long clash = time + 2 * 60 * 60 * 1000L;
+        assertEquals(1, venue.getClashes(show.getID(), clash).size());
+        assertThrows(IllegalStateException.class, () -> venue.rescheduleShow(show.getID(), clash, false));
+        assertEquals(time, show.getTime());
+        venue.rescheduleShow(show.getID(), clash, true);
+        assertEquals(clash, show.getTime());
+        assertEquals(0, venue.getClashes(show.getID(), time - 2 * 60 * 60 * 1000L).size());
+    }
+
+    @Test
+    public void testEachCustomerIsToldOfTheLatestTime() throws InterruptedException {
+        bookSeats(10);
+        venue.getCommands().hold(null, customers.get(0).getID(), show.getID(), new String[]{"A20"});
+        venue.getCommands().book(null, customers.get(0), show.getID(), new String[]{"A20"}); // Two bookings, told once
+        assertEquals(10, venue.rescheduleShow(show.getID(), time + 1000, false));
+        assertEquals(10, venue.rescheduleShow(show.getID(), time + 2000, false));
+        Booking cancelled = customers.get(1).getBookings().get(0);
+        venue.getCommands().cancel(null, customers.get(1), cancelled.getID()); // No longer affected
+        assertEquals(10, venue.getReschedules().getNumPending());
+
+        venue.getReschedules().start(3, 1000);
+        awaitUpdates();
+        venue.getReschedules().stop();
+        List<Notification> notifications = getRescheduleNotifications();
+        assertEquals(9, notifications.size());
+        assertEquals(9, notifications.stream().map(Notification::getRecipient).distinct().count());
+        assertTrue(notifications.stream().allMatch(n -> n.getBody().contains(CLI.formatTime(time + 2000))));
+    }
+
+    @Test
+    public void testFanOutWaitsForOutbox() throws InterruptedException {
+        bookSeats(200);
+        venue.getOutbox().markSent(venue.getOutbox().getPending().stream().mapToLong(Notification::getID).toArray()); // Booking confirmations
+        AtomicInteger maxPending = new AtomicInteger();
+        venue.getOutbox().start(batch -> {
+            maxPending.accumulateAndGet(venue.getOutbox().getNumPending(), Math::max);
+            try { Thread.sleep(2); } catch (InterruptedException ignored) {}
+        }, 10, 0);
+        venue.getReschedules().start(5, 20);
+        venue.rescheduleShow(show.getID(), time + 1000, false);
+        awaitUpdates();
+        venue.getReschedules().stop();
+        venue.getOutbox().stop();
+        assertEquals(0, venue.getReschedules().getNumPending());
+        assertTrue(maxPending.get() <= 20 + 5, "Outbox held " + maxPending.get());
+    }
+}
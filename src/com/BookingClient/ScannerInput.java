@@ -0,0 +1,35 @@
+package src.com.BookingClient;
+
+import java.io.InputStream;
+import java.util.Scanner;
+
+/**
+ * InputSource backed by a Scanner, used for the console and for scripted sessions.
+ */
+public class ScannerInput implements InputSource {
+    private final Scanner scanner;
+
+    /**
+     * Create input from a stream (i.e. System.in).
+     * @param stream Stream to read from.
+     */
+    public ScannerInput(InputStream stream) { this.scanner = new Scanner(stream); }
+
+    /**
+     * Create input from a script, with one line of input per line of the script.
+     * @param script Lines of input separated by '\n'.
+     */
+    public ScannerInput(String script) { this.scanner = new Scanner(script); }
+
+    @Override
+    public String nextLine() { return scanner.nextLine(); }
+
+    @Override
+    public boolean hasNextInt() { return scanner.hasNextInt(); }
+
+    @Override
+    public boolean hasNextFloat() { return scanner.hasNextFloat(); }
+
+    @Override
+    public float nextFloat() { return scanner.nextFloat(); }
+}
@@ -7,10 +7,14 @@ public class Seat {
         BOOKED
     }
 
-    private final String position;
+    static final SeatStatus[] STATUSES = SeatStatus.values(); // Indexed by ordinal (values() copies the array on every call)
+
+    private final Show show; // Show the seat belongs to, notified of status changes and used for prices (may be null)
+    private final String position; // Position of a seat that does not belong to a show (show seats are named by the show)
     private final int seatID;
-    private SeatStatus status = SeatStatus.EMPTY;
-    private float price;
+    private final SeatStore store; // Status, tier, and holder (the show's store, or a single seat store outside a show)
+    private final int index; // Index of the seat in 'store'
+    private float price; // Price of a seat that does not belong to a show
 
     /**
      * Seat constructor.
@@ -19,24 +23,138 @@ public class Seat {
      * @param price Price of seat.
      */
     public Seat(int seatID, String position, float price) {
+        this.show = null;
         this.seatID = seatID;
         this.position = position;
+        this.store = new SeatStore(1);
+        this.index = 0;
         this.price = price;
     }
 
-    public String getPos() { return position; }
+    /**
+     * Seat constructor for a seat belonging to a show. The seat's state is kept in the show's seat store, and its price is the price of its tier.
+     * @param show Show to notify of status changes.
+     * @param seatID Given ID of seat.
+     * @param store Seat store of the show.
+     */
+    Seat(Show show, int seatID, SeatStore store) {
+        this.show = show;
+        this.seatID = seatID;
+        this.position = null;
+        this.store = store;
+        this.index = seatID;
+    }
+
+    /**
+     * Get the position of the seat in the venue.
+     * @return Position, usually in the form 'A1', 'A2', 'A3' etc.
+     */
+    public String getPos() { return show != null ? show.getSeatName(seatID) : position; }
 
     public int getID() { return seatID; }
 
-    public float getPrice() { return price; }
+    public float getPrice() { return getPricePence() / 100f; }
 
+    /**
+     * Get the exact price of the seat.
+     * @return Price in pence.
+     */
+    public int getPricePence() { return show != null ? show.getPriceColumn().get(seatID) : PriceColumn.toPence(price); }
+
+    /**
+     * Set the price of a seat that does not belong to a show. Seats in a show are priced by their tier (see Show.getPriceColumn()).
+     * @param price Price to set.
+     */
     public void setPrice(float price) { this.price = price; }
 
-    public SeatStatus getStatus() { return status; }
+    public int getTier() { return store.getTier(index); }
+
+    public SeatStatus getStatus() { return STATUSES[store.getStatus(index)]; }
+
+    /**
+     * Get the user holding or booking the seat.
+     * @return User ID, or SeatStore.NO_HOLDER if the seat is empty or its holder is unknown.
+     */
+    public int getHolder() { return store.getHolder(index); }
+
+    /**
+     * Set the seat to empty. The show is told the seat was freed after the seat's lock is released,
+     * so that it can hold other seats (i.e. for its waitlist) without nesting seat locks.
+     */
+    public void setEmpty() {
+        boolean freed;
+        synchronized (this) {
+            freed = getStatus() != SeatStatus.EMPTY;
+            setStatus(SeatStatus.EMPTY, SeatStore.NO_HOLDER);
+        }
+        if (freed && show != null) {
+            show.seatFreed();
+        }
+    }
+
+    /**
+     * Set the seat to empty if it is held by a user. Checking and releasing happen atomically, so a seat held by another session since is kept.
+     * @param holder ID of the user holding the seat.
+     * @return True if the seat was held by the user and is now empty.
+     */
+    public boolean release(int holder) {
+        synchronized (this) {
+            if (getStatus() != SeatStatus.HELD || getHolder() != holder) { return false; }
+            setStatus(SeatStatus.EMPTY, SeatStore.NO_HOLDER);
+        }
+        if (show != null) {
+            show.seatFreed();
+        }
+        return true;
+    }
 
-    public void setEmpty() { status = SeatStatus.EMPTY; }
+    public synchronized void setHeld() { setStatus(SeatStatus.HELD, getHolder()); }
 
-    public void setHeld() { status = SeatStatus.HELD; }
+    /**
+     * Book the seat, keeping the user who held it as its holder.
+     */
+    public synchronized void setBooked() { setStatus(SeatStatus.BOOKED, getHolder()); }
+
+    /**
+     * Book the seat if it is held by a user. Checking and booking happen atomically.
+     * @param holder ID of the user holding the seat.
+     * @return True if the seat was held by the user and is now booked.
+     */
+    public synchronized boolean book(int holder) {
+        if (getStatus() != SeatStatus.HELD || getHolder() != holder) { return false; }
+        setStatus(SeatStatus.BOOKED, holder);
+        return true;
+    }
 
-    public void setBooked() { status = SeatStatus.BOOKED; }
+    /**
+     * Change the status, through the show if the seat belongs to one so the show's counts change with it. Caller must hold the seat's lock.
+     * @param newStatus Status to change to.
+     * @param holder User holding or booking the seat, or SeatStore.NO_HOLDER.
+     */
+    private void setStatus(SeatStatus newStatus, int holder) {
+        SeatStatus oldStatus = getStatus();
+        if (show != null) {
+            show.setSeatStatus(this, oldStatus, newStatus, holder);
+        } else {
+            store.setStatus(index, newStatus.ordinal(), holder);
+        }
+    }
+
+    /**
+     * Hold the seat if it is empty, without recording who holds it.
+     * @return True if the seat was empty and is now held.
+     */
+    public boolean hold() { return hold(SeatStore.NO_HOLDER); }
+
+    /**
+     * Hold the seat for a user if it is empty. Checking and holding happen atomically, so two sessions can never hold the same seat.
+     * @param holder ID of the user holding the seat.
+     * @return True if the seat was empty and is now held.
+     */
+    public synchronized boolean hold(int holder) {
+        if (getStatus() != SeatStatus.EMPTY) { return false; }
+        setStatus(SeatStatus.HELD, holder);
+        Metrics.increment(Metrics.Counter.HOLDS);
+        return true;
+    }
 }
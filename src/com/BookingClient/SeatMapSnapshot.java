@@ -0,0 +1,87 @@
+package src.com.BookingClient;
+
+/**
+ * Immutable view of a show's seat statuses at one point in time, shared by everyone browsing the show.
+ * Built from the show's status column (see Show.getSeatMap()), so reading it never touches the seats that bookings are changing.
+ */
+public class SeatMapSnapshot {
+    private static final Seat.SeatStatus[] STATUSES = Seat.SeatStatus.values();
+
+    private final int showID;
+    private final long version; // Number of seat changes in the show when the snapshot was taken
+    private final long builtAt; // System.nanoTime() when the snapshot was taken
+    private final int numRows;
+    private final String[] rowNames; // Letter names of each column of seats (i.e. 'A', 'B')
+    private final byte[] statuses; // Status ordinal of each seat, indexed by seat ID
+    private volatile String diagram; // Rendered seating diagram (built on first use)
+
+    SeatMapSnapshot(int showID, long version, int numRows, String[] rowNames, byte[] statuses) {
+        this.showID = showID;
+        this.version = version;
+        this.builtAt = System.nanoTime();
+        this.numRows = numRows;
+        this.rowNames = rowNames;
+        this.statuses = statuses;
+    }
+
+    public int getShowID() { return showID; }
+
+    /**
+     * Get the version of the snapshot. Versions only increase, so a later snapshot of the same show has a higher version.
+     * @return Number of seat changes in the show when the snapshot was taken.
+     */
+    public long getVersion() { return version; }
+
+    long getBuiltAt() { return builtAt; }
+
+    public int getNumSeats() { return statuses.length; }
+
+    /**
+     * Get the status of a seat when the snapshot was taken.
+     * @param seatID Seat ID.
+     * @return Seat status.
+     */
+    public Seat.SeatStatus getStatus(int seatID) { return STATUSES[statuses[seatID]]; }
+
+    /**
+     * Count the seats with a status.
+     * @param status Status to count.
+     * @return Number of seats with the status.
+     */
+    public int count(Seat.SeatStatus status) {
+        byte ordinal = (byte) status.ordinal();
+        int count = 0;
+        for (byte seatStatus : statuses) {
+            count += seatStatus == ordinal ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Render the seating diagram, indicating if the seats are empty, held, or booked.
+     * The diagram is built once per snapshot and then shared by every reader.
+     * @return Seating diagram with key.
+     */
+    public String render() {
+        String rendered = diagram;
+        if (rendered == null) {
+            StringBuilder output = new StringBuilder();
+            //Print column numbers
+            for (int i = 1; i <= numRows; i++) {
+                output.append(String.format("%d  ", i).substring(0,3));
+            }
+            output.append("\n");
+            // Seat IDs run down each row letter in turn, so the statuses are read in order
+            for (int i = 0; i < rowNames.length; i++) {
+                for (int j = 0; j < numRows; j++) {
+                    output.append(STATUSES[statuses[i*numRows + j]].toString().charAt(0)).append("  "); // Appending seat status to diagram
+                }
+                output.append(String.format("\t%s\n", rowNames[i])); // Appending row letter to the string and starting new line
+            }
+            output.append("\n Key:\nE = Empty\nH = Held\nB = Booked"); // Appending key to the string
+            rendered = output.toString();
+            diagram = rendered; // Racing readers build identical diagrams, so either may win
+        }
+        return rendered;
+    }
+}
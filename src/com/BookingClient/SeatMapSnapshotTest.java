@@ -0,0 +1,95 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The test class SeatMapSnapshotTest.
+ */
+public class SeatMapSnapshotTest
+{
+    Show show;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        show = new Show("Test Show", System.currentTimeMillis(), 3, 2); // Rows A and B of 3 seats
+    }
+
+    @Test
+    public void testSnapshotIsSharedUntilSeatsChange() {
+        show.setSeatMapInterval(0);
+        SeatMapSnapshot first = show.getSeatMap();
+        assertSame(first, show.getSeatMap());
+        assertTrue(show.getSeat("B2").hold());
+        SeatMapSnapshot second = show.getSeatMap();
+        assertNotSame(first, second);
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(Seat.SeatStatus.HELD, second.getStatus(show.getSeat("B2").getID()));
+        assertEquals(Seat.SeatStatus.EMPTY, first.getStatus(show.getSeat("B2").getID())); // Earlier snapshots never change
+        assertEquals(1, second.count(Seat.SeatStatus.HELD));
+        assertEquals(5, second.count(Seat.SeatStatus.EMPTY));
+    }
+
+    @Test
+    public void testRebuildsAreThrottled() {
+        show.setSeatMapInterval(10_000);
+        SeatMapSnapshot first = show.getSeatMap();
+        assertTrue(show.getSeat("A1").hold());
+        assertSame(first, show.getSeatMap()); // Changed, but the snapshot is too recent to rebuild
+        show.setSeatMapInterval(0);
+        SeatMapSnapshot second = show.getSeatMap();
+        assertNotSame(first, second);
+        assertEquals(1, second.count(Seat.SeatStatus.HELD));
+    }
+
+    @Test
+    public void testDiagramIsRenderedOnce() {
+        show.setSeatMapInterval(0);
+        assertTrue(show.getSeat("A1").hold());
+        show.getSeat("B3").hold();
+        show.getSeat("B3").setBooked();
+        SeatMapSnapshot snapshot = show.getSeatMap();
+        String diagram = snapshot.render();
+        assertSame(diagram, snapshot.render());
+        assertTrue(diagram.contains("H  E  E  \tA"));
+        assertTrue(diagram.contains("E  E  B  \tB"));
+    }
+
+    @Test
+    public void testReadersSeeVersionsInOrder() throws InterruptedException {
+        show.setSeatMapInterval(0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(new Thread(() -> {
+                long last = -1;
+                while (running.get()) {
+                    long version = show.getSeatMap().getVersion();
+                    if (version < last) { ordered.set(false); }
+                    last = version;
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        for (int i = 0; i < 2000; i++) {
+            Seat seat = show.getSeat(i % 6);
+            if (!seat.hold()) { seat.setEmpty(); }
+        }
+        running.set(false);
+        for (Thread reader : readers) { reader.join(); }
+        assertTrue(ordered.get());
+        assertEquals(2000, show.getSeatMap().getVersion()); // Caught up once the changes stop
+    }
+}
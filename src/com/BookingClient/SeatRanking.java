@@ -0,0 +1,124 @@
+package src.com.BookingClient;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seats of a venue in order of a SeatScorer's score (best first), computed once per layout and shared by all of the venue's shows.
+ * Each show keeps a bitmap of taken seats in this order, so finding the best available seats skips taken seats 64 at a time.
+ */
+public class SeatRanking {
+    private final SeatingLayout layout;
+    private final int[] order; // Seat IDs, best first
+    private final int[] ranks; // Position of each seat ID in 'order'
+    private final int[][] sectionOrders; // Seat IDs of each section of the layout, best first
+
+    private SeatRanking(SeatingLayout layout, int[] order, int[][] sectionOrders) {
+        this.layout = layout;
+        this.order = order;
+        this.sectionOrders = sectionOrders;
+        ranks = new int[order.length];
+        for (int rank = 0; rank < order.length; rank++) {
+            ranks[order[rank]] = rank;
+        }
+    }
+
+    /**
+     * Rank the seats of a layout by score. Ties keep the lower seat ID first.
+     * @param layout Layout of the venue.
+     * @param scorer Scorer to rank by.
+     * @return Seat ranking.
+     */
+    public static SeatRanking rank(SeatingLayout layout, SeatScorer scorer) {
+        int numSeats = layout.getNumRows() * layout.getSeatsPerRow();
+        // Sort (score, seat ID) pairs packed into longs, with the score flipped so the best sorts first
+        long[] keys = new long[numSeats];
+        for (int seatID = 0; seatID < numSeats; seatID++) {
+            int row = layout.getRow(seatID);
+            float score = (float) scorer.score(layout, row, seatID - row * layout.getSeatsPerRow());
+            keys[seatID] = ((long) sortableBits(-score) << 32) | seatID;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[numSeats];
+        for (int rank = 0; rank < numSeats; rank++) {
+            order[rank] = (int) keys[rank]; // Low 32 bits
+        }
+        return new SeatRanking(layout, order, sectionOrders(layout, order));
+    }
+
+    /**
+     * Rank the seats of a layout front first (seat ID order), without scoring them.
+     * @param layout Layout of the venue.
+     * @return Seat ranking.
+     */
+    public static SeatRanking frontFirst(SeatingLayout layout) {
+        int[] order = new int[layout.getNumRows() * layout.getSeatsPerRow()];
+        for (int seatID = 0; seatID < order.length; seatID++) {
+            order[seatID] = seatID;
+        }
+        return new SeatRanking(layout, order, sectionOrders(layout, order));
+    }
+
+    /**
+     * Map a float to an int whose signed order is the float's order.
+     * @param value Float to map.
+     * @return Sortable bits.
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    /**
+     * Split a ranked order into the order of each section.
+     * @param layout Layout of the venue.
+     * @param order Seat IDs, best first.
+     * @return Seat IDs of each section, best first.
+     */
+    private static int[][] sectionOrders(SeatingLayout layout, int[] order) {
+        List<SeatingLayout.Section> sections = layout.getSections();
+        int[][] sectionOrders = new int[sections.size()][];
+        int[] filled = new int[sections.size()];
+        for (int i = 0; i < sections.size(); i++) {
+            sectionOrders[i] = new int[sections.get(i).getNumRows() * layout.getSeatsPerRow()];
+        }
+        for (int seatID : order) {
+            int section = layout.getSection(layout.getRow(seatID));
+            if (section >= 0) {
+                sectionOrders[section][filled[section]++] = seatID;
+            }
+        }
+        return sectionOrders;
+    }
+
+    public SeatingLayout getLayout() { return layout; }
+
+    public int getNumSeats() { return order.length; }
+
+    /**
+     * Get the seat at a position in the ranking.
+     * @param rank Position (0 is the best seat).
+     * @return Seat ID.
+     */
+    public int getSeat(int rank) { return order[rank]; }
+
+    /**
+     * Get the position of a seat in the ranking.
+     * @param seatID Given seat ID.
+     * @return Position (0 is the best seat).
+     */
+    public int getRank(int seatID) { return ranks[seatID]; }
+
+    /**
+     * Get all seats, best first.
+     * @return Seat IDs (shared, do not modify).
+     */
+    int[] getOrder() { return order; }
+
+    /**
+     * Get the seats of a section, best first.
+     * @param section Index of section in the layout.
+     * @return Seat IDs (shared, do not modify).
+     */
+    int[] getSectionOrder(int section) { return sectionOrders[section]; }
+}
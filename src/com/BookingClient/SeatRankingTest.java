@@ -0,0 +1,58 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * The test class SeatRankingTest.
+ */
+public class SeatRankingTest
+{
+    Venue venue;
+    Show show;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 9, 10); // Rows A to J of 9 seats
+        venue.addShow("Test Show", System.currentTimeMillis());
+        show = venue.getShows().get(0);
+    }
+
+    @Test
+    public void testStandardScorerPrefersCentre() {
+        SeatRanking ranking = SeatRanking.rank(venue.getLayout(), SeatScorer.standard());
+        assertEquals("D5", show.getSeatName(ranking.getSeat(0))); // Centre seat, a third of the way back
+        assertEquals(0, ranking.getRank(ranking.getSeat(0)));
+        assertTrue(ranking.getRank(show.getSeat("D5").getID()) < ranking.getRank(show.getSeat("A1").getID()));
+        assertTrue(ranking.getRank(show.getSeat("D1").getID()) > ranking.getRank(show.getSeat("D4").getID()));
+    }
+
+    @Test
+    public void testBestAvailableSkipsTakenSeats() {
+        List<Seat> best = show.findBestSeats(3, 0, 100);
+        assertEquals("D5", best.get(0).getPos());
+        for (Seat seat : best) {
+            assertTrue(seat.hold());
+        }
+        List<Seat> next = show.findBestSeats(3, 0, 100);
+        for (Seat seat : next) {
+            assertFalse(best.contains(seat));
+            assertEquals(Seat.SeatStatus.EMPTY, seat.getStatus());
+        }
+        best.get(0).setEmpty();
+        assertEquals("D5", show.findBestSeats(1, 0, 100).get(0).getPos());
+        venue.setScorer(SeatScorer.frontFirst());
+        assertEquals("A1", show.findBestSeats(1, 0, 100).get(0).getPos());
+        assertEquals(88, show.findBestSeats(88, 0, 100).size()); // Every seat but the two still held
+        assertTrue(show.findBestSeats(89, 0, 100).isEmpty());
+    }
+}
@@ -0,0 +1,42 @@
+package src.com.BookingClient;
+
+/**
+ * Scores how good a seat is to sit in, so automatic selection offers the best seats first (see SeatRanking).
+ * Rows are seat letters counted from the stage (row 0 is 'A'), and seats are numbered along each row from 0.
+ */
+@FunctionalInterface
+public interface SeatScorer {
+    /**
+     * Score a seat.
+     * @param layout Layout of the venue.
+     * @param row Row of the seat (0 is nearest the stage).
+     * @param seat Position of the seat in its row (0 is the first seat).
+     * @return Score of the seat (higher is better).
+     */
+    double score(SeatingLayout layout, int row, int seat);
+
+    /**
+     * Scorer preferring the front rows, then lower seat numbers (the order seats are numbered in).
+     * @return Front first scorer.
+     */
+    static SeatScorer frontFirst() {
+        return (layout, row, seat) -> -((double) row * layout.getSeatsPerRow() + seat);
+    }
+
+    /**
+     * Scorer weighing distance to the stage (best about a third of the way back), centrality within the row,
+     * and sightline (the angle to the centre of the stage, which is worst at the ends of the front rows).
+     * @return Standard scorer.
+     */
+    static SeatScorer standard() {
+        return (layout, row, seat) -> {
+            double numRows = layout.getNumRows();
+            double centre = (layout.getSeatsPerRow() - 1) / 2.0;
+            double offset = Math.abs(seat - centre); // Seats from the centre of the row
+            double distance = 1 - Math.abs(row - (numRows - 1) / 3.0) / numRows;
+            double centrality = centre == 0 ? 1 : 1 - offset / (centre + 1);
+            double sightline = 1 - Math.atan2(offset, row + 1) / (Math.PI / 2);
+            return 0.4 * distance + 0.35 * centrality + 0.25 * sightline;
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package src.com.BookingClient;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Off-heap state of a show's seats: status, price tier, and hold owner of each seat packed into one 64 bit word in a direct buffer,
+ * so venues with hundreds of thousands of seats add no objects for the garbage collector to trace.
+ * Word layout: bits 0-7 status ordinal, bits 8-23 price tier, bits 32-63 ID of the user holding or booking the seat.
+ * Each word is read with acquire and changed with compare-and-set, so the status (changed under the seat's lock) and the tier
+ * (changed under the show's pricing lock) can be updated independently.
+ */
+public class SeatStore {
+    public static final int MAX_SEATS = Integer.MAX_VALUE / Long.BYTES; // Largest number of seats a store can address
+    public static final int MAX_TIERS = 1 << 16;
+    public static final int NO_HOLDER = -1;
+
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long STATUS_MASK = 0xFFL;
+    private static final int TIER_SHIFT = 8;
+    private static final long TIER_MASK = 0xFFFFL << TIER_SHIFT;
+    private static final int HOLDER_SHIFT = 32;
+    private static final long HOLDER_MASK = 0xFFFFFFFFL << HOLDER_SHIFT;
+    private static final long EMPTY_WORD = (long) NO_HOLDER << HOLDER_SHIFT; // Empty, tier 0, no holder
+
+    private final ByteBuffer words; // Direct, one word per seat indexed by seat ID
+    private final int numSeats;
+
+    /**
+     * SeatStore constructor. All seats start empty, in tier 0, and not held.
+     * @param numSeats Number of seats.
+     * @throws IllegalArgumentException If the number of seats is negative or above MAX_SEATS.
+     */
+    public SeatStore(int numSeats) throws IllegalArgumentException {
+        if (numSeats < 0 || numSeats > MAX_SEATS) {
+            throw new IllegalArgumentException(String.format("A show can have at most %d seats", MAX_SEATS));
+        }
+        this.numSeats = numSeats;
+        this.words = ByteBuffer.allocateDirect(numSeats * Long.BYTES).order(ByteOrder.nativeOrder());
+        for (int seatID = 0; seatID < numSeats; seatID++) {
+            WORDS.set(words, seatID * Long.BYTES, EMPTY_WORD);
+        }
+        VarHandle.releaseFence(); // Publish the initial words with the store
+    }
+
+    public int getNumSeats() { return numSeats; }
+
+    private long word(int seatID) { return (long) WORDS.getAcquire(words, seatID * Long.BYTES); }
+
+    /**
+     * Replace some bits of a seat's word.
+     * @param seatID ID of seat.
+     * @param mask Bits to replace.
+     * @param bits New value of the bits.
+     * @return Previous word.
+     */
+    private long update(int seatID, long mask, long bits) {
+        int offset = seatID * Long.BYTES;
+        while (true) {
+            long current = (long) WORDS.getAcquire(words, offset);
+            if (WORDS.compareAndSet(words, offset, current, (current & ~mask) | bits)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Get the status ordinal of a seat (see Seat.SeatStatus).
+     * @param seatID ID of seat.
+     * @return Status ordinal.
+     */
+    public int getStatus(int seatID) { return (int) (word(seatID) & STATUS_MASK); }
+
+    public int getTier(int seatID) { return (int) ((word(seatID) & TIER_MASK) >>> TIER_SHIFT); }
+
+    /**
+     * Get the user holding or booking a seat.
+     * @param seatID ID of seat.
+     * @return User ID, or NO_HOLDER.
+     */
+    public int getHolder(int seatID) { return (int) (word(seatID) >> HOLDER_SHIFT); }
+
+    /**
+     * Set the status and holder of a seat, keeping its tier.
+     * @param seatID ID of seat.
+     * @param status Status ordinal.
+     * @param holder User ID, or NO_HOLDER.
+     */
+    public void setStatus(int seatID, int status, int holder) {
+        update(seatID, STATUS_MASK | HOLDER_MASK, (status & STATUS_MASK) | ((long) holder << HOLDER_SHIFT));
+    }
+
+    /**
+     * Set the price tier of a seat, keeping its status and holder.
+     * @param seatID ID of seat.
+     * @param tier Tier index.
+     * @throws IllegalArgumentException If the tier is negative or not below MAX_TIERS.
+     */
+    public void setTier(int seatID, int tier) throws IllegalArgumentException {
+        if (tier < 0 || tier >= MAX_TIERS) {
+            throw new IllegalArgumentException(String.format("A show can have at most %d price tiers", MAX_TIERS));
+        }
+        update(seatID, TIER_MASK, (long) tier << TIER_SHIFT);
+    }
+
+    /**
+     * Copy the status of every seat into an array (i.e. for a seat map snapshot).
+     * @param statuses Array to copy into, at least getNumSeats() long.
+     */
+    public void copyStatuses(byte[] statuses) {
+        for (int seatID = 0; seatID < numSeats; seatID++) {
+            statuses[seatID] = (byte) (word(seatID) & STATUS_MASK);
+        }
+    }
+}
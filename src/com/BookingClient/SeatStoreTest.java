@@ -0,0 +1,61 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The test class SeatStoreTest.
+ */
+public class SeatStoreTest
+{
+    SeatStore store;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        store = new SeatStore(10);
+    }
+
+    @Test
+    public void testFieldsChangeIndependently() {
+        assertEquals(Seat.SeatStatus.EMPTY.ordinal(), store.getStatus(3));
+        assertEquals(SeatStore.NO_HOLDER, store.getHolder(3));
+        store.setStatus(3, Seat.SeatStatus.HELD.ordinal(), 42);
+        store.setTier(3, SeatStore.MAX_TIERS - 1);
+        assertEquals(Seat.SeatStatus.HELD.ordinal(), store.getStatus(3));
+        assertEquals(42, store.getHolder(3));
+        assertEquals(SeatStore.MAX_TIERS - 1, store.getTier(3));
+        assertEquals(0, store.getTier(2));
+        assertThrows(IllegalArgumentException.class, () -> store.setTier(3, SeatStore.MAX_TIERS));
+    }
+
+    @Test
+    public void testArenaShow() {
+        Show show = new Show("Arena Show", System.currentTimeMillis(), 1000, 600); // 600,000 seats
+        Seat seat = show.getSeat("WB1000");
+        assertEquals("WB1000", seat.getPos());
+        assertSame(seat, show.getSeat(seat.getID()));
+        assertThrows(NoSuchElementException.class, () -> show.getSeat("WB1001"));
+        assertThrows(NoSuchElementException.class, () -> show.getSeat("WC1"));
+        assertThrows(NoSuchElementException.class, () -> show.getSeat("A0"));
+        assertTrue(seat.hold(7));
+        assertFalse(seat.hold(8));
+        assertEquals(7, seat.getHolder());
+        seat.setBooked();
+        assertEquals(7, seat.getHolder());
+        List<Seat> best = show.findBestSeats(2, 0, 100);
+        assertEquals("A1", best.get(0).getPos());
+        show.setSeatMapInterval(0);
+        assertEquals(1, show.getSeatMap().count(Seat.SeatStatus.BOOKED));
+        assertEquals(599_999, show.getSeatMap().count(Seat.SeatStatus.EMPTY));
+    }
+}
@@ -0,0 +1,115 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Layout of a venue's seats as venue, then sections, then rows, then seats. A row is one seat letter (i.e. row 'B' holds B1, B2, ...),
+ * so its seats have consecutive IDs, and a section is a run of consecutive rows (i.e. 'Balcony' holds rows T to AA).
+ * Rows that are in no section can only be booked interactively or by a search of the whole venue.
+ */
+public class SeatingLayout {
+    /**
+     * A named run of consecutive rows.
+     */
+    public static final class Section {
+        private final String name;
+        private final int firstRow;
+        private final int lastRow;
+
+        /**
+         * Section constructor.
+         * @param name Name of section (i.e. 'Balcony Left').
+         * @param firstRow Index of first row (0 for row 'A').
+         * @param lastRow Index of last row (inclusive).
+         * @throws IllegalArgumentException If the rows are negative or in the wrong order.
+         */
+        public Section(String name, int firstRow, int lastRow) throws IllegalArgumentException {
+            if (firstRow < 0 || lastRow < firstRow) {
+                throw new IllegalArgumentException("Section rows must be non-negative, with the first row not after the last");
+            }
+            this.name = name;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+
+        public String getName() { return name; }
+
+        public int getFirstRow() { return firstRow; }
+
+        public int getLastRow() { return lastRow; }
+
+        public int getNumRows() { return lastRow - firstRow + 1; }
+    }
+
+    private final int numRows; // Number of seat letters
+    private final int seatsPerRow;
+    private final List<Section> sections;
+    private final int[] rowSections; // Index of the section of each row, or -1
+
+    /**
+     * SeatingLayout constructor.
+     * @param numRows Number of rows (seat letters) in the venue.
+     * @param seatsPerRow Number of seats in each row.
+     * @param sections Sections, in order of preference (the best first). Sections may leave rows out, but may not overlap.
+     * @throws IllegalArgumentException If a section runs past the last row, or two sections share a row.
+     */
+    public SeatingLayout(int numRows, int seatsPerRow, List<Section> sections) throws IllegalArgumentException {
+        this.numRows = numRows;
+        this.seatsPerRow = seatsPerRow;
+        this.sections = Collections.unmodifiableList(new ArrayList<>(sections));
+        rowSections = new int[numRows];
+        Arrays.fill(rowSections, -1);
+        for (int i = 0; i < this.sections.size(); i++) {
+            Section section = this.sections.get(i);
+            if (section.getLastRow() >= numRows) {
+                throw new IllegalArgumentException(String.format("Section '%s' runs past the last row", section.getName()));
+            }
+            for (int row = section.getFirstRow(); row <= section.getLastRow(); row++) {
+                if (rowSections[row] >= 0) {
+                    throw new IllegalArgumentException(String.format("Sections '%s' and '%s' overlap", this.sections.get(rowSections[row]).getName(), section.getName()));
+                }
+                rowSections[row] = i;
+            }
+        }
+    }
+
+    /**
+     * Layout with every row in one section.
+     * @param name Name of the section.
+     * @param numRows Number of rows (seat letters) in the venue.
+     * @param seatsPerRow Number of seats in each row.
+     * @return Single section layout.
+     */
+    public static SeatingLayout single(String name, int numRows, int seatsPerRow) {
+        return new SeatingLayout(numRows, seatsPerRow, Collections.singletonList(new Section(name, 0, numRows - 1)));
+    }
+
+    public int getNumRows() { return numRows; }
+
+    public int getSeatsPerRow() { return seatsPerRow; }
+
+    /**
+     * Get all sections.
+     * @return Unmodifiable list of sections, best first.
+     */
+    public List<Section> getSections() { return sections; }
+
+    public int getNumSections() { return sections.size(); }
+
+    /**
+     * Get the row of a seat.
+     * @param seatID Given seat ID.
+     * @return Row index.
+     */
+    public int getRow(int seatID) { return seatID / seatsPerRow; }
+
+    /**
+     * Get the section a row is in.
+     * @param row Row index.
+     * @return Section index, or -1 if the row is in no section.
+     */
+    public int getSection(int row) { return rowSections[row]; }
+}
@@ -0,0 +1,91 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The test class SeatingLayoutTest.
+ */
+public class SeatingLayoutTest
+{
+    Venue venue;
+    Show show;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 4, 6); // Rows A to F of 4 seats
+        venue.setScorer(SeatScorer.frontFirst());
+        venue.setLayout(new SeatingLayout(6, 4, Arrays.asList(
+                new SeatingLayout.Section("Stalls", 0, 1),
+                new SeatingLayout.Section("Balcony Left", 2, 3),
+                new SeatingLayout.Section("Balcony Right", 4, 5))));
+        venue.addShow("Test Show", System.currentTimeMillis());
+        show = venue.getShows().get(0);
+    }
+
+    @Test
+    public void testSkipsFullSections() {
+        assertEquals(8, show.getFreeSeats(1, 0, 100));
+        for (int seatID = 8; seatID < 15; seatID++) {
+            assertTrue(show.getSeat(seatID).hold()); // All but one seat of Balcony Left
+        }
+        assertEquals(1, show.getFreeSeats(1, 0, 100));
+        List<Seat> seats = show.findBestSeats(2, 0, 100, section -> section.getName().startsWith("Balcony"));
+        assertEquals(Arrays.asList("E1", "E2"), Arrays.asList(seats.get(0).getPos(), seats.get(1).getPos()));
+        show.getSeat(9).setEmpty();
+        assertEquals("C2", show.findBestSeats(2, 0, 100, section -> section.getName().startsWith("Balcony")).get(0).getPos());
+    }
+
+    @Test
+    public void testCountsFollowPriceTiers() {
+        venue.setShowPromotion(show.getID(), new Promotion("Cheap balcony", new float[]{0.5f}, new int[][]{{8, 23}}));
+        assertEquals(0, show.getFreeSeats(0, 0, 5));
+        assertEquals(8, show.getFreeSeats(2, 0, 5));
+        assertTrue(show.findBestSeats(9, 0, 5, section -> true).isEmpty()); // No single section has 9
+        assertEquals("C1", show.findBestSeats(3, 0, 5, section -> true).get(0).getPos());
+        assertThrows(IllegalArgumentException.class, () -> venue.setLayout(SeatingLayout.single("All", 4, 6)));
+    }
+
+    @Test
+    public void testCountsKeepSeatChangesMadeDuringRebuilds() throws InterruptedException {
+        Venue large = new Venue("Large Venue", 100, 100);
+        large.addShow("Large Show", System.currentTimeMillis());
+        Show largeShow = large.getShows().get(0);
+        List<Thread> shoppers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            shoppers.add(new Thread(() -> {
+                for (int i = 0; i < 200000; i++) {
+                    Seat seat = largeShow.getSeat(ThreadLocalRandom.current().nextInt(10000));
+                    if (!seat.hold()) {
+                        seat.setEmpty();
+                    }
+                }
+            }));
+        }
+        shoppers.forEach(Thread::start);
+        for (int i = 0; shoppers.stream().anyMatch(Thread::isAlive); i++) {
+            large.setShowPromotion(largeShow.getID(), new Promotion("Cheap rows", new float[]{0.5f}, new int[][]{{i % 5000, 9999}})); // Rebuilds the counts
+            large.setLayout(large.getLayout());
+        }
+        for (Thread shopper : shoppers) { shopper.join(); }
+        int empty = 0;
+        for (int seatID = 0; seatID < 10000; seatID++) {
+            empty += largeShow.getSeat(seatID).getStatus() == Seat.SeatStatus.EMPTY ? 1 : 0;
+        }
+        assertEquals(empty, largeShow.getFreeSeats(0, 0, 100));
+        assertEquals(10000 - empty, Math.round(largeShow.getTierOccupancy(0) * largeShow.getPriceColumn().getTierSize(0)
+                + largeShow.getTierOccupancy(1) * largeShow.getPriceColumn().getTierSize(1)));
+    }
+}
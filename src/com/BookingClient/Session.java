@@ -0,0 +1,396 @@
+package src.com.BookingClient;
+
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * A single user's run through the ProgramState state machine, with its own input and selection state.
+ * Sessions share the venue and user list, so several can run in parallel on different threads.
+ */
+public class Session {
+    private final VenueRegistry venues; // Venues to choose from after logging in (null if the session is fixed to one venue)
+    private Venue venue; // Venue the session books shows for
+    private Venue returnVenue; // Venue to go back to once a waitlist offer at another venue is paid for (null otherwise)
+    private final ArrayList<User> users; // Shared list of all registered users
+    private final InputSource input; // Input for this session
+    private volatile Main.ProgramState state = Main.ProgramState.START; // State machine instance initialised to 'START' state
+    private User currentUser; // Current logged in user
+    private int currentShowSelectedID = -1; // Current showID selected by user
+    private final LinkedList<Seat> currentUserSeatsSelected = new LinkedList<>(); // Current seats chosen (FIFO)
+    private AdmissionGate admissionGate; // Gate of the show the session was admitted to
+    private AdmissionGate.Ticket admission; // Admission to the selected show, held until the session leaves it
+    private Journal journal; // Journal new users are replicated through (null if not replicated)
+    private PaymentPipeline payments = PaymentPipeline.getDefault(); // Pipeline checkouts are paid through
+    private CompletableFuture<PaymentResult> payment; // Payment awaiting the gateway's answer in 'PAYMENT_PENDING' (null otherwise)
+    private final ReentrantLock stepLock = new ReentrantLock(); // Held while stepping or closing, so a sweeper never closes a session mid-step
+    private volatile boolean evicted; // Set if closed while stepping, the stepping thread then closes the session once its step ends
+
+    /**
+     * Session constructor.
+     * @param venue Venue to book shows for.
+     * @param users All registered users (shared between sessions).
+     * @param input Input source for this session.
+     */
+    public Session(Venue venue, ArrayList<User> users, InputSource input) {
+        this.venues = null;
+        this.venue = venue;
+        this.users = users;
+        this.input = input;
+    }
+
+    /**
+     * Session constructor for several venues. The user chooses a venue after logging in.
+     * @param venues Venues to choose from.
+     * @param users All registered users (shared between sessions).
+     * @param input Input source for this session.
+     */
+    public Session(VenueRegistry venues, ArrayList<User> users, InputSource input) {
+        this.venues = venues;
+        this.users = users;
+        this.input = input;
+    }
+
+    public Main.ProgramState getState() { return state; }
+
+    public User getCurrentUser() { return currentUser; }
+
+    public Venue getVenue() { return venue; }
+
+    /**
+     * Get the show selected in this session.
+     * @return Show ID, or -1 if no show is selected.
+     */
+    public int getSelectedShowID() { return currentShowSelectedID; }
+
+    /**
+     * Get the seats held by this session.
+     * @return Copy of the seats chosen, in the order chosen.
+     */
+    public List<Seat> getSelectedSeats() { return new ArrayList<>(currentUserSeatsSelected); }
+
+    /**
+     * Replicate users registered in this session through a journal (venue changes and bookings use the venue's journal).
+     * @param journal Journal to append to, or null.
+     */
+    public void setJournal(Journal journal) { this.journal = journal; }
+
+    /**
+     * Pay for checkouts through a pipeline other than the default one.
+     * @param payments Pipeline to submit payments to.
+     */
+    public void setPayments(PaymentPipeline payments) { this.payments = payments; }
+
+    /**
+     * Check if the session is waiting for the payment gateway to answer. A waiting session has nothing to do until whenReady() completes.
+     * @return True if a payment is in flight.
+     */
+    public boolean isWaiting() { return payment != null && !payment.isDone(); }
+
+    /**
+     * Get a future completed when the session can step without waiting (i.e. to resume it on another thread once its payment is answered).
+     * @return Future completed once the session is not waiting.
+     */
+    public CompletableFuture<?> whenReady() { return payment != null ? payment : CompletableFuture.completedFuture(null); }
+
+    /**
+     * Check if the session has reached the 'EXIT' state.
+     * @return True if the session has finished.
+     */
+    public boolean isFinished() { return state == Main.ProgramState.EXIT; }
+
+    /**
+     * Run the session on the current thread until it exits.
+     */
+    public void run() {
+        while (!isFinished()) {
+            whenReady().join(); // Nothing else to do on this thread while paying
+            step();
+        }
+    }
+
+    /**
+     * Release any seats held by the session (i.e. when it is abandoned part way through selection or payment) and exit it.
+     * Safe to call from another thread (i.e. a SessionStore sweeper): if the session is stepping, it is marked evicted and closed
+     * by the stepping thread once the step ends, so the caller never waits on a session blocked on its input.
+     */
+    public void close() {
+        if (stepLock.tryLock()) {
+            try {
+                closeLocked();
+            } finally {
+                stepLock.unlock();
+            }
+            return;
+        }
+        evicted = true;
+        // The step may have ended before seeing the flag, in which case nothing else will close the session
+        if (stepLock.tryLock()) {
+            try {
+                closeLocked();
+            } finally {
+                stepLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Release the seats still held for the current user and exit. Caller must hold the step lock. Closing twice does nothing more.
+     */
+    private void closeLocked() {
+        evicted = false;
+        User user = currentUser;
+        List<Seat> seats = new ArrayList<>(currentUserSeatsSelected);
+        if (payment != null) {
+            // The card may already have been charged, so keep the seats until the gateway answers and book them if it approves
+            Venue paidVenue = venue;
+            int showID = currentShowSelectedID;
+            payment.thenAccept(result -> {
+                if (!CLI.completePayment(user, paidVenue, showID, seats, result)) {
+                    seats.forEach(seat -> seat.release(user.getID()));
+                }
+            });
+            payment = null;
+        } else {
+            // Only seats still held for this user, a seat booked or held by another session since is kept
+            seats.forEach(seat -> seat.release(user.getID()));
+        }
+        currentUserSeatsSelected.clear();
+        leaveShow();
+        state = Main.ProgramState.EXIT;
+    }
+
+    /**
+     * Give back the session's admission to the selected show, letting the next queued session in.
+     */
+    private void leaveShow() {
+        if (admission != null) {
+            admissionGate.exit(admission);
+            admission = null;
+            admissionGate = null;
+        }
+    }
+
+    /**
+     * Act on the current state and move to the next one. The session's input is bound to the current thread while acting,
+     * and the time taken is recorded against the state acted on.
+     */
+    public void step() {
+        stepLock.lock();
+        Main.ProgramState actingState = state;
+        long start = System.nanoTime();
+        try {
+            CLI.setInput(input);
+            act();
+            // Leave the show once back out of selection and payment
+            if (state == Main.ProgramState.LOGGED_IN || state == Main.ProgramState.START || state == Main.ProgramState.EXIT) {
+                leaveShow();
+                if (returnVenue != null) {
+                    venue = returnVenue;
+                    returnVenue = null;
+                }
+            }
+            // Choose the venue again on the next login
+            if (state == Main.ProgramState.START && venues != null) {
+                venue = null;
+            }
+        } finally {
+            Metrics.recordState(actingState, System.nanoTime() - start);
+            stepLock.unlock();
+            // Closed by the store while stepping
+            if (evicted) {
+                System.out.println("Session expired. Exiting...");
+                close();
+            }
+        }
+    }
+
+    /**
+     * Act on the current state and move to the next one.
+     */
+    private void act() {
+        int choice; // Holds choice for each state's function return
+        // Checking state and acting accordingly
+        switch (state) {
+            case START:
+                choice = CLI.start(); // Retrieve next state choice
+                state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
+                break;
+            case REQUEST_LOGIN:
+                try {
+                    currentUser = CLI.loginChoice(users); // Attempt login and retrieve user on success
+                    state = state.nextState(0); // Next state
+                } catch (CancellationException | IllegalArgumentException e) {
+                    System.out.println("Failed login. Exiting...");
+                    state = state.previousState(); // Failed login, return to previous state
+                }
+                break;
+            case REGISTRATION:
+                try {
+                    User newUser = CLI.registration(Main.MIN_REGISTRATION_AGE); // Attempt to create new user, retrieve new user on success
+                    synchronized (users) {
+                        /* Check for duplicate user */
+                        List<String> usernames = users.stream().map(User::getUsername).collect(Collectors.toList()); // Get usernames of all users
+                        List<String> emails = users.stream().map(User::getEmail).collect(Collectors.toList()); // Get email addresses of all users
+                        if (!(usernames.contains(newUser.getUsername()) || emails.contains(newUser.getEmail()))) {
+                            users.add(newUser); // Create new user
+                            if (journal != null) {
+                                journal.append(JournalEntry.userAdded(newUser)); // Appended while holding 'users', so in the same order as the list
+                            }
+                            currentUser = newUser; // Set current user to newly registered user
+                            state = state.nextState(0); // Next state
+                        } else {
+                            System.out.println("Account creation unsuccessful. You cannot create accounts with duplicate email addresses or usernames!");
+                            state = state.previousState(); // Duplicate account creation attempt, return to previous state
+                        }
+                    }
+                } catch (CancellationException | IllegalArgumentException e) {
+                    System.out.println("Account creation unsuccessful. Exiting...");
+                    state = state.previousState(); // Unsuccessful account creation, return to previous state
+                }
+                break;
+            case LOGGED_IN:
+                // Choose the venue to book or manage shows for (once per login)
+                if (venue == null) {
+                    venue = CLI.selectVenue(venues);
+                    if (venue == null) {
+                        state = state.previousState(); // Exited venue selection, log out
+                    }
+                    break;
+                }
+                // Offer seats allocated from a waitlist before anything else
+                if (currentUser instanceof Customer && ((Customer) currentUser).hasWaitlistOffers()) {
+                    WaitlistOffer offer = CLI.waitlistOfferChoice((Customer) currentUser);
+                    if (offer != null) {
+                        returnVenue = venue;
+                        venue = offer.getVenue(); // Pay at the offer's venue until back out of payment
+                        currentShowSelectedID = offer.getShowID();
+                        currentUserSeatsSelected.addAll(offer.getSeats());
+                        state = state.nextState(4); // Pay for offered seats
+                    }
+                    break;
+                }
+                try {
+                    choice = CLI.loggedInChoice(currentUser); // Retrieve next state choice
+                    state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid input, please try again!");
+                }
+                break;
+            case SELECT_SHOW:
+                try {
+                    currentShowSelectedID = CLI.selectShow(venue, true); // Retrieve show ID from user's selection
+                } catch (ParseException | IllegalArgumentException e) {
+                    System.out.println("An error occurred when parsing user input, returning to previous state.");
+                    currentShowSelectedID = -1; // Setting selected Show ID to an invalid ID to force previous state.
+                }
+                // Wait to be admitted to the show before selecting seats
+                if (currentShowSelectedID >= 0) {
+                    try {
+                        admissionGate = venue.getShow(currentShowSelectedID).getAdmissionGate();
+                        admission = CLI.waitForAdmission(admissionGate);
+                    } catch (InterruptedException | NoSuchElementException e) {
+                        admissionGate = null;
+                        currentShowSelectedID = -1; // Left the queue or show was removed, return to previous state
+                    }
+                }
+                // Verifying that a show ID was returned
+                if (currentShowSelectedID >= 0) {
+                    choice = CLI.selectSeatingTypeChoice(); // Retrieve seating choice (Automatic or Interactive)
+                } else {
+                    choice = currentShowSelectedID; // When choice<0, it will return to the previous state
+                }
+                state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
+                break;
+            case AUTOMATIC_SELECTION:
+                // Move states depending on if seat selection was successful
+                state = CLI.seatSelection(currentUser, venue, currentShowSelectedID, currentUserSeatsSelected, true) ? state.nextState(0) : state.previousState();
+                break;
+            case INTERACTIVE_SELECTION:
+                // Move states depending on if seat selection was successful
+                state = CLI.seatSelection(currentUser, venue, currentShowSelectedID, currentUserSeatsSelected, false) ? state.nextState(0) : state.previousState();
+                break;
+            case PAYMENT:
+                // Wait for the gateway once the payment is submitted (seats are released if the show was cancelled, so there is nothing to go back to)
+                payment = CLI.paymentChoice(currentUser, venue, currentShowSelectedID, currentUserSeatsSelected, payments);
+                if (payment != null) {
+                    state = state.nextState(1);
+                } else {
+                    state = currentUserSeatsSelected.isEmpty() ? state.nextState(0) : state.previousState();
+                }
+                break;
+            case PAYMENT_PENDING:
+                // Book the seats if the payment was approved, otherwise go back to payment with the seats still held
+                PaymentResult result = payment.join(); // Already answered unless stepped while waiting
+                payment = null;
+                boolean paid = CLI.completePayment(currentUser, venue, currentShowSelectedID, currentUserSeatsSelected, result);
+                state = paid || currentUserSeatsSelected.isEmpty() ? state.nextState(0) : state.previousState();
+                break;
+            case CANCEL_SHOW:
+                CLI.cancelShowChoice(currentUser, venue); // Attempt to cancel a show
+                state = state.nextState(0); // Move to next state
+                break;
+            case MANAGE_SHOWS:
+                try {
+                    choice = CLI.manageShows(); // Retrieve next state choice
+                    state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid input, please try again!");
+                }
+                break;
+            case REMOVE_SHOW:
+                try {
+                    CLI.removeShow(venue); // Attempt to remove show
+                } catch (RuntimeException ignored) {} // Ignored because will always move to next state
+                System.out.println("Exiting...");
+                state = state.nextState(0); // Move to next state
+                break;
+            case ADD_SHOW:
+                try {
+                    venue.addShow(CLI.createShow(venue));
+                } catch (CancellationException ignored) {} // Ignored because will always move to next state
+                System.out.println("Exiting...");
+                state = state.nextState(0); // Move to next state
+                break;
+            case RESCHEDULE_SHOW:
+                try {
+                    CLI.rescheduleShow(venue);
+                } catch (RuntimeException ignored) {} // Ignored because will always move to next state
+                System.out.println("Exiting...");
+                state = state.nextState(0);// Move to next state
+                break;
+            case MANAGE_PROMOTIONS:
+                try {
+                    choice = CLI.managePromotions(); // Retrieve next state choice
+                    state = choice >= 0 ? state.nextState(choice) : state.previousState(); // Move states according to choice
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid input, please try again!");
+                }
+                break;
+            case APPLY_PROMOTION:
+                try {
+                    CLI.applyPromotion(venue); // Attempt to apply promotion
+                } catch (RuntimeException ignored) {} // Ignored because will always move to next state
+                System.out.println("Exiting...");
+                state = state.nextState(0); // Move to next state
+                break;
+            case CREATE_PROMOTION:
+                CLI.createPromotion(venue); // Attempt to create promotion
+                System.out.println("Exiting...");
+                state = state.nextState(0); // Move to next state
+                break;
+            case REMOVE_PROMOTION:
+                try {
+                    CLI.removePromotion(venue); // Attempt to remove promotion
+                } catch (RuntimeException ignored) {} // Ignored because will always move to next state
+                System.out.println("Exiting...");
+                state = state.nextState(0); // Move to next state
+                break;
+            default:
+                state = Main.ProgramState.EXIT;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package src.com.BookingClient;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Sessions of connected clients by token. Each session holds its user, selected show, and held seats, so a client that disappears
+ * part way through booking would otherwise keep its seats held for good. Sessions not used for the idle time to live are evicted
+ * and closed, which releases their held seats, and the least recently used session is evicted once the store is full, so memory
+ * and held seats stay bounded however many clients connect and disappear.
+ * Sessions are kept in order of last use, so finding the idle ones only looks at the sessions being evicted.
+ * A session evicted while a client is stepping it is closed by the client's thread once the step ends, so the sweeper never waits
+ * on a session blocked on its input and never releases seats from under a step.
+ */
+public class SessionStore {
+    public static final int DEFAULT_MAX_SESSIONS = 1 << 16;
+    public static final long DEFAULT_IDLE_TTL_MILLIS = 15 * 60 * 1000; // 15 minutes
+    private static final int TOKEN_BYTES = 16;
+
+    /**
+     * A session and when it was last used.
+     */
+    private static final class Entry {
+        final Session session;
+        long lastUsed; // Clock time (nanoseconds) of last use
+
+        Entry(Session session, long lastUsed) {
+            this.session = session;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final int maxSessions;
+    private final long ttlNanos;
+    private final LongSupplier clock; // Nanosecond clock (i.e. System::nanoTime)
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>(16, 0.75f, true); // Least recently used first, so also in order of expiry
+    private final SecureRandom random = new SecureRandom();
+    private ScheduledExecutorService sweeper; // Evicts idle sessions without waiting for the next use of the store (null if not started)
+
+    /**
+     * SessionStore constructor.
+     * @param maxSessions Maximum number of sessions kept.
+     * @param idleTtlMillis Time a session is kept without being used in milliseconds.
+     * @throws IllegalArgumentException If the maximum number of sessions or the time to live is not positive.
+     */
+    public SessionStore(int maxSessions, long idleTtlMillis) throws IllegalArgumentException {
+        this(maxSessions, idleTtlMillis, System::nanoTime);
+    }
+
+    /**
+     * SessionStore constructor with a given clock (i.e. for tests).
+     * @param maxSessions Maximum number of sessions kept.
+     * @param idleTtlMillis Time a session is kept without being used in milliseconds.
+     * @param clock Nanosecond clock.
+     * @throws IllegalArgumentException If the maximum number of sessions or the time to live is not positive.
+     */
+    SessionStore(int maxSessions, long idleTtlMillis, LongSupplier clock) throws IllegalArgumentException {
+        if (maxSessions < 1 || idleTtlMillis <= 0) {
+            throw new IllegalArgumentException("A session store needs a positive size and time to live");
+        }
+        this.maxSessions = maxSessions;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Add a session, evicting the least recently used session if the store is full.
+     * @param session Session to add.
+     * @return Token the session is found by (unguessable, so a token cannot be used to take over another client's session).
+     */
+    public String open(Session session) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        List<Session> evicted;
+        synchronized (sessions) {
+            long now = clock.getAsLong();
+            evicted = evict(now);
+            if (sessions.size() >= maxSessions) {
+                Iterator<Entry> eldest = sessions.values().iterator();
+                evicted.add(eldest.next().session);
+                eldest.remove();
+            }
+            sessions.put(token, new Entry(session, now));
+        }
+        close(evicted);
+        return token;
+    }
+
+    /**
+     * Get a session, counting this as a use of it.
+     * @param token Token of session.
+     * @return Session, or null if there is no session with this token (i.e. it was closed or evicted).
+     */
+    public Session get(String token) {
+        Entry entry;
+        List<Session> evicted;
+        synchronized (sessions) {
+            long now = clock.getAsLong();
+            evicted = evict(now);
+            entry = sessions.get(token); // Moves it to the end, as the most recently used
+            if (entry != null) {
+                entry.lastUsed = now;
+            }
+        }
+        close(evicted);
+        return entry != null ? entry.session : null;
+    }
+
+    /**
+     * Remove a session and close it, releasing any seats it holds (i.e. when its client logs out).
+     * @param token Token of session.
+     * @return True if the session was found.
+     */
+    public boolean close(String token) {
+        Entry entry;
+        synchronized (sessions) {
+            entry = sessions.remove(token);
+        }
+        if (entry == null) {
+            return false;
+        }
+        entry.session.close();
+        return true;
+    }
+
+    /**
+     * Evict and close every session not used for the time to live.
+     * @return Number of sessions evicted.
+     */
+    public int evictIdle() {
+        List<Session> evicted;
+        synchronized (sessions) {
+            evicted = evict(clock.getAsLong());
+        }
+        close(evicted);
+        return evicted.size();
+    }
+
+    public int size() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    /**
+     * Evict idle sessions in the background, so they release their seats even while no client uses the store. Does nothing if already started.
+     * @param intervalMillis Time between sweeps in milliseconds.
+     */
+    public synchronized void start(long intervalMillis) {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictIdle, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop evicting idle sessions in the background (sessions are still evicted as the store is used).
+     */
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Remove the sessions not used for the time to live. Caller must hold the lock on 'sessions'.
+     * @param now Current clock time (nanoseconds).
+     * @return Sessions removed, to be closed once the lock is released.
+     */
+    private List<Session> evict(long now) {
+        List<Session> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> eldest = sessions.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            if (now - entry.lastUsed < ttlNanos) {
+                break; // Used since, as are all sessions after it
+            }
+            evicted.add(entry.session);
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    /**
+     * Close evicted sessions, releasing their seats (sessions being stepped are closed once their step ends).
+     * @param evicted Sessions evicted.
+     */
+    private void close(List<Session> evicted) {
+        for (Session session : evicted) {
+            session.close();
+        }
+        Metrics.add(Metrics.Counter.SESSIONS_EVICTED, evicted.size());
+    }
+}
@@ -0,0 +1,165 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * The test class SessionStoreTest.
+ */
+public class SessionStoreTest
+{
+    Venue venue;
+    Show show;
+    ArrayList<User> users;
+    AtomicLong now;
+    SessionStore store;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 5, 5);
+        Calendar time = Calendar.getInstance();
+        time.add(Calendar.DATE, 7);
+        venue.addShow("Test Show", time.getTimeInMillis());
+        show = venue.getShows().get(0);
+        users = new ArrayList<>();
+        users.add(new Customer("wef","wef","wef@wef.com", "07259622506", "Wefwef25%", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB"));
+        now = new AtomicLong();
+        store = new SessionStore(2, 1000, now::get);
+    }
+
+    /**
+     * Create a session that logs in and holds seat 'A1', stopping at payment as if its client disappeared.
+     * @return Session holding a seat.
+     */
+    private Session holdingSession() {
+        return holdingSession(input -> input);
+    }
+
+    /**
+     * Create a session that logs in and holds seat 'A1', stopping at payment, reading input after that through a wrapper.
+     * @param afterHold Wraps the session's input once the seat is held.
+     * @return Session holding a seat.
+     */
+    private Session holdingSession(UnaryOperator<InputSource> afterHold) {
+        SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy");
+        Calendar to = Calendar.getInstance();
+        to.add(Calendar.MONTH, 1);
+        String dateRange = String.format("%s-%s", df.format(Calendar.getInstance().getTime()), df.format(to.getTime()));
+        String script = String.join("\n", "l", "wef", "Wefwef25%", "b", dateRange, "1", "i", "1", "A1", "a");
+        ScannerInput input = new ScannerInput(script);
+        AtomicBoolean held = new AtomicBoolean();
+        InputSource wrapped = afterHold.apply(input);
+        Session session = new Session(venue, users, new InputSource() {
+            public String nextLine() { return (held.get() ? wrapped : input).nextLine(); }
+            public boolean hasNextInt() { return (held.get() ? wrapped : input).hasNextInt(); }
+            public boolean hasNextFloat() { return (held.get() ? wrapped : input).hasNextFloat(); }
+            public float nextFloat() { return (held.get() ? wrapped : input).nextFloat(); }
+        });
+        while (session.getState() != Main.ProgramState.PAYMENT) {
+            session.step();
+        }
+        held.set(true);
+        return session;
+    }
+
+    @Test
+    public void testIdleSessionReleasesSeats() {
+        Session session = holdingSession();
+        assertEquals(show.getID(), session.getSelectedShowID());
+        assertEquals(Seat.SeatStatus.HELD, show.getSeat("A1").getStatus());
+        String token = store.open(session);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertSame(session, store.get(token)); // Used, so kept for another second
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertEquals(0, store.evictIdle());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        assertEquals(1, store.evictIdle());
+        assertNull(store.get(token));
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat("A1").getStatus());
+        assertTrue(session.getSelectedSeats().isEmpty());
+    }
+
+    @Test
+    public void testEvictionKeepsSeatsBookedSince() {
+        Session session = holdingSession();
+        Seat seat = show.getSeat("A1");
+        seat.setEmpty(); // Freed and booked by another session since
+        assertTrue(seat.hold(-2));
+        assertTrue(seat.book(-2));
+        store.open(session);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, store.evictIdle());
+        assertEquals(Seat.SeatStatus.BOOKED, seat.getStatus());
+        assertTrue(session.isFinished());
+    }
+
+    @Test
+    public void testSessionEvictedWhileSteppingClosesAfterStep() throws InterruptedException {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        Session session = holdingSession(input -> new InputSource() {
+            public String nextLine() {
+                // Client goes quiet once asked for payment details
+                reading.countDown();
+                try {
+                    answer.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return input.nextLine();
+            }
+            public boolean hasNextInt() { return input.hasNextInt(); }
+            public boolean hasNextFloat() { return input.hasNextFloat(); }
+            public float nextFloat() { return input.nextFloat(); }
+        });
+        store.open(session);
+        Thread client = new Thread(() -> {
+            try {
+                session.step();
+            } catch (RuntimeException ignored) {} // Script runs out
+        });
+        client.start();
+        reading.await();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, store.evictIdle()); // Returns without waiting for the step
+        assertEquals(Seat.SeatStatus.HELD, show.getSeat("A1").getStatus());
+        answer.countDown();
+        client.join();
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat("A1").getStatus());
+        assertTrue(session.getSelectedSeats().isEmpty());
+        assertTrue(session.isFinished());
+    }
+
+    @Test
+    public void testFullStoreEvictsLeastRecentlyUsed() {
+        Session holding = holdingSession();
+        String first = store.open(holding);
+        String second = store.open(new Session(venue, users, new ScannerInput("")));
+        assertNotEquals(first, second);
+        store.get(second);
+        store.get(first); // 'second' is now the least recently used
+        String third = store.open(new Session(venue, users, new ScannerInput("")));
+        assertEquals(2, store.size());
+        assertNull(store.get(second));
+        assertNotNull(store.get(third));
+        assertTrue(store.close(first));
+        assertFalse(store.close(first));
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat("A1").getStatus());
+    }
+}
@@ -1,36 +1,163 @@
 package src.com.BookingClient;
 
-import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
 
 public class Show {
-    private String name;
+    private volatile String name;
     private final int showID;
-    private static int showCount;
+    private static final AtomicInteger showCount = new AtomicInteger(); // Next show ID (shows may be created concurrently)
     private int minAge;
-    private Calendar time;
-    private final Seat[] seats;
+    private volatile long time; // Epoch milliseconds
+    private final int numSeats;
+    private final SeatStore seatStore; // Status, tier, and holder of each seat (off-heap)
+    private final AtomicReferenceArray<Seat> seats; // Seat objects, created the first time each seat is looked up
+    private final int numRows;
+    private final String[] rowNames; // Letter names of each column of seats (i.e. 'A', 'B')
+    /* Seat map snapshots (status column written by seat changes, copied into snapshots for browsing) */
+    private static final long DEFAULT_SEAT_MAP_INTERVAL = 25_000_000; // Nanoseconds
+    private final AtomicLong seatChanges = new AtomicLong(); // Incremented after each status change in 'seatStore'
+    private final AtomicInteger seatChangesInProgress = new AtomicInteger(); // Seat changes between writing 'seatStore' and updating the counts
+    private volatile boolean recounting; // Set while the counts are rebuilt from 'seatStore', holding back seat changes
+    private volatile SeatMapSnapshot seatMap; // Latest snapshot
+    private final AtomicBoolean rebuildingSeatMap = new AtomicBoolean(); // Set while one reader rebuilds the snapshot
+    private volatile long seatMapInterval = DEFAULT_SEAT_MAP_INTERVAL; // Least time between snapshots (nanoseconds)
     private static final Promotion defaultPromotion = new Promotion("Default", new float[]{1f}, new int[][]{{0,Integer.MAX_VALUE}});
     private Promotion promotion = defaultPromotion;
     private float defaultSeatPrice = 10.0f;
     private int maxSeatsPerUser = 50;
+    private volatile Venue venue; // Venue the show belongs to (null if not in a venue)
+    private VenueEventBus events; // Bus of the venue the show belongs to (null if not in a venue)
+    private volatile Journal journal; // Journal of the venue the show belongs to (null if not replicated)
+    private volatile ShowSearchIndex searchIndex; // Name index of the venue the show belongs to (null if not in a venue)
+    private final AtomicLong version = new AtomicLong(); // Odd while the price or time is changing, bumped to even once changed
+    private volatile boolean cancelled; // Set when the show is removed from its venue
+    private final Waitlist waitlist = new Waitlist(this); // Customers waiting for seats to free up
+    private final AdmissionGate admissionGate = new AdmissionGate(); // Limits concurrent shoppers (unlimited by default)
+    /* Price tiers (tier 0 = seats outside the promotion, tier i+1 = the promotion's seat range i) */
+    private final Object pricingLock = new Object(); // Guards changes to the tier prices and time
+    private final PriceColumn prices; // Price of each seat in pence
+    private volatile int[] tierBasePrices; // Default seat price with the promotion applied (pence)
+    private volatile AtomicIntegerArray tierTaken; // Number of held or booked seats in each tier
+    private volatile SeatingLayout layout; // Sections and rows of the venue
+    private volatile FreeCounts freeCounts; // Empty seats of each tier in each row and section of 'layout'
+    private volatile RankedSeats rankedSeats; // Seats best first, with the taken ones marked
+    private volatile DynamicPricing dynamicPricing; // Demand based pricing (null for static prices)
+
+    /**
+     * Number of empty seats of each price tier in each row and section, so searches skip full rows and sections without reading their seats.
+     * Rebuilt when the tiers or layout change (holding back seat changes meanwhile), and kept up to date by seat changes in between.
+     */
+    private static final class FreeCounts {
+        final SeatingLayout layout;
+        final int numTiers;
+        final AtomicIntegerArray rows; // Indexed by row * numTiers + tier
+        final AtomicIntegerArray sections; // Indexed by section * numTiers + tier
+
+        FreeCounts(SeatingLayout layout, int numTiers, int[] rows, int[] sections) {
+            this.layout = layout;
+            this.numTiers = numTiers;
+            this.rows = new AtomicIntegerArray(rows);
+            this.sections = new AtomicIntegerArray(sections);
+        }
+
+        void add(int seatID, int tier, int delta) {
+            int row = layout.getRow(seatID);
+            rows.addAndGet(row*numTiers + tier, delta);
+            int section = layout.getSection(row);
+            if (section >= 0) {
+                sections.addAndGet(section*numTiers + tier, delta);
+            }
+        }
+
+        /**
+         * Sum the free seats of some tiers in one row or section.
+         * @param counts 'rows' or 'sections'.
+         * @param index Row or section index.
+         * @param tiers Tiers to include.
+         * @return Number of free seats.
+         */
+        int free(AtomicIntegerArray counts, int index, boolean[] tiers) {
+            int total = 0;
+            for (int tier = 0; tier < numTiers && tier < tiers.length; tier++) {
+                if (tiers[tier]) {
+                    total += counts.get(index*numTiers + tier);
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * The venue's seat ranking with a bitmap of the taken seats in ranked order (bit i of word i/64 set if the seat ranked i is held or booked).
+     * The bits are rechecked against the seat store before a seat is offered.
+     */
+    private static final class RankedSeats {
+        final SeatRanking ranking;
+        final AtomicLongArray taken;
+
+        RankedSeats(SeatRanking ranking, SeatStore store) {
+            this.ranking = ranking;
+            long[] bits = new long[(ranking.getNumSeats() + 63) / 64];
+            for (int seatID = 0; seatID < ranking.getNumSeats(); seatID++) {
+                if (store.getStatus(seatID) != Seat.SeatStatus.EMPTY.ordinal()) {
+                    int rank = ranking.getRank(seatID);
+                    bits[rank >>> 6] |= 1L << rank;
+                }
+            }
+            taken = new AtomicLongArray(bits);
+        }
+
+        void setTaken(int seatID, boolean isTaken) {
+            int rank = ranking.getRank(seatID);
+            long bit = 1L << rank; // Shifts use the low 6 bits of 'rank'
+            taken.accumulateAndGet(rank >>> 6, bit, isTaken ? (word, b) -> word | b : (word, b) -> word & ~b);
+        }
+
+        boolean isTaken(int seatID) {
+            int rank = ranking.getRank(seatID);
+            return (taken.get(rank >>> 6) & (1L << rank)) != 0;
+        }
+    }
 
     /**
      * Show constructor.
      * @param name Name of show.
-     * @param time Time show will take place.
+     * @param time Time show will take place (epoch milliseconds).
      * @param numRows Number of rows of seats in the venue where the show is taking place.
      * @param numCols Number of columns of seats in the venue where the show is taking place.
+     * @throws IllegalArgumentException If the venue has more than SeatStore.MAX_SEATS seats.
      */
-    public Show(String name, Calendar time, int numRows, int numCols) {
+    public Show(String name, long time, int numRows, int numCols) {
+        this(showCount.getAndIncrement(), name, time, numRows, numCols);
+    }
+
+    /**
+     * Show constructor with a given ID (used when replaying a replication journal). Later shows are numbered after it.
+     * @param showID ID of show.
+     * @param name Name of show.
+     * @param time Time show will take place (epoch milliseconds).
+     * @param numRows Number of rows of seats in the venue where the show is taking place.
+     * @param numCols Number of columns of seats in the venue where the show is taking place.
+     * @throws IllegalArgumentException If the venue has more than SeatStore.MAX_SEATS seats.
+     */
+    Show(int showID, String name, long time, int numRows, int numCols) {
         /* Initializing Variables */
         this.name = name;
         this.time = time;
-        showID = showCount;
-        showCount += 1;
+        this.showID = showID;
+        showCount.accumulateAndGet(showID + 1, Math::max);
         /* Creating and initializing array with letter names of each row */
-        String[] rowNames = new String[numCols];
+        this.numRows = numRows;
+        rowNames = new String[numCols];
         for (int i = 1; i <= numCols; i++) {
             int input = i;
             StringBuilder output = new StringBuilder();
@@ -42,20 +169,33 @@ public class Show {
             }
             rowNames[i-1] = output.toString();
         }
-        /* Initializing all the seats */
-        seats = new Seat[numRows*numCols];
-        for (int i = 0; i < numCols; i++) {
-            for (int j = 0; j < numRows; j++) {
-                int count = i*numRows + j;
-                String seatName = String.format("%s%s", rowNames[i], j+1);
-                seats[count] = new Seat(count, seatName, defaultSeatPrice);
-            }
+        /* Initializing all the seats (all empty, numbered down each column, i.e. A1, A2, ..., B1) */
+        if ((long) numRows*numCols > SeatStore.MAX_SEATS) {
+            throw new IllegalArgumentException(String.format("A show can have at most %d seats", SeatStore.MAX_SEATS));
         }
+        numSeats = numRows*numCols;
+        seatStore = new SeatStore(numSeats);
+        seats = new AtomicReferenceArray<>(numSeats);
+        prices = new PriceColumn(numSeats);
+        layout = SeatingLayout.single("All seats", numCols, numRows);
+        rankedSeats = new RankedSeats(SeatRanking.frontFirst(layout), seatStore);
+        calculateSeatPrices();
+        seatMap = new SeatMapSnapshot(showID, 0, numRows, rowNames, new byte[numSeats]);
     }
 
     public String getName() { return name; }
 
-    public void setName(String name) { this.name = name; }
+    /**
+     * Rename the show, re-indexing it in its venue's search index.
+     * @param name New name of show.
+     */
+    public synchronized void setName(String name) {
+        this.name = name;
+        ShowSearchIndex index = searchIndex;
+        if (index != null) {
+            index.rename(showID, name);
+        }
+    }
 
     public int getID() { return showID; }
 
@@ -63,9 +203,190 @@ public class Show {
 
     public void setMinAge(int age) { this.minAge = age; }
 
-    public Calendar getTime() { return time; }
+    /**
+     * Get the time of the show.
+     * @return Time show will take place (epoch milliseconds).
+     */
+    public long getTime() { return time; }
+
+    /**
+     * Set the time of the show (bumping its version, see getVersion()).
+     * @param time New time of show (epoch milliseconds).
+     */
+    public void setTime(long time) {
+        synchronized (pricingLock) {
+            version.incrementAndGet();
+            this.time = time;
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the version of the show's prices and time. Quotes record the version they were made at, and are only valid while it is unchanged.
+     * The version is odd while a change is being made.
+     * @return Current version.
+     */
+    public long getVersion() { return version.get(); }
+
+    /**
+     * Get the version of the show once no price or time change is in progress (see getVersion()).
+     * @return Current (even) version.
+     */
+    public long getStableVersion() {
+        long current;
+        while (((current = version.get()) & 1) != 0) {
+            Thread.onSpinWait(); // A change is being made under the pricing lock, which is brief
+        }
+        return current;
+    }
+
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * Mark the show as cancelled (called by Venue), invalidating any quotes for it.
+     */
+    void markCancelled() {
+        cancelled = true;
+        version.addAndGet(2);
+    }
+
+    /**
+     * Set the event bus that seat status transitions and price recalculations are published to.
+     * @param events Event bus of the venue the show belongs to.
+     */
+    void setEventBus(VenueEventBus events) { this.events = events; }
+
+    /**
+     * Get the venue the show was added to.
+     * @return Venue, or null if the show is not in a venue.
+     */
+    public Venue getVenue() { return venue; }
+
+    /**
+     * Set the venue the show belongs to (called by Venue).
+     * @param venue Venue the show was added to.
+     */
+    void setVenue(Venue venue) { this.venue = venue; }
+
+    public Waitlist getWaitlist() { return waitlist; }
+
+    public AdmissionGate getAdmissionGate() { return admissionGate; }
+
+    /**
+     * Called by a seat of this show after it returns to empty, to queue its allocation to the waitlist.
+     */
+    void seatFreed() {
+        waitlist.seatsFreed();
+    }
+
+    /**
+     * Set the journal that seat changes are replicated through (called by Venue).
+     * @param journal Venue's journal, or null to stop replicating.
+     */
+    void setJournal(Journal journal) { this.journal = journal; }
+
+    /**
+     * Set the search index the show's name is kept in (called by Venue).
+     * @param searchIndex Venue's search index, or null once removed from the venue.
+     */
+    void setSearchIndex(ShowSearchIndex searchIndex) { this.searchIndex = searchIndex; }
+
+    /**
+     * Change the status of a seat of this show (called by the seat, holding its lock), updating the taken and free seat counts with it,
+     * then publish and journal the transition and reprice the seat's tier. The store and counts change together, so a rebuild of the
+     * counts (see beginRecount()) never loses or double counts a change.
+     * @param seat Seat to change.
+     * @param oldStatus Status before the change.
+     * @param newStatus Status to change to.
+     * @param holder User holding or booking the seat, or SeatStore.NO_HOLDER.
+     */
+    void setSeatStatus(Seat seat, Seat.SeatStatus oldStatus, Seat.SeatStatus newStatus, int holder) {
+        int seatID = seat.getID();
+        int tier;
+        int delta = oldStatus == Seat.SeatStatus.EMPTY ? 1 : (newStatus == Seat.SeatStatus.EMPTY ? -1 : 0); // Change in taken seats
+        enterSeatChange();
+        try {
+            seatStore.setStatus(seatID, newStatus.ordinal(), holder);
+            if (oldStatus == newStatus) { return; }
+            seatChanges.incrementAndGet(); // Tells snapshot builders the seat store has changed
+            rankedSeats.setTaken(seatID, newStatus != Seat.SeatStatus.EMPTY);
+            tier = seatStore.getTier(seatID);
+            if (delta != 0) {
+                tierTaken.addAndGet(tier, delta);
+                freeCounts.add(seatID, tier, -delta);
+            }
+        } finally {
+            seatChangesInProgress.decrementAndGet();
+        }
+        if (events != null) {
+            events.publishSeatStatus(showID, seatID, oldStatus, newStatus);
+        }
+        Journal showJournal = journal;
+        if (showJournal != null) {
+            showJournal.append(JournalEntry.seatStatus(showID, seatID, newStatus));
+        }
+        if (delta != 0 && dynamicPricing != null) {
+            repriceTier(tier); // Reprice the tier if its occupancy crossed a threshold
+        }
+    }
+
+    /**
+     * Start a seat change, first waiting for any rebuild of the counts to finish.
+     */
+    private void enterSeatChange() {
+        while (true) {
+            seatChangesInProgress.incrementAndGet();
+            if (!recounting) { return; }
+            seatChangesInProgress.decrementAndGet(); // Let the rebuild go ahead
+            while (recounting) {
+                Thread.onSpinWait(); // A rebuild only reads the seat store, which is brief
+            }
+        }
+    }
+
+    /**
+     * Hold back seat changes and wait for those in progress, so the counts can be rebuilt from the seat store.
+     * Caller must hold the pricing lock, and must call endRecount() once the new counts are in place.
+     */
+    private void beginRecount() {
+        recounting = true;
+        while (seatChangesInProgress.get() != 0) {
+            Thread.onSpinWait(); // Seat changes in progress only update counters
+        }
+    }
+
+    /**
+     * Let seat changes carry on after a rebuild of the counts.
+     */
+    private void endRecount() { recounting = false; }
+
+    /**
+     * Get a recent snapshot of the show's seat map for browsing. Never blocks: if the seats have changed and the snapshot is older than
+     * the seat map interval, one caller copies the seat statuses into a new snapshot while the others keep using the current one.
+     * @return Latest seat map snapshot.
+     */
+    public SeatMapSnapshot getSeatMap() {
+        SeatMapSnapshot current = seatMap;
+        if (current.getVersion() != seatChanges.get() && System.nanoTime() - current.getBuiltAt() >= seatMapInterval
+                && rebuildingSeatMap.compareAndSet(false, true)) {
+            try {
+                long version = seatChanges.get(); // Read before copying, so the copy includes at least these changes
+                byte[] statuses = new byte[numSeats];
+                seatStore.copyStatuses(statuses);
+                current = new SeatMapSnapshot(showID, version, numRows, rowNames, statuses);
+                seatMap = current;
+            } finally {
+                rebuildingSeatMap.set(false);
+            }
+        }
+        return current;
+    }
 
-    public void setTime(Calendar time) { this.time = time; }
+    /**
+     * Set how often the seat map snapshot may be rebuilt. Lower intervals show seat changes sooner, at the cost of more copying.
+     * @param millis Least time between snapshots (milliseconds, 0 to rebuild whenever the seats have changed).
+     */
+    public void setSeatMapInterval(long millis) { seatMapInterval = millis * 1_000_000; }
 
     public float getDefaultSeatPrice() { return defaultSeatPrice; }
 
@@ -84,6 +405,12 @@ public class Show {
 
     public Promotion getPromotion() { return promotion; }
 
+    /**
+     * Check if a promotion (other than the default) is applied to the show.
+     * @return True if the show has a promotion.
+     */
+    public boolean hasPromotion() { return promotion != defaultPromotion; }
+
     /**
      * Adds promotion to show.
      * @param promotion Promotion to add to show.
@@ -93,11 +420,103 @@ public class Show {
         calculateSeatPrices(); // Recalculate seat prices.
     }
 
+    public DynamicPricing getDynamicPricing() { return dynamicPricing; }
+
+    /**
+     * Price tiers by demand, or go back to static prices.
+     * @param dynamicPricing Pricing curves to apply, or null for static prices.
+     */
+    public void setDynamicPricing(DynamicPricing dynamicPricing) {
+        this.dynamicPricing = dynamicPricing;
+        calculateSeatPrices(); // Recalculate seat prices.
+    }
+
+    /**
+     * Get the price column of the show's seats.
+     * @return Seat prices in pence.
+     */
+    public PriceColumn getPriceColumn() { return prices; }
+
+    /**
+     * Get the number of price tiers (seats outside the promotion, then one per promotion seat range).
+     * @return Number of price tiers.
+     */
+    public int getNumTiers() { return prices.getNumTiers(); }
+
+    /**
+     * Get the current price of a tier.
+     * @param tier Tier index.
+     * @return Price of seats in the tier.
+     */
+    public float getTierPrice(int tier) { return prices.getTierPrice(tier) / 100f; }
+
+    /**
+     * Get the fraction of a tier's seats that are held or booked.
+     * @param tier Tier index.
+     * @return Occupancy between 0 and 1.
+     */
+    public double getTierOccupancy(int tier) {
+        int size = prices.getTierSize(tier);
+        return size == 0 ? 0 : (double) tierTaken.get(tier) / size;
+    }
+
+    /**
+     * Re-evaluate every tier against the time until the show. Only tiers whose price changes are updated.
+     */
+    public void refreshPrices() {
+        if (dynamicPricing == null) { return; }
+        for (int tier = 0; tier < getNumTiers(); tier++) {
+            repriceTier(tier);
+        }
+    }
+
+    /**
+     * Recompute a single tier's price from its occupancy and the time until the show, publishing it if it changed.
+     * The price is first computed without the pricing lock, and the lock is only taken if the tier has crossed a threshold,
+     * so most seat changes never take it.
+     * @param tier Tier index.
+     */
+    private void repriceTier(int tier) {
+        DynamicPricing pricing = dynamicPricing;
+        if (pricing == null) { return; }
+        int price = tierPrice(pricing, tier);
+        if (price < 0 || price == prices.getTierPrice(tier)) { return; } // Still in the same step
+        boolean changed = false;
+        synchronized (pricingLock) {
+            price = tierPrice(pricing, tier); // Again, as other seat changes may have repriced it since
+            if (price >= 0 && price != prices.getTierPrice(tier)) {
+                version.incrementAndGet();
+                changed = prices.setTierPrice(tier, price);
+                version.incrementAndGet();
+            }
+        }
+        if (changed && events != null) {
+            events.publishPricesRecalculated(showID);
+        }
+    }
+
+    /**
+     * Compute a tier's price from its base price, occupancy, and the time until the show.
+     * @param pricing Dynamic pricing to apply.
+     * @param tier Tier index.
+     * @return Price in pence, or -1 if the tier no longer exists (the tiers were recalculated).
+     */
+    private int tierPrice(DynamicPricing pricing, int tier) {
+        int[] basePrices = tierBasePrices;
+        if (tier >= basePrices.length || tier >= prices.getNumTiers()) { return -1; }
+        return Math.round(basePrices[tier] * pricing.multiplier(getTierOccupancy(tier), hoursToShow()));
+    }
+
+    private double hoursToShow() {
+        return (time - System.currentTimeMillis()) / 3_600_000.0;
+    }
+
     /**
      * Remove promotion from show.
      */
     public void removePromotion() {
         this.promotion = defaultPromotion;
+        calculateSeatPrices(); // Recalculate seat prices.
     }
 
     /**
@@ -107,53 +526,295 @@ public class Show {
      * @throws NoSuchElementException If seat not found.
      */
     public Seat getSeat(int seatID) throws NoSuchElementException {
-        for (Seat seat : seats) {
-            if (seat.getID() == seatID) {
-                return seat;
-            }
+        if (seatID < 0 || seatID >= numSeats) {
+            throw new NoSuchElementException("The 'seatID' requested does not exist");
         }
-        throw new NoSuchElementException("The 'seatID' requested does not exist");
+        Seat seat = seats.get(seatID);
+        if (seat == null) {
+            // Only one Seat may exist per seat, as its lock guards the seat's status
+            seats.compareAndSet(seatID, null, new Seat(this, seatID, seatStore));
+            seat = seats.get(seatID);
+        }
+        return seat;
     }
 
     /**
      * Get seat using given seat name.
-     * @param seatName Given seat name.
+     * @param seatName Given seat name (column letters then row number, i.e. 'B3').
      * @return Seat, if found.
      * @throws NoSuchElementException If seat not found.
      */
     public Seat getSeat(String seatName) throws NoSuchElementException {
-        for (Seat seat : seats) {
-            if (seatName.equals(seat.getPos())) {
-                return seat;
+        /* Column letters are bijective base 26 (A = 1, Z = 26, AA = 27) */
+        int i = 0;
+        long col = 0;
+        while (i < seatName.length() && seatName.charAt(i) >= 'A' && seatName.charAt(i) <= 'Z' && col <= rowNames.length) {
+            col = col*26 + (seatName.charAt(i) - 'A' + 1);
+            i++;
+        }
+        long row = 0;
+        int digits = i;
+        while (i < seatName.length() && seatName.charAt(i) >= '0' && seatName.charAt(i) <= '9' && row <= numRows) {
+            row = row*10 + (seatName.charAt(i) - '0');
+            i++;
+        }
+        if (i != seatName.length() || digits == 0 || i == digits || seatName.charAt(digits) == '0'
+                || col < 1 || col > rowNames.length || row < 1 || row > numRows) {
+            throw new NoSuchElementException("The 'seatID' requested does not exist");
+        }
+        return getSeat((int) ((col-1)*numRows + (row-1)));
+    }
+
+    /**
+     * Get the name of a seat without creating its Seat.
+     * @param seatID Given seat ID.
+     * @return Seat name (i.e. 'B3').
+     */
+    public String getSeatName(int seatID) { return rowNames[seatID / numRows] + (seatID % numRows + 1); }
+
+    /**
+     * Get the status of a seat without creating its Seat.
+     * @param seatID Given seat ID.
+     * @return Status of seat.
+     */
+    public Seat.SeatStatus getSeatStatus(int seatID) { return Seat.STATUSES[seatStore.getStatus(seatID)]; }
+
+    public int getNumSeats() { return numSeats; }
+
+    /**
+     * Finds the best empty seats in a price range, in the order of the venue's seat ranking (see Venue.setScorer()).
+     * Taken seats and seats outside the price range are skipped 64 at a time using the taken bitmap and a price range mask.
+     * The seats returned are not held.
+     * @param numSeats Number of seats to find.
+     * @param minPrice Minimum price (inclusive).
+     * @param maxPrice Maximum price (inclusive).
+     * @return The best seats, or an empty list if there are not enough seats in the price range.
+     */
+    public List<Seat> findBestSeats(int numSeats, float minPrice, float maxPrice) {
+        ArrayList<Seat> bestSeats = new ArrayList<>();
+        int minPence = PriceColumn.toPence(minPrice);
+        int maxPence = PriceColumn.toPence(maxPrice);
+        RankedSeats ranked = rankedSeats;
+        int[] order = ranked.ranking.getOrder();
+        for (int word = 0; word < ranked.taken.length() && bestSeats.size() < numSeats; word++) {
+            long free = ~ranked.taken.get(word) & prices.rangeMask(order, word*64, minPence, maxPence); // Bits past the last seat are clear
+            while (free != 0 && bestSeats.size() < numSeats) {
+                addIfAvailable(order[word*64 + Long.numberOfTrailingZeros(free)], bestSeats);
+                free &= free - 1; // Clear lowest set bit
             }
         }
-        throw new NoSuchElementException("The 'seatID' requested does not exist");
+        if (bestSeats.size() < numSeats) {
+            bestSeats.clear(); // Not enough seats filled the criteria
+        }
+        return bestSeats;
     }
 
     /**
-     * Get all seats in show.
-     * @return All seats in show.
+     * Finds the best empty seats in a price range all within one section, trying sections best first (see SeatingLayout),
+     * and seats within the section in ranked order. Sections without enough empty seats in the price range are skipped by their
+     * free counts, without reading their seats. The seats returned are not held.
+     * @param numSeats Number of seats to find.
+     * @param minPrice Minimum price (inclusive).
+     * @param maxPrice Maximum price (inclusive).
+     * @param sections Sections to search (i.e. section -> section.getName().startsWith("Balcony")).
+     * @return The best seats, or an empty list if no matching section has enough seats in the price range.
+     */
+    public List<Seat> findBestSeats(int numSeats, float minPrice, float maxPrice, Predicate<SeatingLayout.Section> sections) {
+        ArrayList<Seat> bestSeats = new ArrayList<>();
+        int minPence = PriceColumn.toPence(minPrice);
+        int maxPence = PriceColumn.toPence(maxPrice);
+        FreeCounts counts = freeCounts;
+        RankedSeats ranked = rankedSeats;
+        while (ranked.ranking.getLayout() != counts.layout) { // Layout being changed, wait for the counts and ranking to match
+            Thread.onSpinWait();
+            counts = freeCounts;
+            ranked = rankedSeats;
+        }
+        boolean[] tiers = tiersInRange(minPence, maxPence);
+        List<SeatingLayout.Section> all = counts.layout.getSections();
+        for (int i = 0; i < all.size(); i++) {
+            if (!sections.test(all.get(i)) || counts.free(counts.sections, i, tiers) < numSeats) {
+                continue; // Skipped in O(tiers)
+            }
+            int[] order = ranked.ranking.getSectionOrder(i);
+            for (int from = 0; from < order.length; from += 64) {
+                long inRange = prices.rangeMask(order, from, minPence, maxPence);
+                while (inRange != 0) {
+                    int seatID = order[from + Long.numberOfTrailingZeros(inRange)];
+                    inRange &= inRange - 1; // Clear lowest set bit
+                    if (!ranked.isTaken(seatID)) {
+                        addIfAvailable(seatID, bestSeats);
+                        if (bestSeats.size() >= numSeats) {
+                            return bestSeats;
+                        }
+                    }
+                }
+            }
+            bestSeats.clear(); // Taken since counted, try the next section
+        }
+        return bestSeats;
+    }
+
+    /**
+     * Count the empty seats of a section in a price range.
+     * @param section Index of section in the layout.
+     * @param minPrice Minimum price (inclusive).
+     * @param maxPrice Maximum price (inclusive).
+     * @return Number of empty seats.
+     */
+    public int getFreeSeats(int section, float minPrice, float maxPrice) {
+        FreeCounts counts = freeCounts;
+        return counts.free(counts.sections, section, tiersInRange(PriceColumn.toPence(minPrice), PriceColumn.toPence(maxPrice)));
+    }
+
+    /**
+     * Find the price tiers within a price range.
+     * @param minPence Minimum price in pence (inclusive).
+     * @param maxPence Maximum price in pence (inclusive).
+     * @return Whether each tier's price is within the range.
+     */
+    private boolean[] tiersInRange(int minPence, int maxPence) {
+        boolean[] tiers = new boolean[prices.getNumTiers()];
+        for (int tier = 0; tier < tiers.length; tier++) {
+            int price = prices.getTierPrice(tier);
+            tiers[tier] = price >= minPence && price <= maxPence;
+        }
+        return tiers;
+    }
+
+    /**
+     * Add a seat to a list if it is empty (its price is already checked with PriceColumn.rangeMask()).
+     * @param seatID Given seat ID.
+     * @param bestSeats List to add to.
+     */
+    private void addIfAvailable(int seatID, List<Seat> bestSeats) {
+        if (seatStore.getStatus(seatID) == Seat.SeatStatus.EMPTY.ordinal()) {
+            bestSeats.add(getSeat(seatID));
+        }
+    }
+
+    /**
+     * Get the sections and rows of the show's venue.
+     * @return Seating layout (a single section of all seats if the venue has none).
+     */
+    public SeatingLayout getLayout() { return layout; }
+
+    /**
+     * Set the sections and rows of the show's venue and the order its seats are offered in (called by Venue), recounting the free seats of each section.
+     * @param ranking Seat ranking of the venue (see SeatRanking.getLayout() for its layout).
+     * @throws IllegalArgumentException If the layout does not have the show's number of rows and seats per row.
+     */
+    void setLayout(SeatRanking ranking) throws IllegalArgumentException {
+        SeatingLayout layout = ranking.getLayout();
+        if (layout.getNumRows() != rowNames.length || layout.getSeatsPerRow() != numRows) {
+            throw new IllegalArgumentException("The layout does not match the show's seats");
+        }
+        synchronized (pricingLock) {
+            beginRecount();
+            try {
+                this.layout = layout;
+                rankedSeats = new RankedSeats(ranking, seatStore);
+                freeCounts = countFree(layout, prices.getNumTiers());
+            } finally {
+                endRecount();
+            }
+        }
+    }
+
+    /**
+     * Count the empty seats of each tier in each row and section. Caller must hold the pricing lock, with seat changes held back (see beginRecount()).
+     * @param layout Layout to count by.
+     * @param numTiers Number of price tiers.
+     * @return Free counts.
+     */
+    private FreeCounts countFree(SeatingLayout layout, int numTiers) {
+        int[] rows = new int[layout.getNumRows()*numTiers];
+        int[] sections = new int[layout.getNumSections()*numTiers];
+        for (int seatID = 0; seatID < numSeats; seatID++) {
+            if (seatStore.getStatus(seatID) == Seat.SeatStatus.EMPTY.ordinal()) {
+                int tier = seatStore.getTier(seatID);
+                int row = layout.getRow(seatID);
+                rows[row*numTiers + tier] += 1;
+                int section = layout.getSection(row);
+                if (section >= 0) {
+                    sections[section*numTiers + tier] += 1;
+                }
+            }
+        }
+        return new FreeCounts(layout, numTiers, rows, sections);
+    }
+
+    /**
+     * Get all seats in show, creating any Seat not yet looked up (prefer getSeat() or getSeatStatus() for large venues).
+     * @return All seats in show, in seat ID order.
      */
     public Seat[] getSeats() {
-        return seats;
+        Seat[] all = new Seat[numSeats];
+        for (int seatID = 0; seatID < numSeats; seatID++) {
+            all[seatID] = getSeat(seatID);
+        }
+        return all;
     }
 
     /**
-     * Calculates and sets the seat prices according to the promotion applied and default seat price.
+     * Calculates the seat price tiers according to the promotion applied, default seat price, and dynamic pricing (if any).
+     * Each seat in a promotion seat range is put in that range's tier, and every other seat in tier 0.
+     * @throws IllegalArgumentException If the promotion has more seat ranges than there can be tiers.
      */
     private void calculateSeatPrices() {
-        /* Set all seats to default price */
-        for (Seat seat : seats) {
-            seat.setPrice(defaultSeatPrice);
-        }
-        /* Set prices for seats in promotion */
-        List<int[]> seatRanges = promotion.getFullSeatRanges();
-        float[] priceModifiers = promotion.getPriceModifiers();
-        for (int i = 0; i < seatRanges.size(); i++) {
-            int[] range = seatRanges.get(i);
-            for (int j = 0; j < range.length && j < seats.length; j++) {
-                seats[j].setPrice(defaultSeatPrice*priceModifiers[i]);
+        synchronized (pricingLock) {
+            int[][] seatRanges = promotion.getSeatRanges();
+            float[] priceModifiers = promotion.getPriceModifiers();
+            int numTiers = seatRanges.length + 1;
+            if (numTiers > SeatStore.MAX_TIERS) {
+                throw new IllegalArgumentException(String.format("A promotion can have at most %d seat ranges", SeatStore.MAX_TIERS - 1));
+            }
+            version.incrementAndGet();
+            /* Base price of each tier */
+            int[] basePrices = new int[numTiers];
+            basePrices[0] = PriceColumn.toPence(defaultSeatPrice);
+            for (int i = 0; i < seatRanges.length; i++) {
+                basePrices[i+1] = PriceColumn.toPence((double) defaultSeatPrice*priceModifiers[i]);
             }
+            /* Assign seats to tiers (ranges may span beyond the number of seats) */
+            int[] seatTiers = new int[numSeats];
+            for (int i = 0; i < seatRanges.length; i++) {
+                int last = (int) Math.min(seatRanges[i][1], (long) numSeats - 1);
+                for (int seatID = Math.max(seatRanges[i][0], 0); seatID <= last; seatID++) {
+                    seatTiers[seatID] = i+1;
+                }
+            }
+            /* Count seats and occupancy of each tier, with seat changes held back so none are lost or counted twice */
+            beginRecount();
+            try {
+                int[] sizes = new int[numTiers];
+                int[] taken = new int[numTiers];
+                for (int seatID = 0; seatID < numSeats; seatID++) {
+                    seatStore.setTier(seatID, seatTiers[seatID]);
+                    sizes[seatTiers[seatID]] += 1;
+                    if (seatStore.getStatus(seatID) != Seat.SeatStatus.EMPTY.ordinal()) {
+                        taken[seatTiers[seatID]] += 1;
+                    }
+                }
+                tierBasePrices = basePrices;
+                tierTaken = new AtomicIntegerArray(taken);
+                freeCounts = countFree(layout, numTiers);
+                /* Price each tier */
+                int[] tierPrices = basePrices.clone();
+                if (dynamicPricing != null) {
+                    for (int tier = 0; tier < numTiers; tier++) {
+                        float multiplier = dynamicPricing.multiplier(sizes[tier] == 0 ? 0 : (double) taken[tier] / sizes[tier], hoursToShow());
+                        tierPrices[tier] = Math.round(tierPrices[tier] * multiplier);
+                    }
+                }
+                prices.assign(seatTiers, tierPrices);
+            } finally {
+                endRecount();
+            }
+            version.incrementAndGet();
+        }
+        if (events != null) {
+            events.publishPricesRecalculated(showID);
         }
     }
 }
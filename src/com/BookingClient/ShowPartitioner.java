@@ -0,0 +1,153 @@
+package src.com.BookingClient;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Spreads shows over booking nodes with a consistent hash ring on the show ID, and routes each show request to the node owning it.
+ * When a node joins or leaves, only the shows whose owner changes are moved.
+ */
+public class ShowPartitioner {
+    private final NodeTransport transport;
+    private volatile HashRing ring; // Replaced, never modified, once nodes have joined
+    private final ReentrantReadWriteLock rebalanceLock = new ReentrantReadWriteLock(); // Requests (read) wait for shows to finish moving (write)
+
+    /**
+     * ShowPartitioner constructor.
+     * @param transport Transport used to reach the nodes.
+     * @param pointsPerNode Points each node is placed at on the hash ring (more points spread shows more evenly).
+     */
+    public ShowPartitioner(NodeTransport transport, int pointsPerNode) {
+        this.transport = transport;
+        this.ring = new HashRing(pointsPerNode);
+    }
+
+    /**
+     * Add a node, moving to it the shows it now owns.
+     * @param node Node joining.
+     * @return Number of shows moved to the node.
+     * @throws IllegalArgumentException If a node with the same ID has already joined.
+     */
+    public int join(BookingNode node) throws IllegalArgumentException {
+        rebalanceLock.writeLock().lock();
+        try {
+            HashRing next = new HashRing(ring);
+            next.addNode(node.getID());
+            transport.connect(node);
+            int moved = 0;
+            for (String nodeID : ring.getNodes()) {
+                moved += moveShows(nodeID, next);
+            }
+            ring = next;
+            return moved;
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a node, moving its shows to their new owners.
+     * @param nodeID ID of node leaving.
+     * @return Number of shows moved off the node.
+     * @throws NoSuchElementException If the node has not joined.
+     * @throws IllegalStateException If the node is the last one and still owns shows.
+     */
+    public int leave(String nodeID) throws NoSuchElementException, IllegalStateException {
+        rebalanceLock.writeLock().lock();
+        try {
+            HashRing next = new HashRing(ring);
+            next.removeNode(nodeID);
+            if (next.getNodes().isEmpty() && !transport.send(nodeID, BookingNode::getShowIDs).isEmpty()) {
+                throw new IllegalStateException("The last node cannot leave while it owns shows");
+            }
+            int moved = moveShows(nodeID, next);
+            ring = next;
+            transport.disconnect(nodeID);
+            return moved;
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move the shows of a node that belong to other nodes on the given ring.
+     * @param nodeID ID of node to move shows off.
+     * @param next Ring the shows should match.
+     * @return Number of shows moved.
+     */
+    private int moveShows(String nodeID, HashRing next) {
+        int moved = 0;
+        for (int showID : transport.send(nodeID, BookingNode::getShowIDs)) {
+            String owner = next.getOwner(showID);
+            if (!owner.equals(nodeID)) {
+                Show show = transport.send(nodeID, node -> node.removeShow(showID));
+                transport.send(owner, node -> { node.addShow(show); return null; });
+                moved += 1;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Add a show to the node owning it.
+     * @param show Show to add.
+     * @throws NoSuchElementException If no nodes have joined.
+     */
+    public void addShow(Show show) throws NoSuchElementException {
+        rebalanceLock.readLock().lock();
+        try {
+            transport.send(ring.getOwner(show.getID()), node -> { node.addShow(show); return null; });
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a show from the node owning it.
+     * @param showID ID of show.
+     * @return Show removed.
+     * @throws BookingNode.NotOwnerException If the show has not been added.
+     */
+    public Show removeShow(int showID) throws BookingNode.NotOwnerException {
+        rebalanceLock.readLock().lock();
+        try {
+            return transport.send(ring.getOwner(showID), node -> node.removeShow(showID));
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run a request against a show on the node owning it.
+     * @param showID ID of show.
+     * @param request Request to run (i.e. holding seats).
+     * @param <T> Result type of request.
+     * @return Result of request.
+     * @throws BookingNode.NotOwnerException If the show has not been added.
+     * @throws NoSuchElementException If no nodes have joined.
+     */
+    public <T> T call(int showID, Function<Show, T> request) throws BookingNode.NotOwnerException, NoSuchElementException {
+        rebalanceLock.readLock().lock();
+        try {
+            return transport.send(ring.getOwner(showID), node -> node.handle(showID, request));
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ID of the node owning a show.
+     * @param showID ID of show.
+     * @return Node ID.
+     * @throws NoSuchElementException If no nodes have joined.
+     */
+    public String getOwner(int showID) throws NoSuchElementException { return ring.getOwner(showID); }
+
+    /**
+     * Get the IDs of all nodes.
+     * @return Node IDs in the order they joined.
+     */
+    public List<String> getNodes() { return ring.getNodes(); }
+}
@@ -0,0 +1,74 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The test class ShowPartitionerTest.
+ */
+public class ShowPartitionerTest
+{
+    ShowPartitioner partitioner;
+    List<Show> shows;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        partitioner = new ShowPartitioner(new LoopbackTransport(), 64);
+        partitioner.join(new BookingNode("node-a"));
+        partitioner.join(new BookingNode("node-b"));
+        partitioner.join(new BookingNode("node-c"));
+        shows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Show show = new Show("Show " + i, System.currentTimeMillis(), 2, 2);
+            shows.add(show);
+            partitioner.addShow(show);
+        }
+    }
+
+    @Test
+    public void testRequestsReachOwningNode() {
+        for (Show show : shows) {
+            assertSame(show, partitioner.call(show.getID(), s -> s));
+        }
+        Show first = shows.get(0);
+        boolean held = partitioner.call(first.getID(), s -> s.getSeat("A1").hold());
+        assertTrue(held);
+        assertEquals(Seat.SeatStatus.HELD, first.getSeat("A1").getStatus());
+    }
+
+    @Test
+    public void testOnlyReassignedShowsMove() {
+        Map<Integer, String> before = new HashMap<>();
+        for (Show show : shows) { before.put(show.getID(), partitioner.getOwner(show.getID())); }
+        int moved = partitioner.join(new BookingNode("node-d"));
+        int changed = 0;
+        for (Show show : shows) {
+            String owner = partitioner.getOwner(show.getID());
+            if (!owner.equals(before.get(show.getID()))) {
+                assertEquals("node-d", owner); // Shows only move to the joining node
+                changed += 1;
+            }
+            assertSame(show, partitioner.call(show.getID(), s -> s));
+        }
+        assertEquals(changed, moved);
+        assertTrue(moved > 30 && moved < 130, "about a quarter of the shows should move, moved " + moved);
+
+        assertEquals(moved, partitioner.leave("node-d"));
+        for (Show show : shows) {
+            assertEquals(before.get(show.getID()), partitioner.getOwner(show.getID()));
+            assertSame(show, partitioner.call(show.getID(), s -> s));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package src.com.BookingClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Search index over show names: an inverted index from each name token (lowercase word) to the shows containing it, and a prefix trie
+ * over the tokens for type-ahead. Changes are serialised, while searches read the concurrent structures without locking.
+ */
+public class ShowSearchIndex {
+    /**
+     * Trie node for one token prefix. Nodes are never removed (a token without shows just has an empty set).
+     */
+    private static final class Node {
+        final ConcurrentSkipListMap<Character, Node> children = new ConcurrentSkipListMap<>(); // Sorted so matches come out alphabetically
+        volatile Set<Integer> shows; // Shows containing the token ending at this node (shared with 'tokens'), or null
+    }
+
+    private final Node root = new Node();
+    private final ConcurrentHashMap<String, Set<Integer>> tokens = new ConcurrentHashMap<>(); // Inverted index (show IDs in ascending order)
+    private final ConcurrentHashMap<Integer, String[]> showTokens = new ConcurrentHashMap<>(); // Tokens of each indexed show
+
+    /**
+     * Split a name or query into lowercase tokens (runs of letters and digits).
+     * @param text Text to split.
+     * @return Tokens, in order.
+     */
+    static String[] tokenize(String text) {
+        ArrayList<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                result.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Index a show under its name.
+     * @param showID ID of show.
+     * @param name Name of show.
+     */
+    public synchronized void add(int showID, String name) {
+        String[] nameTokens = tokenize(name);
+        showTokens.put(showID, nameTokens);
+        for (String token : nameTokens) {
+            tokens.computeIfAbsent(token, this::insertToken).add(showID);
+        }
+    }
+
+    /**
+     * Remove a show from the index.
+     * @param showID ID of show.
+     */
+    public synchronized void remove(int showID) {
+        String[] nameTokens = showTokens.remove(showID);
+        if (nameTokens == null) { return; }
+        for (String token : nameTokens) {
+            Set<Integer> shows = tokens.get(token);
+            if (shows != null) {
+                shows.remove(showID);
+            }
+        }
+    }
+
+    /**
+     * Re-index a show under a new name.
+     * @param showID ID of show.
+     * @param name New name of show.
+     */
+    public synchronized void rename(int showID, String name) {
+        remove(showID);
+        add(showID, name);
+    }
+
+    /**
+     * Add a token to the trie.
+     * @param token Token to add.
+     * @return Show set of the token (shared by the trie node and the inverted index).
+     */
+    private Set<Integer> insertToken(String token) {
+        Node node = root;
+        for (int i = 0; i < token.length(); i++) {
+            node = node.children.computeIfAbsent(token.charAt(i), c -> new Node());
+        }
+        if (node.shows == null) {
+            node.shows = new ConcurrentSkipListSet<>();
+        }
+        return node.shows;
+    }
+
+    /**
+     * Find shows whose names contain every word of a query, treating the last word as a prefix (i.e. 'phan' or 'the phan' finds 'The Phantom of the Opera').
+     * @param query Words to search for.
+     * @param limit Maximum number of show IDs to return.
+     * @return IDs of matching shows (exact matches on earlier words narrow the prefix matches).
+     */
+    public List<Integer> search(String query, int limit) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String prefix = queryTokens[queryTokens.length - 1];
+        /* Only a prefix: walk the trie below it */
+        if (queryTokens.length == 1) {
+            return new ArrayList<>(prefixMatches(prefix, limit));
+        }
+        /* Whole words before the prefix: scan the smallest word's shows and check the rest */
+        Set<Integer> smallest = null;
+        for (int i = 0; i < queryTokens.length - 1; i++) {
+            Set<Integer> shows = tokens.get(queryTokens[i]);
+            if (shows == null || shows.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (smallest == null || shows.size() < smallest.size()) {
+                smallest = shows;
+            }
+        }
+        ArrayList<Integer> result = new ArrayList<>();
+        for (Integer showID : smallest) {
+            if (matchesAll(showID, queryTokens, prefix)) {
+                result.add(showID);
+                if (result.size() >= limit) { break; }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collect shows with a token starting with a prefix, in alphabetical order of token.
+     * @param prefix Token prefix.
+     * @param limit Maximum number of show IDs to collect.
+     * @return IDs of matching shows.
+     */
+    private Set<Integer> prefixMatches(String prefix, int limit) {
+        LinkedHashSet<Integer> result = new LinkedHashSet<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return result;
+        }
+        // Depth first, visiting children in alphabetical order
+        ArrayDeque<Iterator<Node>> stack = new ArrayDeque<>();
+        addShows(node, result, limit);
+        stack.push(node.children.values().iterator());
+        while (!stack.isEmpty() && result.size() < limit) {
+            Iterator<Node> children = stack.peek();
+            if (!children.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            Node child = children.next();
+            addShows(child, result, limit);
+            stack.push(child.children.values().iterator());
+        }
+        return result;
+    }
+
+    private static void addShows(Node node, Set<Integer> result, int limit) {
+        Set<Integer> shows = node.shows;
+        if (shows == null) { return; }
+        for (Integer showID : shows) {
+            if (result.size() >= limit) { return; }
+            result.add(showID);
+        }
+    }
+
+    /**
+     * Check a show has every whole word of a query and a word starting with its prefix.
+     * @param showID ID of show.
+     * @param queryTokens Query words (the last is the prefix).
+     * @param prefix Last query word.
+     * @return True if the show matches.
+     */
+    private boolean matchesAll(int showID, String[] queryTokens, String prefix) {
+        String[] nameTokens = showTokens.get(showID);
+        if (nameTokens == null) { return false; } // Removed since the scan started
+        for (int i = 0; i < queryTokens.length - 1; i++) {
+            Set<Integer> shows = tokens.get(queryTokens[i]);
+            if (shows == null || !shows.contains(showID)) { return false; }
+        }
+        for (String token : nameTokens) {
+            if (token.startsWith(prefix)) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of distinct tokens indexed.
+     * @return Number of tokens.
+     */
+    public int getNumTokens() {
+        int count = 0;
+        for (Map.Entry<String, Set<Integer>> entry : tokens.entrySet()) {
+            count += entry.getValue().isEmpty() ? 0 : 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,69 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * The test class ShowSearchTest.
+ */
+public class ShowSearchTest
+{
+    Venue venue;
+    Show phantom;
+    Show les;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 4, 4);
+        Calendar time = Calendar.getInstance();
+        time.add(Calendar.DATE, 7);
+        phantom = new Show("The Phantom of the Opera", time.getTimeInMillis(), 4, 4);
+        les = new Show("Les Misérables", time.getTimeInMillis(), 4, 4);
+        venue.addShow(phantom);
+        venue.addShow(les);
+    }
+
+    @Test
+    public void testPrefixAndWords() {
+        assertEquals(1, venue.searchShows("phan", 10).size());
+        assertEquals(phantom, venue.searchShows("THE op", 10).get(0));
+        assertEquals(les, venue.searchShows("misé", 10).get(0));
+        assertTrue(venue.searchShows("opera les", 10).isEmpty());
+        assertTrue(venue.searchShows("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void testRenameAndCancel() {
+        phantom.setName("Cats");
+        assertTrue(venue.searchShows("phantom", 10).isEmpty());
+        assertEquals(phantom, venue.searchShows("ca", 10).get(0));
+        venue.cancelShow(phantom.getID());
+        assertTrue(venue.searchShows("cats", 10).isEmpty());
+        phantom.setName("Phantom"); // No longer in the venue, so not re-indexed
+        assertTrue(venue.searchShows("phantom", 10).isEmpty());
+    }
+
+    @Test
+    public void testShowsBetween() {
+        long time = phantom.getTime();
+        Show earlier = new Show("Earlier", time - 1000, 4, 4);
+        venue.addShow(earlier);
+        assertEquals(Arrays.asList(earlier, phantom, les), venue.getShowsBetween(time - 2000, time + 1));
+        assertEquals(Arrays.asList(phantom, les), venue.getShowsBetween(time - 1000, time + 1)); // Exclusive bounds
+        assertTrue(venue.getShowsBetween(time, time).isEmpty());
+        venue.rescheduleShow(earlier.getID(), time + 1000);
+        assertEquals(Arrays.asList(phantom, les, earlier), venue.getShowsBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        venue.cancelShow(phantom.getID());
+        assertEquals(Arrays.asList(les), venue.getShowsBetween(time - 1, time + 1));
+    }
+}
@@ -0,0 +1,159 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The test class ShowVersionTest.
+ */
+public class ShowVersionTest
+{
+    Venue venue;
+    Show show;
+    Customer customer;
+    LinkedList<Seat> seats;
+    List<PaymentRequest> charges;
+    PaymentPipeline payments;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 5, 5);
+        venue.addShow("Test Show", System.currentTimeMillis() + 60 * 60 * 1000L);
+        show = venue.getShows().get(0);
+        customer = new Customer("wef","wef","wef@wef.com", "07259622506", "wefwef", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB");
+        assertTrue(show.getSeat("A1").hold(customer.getID()));
+        seats = new LinkedList<>(Arrays.asList(show.getSeat("A1")));
+        charges = new ArrayList<>();
+        payments = new PaymentPipeline(new PaymentGateway() {
+            @Override
+            public CompletableFuture<PaymentResult> charge(PaymentRequest request) {
+                charges.add(request);
+                return CompletableFuture.completedFuture(PaymentResult.approved(request));
+            }
+
+            @Override
+            public CompletableFuture<PaymentResult> refund(PaymentRequest request) {
+                return CompletableFuture.completedFuture(PaymentResult.approved(request));
+            }
+        }, 64, 1000, 1, 0);
+    }
+
+    /**
+     * Run the payment step with scripted input on its own thread (so the input is not left set on the test's thread),
+     * making a change to the show once the card's security number has been entered.
+     * @param change Change made while the customer is paying.
+     * @param lines Lines of input after the card details.
+     * @return Result of the payment submitted, or null if none was.
+     * @throws Exception If the payment step or the payment fails.
+     */
+    private PaymentResult pay(Runnable change, String... lines) throws Exception {
+        LinkedList<String> script = new LinkedList<>(Arrays.asList("1234-5678-9012-3456", "123"));
+        script.addAll(Arrays.asList(lines));
+        AtomicReference<CompletableFuture<PaymentResult>> result = new AtomicReference<>();
+        Thread session = new Thread(() -> {
+            CLI.setInput(new InputSource() {
+                @Override
+                public String nextLine() {
+                    String line = script.poll();
+                    if ("123".equals(line)) {
+                        change.run(); // An admin changes the show before the quote is checked
+                    }
+                    return line;
+                }
+
+                @Override
+                public boolean hasNextInt() { return false; }
+
+                @Override
+                public boolean hasNextFloat() { return false; }
+
+                @Override
+                public float nextFloat() { throw new UnsupportedOperationException(); }
+            });
+            result.set(CLI.paymentChoice(customer, venue, show.getID(), seats, payments));
+        });
+        session.start();
+        session.join(5000);
+        return result.get() == null ? null : result.get().get();
+    }
+
+    @Test
+    public void testPriceAndTimeChangesBumpTheVersion() {
+        long version = show.getVersion();
+        assertEquals(0, version % 2);
+        show.setDefaultSeatPrice(12.5f);
+        assertEquals(version + 2, show.getVersion());
+        show.setTime(show.getTime() + 1000);
+        assertEquals(version + 4, show.getStableVersion());
+        show.setMaxSeatsPerUser(10); // Not part of a quote
+        assertEquals(version + 4, show.getVersion());
+    }
+
+    @Test
+    public void testUnchangedQuoteIsCharged() throws Exception {
+        long requotes = Metrics.getCount(Metrics.Counter.REQUOTES);
+        PaymentResult result = pay(() -> {});
+        assertTrue(result.isApproved());
+        assertEquals(1000, charges.get(0).getAmountPence());
+        assertEquals(requotes, Metrics.getCount(Metrics.Counter.REQUOTES));
+    }
+
+    @Test
+    public void testPriceChangeWhilePayingIsRequoted() throws Exception {
+        long requotes = Metrics.getCount(Metrics.Counter.REQUOTES);
+        PaymentResult result = pay(() -> show.setDefaultSeatPrice(15f), "c");
+        assertTrue(result.isApproved());
+        assertEquals(1, charges.size());
+        assertEquals(1500, charges.get(0).getAmountPence()); // Charged the new price, not the quote the customer started with
+        assertEquals(requotes + 1, Metrics.getCount(Metrics.Counter.REQUOTES));
+    }
+
+    @Test
+    public void testDeclinedRequoteIsNotCharged() throws Exception {
+        assertNull(pay(() -> show.setDefaultSeatPrice(15f), "e"));
+        assertTrue(charges.isEmpty());
+        assertEquals(Seat.SeatStatus.HELD, show.getSeat("A1").getStatus()); // Still held, as the customer may go back
+    }
+
+    @Test
+    public void testShowCancelledWhilePayingReleasesSeats() throws Exception {
+        assertNull(pay(() -> venue.cancelShow(show.getID())));
+        assertTrue(charges.isEmpty());
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat("A1").getStatus());
+        assertTrue(seats.isEmpty());
+    }
+
+    @Test
+    public void testChangeWhileGatewayAnswersIsRefunded() throws Exception {
+        PaymentResult result = pay(() -> {});
+        assertEquals(show.getStableVersion(), result.getQuotedVersion());
+        show.setTime(show.getTime() + 1000); // After the quote was checked, before the booking
+        assertFalse(CLI.completePayment(customer, venue, show.getID(), seats, result));
+        assertEquals(1, venue.getRefunds().getNumPending());
+        assertTrue(customer.getBookings().isEmpty());
+        assertEquals(Seat.SeatStatus.HELD, show.getSeat("A1").getStatus()); // Still held for a new quote
+        assertEquals(1, seats.size());
+    }
+
+    @Test
+    public void testUnchangedShowIsBookedOnceAnswered() throws Exception {
+        PaymentResult result = pay(() -> {});
+        assertTrue(CLI.completePayment(customer, venue, show.getID(), seats, result));
+        assertEquals(0, venue.getRefunds().getNumPending());
+        assertEquals(Seat.SeatStatus.BOOKED, show.getSeat("A1").getStatus());
+    }
+}
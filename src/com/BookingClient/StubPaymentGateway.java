@@ -0,0 +1,80 @@
+package src.com.BookingClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a card payment gateway, answering after a configurable latency and failing a configurable fraction of payments.
+ * Answers are scheduled rather than slept for, so any number of payments can be in flight on one timer thread.
+ * Cards ending in '0000' are always declined.
+ */
+public class StubPaymentGateway implements PaymentGateway {
+    private static final String DECLINED_SUFFIX = "0000";
+
+    private final ScheduledExecutorService timer;
+    private volatile long latencyMillis;
+    private volatile double failureRate;
+
+    /**
+     * StubPaymentGateway constructor.
+     * @param latencyMillis Time taken to answer each payment in milliseconds (each answer takes between half and one and a half times this).
+     * @param failureRate Fraction of payments answered with an error (0 to 1).
+     */
+    public StubPaymentGateway(long latencyMillis, double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "payment-gateway-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setLatencyMillis(long latencyMillis) { this.latencyMillis = latencyMillis; }
+
+    public void setFailureRate(double failureRate) { this.failureRate = failureRate; }
+
+    @Override
+    public CompletableFuture<PaymentResult> charge(PaymentRequest request) {
+        PaymentResult result;
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            result = PaymentResult.error(request, "Gateway unavailable");
+        } else if (request.getCardSuffix().equals(DECLINED_SUFFIX)) {
+            result = PaymentResult.declined(request, "Card declined");
+        } else {
+            result = PaymentResult.approved(request);
+        }
+        return answer(result);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> refund(PaymentRequest request) {
+        boolean failed = ThreadLocalRandom.current().nextDouble() < failureRate;
+        return answer(failed ? PaymentResult.error(request, "Gateway unavailable") : PaymentResult.approved(request));
+    }
+
+    /**
+     * Answer a request after the gateway's latency.
+     * @param result Answer to give.
+     * @return Future completed with the answer.
+     */
+    private CompletableFuture<PaymentResult> answer(PaymentResult result) {
+        CompletableFuture<PaymentResult> answer = new CompletableFuture<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long latency = latencyMillis;
+        if (latency <= 0) {
+            answer.complete(result);
+        } else {
+            timer.schedule(() -> answer.complete(result), latency / 2 + random.nextLong(latency + 1), TimeUnit.MILLISECONDS);
+        }
+        return answer;
+    }
+
+    /**
+     * Stop the timer thread. Payments in flight are never answered.
+     */
+    public void shutdown() { timer.shutdownNow(); }
+}
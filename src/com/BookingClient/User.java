@@ -1,13 +1,15 @@
 package src.com.BookingClient;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class User {
     private final String name;
     private final String username;
     private final String emailAddress;
     private final String password;
     private String mobileNo = "";
-    private int userID;
-    private static int userCount;
+    private int userID; // Unique, so seats held by one user cannot be booked or released by another
+    private static final AtomicInteger userCount = new AtomicInteger(); // Last user ID given out (users may be created concurrently)
     public enum AccountType {
         AGENT,
         CUSTOMER,
@@ -21,6 +23,7 @@ public class User {
         this.username = username;
         this.emailAddress = emailAddress;
         this.password = password;
+        this.userID = userCount.incrementAndGet();
     }
 
     public String getName() { return name; }
@@ -48,6 +51,15 @@ public class User {
 
     public int getID() { return userID; }
 
+    /**
+     * Restore the ID the user was given on the leader (when replaying its journal). Users created after get higher IDs.
+     * @param userID ID of user.
+     */
+    void restoreID(int userID) {
+        this.userID = userID;
+        userCount.accumulateAndGet(userID, Math::max);
+    }
+
     public String getEmail() { return emailAddress; }
 
     /**
@@ -78,6 +90,12 @@ public class User {
 
     public Boolean checkPW(String pass) { return password.equals(pass); }
 
+    /**
+     * Get the password (used to replicate the account to a standby, never shown to users).
+     * @return Password.
+     */
+    String getPassword() { return password; }
+
     /**
      * Validates password with regex (It must contain a minimum of eight characters, at least one uppercase letter, one lowercase letter, one number, and one special character).
      * @param pass Password to validate.
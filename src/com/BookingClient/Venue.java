@@ -1,20 +1,126 @@
 package src.com.BookingClient;
 
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class Venue {
+    public static final long MIN_SHOW_GAP_MILLIS = 3 * 60 * 60 * 1000L; // Shows starting closer together than this clash
     private final String name;
     private final int numRows;
     private final int numCols;
-    private final ArrayList<Show> shows = new ArrayList<Show>();
-    private final ArrayList<Promotion> promotions = new ArrayList<Promotion>();
+    /* Shows and promotions are replaced, never modified, so sessions can read them while the venue's writer changes them */
+    private volatile List<Show> shows = Collections.emptyList();
+    private volatile List<Promotion> promotions = Collections.emptyList();
+    private final ConcurrentHashMap<Integer, Show> showsByID = new ConcurrentHashMap<>(); // Shows in 'shows' by ID
+    private final ShowSearchIndex searchIndex = new ShowSearchIndex(); // Names of shows in 'shows'
+    private volatile SeatingLayout layout; // Sections of the venue (replaced, never modified)
+    private volatile SeatScorer scorer = SeatScorer.standard(); // Scores seats for automatic selection
+    private volatile SeatRanking ranking; // Seats of 'layout' ranked by 'scorer', shared by every show
+    private volatile ShowTimes showTimes = new ShowTimes(new long[0], new Show[0]); // Shows in 'shows' in time order
+    private final VenueEventBus events = new VenueEventBus(4096); // Seat, price, and show changes of all shows in the venue (published only while subscribed)
+    private volatile List<PricingRule> pricingRules = Collections.singletonList(PricingRule.volume("Volume discount (6+ tickets)", 6, 500)); // Replaced, never modified
+    private final ConcurrentHashMap<Integer, DiscountTable> discountTables = new ConcurrentHashMap<>(); // Compiled pricing rules of each show
+    private volatile VenueShard shard; // Writer applying changes to the venue (null if the venue is not registered)
+    private volatile Journal journal; // Journal the venue's changes are replicated through (null if not replicated)
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<Booking, Customer>> showBookings = new ConcurrentHashMap<>(); // Active bookings of each show in 'shows'
+    private final RefundQueue refunds = new RefundQueue(this); // Bookings of cancelled shows owed a refund
+    private final RescheduleNotifier reschedules = new RescheduleNotifier(this); // Customers of rescheduled shows still to be told
+    private final Outbox outbox = new Outbox(this); // Notifications recorded with bookings, cancellations, and reschedules
+    private final BookingCommands commands = new BookingCommands(this, new IdempotencyCache(BookingCommands.DEFAULT_MAX_KEYS, BookingCommands.DEFAULT_KEY_TTL_MILLIS));
 
-    public Venue(String name, int numRows, int numCols) {
+    /**
+     * Show times in ascending order, with the show at each time, so a date range is found by binary search. Replaced, never modified.
+     */
+    private static final class ShowTimes {
+        final long[] times; // Epoch milliseconds
+        final Show[] shows; // Show at each time
+
+        ShowTimes(long[] times, Show[] shows) {
+            this.times = times;
+            this.shows = shows;
+        }
+
+        /**
+         * Find the first show after a time.
+         * @param time Time (epoch milliseconds).
+         * @return Index of the first show later than 'time' (length if none).
+         */
+        int firstAfter(long time) {
+            int low = 0;
+            int high = times.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Find the first show at or after a time.
+         * @param time Time (epoch milliseconds).
+         * @return Index of the first show not earlier than 'time' (length if none).
+         */
+        int firstFrom(long time) {
+            return time == Long.MIN_VALUE ? 0 : firstAfter(time - 1);
+        }
+
+        ShowTimes with(Show show) {
+            long time = show.getTime();
+            int index = firstAfter(time); // After shows at the same time, so equal times stay in the order added
+            long[] newTimes = new long[times.length + 1];
+            Show[] newShows = new Show[shows.length + 1];
+            System.arraycopy(times, 0, newTimes, 0, index);
+            System.arraycopy(shows, 0, newShows, 0, index);
+            newTimes[index] = time;
+            newShows[index] = show;
+            System.arraycopy(times, index, newTimes, index + 1, times.length - index);
+            System.arraycopy(shows, index, newShows, index + 1, shows.length - index);
+            return new ShowTimes(newTimes, newShows);
+        }
+
+        ShowTimes without(int showID) {
+            for (int index = 0; index < shows.length; index++) {
+                if (shows[index].getID() == showID) {
+                    long[] newTimes = new long[times.length - 1];
+                    Show[] newShows = new Show[shows.length - 1];
+                    System.arraycopy(times, 0, newTimes, 0, index);
+                    System.arraycopy(shows, 0, newShows, 0, index);
+                    System.arraycopy(times, index + 1, newTimes, index, times.length - index - 1);
+                    System.arraycopy(shows, index + 1, newShows, index, shows.length - index - 1);
+                    return new ShowTimes(newTimes, newShows);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Venue constructor.
+     * @param name Name of venue.
+     * @param numRows Number of rows of seats.
+     * @param numCols Number of columns of seats.
+     * @throws IllegalArgumentException If the venue has no seats or more than SeatStore.MAX_SEATS (the product is checked as a long, so it cannot overflow).
+     */
+    public Venue(String name, int numRows, int numCols) throws IllegalArgumentException {
+        if (numRows <= 0 || numCols <= 0 || (long) numRows*numCols > SeatStore.MAX_SEATS) {
+            throw new IllegalArgumentException(String.format("A venue must have between 1 and %d seats", SeatStore.MAX_SEATS));
+        }
         this.name = name;
         this.numRows = numRows;
         this.numCols = numCols;
+        this.layout = SeatingLayout.single("All seats", numCols, numRows); // Seat letters are the layout's rows
+        this.ranking = SeatRanking.rank(layout, scorer);
     }
 
     public String getName() { return name; }
@@ -25,18 +131,351 @@ public class Venue {
 
     public int getNumSeats() { return numCols*numRows; }
 
-    public void addShow(String name, Calendar time) { shows.add(new Show(name, time, numRows, numCols)); }
+    public VenueEventBus getEvents() { return events; }
+
+    /**
+     * Get the venue's hold, book, and cancel commands, which deduplicate retries by idempotency key.
+     * @return Booking commands.
+     */
+    public BookingCommands getCommands() { return commands; }
+
+    public Outbox getOutbox() { return outbox; }
+
+    public RefundQueue getRefunds() { return refunds; }
+
+    public RescheduleNotifier getReschedules() { return reschedules; }
+
+    /**
+     * Index a new booking under its show, so cancelling the show finds it. If the show was cancelled meanwhile,
+     * the booking is queued for a refund instead.
+     * @param customer Customer who booked.
+     * @param booking New booking.
+     * @return True if indexed, false if the show was cancelled (the booking is refunded).
+     */
+    boolean indexBooking(Customer customer, Booking booking) {
+        showBookings.computeIfAbsent(booking.getShowID(), showID -> new ConcurrentHashMap<>()).put(booking, customer);
+        Show show = showsByID.get(booking.getShowID());
+        if (show == null || show.isCancelled()) {
+            // Cancelled after the booking was checked but before it was indexed, and may have missed it
+            ConcurrentHashMap<Booking, Customer> stale = showBookings.remove(booking.getShowID());
+            if (stale != null) {
+                refunds.addAll(null, stale);
+            } else if (booking.isActive()) {
+                refunds.addAll(null, Collections.singletonMap(booking, customer));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Mark a booking cancelled by its customer and remove it from its show's index.
+     * @param booking Booking cancelled.
+     */
+    void unindexBooking(Booking booking) {
+        booking.setStatus(Booking.Status.CANCELLED); // Not told of reschedules already queued
+        ConcurrentHashMap<Booking, Customer> bookings = showBookings.get(booking.getShowID());
+        if (bookings != null) {
+            bookings.remove(booking);
+        }
+    }
+
+    /**
+     * Get the active bookings of a show.
+     * @param showID ID of show.
+     * @return Copy of the show's bookings, with the customer of each.
+     */
+    public Map<Booking, Customer> getBookings(int showID) {
+        ConcurrentHashMap<Booking, Customer> bookings = showBookings.get(showID);
+        return bookings != null ? new HashMap<>(bookings) : Collections.emptyMap();
+    }
+
+    /**
+     * Check if a show is in the venue (i.e. a booking's show has not been cancelled).
+     * @param showID ID of show.
+     * @return True if the show exists.
+     */
+    public boolean hasShow(int showID) { return showsByID.containsKey(showID); }
 
-    public void addShow(Show show) { shows.add(show); }
+    /**
+     * Set the shard whose writer thread applies changes to the venue (called by VenueShard).
+     * @param shard Owning shard.
+     */
+    void setShard(VenueShard shard) { this.shard = shard; }
+
+    public Journal getJournal() { return journal; }
+
+    /**
+     * Replicate the venue through a journal: its current shows, promotions, and taken seats are appended, then every later change.
+     * @param journal Journal to append to.
+     */
+    public void setJournal(Journal journal) {
+        write(() -> {
+            this.journal = journal;
+            appendJournal(JournalEntry.venueAdded(this));
+            appendJournal(JournalEntry.venueLayout(this));
+            for (Promotion promotion : promotions) {
+                appendJournal(JournalEntry.promotionAdded(this, promotion));
+            }
+            for (Show show : shows) {
+                appendJournal(JournalEntry.showAdded(this, show));
+                if (show.hasPromotion()) {
+                    appendJournal(JournalEntry.showPromotion(show.getID(), show.getPromotion()));
+                }
+                show.setJournal(journal);
+                // Seats change outside the writer, so read each taken seat under its lock (a change after this is journaled by the show)
+                for (int seatID = 0; seatID < show.getNumSeats(); seatID++) {
+                    if (show.getSeatStatus(seatID) == Seat.SeatStatus.EMPTY) { continue; }
+                    Seat seat = show.getSeat(seatID);
+                    synchronized (seat) {
+                        if (seat.getStatus() != Seat.SeatStatus.EMPTY) {
+                            appendJournal(JournalEntry.seatStatus(show.getID(), seat.getID(), seat.getStatus()));
+                        }
+                    }
+                }
+            }
+            for (Notification notification : outbox.getPending()) {
+                appendJournal(JournalEntry.notification(notification));
+            }
+        });
+    }
+
+    /**
+     * Append an entry to the venue's journal, if it has one.
+     * @param entry Entry to append.
+     * @return Sequence number of entry, or -1 if not replicated.
+     */
+    long appendJournal(JournalEntry entry) {
+        Journal venueJournal = journal;
+        return venueJournal != null ? venueJournal.append(entry) : -1;
+    }
+
+    /**
+     * Apply a change to the venue's shows, promotions, or pricing rules on the venue's writer thread.
+     * Venues that have not been registered with a VenueRegistry apply changes on the calling thread instead.
+     * @param change Change to apply.
+     */
+    private void write(Runnable change) {
+        VenueShard owner = shard;
+        if (owner != null) {
+            owner.call(() -> { change.run(); return null; });
+        } else {
+            synchronized (this) { change.run(); }
+        }
+    }
+
+    /**
+     * Copy a list, apply a change to the copy, and return it unmodifiable.
+     * @param list List to copy.
+     * @param change Change to apply to the copy.
+     * @param <T> Element type.
+     * @return Changed copy.
+     */
+    private static <T> List<T> copyOnWrite(List<T> list, Consumer<List<T>> change) {
+        ArrayList<T> copy = new ArrayList<>(list);
+        change.accept(copy);
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Get the sections of the venue.
+     * @return Seating layout (rows are seat letters, with numRows seats each).
+     */
+    public SeatingLayout getLayout() { return layout; }
+
+    /**
+     * Organise the venue's seats into sections, recounting the free seats of each section in every show.
+     * @param layout Layout with a row per seat letter (numCols rows of numRows seats).
+     * @throws IllegalArgumentException If the layout does not match the venue's seats.
+     */
+    public void setLayout(SeatingLayout layout) throws IllegalArgumentException {
+        if (layout.getNumRows() != numCols || layout.getSeatsPerRow() != numRows) {
+            throw new IllegalArgumentException("The layout does not match the venue's seats");
+        }
+        SeatRanking newRanking = SeatRanking.rank(layout, scorer); // Ranked before taking the writer
+        write(() -> {
+            this.layout = layout;
+            setRanking(newRanking);
+            appendJournal(JournalEntry.venueLayout(this));
+        });
+    }
+
+    public SeatScorer getScorer() { return scorer; }
+
+    /**
+     * Change how seats are scored for automatic selection, re-ranking the venue's seats for every show.
+     * @param scorer Seat scorer (i.e. SeatScorer.standard()).
+     */
+    public void setScorer(SeatScorer scorer) {
+        write(() -> {
+            this.scorer = scorer;
+            setRanking(SeatRanking.rank(layout, scorer));
+        });
+    }
+
+    /**
+     * Give every show a new seat ranking. Caller must be the venue's writer.
+     * @param newRanking Ranking to give.
+     */
+    private void setRanking(SeatRanking newRanking) {
+        ranking = newRanking;
+        for (Show show : shows) {
+            show.setLayout(newRanking);
+        }
+    }
 
     /**
-     * Cancel show based on given show ID.
+     * Add a new show to the venue.
+     * @param name Name of show.
+     * @param time Time show will take place (epoch milliseconds).
+     */
+    public void addShow(String name, long time) { addShow(new Show(name, time, numRows, numCols)); }
+
+    /**
+     * Add show to venue, and publish its seat and price changes on the venue's event bus.
+     * @param show Show to add.
+     */
+    public void addShow(Show show) {
+        write(() -> {
+            shows = copyOnWrite(shows, list -> list.add(show));
+            showsByID.put(show.getID(), show);
+            showTimes = showTimes.with(show);
+            synchronized (show) { // Not renamed between reading its name and indexing it
+                show.setSearchIndex(searchIndex);
+                searchIndex.add(show.getID(), show.getName());
+            }
+            show.setLayout(ranking);
+            show.setVenue(this);
+            show.setEventBus(events);
+            appendJournal(JournalEntry.showAdded(this, show));
+            show.setJournal(journal);
+            events.publishShowAdded(show.getID(), show.getTime());
+        });
+    }
+
+    /**
+     * Cancel show based on given show ID. Its bookings are marked refunding and queued for refunds (see RefundQueue),
+     * which takes milliseconds even for a sold out show; the refunds and notifications follow in the background.
+     * @param showID Given show ID.
+     * @throws NoSuchElementException If show not found.
+     */
+    public void cancelShow(int showID) throws NoSuchElementException {
+        write(() -> {
+            Show cancelled = getShow(showID); // Throws if show not found
+            shows = copyOnWrite(shows, list -> list.removeIf(show -> show.getID() == showID));
+            showsByID.remove(showID);
+            showTimes = showTimes.without(showID);
+            synchronized (cancelled) {
+                cancelled.setSearchIndex(null);
+                searchIndex.remove(showID);
+            }
+            cancelled.markCancelled(); // Invalidates quotes of customers part way through paying
+            discountTables.remove(showID);
+            appendJournal(JournalEntry.showCancelled(showID));
+            // Refund every booking of the show in the background (bookings made from here on are refunded by indexBooking)
+            ConcurrentHashMap<Booking, Customer> bookings = showBookings.remove(showID);
+            if (bookings != null) {
+                refunds.addAll(cancelled.getName(), bookings);
+            }
+            events.publishShowCancelled(showID);
+        });
+    }
+
+    /**
+     * Reschedule show based on given show ID, even if it clashes with another show.
+     * @param showID Given show ID.
+     * @param time New time of show (epoch milliseconds).
+     * @throws NoSuchElementException If show not found.
+     */
+    public void rescheduleShow(int showID, long time) throws NoSuchElementException { reschedule(showID, time, Collections.emptyList(), true); }
+
+    /**
+     * Reschedule show based on given show ID, even if it clashes with another show, recording notifications in the outbox with the change.
      * @param showID Given show ID.
+     * @param time New time of show (epoch milliseconds).
+     * @param notifications Notifications to deliver once the show is rescheduled, besides those to its customers.
+     * @throws NoSuchElementException If show not found.
      */
-    public void cancelShow(int showID) {
-        if (!shows.removeIf(show -> show.getID() == showID)) {
-            throw new NoSuchElementException("The 'showID' does not exist");
+    public void rescheduleShow(int showID, long time, List<Notification> notifications) throws NoSuchElementException {
+        reschedule(showID, time, notifications, true);
+    }
+
+    /**
+     * Reschedule show based on given show ID. Every customer with a booking of the show is told of the new time in the background
+     * (see RescheduleNotifier), so this takes milliseconds however many bookings the show has.
+     * @param showID Given show ID.
+     * @param time New time of show (epoch milliseconds).
+     * @param allowClash Whether to reschedule even if the new time clashes with another show (see getClashes).
+     * @return Number of customers to be told.
+     * @throws NoSuchElementException If show not found.
+     * @throws IllegalStateException If the new time clashes with another show and clashes are not allowed (the show is not rescheduled).
+     */
+    public int rescheduleShow(int showID, long time, boolean allowClash) throws NoSuchElementException, IllegalStateException {
+        return reschedule(showID, time, Collections.emptyList(), allowClash);
+    }
+
+    private int reschedule(int showID, long time, List<Notification> notifications, boolean allowClash) {
+        int[] numCustomers = new int[1];
+        write(() -> {
+            Show show = getShow(showID);
+            if (!allowClash) {
+                List<Show> clashes = getClashes(showID, time);
+                if (!clashes.isEmpty()) {
+                    throw new IllegalStateException(String.format("The new time clashes with '%s' at %s", clashes.get(0).getName(), CLI.formatTime(clashes.get(0).getTime())));
+                }
+            }
+            show.setTime(time);
+            showTimes = showTimes.without(showID).with(show);
+            appendJournal(JournalEntry.showRescheduled(showID, time, notifications));
+            outbox.record(notifications);
+            ConcurrentHashMap<Booking, Customer> bookings = showBookings.get(showID);
+            if (bookings != null) {
+                numCustomers[0] = reschedules.addAll(show, time, bookings); // Journaled in batches after this entry
+            }
+            events.publishShowRescheduled(showID, time);
+        });
+        return numCustomers[0];
+    }
+
+    /**
+     * Get the shows a show would clash with at a time, i.e. the shows starting less than MIN_SHOW_GAP_MILLIS before or after it.
+     * @param showID Given show ID (not a clash with itself).
+     * @param time Time of show (epoch milliseconds).
+     * @return Clashing shows, in time order.
+     */
+    public List<Show> getClashes(int showID, long time) {
+        List<Show> clashes = new ArrayList<>();
+        for (Show show : getShowsBetween(time - MIN_SHOW_GAP_MILLIS, time + MIN_SHOW_GAP_MILLIS)) {
+            if (show.getID() != showID) {
+                clashes.add(show);
+            }
         }
+        return clashes;
+    }
+
+    /**
+     * Apply a promotion to a show, repricing its seats.
+     * @param showID Given show ID.
+     * @param promotion Promotion to apply.
+     * @throws NoSuchElementException If show not found.
+     */
+    public void setShowPromotion(int showID, Promotion promotion) throws NoSuchElementException {
+        write(() -> {
+            getShow(showID).setPromotion(promotion);
+            appendJournal(JournalEntry.showPromotion(showID, promotion));
+        });
+    }
+
+    /**
+     * Remove the promotion from a show, repricing its seats.
+     * @param showID Given show ID.
+     * @throws NoSuchElementException If show not found.
+     */
+    public void removeShowPromotion(int showID) throws NoSuchElementException {
+        write(() -> {
+            getShow(showID).removePromotion();
+            appendJournal(JournalEntry.showPromotion(showID, null));
+        });
     }
 
     /**
@@ -46,17 +485,56 @@ public class Venue {
      * @throws NoSuchElementException If show not found.
      */
     public Show getShow(int showID) throws NoSuchElementException {
-        for (Show show : shows) {
-            if (show.getID() == showID) {
-                return show;
-            }
+        Show show = showsByID.get(showID);
+        if (show == null) {
+            throw new NoSuchElementException("The 'showID' requested does not exist");
         }
-        throw new NoSuchElementException("The 'showID' requested does not exist");
+        return show;
     }
 
-    public ArrayList<Show> getShows() { return shows; }
+    /**
+     * Get all shows.
+     * @return Unmodifiable list of shows.
+     */
+    public List<Show> getShows() { return shows; }
+
+    /**
+     * Get the shows taking place strictly between two times, in time order.
+     * @param from Start of range (epoch milliseconds, exclusive).
+     * @param to End of range (epoch milliseconds, exclusive).
+     * @return Unmodifiable list of shows (a view of the venue's sorted shows, not a copy).
+     */
+    public List<Show> getShowsBetween(long from, long to) {
+        ShowTimes sorted = showTimes;
+        int start = sorted.firstAfter(from);
+        int end = Math.max(start, sorted.firstFrom(to));
+        return Collections.unmodifiableList(Arrays.asList(sorted.shows).subList(start, end));
+    }
+
+    /**
+     * Find shows by name as the user types, i.e. 'phan' or 'the ph' finds 'The Phantom of the Opera'.
+     * Every word of the query must appear in the name, the last as the start of a word.
+     * @param query Words to search for (case insensitive).
+     * @param limit Maximum number of shows to return.
+     * @return Matching shows.
+     */
+    public List<Show> searchShows(String query, int limit) {
+        ArrayList<Show> result = new ArrayList<>();
+        for (int showID : searchIndex.search(query, limit)) {
+            Show show = showsByID.get(showID);
+            if (show != null) { // Cancelled since it was found
+                result.add(show);
+            }
+        }
+        return result;
+    }
 
-    public void addPromotion(Promotion promotion) { promotions.add(promotion); }
+    public void addPromotion(Promotion promotion) {
+        write(() -> {
+            promotions = copyOnWrite(promotions, list -> list.add(promotion));
+            appendJournal(JournalEntry.promotionAdded(this, promotion));
+        });
+    }
 
     /**
      * Delete promotion using given promotion ID
@@ -64,9 +542,11 @@ public class Venue {
      * @throws NoSuchElementException If promotion attempting to be deleted does not exist.
      */
     public void removePromotion(int promotionID) throws NoSuchElementException {
-        if (!promotions.removeIf(promotion -> promotion.getID() == promotionID)) {
-            throw new NoSuchElementException("The 'promotionID' does not exist");
-        }
+        write(() -> {
+            getPromotion(promotionID); // Throws if promotion not found
+            promotions = copyOnWrite(promotions, list -> list.removeIf(promotion -> promotion.getID() == promotionID));
+            appendJournal(JournalEntry.promotionRemoved(this, promotionID));
+        });
     }
 
     /**
@@ -86,7 +566,52 @@ public class Venue {
 
     /**
      * Get all promotions.
-     * @return All promotions.
+     * @return Unmodifiable list of promotions.
+     */
+    public List<Promotion> getPromotions() { return promotions; }
+
+    /**
+     * Get the pricing rules applied at checkout.
+     * @return Unmodifiable list of pricing rules.
      */
-    public ArrayList<Promotion> getPromotions() { return promotions; }
+    public List<PricingRule> getPricingRules() { return pricingRules; }
+
+    /**
+     * Add a pricing rule. Each show's rules are recompiled the next time it is priced.
+     * @param rule Pricing rule to add.
+     */
+    public void addPricingRule(PricingRule rule) {
+        write(() -> pricingRules = copyOnWrite(pricingRules, list -> list.add(rule)));
+    }
+
+    /**
+     * Remove a pricing rule by name.
+     * @param name Name of pricing rule.
+     * @throws NoSuchElementException If no pricing rule has the name.
+     */
+    public void removePricingRule(String name) throws NoSuchElementException {
+        write(() -> {
+            if (pricingRules.stream().noneMatch(rule -> rule.getName().equals(name))) {
+                throw new NoSuchElementException("The pricing rule does not exist");
+            }
+            pricingRules = copyOnWrite(pricingRules, list -> list.removeIf(rule -> rule.getName().equals(name)));
+        });
+    }
+
+    /**
+     * Get the pricing rules compiled for a show, recompiling them if the rules, or the show's promotion or time, have changed.
+     * @param showID Given show ID.
+     * @return Discount table of the show.
+     * @throws NoSuchElementException If show not found.
+     */
+    public DiscountTable getDiscountTable(int showID) throws NoSuchElementException {
+        Show show = getShow(showID);
+        List<PricingRule> rules = pricingRules;
+        DiscountTable table = discountTables.get(showID);
+        if (table == null || !table.isCurrent(rules, show)) {
+            table = DiscountTable.compile(rules, show);
+            discountTables.put(showID, table);
+        }
+        return table;
+    }
 }
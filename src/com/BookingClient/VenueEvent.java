@@ -0,0 +1,63 @@
+package src.com.BookingClient;
+
+/**
+ * Mutable event slot in a VenueEventBus. Slots are pre-allocated and reused, so subscribers must copy out
+ * anything they need to keep before returning from EventHandler.onEvent().
+ */
+public class VenueEvent {
+    public enum Type {
+        SEAT_STATUS, // Seat status transition (seatID, oldStatus, newStatus)
+        PRICES_RECALCULATED, // Seat prices of a show were recalculated
+        SHOW_ADDED,
+        SHOW_CANCELLED,
+        SHOW_RESCHEDULED // Show time changed (time)
+    }
+
+    volatile long sequence = Long.MIN_VALUE; // Sequence number of the event held, -1 while being written (MIN_VALUE if never written)
+    Type type;
+    int showID;
+    int seatID = -1;
+    Seat.SeatStatus oldStatus;
+    Seat.SeatStatus newStatus;
+    long time; // Show time in epoch milliseconds (SHOW_ADDED and SHOW_RESCHEDULED)
+
+    public long getSequence() { return sequence; }
+
+    public Type getType() { return type; }
+
+    public int getShowID() { return showID; }
+
+    public int getSeatID() { return seatID; }
+
+    public Seat.SeatStatus getOldStatus() { return oldStatus; }
+
+    public Seat.SeatStatus getNewStatus() { return newStatus; }
+
+    public long getTime() { return time; }
+
+    /**
+     * Copy the fields of another event into this one.
+     * @param other Event to copy.
+     */
+    void copyFrom(VenueEvent other) {
+        type = other.type;
+        showID = other.showID;
+        seatID = other.seatID;
+        oldStatus = other.oldStatus;
+        newStatus = other.newStatus;
+        time = other.time;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case SEAT_STATUS:
+                return String.format("#%d %s show=%d seat=%d %s->%s", sequence, type, showID, seatID, oldStatus, newStatus);
+            case SHOW_ADDED:
+            case SHOW_RESCHEDULED:
+                return String.format("#%d %s show=%d time=%d", sequence, type, showID, time);
+            default:
+                return String.format("#%d %s show=%d", sequence, type, showID);
+        }
+    }
+}
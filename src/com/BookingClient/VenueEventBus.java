@@ -0,0 +1,226 @@
+package src.com.BookingClient;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-allocated ring buffer of venue events (seat status transitions, price recalculations, and show changes).
+ * Publishing fills the next slot in place and never waits for subscribers, so slow subscribers cannot stall bookings.
+ * Writers claim slots by incrementing the cursor rather than taking a lock, as seat transitions are published while
+ * holding the seat's lock. Each slot is written by one writer at a time: a writer waits only for a writer a whole lap
+ * behind it that is still filling the same slot.
+ * Each subscriber reads at its own pace from its own cursor, in sequence order. A subscriber that falls more than a
+ * ring's length behind is told how many events it missed and skips ahead.
+ * Nothing is published while there are no subscribers, so the seat path pays for a single volatile read until something
+ * subscribes. As events can be missed, the bus is for best-effort subscribers (i.e. live seat maps), not for persistence:
+ * bookings are made durable through the venue's journal and outbox, never through the bus.
+ */
+public class VenueEventBus {
+    private static final long WRITING = -1; // Sequence of a slot being written
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(VenueEvent.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final VenueEvent[] ring;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1); // Sequence of the last claimed event
+    private final AtomicInteger subscribers = new AtomicInteger(); // Open subscriptions (events are only published while there are any)
+
+    /**
+     * VenueEventBus constructor.
+     * @param capacity Number of slots in the ring (rounded up to a power of two).
+     */
+    public VenueEventBus(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        ring = new VenueEvent[size];
+        for (int i = 0; i < size; i++) { ring[i] = new VenueEvent(); }
+        mask = size - 1;
+    }
+
+    public int getCapacity() { return ring.length; }
+
+    /**
+     * Get the sequence of the last event claimed by a writer (it may still be being written).
+     * @return Sequence of last event, or -1 if none.
+     */
+    public long getPublished() { return cursor.get(); }
+
+    /**
+     * Check if any subscription is open. Events published while there are none are dropped without claiming a slot.
+     * @return True if something is subscribed.
+     */
+    public boolean hasSubscribers() { return subscribers.get() > 0; }
+
+    /**
+     * Claim the next sequence, fill in its slot, and publish it to subscribers.
+     * @param type Type of event.
+     * @param showID Show the event pertains to.
+     * @param seatID Seat the event pertains to (-1 if none).
+     * @param oldStatus Status before the transition (null if not a seat transition).
+     * @param newStatus Status after the transition (null if not a seat transition).
+     * @param time Show time (epoch milliseconds, 0 if none).
+     */
+    private void publish(VenueEvent.Type type, int showID, int seatID, Seat.SeatStatus oldStatus, Seat.SeatStatus newStatus, long time) {
+        if (subscribers.get() == 0) {
+            return; // Nothing reads the ring
+        }
+        long sequence = cursor.incrementAndGet();
+        VenueEvent event = ring[(int) sequence & mask];
+        while (true) {
+            long previous = event.sequence;
+            if (previous > sequence) {
+                return; // Lapped while claiming, so the event is already overwritten (subscribers count it as missed)
+            }
+            if (previous != WRITING && SEQUENCE.compareAndSet(event, previous, WRITING)) {
+                break;
+            }
+            Thread.onSpinWait(); // A writer a lap behind is still filling the slot
+        }
+        VarHandle.storeStoreFence(); // Mark the slot as being written before changing it, so lapped readers can tell
+        event.type = type;
+        event.showID = showID;
+        event.seatID = seatID;
+        event.oldStatus = oldStatus;
+        event.newStatus = newStatus;
+        event.time = time;
+        event.sequence = sequence; // Publishes the fields written above
+    }
+
+    public void publishSeatStatus(int showID, int seatID, Seat.SeatStatus oldStatus, Seat.SeatStatus newStatus) {
+        publish(VenueEvent.Type.SEAT_STATUS, showID, seatID, oldStatus, newStatus, 0);
+    }
+
+    public void publishPricesRecalculated(int showID) {
+        publish(VenueEvent.Type.PRICES_RECALCULATED, showID, -1, null, null, 0);
+    }
+
+    public void publishShowAdded(int showID, long time) {
+        publish(VenueEvent.Type.SHOW_ADDED, showID, -1, null, null, time);
+    }
+
+    public void publishShowCancelled(int showID) {
+        publish(VenueEvent.Type.SHOW_CANCELLED, showID, -1, null, null, 0);
+    }
+
+    public void publishShowRescheduled(int showID, long time) {
+        publish(VenueEvent.Type.SHOW_RESCHEDULED, showID, -1, null, null, time);
+    }
+
+    /**
+     * Subscribe to events published after this call. Close the subscription once it is no longer polled.
+     * @param handler Handler to deliver events to when the subscription is polled.
+     * @return Subscription to poll.
+     */
+    public Subscription subscribe(EventHandler handler) {
+        subscribers.incrementAndGet();
+        return new Subscription(handler, cursor.get() + 1);
+    }
+
+    /**
+     * Handles events delivered by a subscription.
+     */
+    public interface EventHandler {
+        /**
+         * Called for each event. The event is reused after returning.
+         * @param event Event delivered.
+         * @param endOfBatch True if this is the last event of the current poll.
+         */
+        void onEvent(VenueEvent event, boolean endOfBatch);
+
+        /**
+         * Called when the subscriber fell too far behind and events were overwritten before being read.
+         * @param missed Number of events missed.
+         */
+        default void onOverrun(long missed) {}
+    }
+
+    /**
+     * A subscriber's cursor into the ring. Each subscription must only be polled by one thread at a time.
+     */
+    public class Subscription {
+        private final EventHandler handler;
+        private final VenueEvent scratch = new VenueEvent(); // Copy of the slot being delivered
+        private long next; // Sequence of the next event to read
+        private long missed; // Total events missed through overruns
+        private boolean closed;
+
+        private Subscription(EventHandler handler, long next) {
+            this.handler = handler;
+            this.next = next;
+        }
+
+        public long getMissed() { return missed; }
+
+        /**
+         * Stop subscribing. Once the last subscription is closed the bus stops publishing.
+         */
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                subscribers.decrementAndGet();
+            }
+        }
+
+        /**
+         * Get the number of claimed events not yet read.
+         * @return Number of events waiting.
+         */
+        public long getLag() { return cursor.get() + 1 - next; }
+
+        /**
+         * Deliver waiting events to the handler in one batch, stopping at the first event still being written.
+         * @param maxBatch Maximum number of events to deliver.
+         * @return Number of events delivered.
+         */
+        public int poll(int maxBatch) {
+            int delivered = 0;
+            while (delivered < maxBatch) {
+                // Skip ahead if the writers have lapped this subscriber
+                long oldest = cursor.get() - ring.length + 1;
+                if (next < oldest) {
+                    overrun(oldest);
+                    continue;
+                }
+                VenueEvent slot = ring[(int) next & mask];
+                long sequence = slot.sequence;
+                if (sequence != next) {
+                    if (sequence > next) { // Slot was overwritten before it could be read
+                        overrun(cursor.get() - ring.length + 1);
+                        continue;
+                    }
+                    break; // Not published yet
+                }
+                scratch.copyFrom(slot);
+                scratch.sequence = next;
+                VarHandle.loadLoadFence(); // Finish reading the slot before checking it again
+                if (slot.sequence != next) { // Slot was overwritten while copying
+                    overrun(cursor.get() - ring.length + 1);
+                    continue;
+                }
+                next += 1;
+                delivered += 1;
+                boolean endOfBatch = delivered == maxBatch || ring[(int) next & mask].sequence != next;
+                handler.onEvent(scratch, endOfBatch);
+                if (endOfBatch) {
+                    break;
+                }
+            }
+            return delivered;
+        }
+
+        private void overrun(long oldest) {
+            long lost = Math.max(oldest - next, 1);
+            missed += lost;
+            next += lost;
+            handler.onOverrun(lost);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The test class VenueEventBusTest.
+ */
+public class VenueEventBusTest
+{
+    Venue venue;
+    ArrayList<String> received;
+    long[] missed;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 4, 4);
+        received = new ArrayList<>();
+        missed = new long[1];
+    }
+
+    private VenueEventBus.Subscription subscribe(VenueEventBus bus) {
+        return bus.subscribe(new VenueEventBus.EventHandler() {
+            @Override
+            public void onEvent(VenueEvent event, boolean endOfBatch) {
+                received.add(event.getType() + ":" + event.getSeatID() + ":" + event.getNewStatus());
+            }
+
+            @Override
+            public void onOverrun(long count) {
+                missed[0] += count;
+            }
+        });
+    }
+
+    @Test
+    public void testSeatTransitionsArePublished() {
+        VenueEventBus.Subscription subscription = subscribe(venue.getEvents());
+        venue.addShow("Test Show", System.currentTimeMillis());
+        Show show = venue.getShows().get(0);
+        assertTrue(show.getSeat(3).hold());
+        show.getSeat(3).setBooked();
+        assertEquals(3, subscription.poll(10));
+        assertEquals("SHOW_ADDED:-1:null", received.get(0));
+        assertEquals("SEAT_STATUS:3:HELD", received.get(1));
+        assertEquals("SEAT_STATUS:3:BOOKED", received.get(2));
+        assertEquals(0, subscription.poll(10));
+    }
+
+    @Test
+    public void testNothingIsPublishedWithoutSubscribers() {
+        VenueEventBus bus = venue.getEvents();
+        venue.addShow("Test Show", System.currentTimeMillis());
+        Show show = venue.getShows().get(0);
+        assertTrue(show.getSeat(0).hold());
+        assertFalse(bus.hasSubscribers());
+        assertEquals(-1, bus.getPublished());
+        VenueEventBus.Subscription subscription = subscribe(bus);
+        assertTrue(show.getSeat(1).hold());
+        assertEquals(1, subscription.poll(10));
+        assertEquals("SEAT_STATUS:1:HELD", received.get(0));
+        subscription.close();
+        subscription.close(); // Closing twice leaves other subscriptions counted
+        assertFalse(bus.hasSubscribers());
+        long published = bus.getPublished();
+        assertTrue(show.getSeat(2).hold());
+        assertEquals(published, bus.getPublished());
+    }
+
+    @Test
+    public void testPollsInBatches() {
+        VenueEventBus bus = new VenueEventBus(16);
+        VenueEventBus.Subscription subscription = subscribe(bus);
+        for (int i = 0; i < 10; i++) { bus.publishShowCancelled(i); }
+        assertEquals(4, subscription.poll(4));
+        assertEquals(6, subscription.getLag());
+        assertEquals(6, subscription.poll(100));
+    }
+
+    @Test
+    public void testSlowSubscriberSkipsOverwrittenEvents() {
+        VenueEventBus bus = new VenueEventBus(8);
+        VenueEventBus.Subscription subscription = subscribe(bus);
+        for (int i = 0; i < 20; i++) { bus.publishShowCancelled(i); }
+        assertEquals(8, subscription.poll(100));
+        assertEquals(12, missed[0]);
+        assertEquals(12, subscription.getMissed());
+    }
+
+    @Test
+    public void testConcurrentWritersAreDeliveredInOrder() throws InterruptedException {
+        VenueEventBus bus = new VenueEventBus(1 << 16);
+        int[] lastSeat = {-1, -1, -1, -1}; // Last seat ID received from each writer
+        long[] lastSequence = {-1};
+        VenueEventBus.Subscription subscription = bus.subscribe((event, endOfBatch) -> {
+            assertEquals(lastSequence[0] + 1, event.getSequence());
+            assertEquals(lastSeat[event.getShowID()] + 1, event.getSeatID()); // Each writer's events stay in order
+            lastSequence[0] = event.getSequence();
+            lastSeat[event.getShowID()] = event.getSeatID();
+        });
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int showID = w;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) { bus.publishSeatStatus(showID, i, Seat.SeatStatus.EMPTY, Seat.SeatStatus.HELD); }
+            }));
+        }
+        writers.forEach(Thread::start);
+        long delivered = 0;
+        while (writers.stream().anyMatch(Thread::isAlive)) {
+            delivered += subscription.poll(256); // Reads alongside the writers
+        }
+        for (Thread writer : writers) { writer.join(); }
+        while (subscription.getLag() > 0) {
+            delivered += subscription.poll(256);
+        }
+        assertEquals(40000, delivered);
+        assertEquals(0, subscription.getMissed());
+        assertEquals(39999, bus.getPublished());
+    }
+
+    @Test
+    public void testLappedConcurrentWritersAreCountedAsMissed() throws InterruptedException {
+        VenueEventBus bus = new VenueEventBus(8);
+        VenueEventBus.Subscription subscription = subscribe(bus);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) { bus.publishShowCancelled(i); }
+            }));
+        }
+        writers.forEach(Thread::start);
+        long delivered = 0;
+        while (writers.stream().anyMatch(Thread::isAlive)) {
+            delivered += subscription.poll(4);
+        }
+        for (Thread writer : writers) { writer.join(); }
+        while (subscription.getLag() > 0) {
+            delivered += subscription.poll(4);
+        }
+        assertEquals(40000, delivered + subscription.getMissed()); // Every event is either read or counted as missed
+    }
+}
@@ -0,0 +1,69 @@
+package src.com.BookingClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All venues served by the program, each owned by its own VenueShard.
+ */
+public class VenueRegistry {
+    private final ConcurrentHashMap<String, VenueShard> shards = new ConcurrentHashMap<>(); // Shards by venue name
+    private volatile List<Venue> venues = new ArrayList<>(); // Venues in registration order (replaced, never modified)
+
+    /**
+     * Register a venue, giving it its own writer thread.
+     * @param venue Venue to register.
+     * @return Shard owning the venue.
+     * @throws IllegalArgumentException If a venue with the same name is already registered.
+     */
+    public synchronized VenueShard register(Venue venue) throws IllegalArgumentException {
+        if (shards.containsKey(venue.getName())) {
+            throw new IllegalArgumentException("A venue with this name is already registered");
+        }
+        VenueShard shard = new VenueShard(venue);
+        shards.put(venue.getName(), shard);
+        ArrayList<Venue> registered = new ArrayList<>(venues);
+        registered.add(venue);
+        venues = registered;
+        return shard;
+    }
+
+    /**
+     * Get the shard owning a venue.
+     * @param name Name of venue.
+     * @return Shard of venue.
+     * @throws NoSuchElementException If no venue has the name.
+     */
+    public VenueShard getShard(String name) throws NoSuchElementException {
+        VenueShard shard = shards.get(name);
+        if (shard == null) {
+            throw new NoSuchElementException("The venue requested does not exist");
+        }
+        return shard;
+    }
+
+    /**
+     * Get a venue by name.
+     * @param name Name of venue.
+     * @return Venue, if found.
+     * @throws NoSuchElementException If no venue has the name.
+     */
+    public Venue getVenue(String name) throws NoSuchElementException { return getShard(name).getVenue(); }
+
+    /**
+     * Get all venues in the order they were registered.
+     * @return Venues (must not be modified).
+     */
+    public List<Venue> getVenues() { return venues; }
+
+    /**
+     * Stop the writer threads of all venues.
+     */
+    public void shutdown() {
+        for (VenueShard shard : shards.values()) {
+            shard.shutdown();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The test class VenueRegistryTest.
+ */
+public class VenueRegistryTest
+{
+    VenueRegistry registry;
+    Venue venue;
+    VenueShard shard;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        registry = new VenueRegistry();
+        venue = new Venue("Test Venue", 5, 5);
+        shard = registry.register(venue);
+    }
+
+    @Test
+    public void testRegistersVenuesByName() {
+        Venue other = new Venue("Other Venue", 5, 5);
+        registry.register(other);
+        assertSame(other, registry.getVenue("Other Venue"));
+        assertEquals(2, registry.getVenues().size());
+        assertSame(venue, registry.getVenues().get(0));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(new Venue("Test Venue", 1, 1)));
+        assertThrows(NoSuchElementException.class, () -> registry.getShard("Missing Venue"));
+        registry.shutdown();
+    }
+
+    @Test
+    public void testChangesApplyInOrderOnTheWriter() throws Exception {
+        List<Integer> applied = new ArrayList<>(); // Only touched by the writer
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int change = i;
+            results.add(shard.submit(() -> applied.add(change) && shard.isWriterThread()));
+        }
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        assertEquals(1000, (int) shard.call(applied::size));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) applied.get(i));
+        }
+        assertEquals(1, (int) shard.call(() -> shard.call(() -> 1))); // Nested calls run inline rather than deadlock
+        assertThrows(NoSuchElementException.class, () -> shard.call(() -> { throw new NoSuchElementException("Missing"); }));
+        registry.shutdown();
+    }
+
+    @Test
+    public void testConcurrentShowChangesAreSerialised() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    venue.addShow(String.format("Show %d-%d", thread, i), System.currentTimeMillis() + i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) { thread.join(); }
+        assertEquals(200, venue.getShows().size());
+        assertEquals(200, venue.getShows().stream().mapToInt(Show::getID).distinct().count());
+        for (Show show : venue.getShows()) {
+            assertTrue(venue.hasShow(show.getID()));
+        }
+        registry.shutdown();
+    }
+
+    @Test
+    public void testShutdownAppliesQueuedChangesThenRejects() throws Exception {
+        CompletableFuture<Integer> slow = shard.submit(() -> {
+            try { Thread.sleep(50); } catch (InterruptedException ignored) {}
+            return 1;
+        });
+        CompletableFuture<Integer> queued = shard.submit(() -> 2);
+        registry.shutdown();
+        assertEquals(1, (int) slow.get());
+        assertEquals(2, (int) queued.get()); // Queued before the shutdown, so still applied
+        assertThrows(RejectedExecutionException.class, () -> shard.submit(() -> 3));
+        assertThrows(RejectedExecutionException.class, () -> venue.addShow("Late Show", System.currentTimeMillis()));
+        assertEquals(0, venue.getShows().size());
+    }
+}
@@ -0,0 +1,86 @@
+package src.com.BookingClient;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Owns a venue and the single thread that applies every change to its shows, so changes to one venue are applied in order without locking,
+ * while different venues change in parallel on their own threads.
+ */
+public class VenueShard {
+    private final Venue venue;
+    private final ExecutorService writer; // Single thread applying changes to the venue
+    private volatile Thread writerThread; // Thread of 'writer' (once started)
+
+    /**
+     * Create a shard for a venue and make it the venue's writer.
+     * @param venue Venue to own.
+     */
+    public VenueShard(Venue venue) {
+        this.venue = venue;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "venue-writer-" + venue.getName());
+            thread.setDaemon(true); // Do not keep the program running once sessions have exited
+            writerThread = thread;
+            return thread;
+        });
+        venue.setShard(this);
+    }
+
+    public Venue getVenue() { return venue; }
+
+    /**
+     * Check if the current thread is the venue's writer.
+     * @return True if called from the writer thread.
+     */
+    public boolean isWriterThread() { return Thread.currentThread() == writerThread; }
+
+    /**
+     * Apply a change to the venue on its writer thread, without waiting for it.
+     * @param change Change to apply.
+     * @param <T> Result type of change.
+     * @return Future completed with the change's result (or the exception it threw).
+     * @throws java.util.concurrent.RejectedExecutionException If the shard has been shut down.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> change) {
+        return CompletableFuture.supplyAsync(change, writer);
+    }
+
+    /**
+     * Apply a change to the venue on its writer thread and wait for it. Runs immediately if already on the writer thread.
+     * @param change Change to apply.
+     * @param <T> Result type of change.
+     * @return Result of change.
+     * @throws CancellationException If interrupted while waiting.
+     */
+    public <T> T call(Supplier<T> change) throws CancellationException {
+        if (isWriterThread()) {
+            return change.get();
+        }
+        Future<T> result = writer.submit(change::get);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for venue change");
+        } catch (ExecutionException e) {
+            // Rethrow the change's own exception (i.e. NoSuchElementException) to the caller
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stop the writer thread once queued changes have been applied. Later changes are rejected.
+     */
+    public void shutdown() { writer.shutdown(); }
+}
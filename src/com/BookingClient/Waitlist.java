@@ -0,0 +1,222 @@
+package src.com.BookingClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Waitlist of customers for a show. When seats return to empty, the earliest entries whose requested number of seats
+ * can be filled in their price range have those seats held for them, and receive a WaitlistOffer.
+ * Allocation runs on a background thread shared by all waitlists, so freeing a seat only queues it (and does nothing
+ * if nobody is waiting). Offers not accepted within the offer time to live are released, allocating their seats again.
+ */
+public class Waitlist {
+    /**
+     * A customer waiting for seats.
+     */
+    public static class Entry {
+        private final Customer customer;
+        private final int numSeats;
+        private final float minPrice;
+        private final float maxPrice;
+        private final long sequence; // Order the entry joined in (lower is served first)
+
+        private Entry(Customer customer, int numSeats, float minPrice, float maxPrice, long sequence) {
+            this.customer = customer;
+            this.numSeats = numSeats;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.sequence = sequence;
+        }
+
+        public Customer getCustomer() { return customer; }
+
+        public int getNumSeats() { return numSeats; }
+
+        public float getMinPrice() { return minPrice; }
+
+        public float getMaxPrice() { return maxPrice; }
+
+        public long getSequence() { return sequence; }
+    }
+
+    public static final long DEFAULT_OFFER_TTL_MILLIS = 10 * 60 * 1000; // 10 minutes
+    private static final ScheduledExecutorService allocator = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "waitlist-allocator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Show show;
+    private final PriorityQueue<Entry> entries = new PriorityQueue<>(Comparator.comparingLong(Entry::getSequence));
+    private final ArrayDeque<WaitlistOffer> offers = new ArrayDeque<>(); // Offers made and not yet expired, in the order made
+    private long nextSequence;
+    private volatile int numWaiting; // Size of 'entries', read without the lock when seats are freed
+    private final AtomicBoolean scheduled = new AtomicBoolean(); // Allocation queued and not yet started
+    private volatile long offerTtlMillis = DEFAULT_OFFER_TTL_MILLIS;
+
+    /**
+     * Waitlist constructor.
+     * @param show Show to allocate seats from.
+     */
+    public Waitlist(Show show) {
+        this.show = show;
+    }
+
+    /**
+     * Set how long a customer has to accept an offer before its seats are released. Applies to offers made from now on.
+     * @param millis Offer time to live in milliseconds.
+     */
+    public void setOfferTtl(long millis) { offerTtlMillis = millis; }
+
+    /**
+     * Add customer to the waitlist.
+     * @param customer Customer waiting.
+     * @param numSeats Number of seats requested.
+     * @param minPrice Minimum seat price (inclusive).
+     * @param maxPrice Maximum seat price (inclusive).
+     * @return Position in the waitlist (1 = next to be served).
+     */
+    public synchronized int join(Customer customer, int numSeats, float minPrice, float maxPrice) {
+        entries.add(new Entry(customer, numSeats, minPrice, maxPrice, nextSequence));
+        nextSequence += 1;
+        numWaiting = entries.size();
+        queueAllocation(); // In case seats were freed after the customer searched for them
+        return entries.size();
+    }
+
+    /**
+     * Remove all of a customer's entries from the waitlist.
+     * @param customer Customer to remove.
+     * @return True if the customer was waiting.
+     */
+    public synchronized boolean leave(Customer customer) {
+        boolean removed = entries.removeIf(entry -> entry.getCustomer() == customer);
+        numWaiting = entries.size();
+        return removed;
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    /**
+     * Queue allocation of freed seats to waiting customers. Called by the show whenever a seat returns to empty,
+     * after the seat's lock is released.
+     */
+    void seatsFreed() { queueAllocation(); }
+
+    /**
+     * Queue an allocation pass on the allocator thread unless nobody is waiting or a pass is already queued.
+     */
+    private void queueAllocation() {
+        if (numWaiting == 0 || !scheduled.compareAndSet(false, true)) {
+            return; // Nobody waiting, or a pass is already queued that will see this seat
+        }
+        try {
+            allocator.execute(this::allocateFreed);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * Allocate freed seats on the allocator thread, then schedule the expiry of any offers made.
+     */
+    private void allocateFreed() {
+        scheduled.set(false); // Seats freed from now on queue another pass
+        long ttl = offerTtlMillis;
+        if (allocate(ttl) > 0) {
+            allocator.schedule(this::expireOffers, ttl, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Serve entries in order, holding seats for each entry that can be filled.
+     * @param ttl Time to live of offers made (milliseconds).
+     * @return Number of offers made.
+     */
+    private synchronized int allocate(long ttl) {
+        if (entries.isEmpty()) { return 0; }
+        long expiresAt = System.currentTimeMillis() + ttl;
+        int made = 0;
+        ArrayList<Entry> unfilled = new ArrayList<>();
+        while (!entries.isEmpty()) {
+            Entry entry = entries.poll();
+            List<Seat> held = hold(entry);
+            if (held != null) {
+                WaitlistOffer offer = new WaitlistOffer(show.getVenue(), show.getID(), entry.getCustomer(), held, expiresAt);
+                offers.add(offer);
+                entry.getCustomer().addWaitlistOffer(offer);
+                Metrics.increment(Metrics.Counter.WAITLIST_ALLOCATIONS);
+                made += 1;
+            } else {
+                unfilled.add(entry);
+            }
+        }
+        entries.addAll(unfilled);
+        numWaiting = entries.size();
+        return made;
+    }
+
+    /**
+     * Release offers past their deadline that were neither accepted nor released, allocating their seats again.
+     * @return Number of offers released.
+     */
+    int expireOffers() {
+        long now = System.currentTimeMillis();
+        List<WaitlistOffer> expired = new ArrayList<>();
+        synchronized (this) {
+            Iterator<WaitlistOffer> made = offers.iterator();
+            while (made.hasNext()) {
+                WaitlistOffer offer = made.next();
+                if (!offer.isOpen()) {
+                    made.remove(); // Accepted or declined
+                } else if (offer.getExpiresAt() <= now) {
+                    made.remove();
+                    expired.add(offer);
+                }
+            }
+        }
+        int released = 0;
+        for (WaitlistOffer offer : expired) {
+            if (offer.release()) { // Frees the seats outside the waitlist's lock, queueing another pass
+                released += 1;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Get the number of offers made and not yet expired (some may have been accepted or declined since).
+     * @return Number of offers tracked for expiry.
+     */
+    public synchronized int getNumOffers() { return offers.size(); }
+
+    /**
+     * Hold the best seats for an entry.
+     * @param entry Entry to hold seats for.
+     * @return Held seats, or null if the entry could not be filled.
+     */
+    private List<Seat> hold(Entry entry) {
+        List<Seat> seats = show.findBestSeats(entry.getNumSeats(), entry.getMinPrice(), entry.getMaxPrice());
+        if (seats.isEmpty()) { return null; }
+        ArrayList<Seat> held = new ArrayList<>();
+        for (Seat seat : seats) {
+            if (seat.hold(entry.customer.getID())) {
+                held.add(seat);
+            } else {
+                // Taken by a session since it was found, give back what was held
+                for (Seat heldSeat : held) { heldSeat.release(entry.customer.getID()); }
+                return null;
+            }
+        }
+        return held;
+    }
+}
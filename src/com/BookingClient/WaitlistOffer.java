@@ -0,0 +1,69 @@
+package src.com.BookingClient;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Seats held for a customer from a show's waitlist, waiting for the customer to pay or decline.
+ * An offer not accepted by its deadline is released by the waitlist, so seats are not held for a customer who never returns.
+ */
+public class WaitlistOffer {
+    private final Venue venue;
+    private final int showID;
+    private final Customer customer;
+    private final List<Seat> seats;
+    private final long expiresAt; // Epoch milliseconds
+    private final AtomicBoolean settled = new AtomicBoolean(); // Set once accepted or released
+
+    /**
+     * WaitlistOffer constructor.
+     * @param venue Venue of the show (may be null if the show is not in a venue).
+     * @param showID Show the seats belong to.
+     * @param customer Customer the seats are held for.
+     * @param seats Seats held for the customer.
+     * @param expiresAt Time the offer is released if not accepted (epoch milliseconds).
+     */
+    public WaitlistOffer(Venue venue, int showID, Customer customer, List<Seat> seats, long expiresAt) {
+        this.venue = venue;
+        this.showID = showID;
+        this.customer = customer;
+        this.seats = seats;
+        this.expiresAt = expiresAt;
+    }
+
+    public Venue getVenue() { return venue; }
+
+    public int getShowID() { return showID; }
+
+    public Customer getCustomer() { return customer; }
+
+    public List<Seat> getSeats() { return seats; }
+
+    public long getExpiresAt() { return expiresAt; }
+
+    /**
+     * Check if the offer can still be accepted.
+     * @return True if neither accepted nor released.
+     */
+    public boolean isOpen() { return !settled.get(); }
+
+    /**
+     * Accept the offer, so its seats stay held for the customer to pay for.
+     * @return True if accepted, false if the offer was already released (i.e. it expired).
+     */
+    public boolean accept() { return settled.compareAndSet(false, true); }
+
+    /**
+     * Release the held seats (which may allocate them to the next customer on the waitlist). Does nothing once accepted or released.
+     * Only seats still held for the customer are released.
+     * @return True if the offer was open and is now released.
+     */
+    public boolean release() {
+        if (!settled.compareAndSet(false, true)) { return false; }
+        for (Seat seat : seats) {
+            seat.release(customer.getID());
+        }
+        customer.removeWaitlistOffer(this);
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+package src.com.BookingClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The test class WaitlistTest.
+ */
+public class WaitlistTest
+{
+    Venue venue;
+    Show show;
+    List<Customer> customers;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        venue = new Venue("Test Venue", 2, 2);
+        venue.addShow("Test Show", System.currentTimeMillis());
+        show = venue.getShows().get(0);
+        customers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            customers.add(new Customer("wef","wef" + i,"wef" + i + "@wef.com", "07259622506", "wefwef", "04/07/2001", "1 Normal Place, Somewhere, SW26 6EB"));
+        }
+        for (int seatID = 0; seatID < 4; seatID++) {
+            assertTrue(show.getSeat(seatID).hold(customers.get(0).getID())); // Sold out to the first customer
+        }
+    }
+
+    /**
+     * Wait up to 5 seconds for a condition.
+     * @param condition Condition to wait for.
+     * @return Whether the condition was met.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        return condition.getAsBoolean();
+    }
+
+    @Test
+    public void testFreedSeatsAreOfferedInOrder() throws InterruptedException {
+        Customer first = customers.get(1);
+        Customer second = customers.get(2);
+        assertEquals(1, show.getWaitlist().join(first, 2, 0, 100));
+        assertEquals(2, show.getWaitlist().join(second, 1, 0, 100));
+        show.getSeat(0).release(customers.get(0).getID());
+        assertTrue(await(second::hasWaitlistOffers)); // First needs two seats, so second is served
+        assertFalse(first.hasWaitlistOffers());
+        show.getSeat(1).setEmpty();
+        show.getSeat(2).setEmpty();
+        assertTrue(await(first::hasWaitlistOffers));
+        WaitlistOffer offer = first.pollWaitlistOffer();
+        assertSame(venue, offer.getVenue());
+        assertEquals(show.getID(), offer.getShowID());
+        assertEquals(2, offer.getSeats().size());
+        for (Seat seat : offer.getSeats()) {
+            assertEquals(first.getID(), seat.getHolder());
+        }
+        assertEquals(0, show.getWaitlist().size());
+    }
+
+    @Test
+    public void testExpiredOfferIsReleasedToTheNextCustomer() throws InterruptedException {
+        Customer first = customers.get(1);
+        Customer second = customers.get(2);
+        show.getWaitlist().setOfferTtl(50);
+        show.getWaitlist().join(first, 1, 0, 100);
+        show.getWaitlist().join(second, 1, 0, 100);
+        show.getSeat(3).setEmpty();
+        assertTrue(await(second::hasWaitlistOffers)); // Offered to the first customer, then to the second once that offer expires
+        assertFalse(first.hasWaitlistOffers());
+        assertEquals(second.getID(), show.getSeat(3).getHolder());
+        WaitlistOffer offer = second.pollWaitlistOffer();
+        assertTrue(offer.accept());
+        Thread.sleep(100);
+        assertEquals(0, show.getWaitlist().expireOffers()); // Accepted offers are kept
+        assertEquals(second.getID(), show.getSeat(3).getHolder());
+        assertFalse(offer.release());
+    }
+
+    @Test
+    public void testDeclinedOfferFreesSeats() throws InterruptedException {
+        Customer first = customers.get(1);
+        show.getWaitlist().join(first, 1, 0, 100);
+        show.getSeat(3).setEmpty();
+        assertTrue(await(first::hasWaitlistOffers));
+        WaitlistOffer offer = first.pollWaitlistOffer();
+        assertTrue(offer.release());
+        assertFalse(offer.accept());
+        assertEquals(Seat.SeatStatus.EMPTY, show.getSeat(3).getStatus());
+    }
+
+    @Test
+    public void testPayingForOfferAtAnotherVenueKeepsSessionVenue() throws InterruptedException {
+        Customer first = customers.get(1);
+        show.getWaitlist().join(first, 1, 0, 100);
+        show.getSeat(3).setEmpty();
+        assertTrue(await(first::hasWaitlistOffers));
+        Venue home = new Venue("Home Venue", 2, 2);
+        ArrayList<User> users = new ArrayList<>(customers);
+        String script = String.join("\n", "l", "wef1", "wefwef", "a", "1234-5678-9012-3456", "123");
+        Session session = new Session(home, users, new ScannerInput(script));
+        AtomicReference<Venue> paidAt = new AtomicReference<>();
+        Thread client = new Thread(() -> {
+            // Step through login, the offer, and payment, back to the logged in menu
+            do {
+                session.step();
+                if (session.getState() == Main.ProgramState.PAYMENT) {
+                    paidAt.set(session.getVenue());
+                }
+            } while (session.getState() != Main.ProgramState.LOGGED_IN || paidAt.get() == null);
+        });
+        client.start();
+        client.join(5000);
+        assertSame(venue, paidAt.get());
+        assertSame(home, session.getVenue()); // Back to the session's own venue once paid
+        assertEquals(Seat.SeatStatus.BOOKED, show.getSeat(3).getStatus());
+        assertEquals(first.getID(), show.getSeat(3).getHolder());
+    }
+}